@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Base85 family of codecs against Base64.
+ *
+ * @author Robert J. Buck
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base85Benchmark {
+
+    @Param({"base64", "base85", "z85", "ascii85"})
+    private String codecName;
+
+    @Param({"16", "1024", "65536"})
+    private int size;
+
+    private CodecEncoder encoder;
+    private CodecDecoder decoder;
+    private byte[] raw;
+    private byte[] encoded;
+    private byte[] decoded;
+
+    @Setup
+    public void setup() {
+        Codec codec = Codec.forName(codecName);
+        encoder = codec.newEncoder();
+        decoder = codec.newDecoder();
+        raw = new byte[size];
+        new Random(85).nextBytes(raw);
+        encoded = encoder.encode(raw);
+        decoded = new byte[decoder.maxDecodedLength(encoded.length)];
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return encoder.encode(raw);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return decoder.decode(encoded);
+    }
+
+    @Benchmark
+    public int decodeInto() {
+        return decoder.decode(encoded, 0, encoded.length, decoded, 0);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import com.buck.common.codec.spi.ScratchBuffers;
+
+import java.util.Arrays;
+
+/**
+ * Codec for the Adobe Ascii85 encoding, as used by PostScript and PDF.
+ * <p/>
+ * Groups of four bytes are encoded as five characters from <tt>'!'</tt> to
+ * <tt>'u'</tt>, as for {@link Base85}, except that a group of four zero bytes
+ * is encoded as the single character <tt>'z'</tt>. The encoder does not emit
+ * the <tt>&lt;~</tt> and <tt>~&gt;</tt> delimiters; the decoder accepts
+ * them, and ignores white space.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Ascii85 extends Codec {
+
+    static private final int BASELENGTH = 256;
+    static private final int LOOKUPLENGTH = 85;
+    static private final int FOURBYTE = 4;
+    static private final int FIVEBYTE = 5;
+    static private final long MAX_GROUP = 0xFFFFFFFFL;
+    static private final byte ZERO_GROUP = 'z';
+
+    static final private byte[] ascii85Alphabet = new byte[BASELENGTH];
+    static final private byte[] lookUpAscii85Alphabet = new byte[LOOKUPLENGTH];
+
+    static {
+        Arrays.fill(ascii85Alphabet, (byte) -1);
+        for (int i = 0; i < LOOKUPLENGTH; i++) {
+            lookUpAscii85Alphabet[i] = (byte) ('!' + i);
+            ascii85Alphabet['!' + i] = (byte) i;
+        }
+    }
+
+    private static boolean isWhiteSpace(byte octet) {
+        return (octet == 0x20 || octet == 0xd || octet == 0xa || octet == 0x9);
+    }
+
+    public Ascii85() {
+        super("ascii85", StandardCodecs.aliases_Ascii85);
+    }
+
+    private static class Decoder extends CodecDecoder {
+        public Decoder(Codec codec) {
+            super(codec);
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            // a tighter bound than maxDecodedLength, since few groups are zero
+            int zeros = 0;
+            for (byte b : encoded) {
+                if (b == ZERO_GROUP) {
+                    zeros++;
+                }
+            }
+            byte[] decoded = ScratchBuffers.acquire(((encoded.length - zeros) / FIVEBYTE + 1) * FOURBYTE + zeros * FOURBYTE);
+            try {
+                int n = decode(encoded, 0, encoded.length, decoded, 0);
+                if (n < 0) {
+                    return null;
+                }
+                return Arrays.copyOf(decoded, n);
+            } finally {
+                ScratchBuffers.release(decoded);
+            }
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            // every character could be a zero group
+            return len * FOURBYTE;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            return decode0(src, off, len, dst, dstOff);
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            int n = decode0(src, off, len, null, 0);
+            return n < 0 ? -n - 1 : -1;
+        }
+
+        /**
+         * Decodes into the destination, or only checks the input if the
+         * destination is <tt>null</tt>.
+         */
+        private int decode0(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final byte[] table = ascii85Alphabet;
+            int end = off + len;
+            int dataIndex = off;
+            int decodedIndex = dstOff;
+            if (len >= 2 && src[off] == '<' && src[off + 1] == '~') {
+                dataIndex += 2;
+            }
+            long v = 0;
+            int count = 0;
+            int groupStart = dataIndex;
+            for (; dataIndex < end; dataIndex++) {
+                if (count == 0) {
+                    // fast path over whole groups of data
+                    while (dataIndex + FIVEBYTE <= end) {
+                        int d0 = table[src[dataIndex] & 0xff];
+                        int d1 = table[src[dataIndex + 1] & 0xff];
+                        int d2 = table[src[dataIndex + 2] & 0xff];
+                        int d3 = table[src[dataIndex + 3] & 0xff];
+                        int d4 = table[src[dataIndex + 4] & 0xff];
+                        if ((d0 | d1 | d2 | d3 | d4) < 0) {
+                            break;
+                        }
+                        long group = (((d0 * 85L + d1) * 85 + d2) * 85 + d3) * 85 + d4;
+                        if (group > MAX_GROUP) {
+                            return -(dataIndex + 1);
+                        }
+                        if (dst != null) {
+                            dst[decodedIndex] = (byte) (group >>> 24);
+                            dst[decodedIndex + 1] = (byte) (group >>> 16);
+                            dst[decodedIndex + 2] = (byte) (group >>> 8);
+                            dst[decodedIndex + 3] = (byte) group;
+                        }
+                        decodedIndex += FOURBYTE;
+                        dataIndex += FIVEBYTE;
+                    }
+                    if (dataIndex == end) {
+                        break;
+                    }
+                }
+                byte octet = src[dataIndex];
+                int d = table[octet & 0xff];
+                if (d >= 0) {
+                    if (count == 0) {
+                        groupStart = dataIndex;
+                    }
+                    v = v * 85 + d;
+                    if (++count == FIVEBYTE) {
+                        if (v > MAX_GROUP) {
+                            return -(groupStart + 1);
+                        }
+                        if (dst != null) {
+                            dst[decodedIndex] = (byte) (v >>> 24);
+                            dst[decodedIndex + 1] = (byte) (v >>> 16);
+                            dst[decodedIndex + 2] = (byte) (v >>> 8);
+                            dst[decodedIndex + 3] = (byte) v;
+                        }
+                        decodedIndex += FOURBYTE;
+                        v = 0;
+                        count = 0;
+                    }
+                } else if (octet == ZERO_GROUP && count == 0) {
+                    if (dst != null) {
+                        Arrays.fill(dst, decodedIndex, decodedIndex + FOURBYTE, (byte) 0);
+                    }
+                    decodedIndex += FOURBYTE;
+                } else if (octet == '~') {
+                    // the end of data delimiter; only white space may follow
+                    if (dataIndex + 1 >= end || src[dataIndex + 1] != '>') {
+                        return -(dataIndex + 1);
+                    }
+                    for (int k = dataIndex + 2; k < end; k++) {
+                        if (!isWhiteSpace(src[k])) {
+                            return -(k + 1);
+                        }
+                    }
+                    end = dataIndex;
+                    break;
+                } else if (!isWhiteSpace(octet)) {
+                    return -(dataIndex + 1);
+                }
+            }
+            if (count > 0) {
+                // a trailing partial group, padded with the highest digit
+                if (count == 1) {
+                    return -(end + 1);
+                }
+                for (int k = count; k < FIVEBYTE; k++) {
+                    v = v * 85 + 84;
+                }
+                if (v > MAX_GROUP) {
+                    return -(groupStart + 1);
+                }
+                for (int k = 0; k < count - 1; k++) {
+                    if (dst != null) {
+                        dst[decodedIndex] = (byte) (v >>> (24 - 8 * k));
+                    }
+                    decodedIndex++;
+                }
+            }
+            return decodedIndex - dstOff;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    private static class Encoder extends CodecEncoder {
+        public Encoder(Codec codec) {
+            super(codec);
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            final int size = bytes.length;
+            final int rem = size % FOURBYTE;
+            int zeros = 0;
+            for (int i = 0; i + FOURBYTE <= size; i += FOURBYTE) {
+                if ((bytes[i] | bytes[i + 1] | bytes[i + 2] | bytes[i + 3]) == 0) {
+                    zeros++;
+                }
+            }
+            byte[] encoded = new byte[(size / FOURBYTE - zeros) * FIVEBYTE + zeros + (rem == 0 ? 0 : rem + 1)];
+            int dataIndex = 0;
+            int encodedIndex = 0;
+            for (; dataIndex + FOURBYTE <= size; dataIndex += FOURBYTE) {
+                int group = (bytes[dataIndex] << 24) | ((bytes[dataIndex + 1] & 0xff) << 16) |
+                        ((bytes[dataIndex + 2] & 0xff) << 8) | (bytes[dataIndex + 3] & 0xff);
+                if (group == 0) {
+                    encoded[encodedIndex++] = ZERO_GROUP;
+                } else {
+                    Base85.encodeGroup(lookUpAscii85Alphabet, group, encoded, encodedIndex, FIVEBYTE);
+                    encodedIndex += FIVEBYTE;
+                }
+            }
+            if (rem > 0) {
+                int group = 0;
+                for (int k = 0; k < rem; k++) {
+                    group |= (bytes[dataIndex + k] & 0xff) << (24 - 8 * k);
+                }
+                Base85.encodeGroup(lookUpAscii85Alphabet, group, encoded, encodedIndex, rem + 1);
+            }
+            return encoded;
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this);
+    }
+}
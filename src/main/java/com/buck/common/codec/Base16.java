@@ -16,6 +16,12 @@
 
 package com.buck.common.codec;
 
+import com.buck.common.codec.spi.ScratchBuffers;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.zip.Checksum;
+
 /**
  * Encodes and decodes data using the Base16 encoding. See RFC 4648 which is
  * available at http://www.ietf.org/rfc/rfc4648.txt
@@ -27,27 +33,142 @@ public class Base16 extends Codec {
     /**
      * The Base16 alphabet according to Section 8 of RFC 4648.
      */
-    private static final byte[] base16Alphabet = {
+    static final byte[] base16Alphabet = {
             '0', '1', '2', '3', '4', '5', '6', '7',
             '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
     };
 
-    private static final byte[] base16DecodeTable;
+    static final byte[] base16DecodeTable;
+
+    private static final int WIDE_THRESHOLD = 64;
 
     static {
-        base16DecodeTable = new byte[128];
+        base16DecodeTable = new byte[256];
         for (int i = 0; i < base16DecodeTable.length; i++) {
             base16DecodeTable[i] = (byte) 0xFF;
         }
         for (int i = 0; i < base16Alphabet.length; i++) {
             base16DecodeTable[base16Alphabet[i]] = (byte) i;
         }
+        // decoding is case-insensitive
+        for (int i = 'a'; i <= 'f'; i++) {
+            base16DecodeTable[i] = (byte) (i - 'a' + 10);
+        }
     }
 
     public Base16() {
         super("base16", StandardCodecs.aliases_Base16);
     }
 
+    @Override
+    public CodecEngine engine() {
+        return Base16Kernel.INSTANCE.engine();
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        return new BlockLayout(1, 2, null, "", -1);
+    }
+
+    /**
+     * Completes a message digest and writes it in hex into a caller supplied
+     * buffer, which must have room for twice the digest length. The digest is
+     * written to the second half of the range and expanded in place, so no
+     * intermediate arrays are allocated. The digest is reset.
+     *
+     * @param digest the message digest to complete
+     * @param dst    the destination buffer
+     * @param off    the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public static int encodeDigest(MessageDigest digest, byte[] dst, int off) {
+        int len = digest.getDigestLength();
+        if (len == 0) {
+            // the provider does not know the length in advance
+            byte[] bytes = digest.digest();
+            len = bytes.length;
+            System.arraycopy(bytes, 0, dst, off + len, len);
+        } else {
+            try {
+                digest.digest(dst, off + len, len);
+            } catch (DigestException e) {
+                throw new CodecMalfunctionError(e);
+            }
+        }
+        // each byte is read before the two characters replacing it are written
+        for (int i = 0; i < len; i++) {
+            int b = dst[off + len + i];
+            dst[off + 2 * i] = base16Alphabet[(b >> 4) & 0x0F];
+            dst[off + 2 * i + 1] = base16Alphabet[b & 0x0F];
+        }
+        return len * 2;
+    }
+
+    /**
+     * Completes a message digest and appends it in hex to a string builder.
+     * The digest is written to a per-thread scratch buffer, so no
+     * intermediate arrays are allocated. The digest is reset.
+     *
+     * @param digest the message digest to complete
+     * @param dst    the string builder to append to
+     * @return the string builder
+     */
+    public static StringBuilder encodeDigest(MessageDigest digest, StringBuilder dst) {
+        int len = digest.getDigestLength();
+        byte[] bytes;
+        if (len == 0) {
+            // the provider does not know the length in advance
+            bytes = digest.digest();
+            len = bytes.length;
+        } else {
+            bytes = ScratchBuffers.acquire(len);
+            try {
+                digest.digest(bytes, 0, len);
+            } catch (DigestException e) {
+                throw new CodecMalfunctionError(e);
+            }
+        }
+        dst.ensureCapacity(dst.length() + len * 2);
+        for (int i = 0; i < len; i++) {
+            byte b = bytes[i];
+            dst.append((char) base16Alphabet[(b >> 4) & 0x0F]);
+            dst.append((char) base16Alphabet[b & 0x0F]);
+        }
+        ScratchBuffers.release(bytes);
+        return dst;
+    }
+
+    /**
+     * Writes the value of a checksum, such as {@link java.util.zip.CRC32} or
+     * {@link java.util.zip.Adler32}, as eight hex characters into a caller
+     * supplied buffer. The JDK checksums are 32 bits wide; higher bits are
+     * ignored.
+     *
+     * @param checksum the checksum
+     * @param dst      the destination buffer
+     * @param off      the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public static int encodeChecksum(Checksum checksum, byte[] dst, int off) {
+        return FixedWidth.encode(base16Alphabet, 4, checksum.getValue(), 32, dst, off);
+    }
+
+    /**
+     * Appends the value of a checksum as eight hex characters to a string
+     * builder. See {@link #encodeChecksum(Checksum, byte[], int)}.
+     *
+     * @param checksum the checksum
+     * @param dst      the string builder to append to
+     * @return the string builder
+     */
+    public static StringBuilder encodeChecksum(Checksum checksum, StringBuilder dst) {
+        int value = (int) checksum.getValue();
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            dst.append((char) base16Alphabet[(value >>> shift) & 0x0F]);
+        }
+        return dst;
+    }
+
     /**
      * Decodes a byte array using the Base16 codec.
      */
@@ -57,16 +178,96 @@ public class Base16 extends Codec {
         }
 
         public byte[] decode(byte[] encoded) {
-            final int size = encoded.length;
-            byte[] decoded = new byte[size / 2];
-            int baIdx = 0;
-            for (int caIdx = 0; caIdx < size;) {
-                byte c0 = base16DecodeTable[encoded[caIdx++]];
-                byte c1 = base16DecodeTable[encoded[caIdx++]];
-                decoded[baIdx++] = (byte) ((c0 << 4) | c1);
+            if (encoded == null) {
+                return null;
+            }
+            byte[] decoded = new byte[maxDecodedLength(encoded.length)];
+            if (decode(encoded, 0, encoded.length, decoded, 0) < 0) {
+                return null;
             }
             return decoded;
         }
+
+        @Override
+        public byte[] decodeString(CharSequence encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            // decodes the characters directly, without an intermediate copy
+            final int len = encoded.length();
+            byte[] decoded = new byte[len / 2];
+            boolean malformed = (len & 1) != 0;
+            for (int caIdx = 0; caIdx < len; caIdx++) {
+                char c = encoded.charAt(caIdx);
+                if (c > 0xff) {
+                    throw MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                            new Object[]{codec().name(), caIdx}, caIdx);
+                }
+                int v = base16DecodeTable[c];
+                if (v < 0) {
+                    malformed = true;
+                } else if (!malformed) {
+                    int baIdx = caIdx >> 1;
+                    decoded[baIdx] = (caIdx & 1) == 0 ? (byte) (v << 4) : (byte) (decoded[baIdx] | v);
+                }
+            }
+            return malformed ? null : decoded;
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return len / 2;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final int end = off + len;
+            int caIdx = off + Base16Kernel.INSTANCE.decode(src, off, end, dst, dstOff);
+            if (caIdx + 1 < end) {
+                // the pair at caIdx holds a character outside the alphabet
+                return base16DecodeTable[src[caIdx] & 0xff] < 0 ? -(caIdx + 1) : -(caIdx + 2);
+            }
+            if (caIdx < end) {
+                // an odd number of characters
+                return base16DecodeTable[src[caIdx] & 0xff] < 0 ? -(caIdx + 1) : -(end + 1);
+            }
+            return (caIdx - off) / 2;
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            final byte[] table = base16DecodeTable;
+            final int end = off + len;
+            int caIdx = off;
+            if (len >= WIDE_THRESHOLD) {
+                // wide path over eight characters at a time, with a single
+                // branch per block
+                while (caIdx + 8 <= end &&
+                        (table[src[caIdx] & 0xff] | table[src[caIdx + 1] & 0xff] |
+                                table[src[caIdx + 2] & 0xff] | table[src[caIdx + 3] & 0xff] |
+                                table[src[caIdx + 4] & 0xff] | table[src[caIdx + 5] & 0xff] |
+                                table[src[caIdx + 6] & 0xff] | table[src[caIdx + 7] & 0xff]) >= 0) {
+                    caIdx += 8;
+                }
+            }
+            for (; caIdx < end; caIdx++) {
+                if (table[src[caIdx] & 0xff] < 0) {
+                    return caIdx;
+                }
+            }
+            // an odd number of characters
+            return (len & 1) != 0 ? end : -1;
+        }
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return FixedWidth.decode(codec(), base16DecodeTable, 4, 64, src, off, len);
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            return (int) FixedWidth.decode(codec(), base16DecodeTable, 4, 32, src, off, len);
+        }
     }
 
     public CodecDecoder newDecoder() {
@@ -82,14 +283,48 @@ public class Base16 extends Codec {
         }
 
         public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            byte[] encoded = new byte[bytes.length * 2];
+            encode(bytes, 0, bytes.length, encoded, 0);
+            return encoded;
+        }
+
+        @Override
+        public int maxEncodedLength(int len) {
+            return len * 2;
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            Base16Kernel.INSTANCE.encode(src, off, len, dst, dstOff);
+            return len * 2;
+        }
+
+        @Override
+        public StringBuilder encode(byte[] bytes, StringBuilder dst) {
+            if (bytes == null) {
+                return null;
+            }
+            // appends the characters directly, without an intermediate copy
             final int size = bytes.length;
-            byte[] encoded = new byte[size * 2];
-            int caIdx = 0;
+            dst.ensureCapacity(dst.length() + size * 2);
             for (int baIdx = 0; baIdx < size; baIdx++) {
-                encoded[caIdx++] = base16Alphabet[((bytes[baIdx] >> 4) & 0x0F)];
-                encoded[caIdx++] = base16Alphabet[((bytes[baIdx]) & 0x0F)];
+                dst.append((char) base16Alphabet[((bytes[baIdx] >> 4) & 0x0F)]);
+                dst.append((char) base16Alphabet[((bytes[baIdx]) & 0x0F)]);
             }
-            return encoded;
+            return dst;
+        }
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            return FixedWidth.encode(base16Alphabet, 4, value, 64, dst, off);
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            return FixedWidth.encode(base16Alphabet, 4, value, 32, dst, off);
         }
     }
 
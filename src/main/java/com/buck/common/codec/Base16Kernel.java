@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The inner loops of the Base16 codec, over whole bytes and whole pairs of
+ * characters. There is a kernel for each engine, and every kernel must
+ * produce exactly the same output as the scalar one.
+ *
+ * @author Robert J. Buck
+ */
+abstract class Base16Kernel {
+
+    /**
+     * The kernel the codec runs on, picked when this class is initialized.
+     */
+    static final Base16Kernel INSTANCE = forEngine(EngineRegistry.select(engines()));
+
+    /**
+     * Returns the engines there are kernels for on this runtime.
+     *
+     * @return the engines
+     */
+    static Set<CodecEngine> engines() {
+        Set<CodecEngine> engines = EnumSet.of(CodecEngine.SCALAR, CodecEngine.SWAR);
+        if (VectorSupport.base16Kernel() != null) {
+            engines.add(CodecEngine.VECTOR);
+        }
+        return engines;
+    }
+
+    /**
+     * Returns a kernel for an engine.
+     *
+     * @param engine one of the engines returned by {@link #engines()}
+     * @return the kernel
+     */
+    static Base16Kernel forEngine(CodecEngine engine) {
+        if (engine == CodecEngine.VECTOR) {
+            return VectorSupport.base16Kernel();
+        }
+        if (engine == CodecEngine.SWAR) {
+            return new SwarBase16Kernel();
+        }
+        return new ScalarBase16Kernel();
+    }
+
+    /**
+     * Returns the engine this kernel runs on.
+     *
+     * @return the engine
+     */
+    abstract CodecEngine engine();
+
+    /**
+     * Encodes bytes as pairs of characters.
+     *
+     * @param src    the data
+     * @param off    the offset of the data in <tt>src</tt>
+     * @param len    the number of bytes to encode
+     * @param dst    the destination, with room for <tt>len * 2</tt> bytes
+     * @param dstOff the offset in the destination to write to
+     */
+    abstract void encode(byte[] src, int off, int len, byte[] dst, int dstOff);
+
+    /**
+     * Decodes pairs of characters, up to the first pair holding a character
+     * outside the alphabet.
+     *
+     * @param src    the encoded data
+     * @param off    the offset of the encoded data in <tt>src</tt>
+     * @param end    the end of the encoded data in <tt>src</tt>
+     * @param dst    the destination
+     * @param dstOff the offset in the destination to write to
+     * @return the number of characters decoded, an even number
+     */
+    abstract int decode(byte[] src, int off, int end, byte[] dst, int dstOff);
+}
@@ -16,6 +16,8 @@
 
 package com.buck.common.codec;
 
+import java.util.Arrays;
+
 /**
  * Codec for RFC 4648 Base32.
  * <p/>
@@ -26,14 +28,15 @@ package com.buck.common.codec;
  */
 public class Base32 extends Codec {
 
-    static private final int BASELENGTH = 128;
+    static private final int BASELENGTH = 256;
     static private final int LOOKUPLENGTH = 32;
-    static private final int FORTYBITGROUP = 40;
     static private final int EIGHTBIT = 8;
     static private final int SIXTEENBIT = 16;
     static private final int TWENTYFOURBIT = 24;
     static private final int THIRTYTWOBIT = 32;
+    static private final int FIVEBYTE = 5;
     static private final int EIGHTBYTE = 8;
+    static private final int WIDE_THRESHOLD = 64;
     static private final int SIGN = -128;
 
     static private final char PAD = '=';
@@ -43,28 +46,12 @@ public class Base32 extends Codec {
      * Extended alphabet detailed in Section 7 can replace this alphabet with
      * the consequences listed in Section 3.4. Since parity between collation
      * order of decoded and encoded data has been considered unnecessary, the
-     * implementation uses the normative alphabet per Section 6 instead.
+     * implementation uses the normative alphabet per Section 6 instead. The
+     * decode table is dynamically created from this alphabet.
      */
-    private static final byte[] base32Alphabet = new byte[BASELENGTH];
-
-    /**
-     * Table used to decode Base32 encoded data; the table is dynamically
-     * created from the Base32 alphabet.
-     */
-    private static final byte[] lookUpBase32Alphabet = new byte[LOOKUPLENGTH];
+    static final byte[] lookUpBase32Alphabet = new byte[LOOKUPLENGTH];
 
     static {
-        // decoder alphabet
-        for (int i = 0; i < BASELENGTH; ++i) {
-            base32Alphabet[i] = -1;
-        }
-        for (int i = 'Z'; i >= 'A'; i--) {
-            base32Alphabet[i] = (byte) (i - 'A');
-        }
-        for (int i = '7'; i >= '2'; i--) {
-            base32Alphabet[i] = (byte) (i - '2' + 26);
-        }
-
         // encode alphabet
         for (int i = 0; i <= 25; i++) {
             lookUpBase32Alphabet[i] = (byte) ('A' + i);
@@ -82,192 +69,286 @@ public class Base32 extends Codec {
         return (octet == PAD);
     }
 
-    private static boolean isData(byte octet) {
-        return ((0xff & octet) <= BASELENGTH && base32Alphabet[(0xff & octet)] != -1);
+    /**
+     * Table used to encode data; maps quintets to this codec's alphabet.
+     */
+    private final byte[] encodeTable;
+
+    /**
+     * Table used to decode data; maps octets to quintets, or to -1 if the
+     * octet is not part of this codec's alphabet.
+     */
+    private final byte[] decodeTable;
+
+    /**
+     * Whether the encoded data is padded to a multiple of eight characters.
+     */
+    private final boolean pad;
+
+    public Base32() {
+        this("base32", StandardCodecs.aliases_Base32, lookUpBase32Alphabet);
     }
 
     /**
-     * Remove whitespace from MIME containing encoded Base32 data.
+     * Initializes a Base32 codec using an alternative alphabet, such as the
+     * extended hex alphabet.
      *
-     * @param data the byte array of base32 data (with WS)
-     * @return the new length
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param alphabet      the 32 character alphabet
      */
-    private static int removeWhiteSpace(byte[] data) {
-        if (data == null) {
-            return 0;
-        }
+    Base32(String canonicalName, String[] aliases, byte[] alphabet) {
+        this(canonicalName, aliases, alphabet, true);
+    }
 
-        // count characters that's not whitespace
-        int newSize = 0;
-        int len = data.length;
-        for (int i = 0; i < len; i++) {
-            if (!isWhiteSpace(data[i])) {
-                data[newSize++] = data[i];
-            }
+    /**
+     * Initializes a Base32 codec with the given padding.
+     *
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param alphabet      the 32 character alphabet
+     * @param pad           whether encoded data is padded; an unpadded
+     *                      codec rejects padding when decoding
+     */
+    Base32(String canonicalName, String[] aliases, byte[] alphabet, boolean pad) {
+        super(canonicalName, aliases);
+        this.pad = pad;
+        this.encodeTable = alphabet;
+        this.decodeTable = new byte[BASELENGTH];
+        Arrays.fill(decodeTable, (byte) -1);
+        for (int i = 0; i < LOOKUPLENGTH; i++) {
+            decodeTable[alphabet[i]] = (byte) i;
         }
-        return newSize;
     }
 
-    public Base32() {
-        super("base32", StandardCodecs.aliases_Base32);
+    @Override
+    BlockLayout blockLayout() {
+        return new BlockLayout(FIVEBYTE, EIGHTBYTE, null, " \r\n\t", pad ? PAD : -1);
     }
 
     private static class Decoder extends CodecDecoder {
-        public Decoder(Codec codec) {
+
+        private final byte[] decodeTable;
+        private final boolean pad;
+
+        public Decoder(Base32 codec) {
             super(codec);
+            this.decodeTable = codec.decodeTable;
+            this.pad = codec.pad;
         }
 
         public byte[] decode(byte[] encoded) {
             if (encoded == null) {
                 return null;
             }
+            return decodeTrimmed(encoded);
+        }
 
-            // remove white spaces
-            int len = removeWhiteSpace(encoded);
+        @Override
+        public int maxDecodedLength(int len) {
+            return pad ? (len / EIGHTBYTE) * 5 : (int) (len * 5L / EIGHTBYTE);
+        }
 
-            // must be divisible by eight
-            if (len % EIGHTBYTE != 0) {
-                return null;
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final byte[] table = decodeTable;
+            final int end = off + len;
+            int dataIndex = off;
+            int encodedIndex = dstOff;
+            long bits = 0;
+            int count = 0;
+            int last = off;
+            while (dataIndex < end) {
+                if (count == 0) {
+                    // fast path over whole octets of data
+                    while (dataIndex + EIGHTBYTE <= end) {
+                        int b1 = table[src[dataIndex] & 0xff];
+                        int b2 = table[src[dataIndex + 1] & 0xff];
+                        int b3 = table[src[dataIndex + 2] & 0xff];
+                        int b4 = table[src[dataIndex + 3] & 0xff];
+                        int b5 = table[src[dataIndex + 4] & 0xff];
+                        int b6 = table[src[dataIndex + 5] & 0xff];
+                        int b7 = table[src[dataIndex + 6] & 0xff];
+                        int b8 = table[src[dataIndex + 7] & 0xff];
+                        if ((b1 | b2 | b3 | b4 | b5 | b6 | b7 | b8) < 0) {
+                            break;
+                        }
+                        long quantum = (long) b1 << 35 | (long) b2 << 30 | (long) b3 << 25 | (long) b4 << 20 |
+                                b5 << 15 | b6 << 10 | b7 << 5 | b8;
+                        dst[encodedIndex++] = (byte) (quantum >> 32);
+                        dst[encodedIndex++] = (byte) (quantum >> 24);
+                        dst[encodedIndex++] = (byte) (quantum >> 16);
+                        dst[encodedIndex++] = (byte) (quantum >> 8);
+                        dst[encodedIndex++] = (byte) quantum;
+                        dataIndex += EIGHTBYTE;
+                    }
+                    if (dataIndex == end) {
+                        break;
+                    }
+                }
+                byte octet = src[dataIndex];
+                int b = table[octet & 0xff];
+                if (b >= 0) {
+                    bits = bits << 5 | b;
+                    last = dataIndex;
+                    if (++count == EIGHTBYTE) {
+                        dst[encodedIndex++] = (byte) (bits >> 32);
+                        dst[encodedIndex++] = (byte) (bits >> 24);
+                        dst[encodedIndex++] = (byte) (bits >> 16);
+                        dst[encodedIndex++] = (byte) (bits >> 8);
+                        dst[encodedIndex++] = (byte) bits;
+                        bits = 0;
+                        count = 0;
+                    }
+                } else if (pad && isPad(octet) && (count == 2 || count == 4 || count == 5 || count == 7)) {
+                    // the remaining characters may only be pads and white space
+                    int pads = EIGHTBYTE - count;
+                    for (; dataIndex < end; dataIndex++) {
+                        octet = src[dataIndex];
+                        if (isPad(octet) && pads > 0) {
+                            pads--;
+                        } else if (!isWhiteSpace(octet)) {
+                            return -(dataIndex + 1);
+                        }
+                    }
+                    if (pads != 0) {
+                        return -(end + 1);
+                    }
+                    int n = decodeRemainder(bits, count, dst, encodedIndex);
+                    if (n < 0) {
+                        return -(last + 1);
+                    }
+                    return encodedIndex + n - dstOff;
+                } else if (!isWhiteSpace(octet)) {
+                    return -(dataIndex + 1);
+                }
+                dataIndex++;
             }
-
-            int numberOfEights = (len / EIGHTBYTE);
-
-            if (numberOfEights == 0) {
-                // todo: error
-                return EMPTY_STRING;
+            if (count != 0) {
+                // must be divisible by eight, unless unpadded
+                if (pad || !(count == 2 || count == 4 || count == 5 || count == 7)) {
+                    return -(end + 1);
+                }
+                int n = decodeRemainder(bits, count, dst, encodedIndex);
+                if (n < 0) {
+                    return -(last + 1);
+                }
+                return encodedIndex + n - dstOff;
             }
+            return encodedIndex - dstOff;
+        }
 
-            byte b1, b2, b3, b4, b5, b6, b7, b8;
-            byte d1, d2, d3, d4, d5, d6, d7, d8;
-
-            int i = 0;
-            int encodedIndex = 0;
-            int dataIndex = 0;
-            byte[] decodedData = new byte[(numberOfEights) * 5];
-
-            // encode all but last eight
-            for (; i < numberOfEights - 1; i++) {
-
-                if (!isData((d1 = encoded[dataIndex++])) ||
-                        !isData((d2 = encoded[dataIndex++])) ||
-                        !isData((d3 = encoded[dataIndex++])) ||
-                        !isData((d4 = encoded[dataIndex++])) ||
-                        !isData((d5 = encoded[dataIndex++])) ||
-                        !isData((d6 = encoded[dataIndex++])) ||
-                        !isData((d7 = encoded[dataIndex++])) ||
-                        !isData((d8 = encoded[dataIndex++]))) {
-                    // todo error
-                    // if found "no data" just return null
-                    return null;
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            final byte[] table = decodeTable;
+            final boolean wide = len >= WIDE_THRESHOLD;
+            final int end = off + len;
+            int dataIndex = off;
+            int count = 0;
+            int last = off;
+            while (dataIndex < end) {
+                // wide path over eight data characters at a time, with a
+                // single branch per block
+                while (wide && dataIndex + EIGHTBYTE <= end &&
+                        (table[src[dataIndex] & 0xff] | table[src[dataIndex + 1] & 0xff] |
+                                table[src[dataIndex + 2] & 0xff] | table[src[dataIndex + 3] & 0xff] |
+                                table[src[dataIndex + 4] & 0xff] | table[src[dataIndex + 5] & 0xff] |
+                                table[src[dataIndex + 6] & 0xff] | table[src[dataIndex + 7] & 0xff]) >= 0) {
+                    dataIndex += EIGHTBYTE;
+                    last = dataIndex - 1;
                 }
-
-                b1 = base32Alphabet[d1];
-                b2 = base32Alphabet[d2];
-                b3 = base32Alphabet[d3];
-                b4 = base32Alphabet[d4];
-                b5 = base32Alphabet[d5];
-                b6 = base32Alphabet[d6];
-                b7 = base32Alphabet[d7];
-                b8 = base32Alphabet[d8];
-
-                decodedData[encodedIndex++] = (byte) (b1 << 3 | b2 >> 2);
-                decodedData[encodedIndex++] = (byte) (((b2 & 0xf) << 6) | (b3 << 1) | ((b4 >> 4) & 0xf));
-                decodedData[encodedIndex++] = (byte) (((b4 & 0xf) << 4) | ((b5 >> 1) & 0xf));
-                decodedData[encodedIndex++] = (byte) (((b5 & 0xf) << 7) | (b6 << 2) | ((b7 >> 3) & 0xf));
-                decodedData[encodedIndex++] = (byte) (b7 << 5 | b8);
+                if (dataIndex == end) {
+                    break;
+                }
+                byte octet = src[dataIndex];
+                if (table[octet & 0xff] >= 0) {
+                    count = (count + 1) & (EIGHTBYTE - 1);
+                    last = dataIndex;
+                } else if (pad && isPad(octet) && (count == 2 || count == 4 || count == 5 || count == 7)) {
+                    // the remaining characters may only be pads and white space
+                    int pads = EIGHTBYTE - count;
+                    for (; dataIndex < end; dataIndex++) {
+                        octet = src[dataIndex];
+                        if (isPad(octet) && pads > 0) {
+                            pads--;
+                        } else if (!isWhiteSpace(octet)) {
+                            return dataIndex;
+                        }
+                    }
+                    if (pads != 0) {
+                        return end;
+                    }
+                    // the unused trailing bits should be zero
+                    int mask = count == 2 ? 0x3 : count == 4 ? 0xf : count == 5 ? 0x1 : 0x7;
+                    return (table[src[last] & 0xff] & mask) != 0 ? last : -1;
+                } else if (!isWhiteSpace(octet)) {
+                    return dataIndex;
+                }
+                dataIndex++;
             }
-
-            // at least two characters must be data
-            if (!isData((d1 = encoded[dataIndex++])) || !isData((d2 = encoded[dataIndex++]))) {
-                // if found "no data" just return null
-                // todo: error
-                return null;
+            if (!pad && (count == 2 || count == 4 || count == 5 || count == 7)) {
+                // the unused trailing bits of unpadded data should be zero
+                int mask = count == 2 ? 0x3 : count == 4 ? 0xf : count == 5 ? 0x1 : 0x7;
+                return (table[src[last] & 0xff] & mask) != 0 ? last : -1;
             }
-            b1 = base32Alphabet[d1];
-            b2 = base32Alphabet[d2];
-
-            // inspect the remaining bits and determine how to handle
-            d3 = encoded[dataIndex++];
-            d4 = encoded[dataIndex++];
-            d5 = encoded[dataIndex++];
-            d6 = encoded[dataIndex++];
-            d7 = encoded[dataIndex++];
-            d8 = encoded[dataIndex];
-            if (!isData((d3)) || !isData((d4)) || !isData((d5)) || !isData((d6)) || !isData((d7)) || !isData((d8))) {
-                // Check if they are PAD characters
-                if (isPad(d3) && isPad(d4) && isPad(d5) && isPad(d6) && isPad(d7) && isPad(d8)) {
+            return count != 0 ? end : -1;
+        }
+
+        /**
+         * Decodes the quintets of a final, partial octet.
+         *
+         * @return the number of bytes written, or -1 if the unused trailing
+         *         bits are not zero
+         */
+        private static int decodeRemainder(long bits, int count, byte[] dst, int encodedIndex) {
+            switch (count) {
+                case 2:
                     // Six PAD characters; the last two bits should be zero
-                    if ((b2 & 0x3) != 0) {
-                        return null;
+                    if ((bits & 0x3) != 0) {
+                        return -1;
                     }
-                    byte[] tmp = new byte[i * 5 + 1];
-                    System.arraycopy(decodedData, 0, tmp, 0, i * 5);
-                    tmp[encodedIndex] = (byte) (b1 << 3 | b2 >> 2);
-                    return tmp;
-                } else if (!isPad(d3) && !isPad(d4) && isPad(d5) && isPad(d6) && isPad(d7) && isPad(d8)) {
+                    dst[encodedIndex] = (byte) (bits >> 2);
+                    return 1;
+                case 4:
                     // Four PAD characters; the last four bits should be zero
-                    b3 = base32Alphabet[d3];
-                    b4 = base32Alphabet[d4];
-                    if ((b4 & 0xf) != 0) {
-                        return null;
+                    if ((bits & 0xf) != 0) {
+                        return -1;
                     }
-                    byte[] tmp = new byte[i * 5 + 2];
-                    System.arraycopy(decodedData, 0, tmp, 0, i * 5);
-                    tmp[encodedIndex++] = (byte) (b1 << 3 | b2 >> 2);
-                    tmp[encodedIndex] = (byte) (((b2 & 0xf) << 6) | (b3 << 1) | ((b4 >> 4) & 0xf));
-                    return tmp;
-                } else if (!isPad(d3) && !isPad(d4) && !isPad(d5) && isPad(d6) && isPad(d7) && isPad(d8)) {
+                    dst[encodedIndex++] = (byte) (bits >> 12);
+                    dst[encodedIndex] = (byte) (bits >> 4);
+                    return 2;
+                case 5:
                     // Three PAD characters; the last one bit should be zero
-                    b3 = base32Alphabet[d3];
-                    b4 = base32Alphabet[d4];
-                    b5 = base32Alphabet[d5];
-                    if ((b5 & 0x1) != 0) {
-                        return null;
+                    if ((bits & 0x1) != 0) {
+                        return -1;
                     }
-                    byte[] tmp = new byte[i * 5 + 3];
-                    System.arraycopy(decodedData, 0, tmp, 0, i * 5);
-                    tmp[encodedIndex++] = (byte) (b1 << 3 | b2 >> 2);
-                    tmp[encodedIndex++] = (byte) (((b2 & 0xf) << 6) | (b3 << 1) | ((b4 >> 4) & 0xf));
-                    tmp[encodedIndex] = (byte) (((b4 & 0xf) << 4) | ((b5 >> 1) & 0xf));
-                    return tmp;
-                } else if (!isPad(d3) && !isPad(d4) && !isPad(d5) && !isPad(d6) && !isPad(d7) && isPad(d8)) {
+                    dst[encodedIndex++] = (byte) (bits >> 17);
+                    dst[encodedIndex++] = (byte) (bits >> 9);
+                    dst[encodedIndex] = (byte) (bits >> 1);
+                    return 3;
+                case 7:
                     // One PAD character; the last three bits should be zero
-                    b3 = base32Alphabet[d3];
-                    b4 = base32Alphabet[d4];
-                    b5 = base32Alphabet[d5];
-                    b6 = base32Alphabet[d6];
-                    b7 = base32Alphabet[d7];
-                    if ((b7 & 0x7) != 0) {
-                        return null;
+                    if ((bits & 0x7) != 0) {
+                        return -1;
                     }
-                    byte[] tmp = new byte[i * 5 + 4];
-                    System.arraycopy(decodedData, 0, tmp, 0, i * 5);
-                    tmp[encodedIndex++] = (byte) (b1 << 3 | b2 >> 2);
-                    tmp[encodedIndex++] = (byte) (((b2 & 0xf) << 6) | (b3 << 1) | ((b4 >> 4) & 0xf));
-                    tmp[encodedIndex++] = (byte) (((b4 & 0xf) << 4) | ((b5 >> 1) & 0xf));
-                    tmp[encodedIndex] = (byte) (((b5 & 0xf) << 7) | (b6 << 2) | ((b7 >> 3) & 0xf));
-                    return tmp;
-                } else {
-                    // todo: an error like MZ=Q====
-                    return null;
-                }
-            } else {
-                // No PAD characters; e.g. MZXW6YTB
-                b3 = base32Alphabet[d3];
-                b4 = base32Alphabet[d4];
-                b5 = base32Alphabet[d5];
-                b6 = base32Alphabet[d6];
-                b7 = base32Alphabet[d7];
-                b8 = base32Alphabet[d8];
-
-                decodedData[encodedIndex++] = (byte) (b1 << 3 | b2 >> 2);
-                decodedData[encodedIndex++] = (byte) (((b2 & 0xf) << 6) | (b3 << 1) | ((b4 >> 4) & 0xf));
-                decodedData[encodedIndex++] = (byte) (((b4 & 0xf) << 4) | ((b5 >> 1) & 0xf));
-                decodedData[encodedIndex++] = (byte) (((b5 & 0xf) << 7) | (b6 << 2) | ((b7 >> 3) & 0xf));
-                decodedData[encodedIndex] = (byte) (b7 << 5 | b8);
+                    dst[encodedIndex++] = (byte) (bits >> 27);
+                    dst[encodedIndex++] = (byte) (bits >> 19);
+                    dst[encodedIndex++] = (byte) (bits >> 11);
+                    dst[encodedIndex] = (byte) (bits >> 3);
+                    return 4;
+                default:
+                    return -1;
             }
+        }
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return FixedWidth.decode(codec(), decodeTable, 5, 64, src, off, len);
+        }
 
-            return decodedData;
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            return (int) FixedWidth.decode(codec(), decodeTable, 5, 32, src, off, len);
         }
     }
 
@@ -281,28 +362,48 @@ public class Base32 extends Codec {
      * Encodes hex octets into Base64
      */
     private static class Encoder extends CodecEncoder {
-        public Encoder(Codec codec) {
+
+        private final byte[] encodeTable;
+        private final boolean pad;
+
+        public Encoder(Base32 codec) {
             super(codec);
+            this.encodeTable = codec.encodeTable;
+            this.pad = codec.pad;
         }
 
         public byte[] encode(byte[] bytes) {
             if (bytes == null)
                 return null;
 
-            int lengthDataBits = bytes.length * EIGHTBIT;
-            if (lengthDataBits == 0) {
+            if (bytes.length == 0) {
                 return EMPTY_STRING;
             }
+            byte encoded[] = new byte[maxEncodedLength(bytes.length)];
+            encode(bytes, 0, bytes.length, encoded, 0);
+            return encoded;
+        }
 
-            int fewerThan40bits = lengthDataBits % FORTYBITGROUP;
-            int numberQuintets = lengthDataBits / FORTYBITGROUP;
+        @Override
+        public int maxEncodedLength(int len) {
+            int fewerThan40bits = len % FIVEBYTE * EIGHTBIT;
+            int numberQuintets = len / FIVEBYTE;
             int numberOctets = fewerThan40bits != 0 ? numberQuintets + 1 : numberQuintets;
-            byte encoded[] = new byte[numberOctets * 8];
+            // unpadded, a final group of one to four bytes takes 2, 4, 5 or 7 characters
+            int pads = pad ? 0 : fewerThan40bits == EIGHTBIT ? 6 : fewerThan40bits == SIXTEENBIT ? 4 :
+                    fewerThan40bits == TWENTYFOURBIT ? 3 : fewerThan40bits == THIRTYTWOBIT ? 1 : 0;
+            return numberOctets * 8 - pads;
+        }
+
+        @Override
+        public int encode(byte[] bytes, int off, int len, byte[] encoded, int encodedOff) {
+            int fewerThan40bits = len % FIVEBYTE * EIGHTBIT;
+            int numberQuintets = len / FIVEBYTE;
 
             byte b1, b2, b3, b4, b5;
 
-            int encodedIndex = 0;
-            int dataIndex = 0;
+            int encodedIndex = encodedOff;
+            int dataIndex = off;
 
             for (int i = 0; i < numberQuintets; i++) {
                 b1 = bytes[dataIndex++];
@@ -324,14 +425,14 @@ public class Base32 extends Codec {
                 final byte val7 = ((b5 & SIGN) == 0) ? (byte) (b5 >> 5) : (byte) ((b5) >> 5 ^ 0xf8);
                 final byte r5 = (byte) (b5 & 0x1f);
 
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val1 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r1 << 2) | val2];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val3 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r2 << 4) | val4];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r3 << 1) | val5];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val6 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r4 << 3) | val7];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[r5 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[val1 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r1 << 2) | val2];
+                encoded[encodedIndex++] = encodeTable[val3 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r2 << 4) | val4];
+                encoded[encodedIndex++] = encodeTable[(r3 << 1) | val5];
+                encoded[encodedIndex++] = encodeTable[val6 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r4 << 3) | val7];
+                encoded[encodedIndex++] = encodeTable[r5 & 0x1f];
             }
 
             if (fewerThan40bits == EIGHTBIT) {
@@ -341,14 +442,16 @@ public class Base32 extends Codec {
                 final byte val1 = ((b1 & SIGN) == 0) ? (byte) (b1 >> 3) : (byte) ((b1) >> 3 ^ 0xe0);
                 final byte r1 = (byte) (b1 & 0x07);
 
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val1 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[r1 << 2];
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex] = PAD;
+                encoded[encodedIndex++] = encodeTable[val1 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[r1 << 2];
+                if (pad) {
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex] = PAD;
+                }
             } else if (fewerThan40bits == SIXTEENBIT) {
                 // four pad characters
                 b1 = bytes[dataIndex++];
@@ -360,14 +463,16 @@ public class Base32 extends Codec {
                 final byte val3 = ((b2 & SIGN) == 0) ? (byte) (b2 >> 1) : (byte) ((b2) >> 1 ^ 0xe0);
                 final byte r2 = (byte) (b2 & 0x01);
 
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val1 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r1 << 2) | val2];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val3 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[r2 << 4];
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex] = PAD;
+                encoded[encodedIndex++] = encodeTable[val1 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r1 << 2) | val2];
+                encoded[encodedIndex++] = encodeTable[val3 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[r2 << 4];
+                if (pad) {
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex] = PAD;
+                }
             } else if (fewerThan40bits == TWENTYFOURBIT) {
                 // three pad characters
                 b1 = bytes[dataIndex++];
@@ -382,14 +487,16 @@ public class Base32 extends Codec {
                 final byte val4 = ((b3 & SIGN) == 0) ? (byte) (b3 >> 4) : (byte) ((b3) >> 4 ^ 0xf0);
                 final byte r3 = (byte) (b3 & 0x0f);
 
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val1 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r1 << 2) | val2];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val3 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r2 << 4) | val4];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r3 << 1)];
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex] = PAD;
+                encoded[encodedIndex++] = encodeTable[val1 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r1 << 2) | val2];
+                encoded[encodedIndex++] = encodeTable[val3 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r2 << 4) | val4];
+                encoded[encodedIndex++] = encodeTable[(r3 << 1)];
+                if (pad) {
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex] = PAD;
+                }
             } else if (fewerThan40bits == THIRTYTWOBIT) {
                 // one pad character
                 b1 = bytes[dataIndex++];
@@ -408,16 +515,28 @@ public class Base32 extends Codec {
                 final byte val6 = ((b4 & SIGN) == 0) ? (byte) (b4 >> 2) : (byte) ((b4) >> 2 ^ 0xe0);
                 final byte r4 = (byte) (b4 & 0x03);
 
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val1 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r1 << 2) | val2];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val3 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r2 << 4) | val4];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r3 << 1) | val5];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[val6 & 0x1f];
-                encoded[encodedIndex++] = lookUpBase32Alphabet[(r4 << 3)];
-                encoded[encodedIndex] = PAD;
+                encoded[encodedIndex++] = encodeTable[val1 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r1 << 2) | val2];
+                encoded[encodedIndex++] = encodeTable[val3 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r2 << 4) | val4];
+                encoded[encodedIndex++] = encodeTable[(r3 << 1) | val5];
+                encoded[encodedIndex++] = encodeTable[val6 & 0x1f];
+                encoded[encodedIndex++] = encodeTable[(r4 << 3)];
+                if (pad) {
+                    encoded[encodedIndex] = PAD;
+                }
             }
-            return encoded;
+            return maxEncodedLength(len);
+        }
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            return FixedWidth.encode(encodeTable, 5, value, 64, dst, off);
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            return FixedWidth.encode(encodeTable, 5, value, 32, dst, off);
         }
     }
 
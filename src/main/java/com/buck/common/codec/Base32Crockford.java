@@ -0,0 +1,557 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Codec for Douglas Crockford's Base32 encoding.
+ * <p/>
+ * The alphabet consists of the digits and the uppercase letters except
+ * <tt>I</tt>, <tt>L</tt>, <tt>O</tt> and <tt>U</tt>, and is in ascending
+ * ASCII order, so fixed width encodings preserve the sort order of the data.
+ * Decoding is lenient: lowercase letters are accepted, <tt>I</tt> and
+ * <tt>L</tt> decode as <tt>1</tt>, <tt>O</tt> decodes as <tt>0</tt>, and
+ * hyphens are ignored. A single decode table handles all of these, so the
+ * leniency costs nothing per character on well formed input.
+ * <p/>
+ * Byte arrays are encoded five bits at a time, most significant bit first, as
+ * for {@link Base32} but without padding. The <tt>base32-crockford-check</tt>
+ * variant appends Crockford's check symbol, the value of the encoded symbols
+ * modulo 37, and verifies it when decoding.
+ * <p/>
+ * Integers have a fixed width form that needs no byte arrays at all: {@link
+ * #encodeLong(long)} writes a 64-bit value as 13 characters, and {@link
+ * #encodeUUID(UUID)} writes a 128-bit value as 26 characters, the same form
+ * that ULIDs use. Both are the plain base 32 digits of the unsigned value, so
+ * encoded values sort as the unsigned values do. The encoders and decoders of
+ * both codecs use the same digit form for {@link CodecEncoder#encodeLong(long,
+ * byte[], int)} and {@link CodecEncoder#encodeInt(int, byte[], int)}, without
+ * a check symbol, rather than the bit string form used for byte arrays.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base32Crockford extends Codec {
+
+    static private final int BASELENGTH = 256;
+    static private final int LOOKUPLENGTH = 32;
+    static private final int FIVEBYTE = 5;
+    static private final int EIGHTBYTE = 8;
+    static private final int CHECK_MODULUS = 37;
+
+    /**
+     * The value of 2<sup>40</sup> modulo 37, used to fold a whole group of
+     * eight symbols into the check value at once.
+     */
+    static private final long GROUP_CHECK_FACTOR = (1L << 40) % CHECK_MODULUS;
+
+    /**
+     * The decode table entry for a hyphen, which is skipped.
+     */
+    static private final byte HYPHEN = -2;
+
+    /**
+     * The number of characters in an encoded 64-bit value.
+     */
+    public static final int LONG_LENGTH = 13;
+
+    /**
+     * The number of characters in an encoded 128-bit value.
+     */
+    public static final int UUID_LENGTH = 26;
+
+    /**
+     * The alphabet, followed by the five additional check symbols.
+     */
+    static private final byte[] lookUpCrockfordAlphabet = Base85.alphabet(
+            "0123456789ABCDEFGHJKMNPQRSTVWXYZ*~$=U");
+
+    /**
+     * Table used to decode data; maps octets to quintets, to {@link #HYPHEN},
+     * or to -1 if the octet is not part of the alphabet.
+     */
+    static private final byte[] crockfordAlphabet = new byte[BASELENGTH];
+
+    /**
+     * Table used to decode check symbols; maps octets to values modulo 37, or
+     * to -1 if the octet is not a check symbol.
+     */
+    static private final byte[] checkAlphabet = new byte[BASELENGTH];
+
+    static {
+        Arrays.fill(crockfordAlphabet, (byte) -1);
+        for (int i = 0; i < LOOKUPLENGTH; i++) {
+            byte c = lookUpCrockfordAlphabet[i];
+            crockfordAlphabet[c] = (byte) i;
+            crockfordAlphabet[Character.toLowerCase(c)] = (byte) i;
+        }
+        crockfordAlphabet['O'] = crockfordAlphabet['o'] = 0;
+        crockfordAlphabet['I'] = crockfordAlphabet['i'] = 1;
+        crockfordAlphabet['L'] = crockfordAlphabet['l'] = 1;
+
+        System.arraycopy(crockfordAlphabet, 0, checkAlphabet, 0, BASELENGTH);
+        for (int i = LOOKUPLENGTH; i < CHECK_MODULUS; i++) {
+            byte c = lookUpCrockfordAlphabet[i];
+            checkAlphabet[c] = (byte) i;
+            checkAlphabet[Character.toLowerCase(c)] = (byte) i;
+        }
+
+        crockfordAlphabet['-'] = HYPHEN;
+    }
+
+    /**
+     * Whether the encoding carries a check symbol.
+     */
+    private final boolean check;
+
+    public Base32Crockford() {
+        this("base32-crockford", StandardCodecs.aliases_Base32Crockford, false);
+    }
+
+    /**
+     * Initializes a Crockford Base32 codec.
+     *
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param check         whether the encoding carries a check symbol
+     */
+    Base32Crockford(String canonicalName, String[] aliases, boolean check) {
+        super(canonicalName, aliases);
+        this.check = check;
+    }
+
+    /**
+     * Encodes a 64-bit value as 13 characters.
+     *
+     * @param value the value, taken as unsigned
+     * @return the encoded value
+     */
+    public static String encodeLong(long value) {
+        byte[] encoded = new byte[LONG_LENGTH];
+        encodeLong(value, encoded, 0);
+        return CodecEncoder.latin1(encoded, 0, LONG_LENGTH);
+    }
+
+    /**
+     * Encodes a 64-bit value as 13 characters, into a caller supplied
+     * buffer.
+     *
+     * @param value the value, taken as unsigned
+     * @param dst   the destination buffer
+     * @param off   the offset in the destination buffer to write to
+     * @return the number of bytes written, always 13
+     */
+    public static int encodeLong(long value, byte[] dst, int off) {
+        final byte[] alphabet = lookUpCrockfordAlphabet;
+        dst[off] = alphabet[(int) (value >>> 60)];
+        for (int i = 1; i < LONG_LENGTH; i++) {
+            dst[off + i] = alphabet[(int) (value >>> (60 - 5 * i)) & 0x1f];
+        }
+        return LONG_LENGTH;
+    }
+
+    /**
+     * Decodes a 64-bit value. Any number of digits up to the value's width
+     * is accepted, with the leniency of the codec.
+     *
+     * @param encoded the encoded value
+     * @return the value
+     * @throws MalformedInputException if the input is not a well formed
+     *                                 value, or does not fit in 64 bits
+     */
+    public static long decodeLong(CharSequence encoded) {
+        final byte[] table = crockfordAlphabet;
+        final int len = encoded.length();
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < len; i++) {
+            char c = encoded.charAt(i);
+            int d = c > 0xff ? -1 : table[c];
+            if (d >= 0) {
+                if ((value >>> 59) != 0) {
+                    throw malformed(0);
+                }
+                value = value << 5 | d;
+                digits++;
+            } else if (d != HYPHEN) {
+                throw malformed(i);
+            }
+        }
+        if (digits == 0) {
+            throw malformed(len);
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a 64-bit value from a range of encoded bytes.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded value in <tt>src</tt>
+     * @param len the length of the encoded value
+     * @return the value
+     * @throws MalformedInputException if the input is not a well formed
+     *                                 value, or does not fit in 64 bits; the
+     *                                 error offset is an index in <tt>src</tt>
+     */
+    public static long decodeLong(byte[] src, int off, int len) {
+        final byte[] table = crockfordAlphabet;
+        final int end = off + len;
+        long value = 0;
+        int digits = 0;
+        for (int i = off; i < end; i++) {
+            int d = table[src[i] & 0xff];
+            if (d >= 0) {
+                if ((value >>> 59) != 0) {
+                    throw malformed(off);
+                }
+                value = value << 5 | d;
+                digits++;
+            } else if (d != HYPHEN) {
+                throw malformed(i);
+            }
+        }
+        if (digits == 0) {
+            throw malformed(end);
+        }
+        return value;
+    }
+
+    /**
+     * Encodes a 128-bit value as 26 characters.
+     *
+     * @param uuid the value
+     * @return the encoded value
+     */
+    public static String encodeUUID(UUID uuid) {
+        byte[] encoded = new byte[UUID_LENGTH];
+        encode128(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), encoded, 0);
+        return CodecEncoder.latin1(encoded, 0, UUID_LENGTH);
+    }
+
+    /**
+     * Encodes a 128-bit value as 26 characters, into a caller supplied
+     * buffer.
+     *
+     * @param msb the most significant 64 bits
+     * @param lsb the least significant 64 bits
+     * @param dst the destination buffer
+     * @param off the offset in the destination buffer to write to
+     * @return the number of bytes written, always 26
+     */
+    public static int encode128(long msb, long lsb, byte[] dst, int off) {
+        final byte[] alphabet = lookUpCrockfordAlphabet;
+        // 130 bits of digits; the leading digit holds the top three bits
+        for (int i = 0; i < 13; i++) {
+            dst[off + i] = alphabet[(int) (msb >>> (61 - 5 * i)) & 0x1f];
+        }
+        dst[off + 13] = alphabet[(int) ((msb << 4) | (lsb >>> 60)) & 0x1f];
+        for (int i = 14; i < UUID_LENGTH; i++) {
+            dst[off + i] = alphabet[(int) (lsb >>> (125 - 5 * i)) & 0x1f];
+        }
+        return UUID_LENGTH;
+    }
+
+    /**
+     * Decodes a 128-bit value. Any number of digits up to the value's width
+     * is accepted, with the leniency of the codec.
+     *
+     * @param encoded the encoded value
+     * @return the value
+     * @throws MalformedInputException if the input is not a well formed
+     *                                 value, or does not fit in 128 bits
+     */
+    public static UUID decodeUUID(CharSequence encoded) {
+        final byte[] table = crockfordAlphabet;
+        final int len = encoded.length();
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+        for (int i = 0; i < len; i++) {
+            char c = encoded.charAt(i);
+            int d = c > 0xff ? -1 : table[c];
+            if (d >= 0) {
+                if ((msb >>> 59) != 0) {
+                    throw malformed(0);
+                }
+                msb = msb << 5 | lsb >>> 59;
+                lsb = lsb << 5 | d;
+                digits++;
+            } else if (d != HYPHEN) {
+                throw malformed(i);
+            }
+        }
+        if (digits == 0) {
+            throw malformed(len);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private static MalformedInputException malformed(int offset) {
+        return MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                new Object[]{"base32-crockford", offset}, offset);
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        // the check symbol covers all of the data
+        return check ? null : new BlockLayout(FIVEBYTE, EIGHTBYTE, null, "-", -1);
+    }
+
+    private static class Decoder extends CodecDecoder {
+
+        private final boolean check;
+
+        public Decoder(Base32Crockford codec) {
+            super(codec);
+            this.check = codec.check;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            return decodeTrimmed(encoded);
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return (int) (len * 5L / EIGHTBYTE);
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            return decode0(src, off, len, dst, dstOff);
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            int n = decode0(src, off, len, null, 0);
+            return n < 0 ? -n - 1 : -1;
+        }
+
+        /**
+         * Decodes into the destination, or only checks the input if the
+         * destination is <tt>null</tt>.
+         */
+        private int decode0(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final byte[] table = crockfordAlphabet;
+            int end = off + len;
+            int expected = -1;
+            if (check) {
+                // the check symbol is the last character other than a hyphen
+                int i = end - 1;
+                while (i >= off && src[i] == '-') {
+                    i--;
+                }
+                if (i < off) {
+                    return -(end + 1);
+                }
+                expected = checkAlphabet[src[i] & 0xff];
+                if (expected < 0) {
+                    return -(i + 1);
+                }
+                end = i;
+            }
+            int dataIndex = off;
+            int decodedIndex = dstOff;
+            long bits = 0;
+            int count = 0;
+            int last = off;
+            long mod = 0;
+            while (dataIndex < end) {
+                if (count == 0) {
+                    // fast path over whole groups of data
+                    while (dataIndex + EIGHTBYTE <= end) {
+                        int b1 = table[src[dataIndex] & 0xff];
+                        int b2 = table[src[dataIndex + 1] & 0xff];
+                        int b3 = table[src[dataIndex + 2] & 0xff];
+                        int b4 = table[src[dataIndex + 3] & 0xff];
+                        int b5 = table[src[dataIndex + 4] & 0xff];
+                        int b6 = table[src[dataIndex + 5] & 0xff];
+                        int b7 = table[src[dataIndex + 6] & 0xff];
+                        int b8 = table[src[dataIndex + 7] & 0xff];
+                        if ((b1 | b2 | b3 | b4 | b5 | b6 | b7 | b8) < 0) {
+                            break;
+                        }
+                        long quantum = (long) b1 << 35 | (long) b2 << 30 | (long) b3 << 25 | (long) b4 << 20 |
+                                b5 << 15 | b6 << 10 | b7 << 5 | b8;
+                        if (dst != null) {
+                            dst[decodedIndex] = (byte) (quantum >> 32);
+                            dst[decodedIndex + 1] = (byte) (quantum >> 24);
+                            dst[decodedIndex + 2] = (byte) (quantum >> 16);
+                            dst[decodedIndex + 3] = (byte) (quantum >> 8);
+                            dst[decodedIndex + 4] = (byte) quantum;
+                        }
+                        if (check) {
+                            mod = (mod * GROUP_CHECK_FACTOR + quantum) % CHECK_MODULUS;
+                        }
+                        decodedIndex += FIVEBYTE;
+                        dataIndex += EIGHTBYTE;
+                        last = dataIndex - 1;
+                    }
+                    if (dataIndex == end) {
+                        break;
+                    }
+                }
+                int b = table[src[dataIndex] & 0xff];
+                if (b >= 0) {
+                    bits = bits << 5 | b;
+                    last = dataIndex;
+                    if (check) {
+                        mod = (mod * 32 + b) % CHECK_MODULUS;
+                    }
+                    if (++count == EIGHTBYTE) {
+                        if (dst != null) {
+                            dst[decodedIndex] = (byte) (bits >> 32);
+                            dst[decodedIndex + 1] = (byte) (bits >> 24);
+                            dst[decodedIndex + 2] = (byte) (bits >> 16);
+                            dst[decodedIndex + 3] = (byte) (bits >> 8);
+                            dst[decodedIndex + 4] = (byte) bits;
+                        }
+                        decodedIndex += FIVEBYTE;
+                        bits = 0;
+                        count = 0;
+                    }
+                } else if (b != HYPHEN) {
+                    return -(dataIndex + 1);
+                }
+                dataIndex++;
+            }
+            if (count != 0) {
+                // a final, partial group of 2, 4, 5 or 7 symbols
+                int n = count * 5 / 8;
+                int unused = count * 5 - n * 8;
+                if (count == 1 || count == 3 || count == 6) {
+                    return -(end + 1);
+                }
+                if ((bits & ((1 << unused) - 1)) != 0) {
+                    return -(last + 1);
+                }
+                bits >>>= unused;
+                for (int k = n - 1; k >= 0; k--) {
+                    if (dst != null) {
+                        dst[decodedIndex + k] = (byte) bits;
+                    }
+                    bits >>>= 8;
+                }
+                decodedIndex += n;
+            }
+            if (check && mod != expected) {
+                return -(off + 1);
+            }
+            return decodedIndex - dstOff;
+        }
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return Base32Crockford.decodeLong(src, off, len);
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            long value = Base32Crockford.decodeLong(src, off, len);
+            if ((value >>> 32) != 0) {
+                throw malformed(off);
+            }
+            return (int) value;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    private static class Encoder extends CodecEncoder {
+
+        private final boolean check;
+
+        public Encoder(Base32Crockford codec) {
+            super(codec);
+            this.check = codec.check;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            final byte[] alphabet = lookUpCrockfordAlphabet;
+            final int size = bytes.length;
+            final int length = (int) ((size * 8L + 4) / 5);
+            byte[] encoded = new byte[check ? length + 1 : length];
+            int dataIndex = 0;
+            int encodedIndex = 0;
+            long mod = 0;
+            for (; dataIndex + FIVEBYTE <= size; dataIndex += FIVEBYTE) {
+                long quantum = (bytes[dataIndex] & 0xffL) << 32 | (bytes[dataIndex + 1] & 0xffL) << 24 |
+                        (bytes[dataIndex + 2] & 0xff) << 16 | (bytes[dataIndex + 3] & 0xff) << 8 |
+                        (bytes[dataIndex + 4] & 0xff);
+                for (int k = 0; k < EIGHTBYTE; k++) {
+                    encoded[encodedIndex + k] = alphabet[(int) (quantum >>> (35 - 5 * k)) & 0x1f];
+                }
+                if (check) {
+                    mod = (mod * GROUP_CHECK_FACTOR + quantum) % CHECK_MODULUS;
+                }
+                encodedIndex += EIGHTBYTE;
+            }
+            if (dataIndex < size) {
+                // the final bits, padded with zero bits to whole symbols
+                long bits = 0;
+                int rem = size - dataIndex;
+                for (int k = 0; k < rem; k++) {
+                    bits = bits << 8 | (bytes[dataIndex + k] & 0xff);
+                }
+                int count = length - encodedIndex;
+                bits <<= count * 5 - rem * 8;
+                for (int k = 0; k < count; k++) {
+                    int b = (int) (bits >>> (5 * (count - 1 - k))) & 0x1f;
+                    encoded[encodedIndex++] = alphabet[b];
+                    if (check) {
+                        mod = (mod * 32 + b) % CHECK_MODULUS;
+                    }
+                }
+            }
+            if (check) {
+                encoded[encodedIndex] = alphabet[(int) mod];
+            }
+            return encoded;
+        }
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            return Base32Crockford.encodeLong(value, dst, off);
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            final byte[] alphabet = lookUpCrockfordAlphabet;
+            long v = value & 0xffffffffL;
+            for (int i = 0; i < 7; i++) {
+                dst[off + i] = alphabet[(int) (v >>> (30 - 5 * i)) & 0x1f];
+            }
+            return 7;
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this);
+    }
+}
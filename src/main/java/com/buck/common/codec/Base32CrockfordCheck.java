@@ -0,0 +1,34 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for Crockford's Base32 encoding with a check symbol.
+ * <p/>
+ * The encoder appends the value of the encoded symbols modulo 37 as a final
+ * check symbol, one of the 32 symbols of the alphabet or <tt>*</tt>,
+ * <tt>~</tt>, <tt>$</tt>, <tt>=</tt> and <tt>U</tt>. The decoder requires the
+ * check symbol and reports a mismatch at the first character.
+ *
+ * @author Robert J. Buck
+ */
+public class Base32CrockfordCheck extends Base32Crockford {
+
+    public Base32CrockfordCheck() {
+        super("base32-crockford-check", StandardCodecs.aliases_Base32CrockfordCheck, true);
+    }
+}
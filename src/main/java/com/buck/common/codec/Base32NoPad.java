@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for RFC 4648 Base32 without padding.
+ * <p/>
+ * A final group of one to four bytes is written as two, four, five or seven
+ * characters, with no trailing <tt>'='</tt> characters. The decoder accepts
+ * such a group and rejects padding.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base32NoPad extends Base32 {
+
+    public Base32NoPad() {
+        super("base32-nopad", StandardCodecs.aliases_Base32NoPad, Base32.lookUpBase32Alphabet, false);
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Codec for the Base58 encoding with the Bitcoin alphabet.
+ * <p/>
+ * The data is taken as a big endian unsigned number and written in base 58,
+ * with each leading zero byte written as the first character of the alphabet.
+ * The alphabet omits the characters 0 (zero), O, I and l, which are easily
+ * confused, as well as the non-alphanumeric characters of Base64.
+ * <p/>
+ * Since every output digit depends on every input byte, the conversion is
+ * inherently superlinear. Small inputs are converted with long arithmetic on
+ * 32-bit limbs, five base 58 digits per step; large inputs are split with a
+ * divide-and-conquer conversion over powers of 58, which gets its speed from
+ * the sub-quadratic multiplication and division of {@link BigInteger}.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base58 extends Codec {
+
+    static private final int BASELENGTH = 256;
+    static private final int LOOKUPLENGTH = 58;
+
+    /**
+     * The number of base 58 digits converted per step, and the corresponding
+     * radix, 58<sup>5</sup>, being the largest power of 58 for which a
+     * remainder shifted by a 32-bit limb still fits in a long.
+     */
+    static private final int DIGITS_PER_STEP = 5;
+    static private final long STEP_RADIX = 656356768L;
+
+    /**
+     * Inputs of more than this many bytes, or digits, are converted by
+     * divide-and-conquer; recursion stops at pieces of this size.
+     */
+    static private final int RECURSIVE_THRESHOLD = 384;
+
+    /**
+     * Powers of 58 used by the divide-and-conquer conversions; element
+     * <tt>i</tt> is 58<sup>5 * 2<sup>i</sup></sup>. Extended as needed.
+     */
+    static private volatile BigInteger[] powers = {BigInteger.valueOf(STEP_RADIX)};
+
+    /**
+     * The Bitcoin Base58 alphabet.
+     */
+    static final byte[] lookUpBase58Alphabet = Base85.alphabet(
+            "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz");
+
+    /**
+     * Table used to encode data; maps base 58 digits to this codec's alphabet.
+     */
+    final byte[] encodeTable;
+
+    /**
+     * Table used to decode data; maps octets to base 58 digits, or to -1 if
+     * the octet is not part of this codec's alphabet.
+     */
+    final byte[] decodeTable;
+
+    public Base58() {
+        this("base58", StandardCodecs.aliases_Base58, lookUpBase58Alphabet);
+    }
+
+    /**
+     * Initializes a Base58 codec using an alternative alphabet.
+     *
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param alphabet      the 58 character alphabet
+     */
+    Base58(String canonicalName, String[] aliases, byte[] alphabet) {
+        super(canonicalName, aliases);
+        this.encodeTable = alphabet;
+        this.decodeTable = new byte[BASELENGTH];
+        Arrays.fill(decodeTable, (byte) -1);
+        for (int i = 0; i < LOOKUPLENGTH; i++) {
+            decodeTable[alphabet[i]] = (byte) i;
+        }
+    }
+
+    private static BigInteger power(int level) {
+        BigInteger[] p = powers;
+        if (level >= p.length) {
+            BigInteger[] q = Arrays.copyOf(p, level + 1);
+            for (int i = p.length; i <= level; i++) {
+                q[i] = q[i - 1].multiply(q[i - 1]);
+            }
+            powers = p = q;
+        }
+        return p[level];
+    }
+
+    /**
+     * Packs big endian bytes into big endian 32-bit limbs.
+     */
+    private static int[] limbs(byte[] src, int off, int len) {
+        int[] mag = new int[(len + 3) / 4];
+        int i = off + len;
+        for (int j = mag.length - 1; j >= 0; j--) {
+            int limb = 0;
+            for (int shift = 0; shift < 32 && i > off; shift += 8) {
+                limb |= (src[--i] & 0xff) << shift;
+            }
+            mag[j] = limb;
+        }
+        return mag;
+    }
+
+    /**
+     * Returns the minimal big endian magnitude of a non-negative number.
+     */
+    private static byte[] magnitude(BigInteger v) {
+        byte[] bytes = v.toByteArray();
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    /**
+     * Writes a number as exactly <tt>width</tt> base 58 digits, zero padded,
+     * ending just before <tt>end</tt>. The limbs are consumed.
+     */
+    private static void toDigits(int[] mag, byte[] digits, int end, int width) {
+        int first = 0;
+        int pos = end;
+        final int stop = end - width;
+        while (pos > stop) {
+            while (first < mag.length && mag[first] == 0) {
+                first++;
+            }
+            if (first == mag.length) {
+                break;
+            }
+            long rem = 0;
+            for (int i = first; i < mag.length; i++) {
+                long cur = (rem << 32) | (mag[i] & 0xFFFFFFFFL);
+                long q = cur / STEP_RADIX;
+                mag[i] = (int) q;
+                rem = cur - q * STEP_RADIX;
+            }
+            for (int k = 0; k < DIGITS_PER_STEP && pos > stop; k++) {
+                long q = rem / 58;
+                digits[--pos] = (byte) (rem - q * 58);
+                rem = q;
+            }
+        }
+        while (pos > stop) {
+            digits[--pos] = 0;
+        }
+    }
+
+    /**
+     * Writes a number as exactly <tt>5 * 2<sup>level</sup></tt> base 58
+     * digits, zero padded, ending just before <tt>end</tt>.
+     */
+    private static void toDigitsRecursive(BigInteger v, byte[] digits, int end, int level) {
+        int width = DIGITS_PER_STEP << level;
+        if (width <= RECURSIVE_THRESHOLD) {
+            byte[] mag = magnitude(v);
+            toDigits(limbs(mag, 0, mag.length), digits, end, width);
+            return;
+        }
+        BigInteger[] qr = v.divideAndRemainder(power(level - 1));
+        toDigitsRecursive(qr[1], digits, end, level - 1);
+        toDigitsRecursive(qr[0], digits, end - (width >> 1), level - 1);
+    }
+
+    /**
+     * Converts a number to big endian bytes given its base 58 digits.
+     */
+    private static byte[] fromDigits(byte[] digits, int from, int to) {
+        final int count = to - from;
+        int[] mag = new int[count * 6 / 32 + 2];
+        int used = 0;
+        int i = from;
+        int step = count % DIGITS_PER_STEP == 0 ? DIGITS_PER_STEP : count % DIGITS_PER_STEP;
+        while (i < to) {
+            long chunk = 0;
+            long radix = 1;
+            for (int k = 0; k < step; k++) {
+                chunk = chunk * 58 + digits[i++];
+                radix *= 58;
+            }
+            step = DIGITS_PER_STEP;
+            long carry = chunk;
+            for (int t = 0; t < used; t++) {
+                long cur = (mag[t] & 0xFFFFFFFFL) * radix + carry;
+                mag[t] = (int) cur;
+                carry = cur >>> 32;
+            }
+            if (carry != 0) {
+                mag[used++] = (int) carry;
+            }
+        }
+        int bytes = used * 4;
+        while (bytes > 0 && (mag[(bytes - 1) / 4] >>> (((bytes - 1) % 4) * 8) & 0xff) == 0) {
+            bytes--;
+        }
+        byte[] result = new byte[bytes];
+        for (int b = 0; b < bytes; b++) {
+            result[bytes - 1 - b] = (byte) (mag[b / 4] >>> ((b % 4) * 8));
+        }
+        return result;
+    }
+
+    private static BigInteger fromDigitsRecursive(byte[] digits, int from, int to) {
+        int count = to - from;
+        if (count <= RECURSIVE_THRESHOLD) {
+            return new BigInteger(1, fromDigits(digits, from, to));
+        }
+        int level = 0;
+        while ((DIGITS_PER_STEP << (level + 1)) < count) {
+            level++;
+        }
+        // the low part is the largest power of two multiple of five digits
+        // shorter than the whole
+        int split = to - (DIGITS_PER_STEP << level);
+        BigInteger hi = fromDigitsRecursive(digits, from, split);
+        BigInteger lo = fromDigitsRecursive(digits, split, to);
+        return hi.multiply(power(level)).add(lo);
+    }
+
+    /**
+     * Encodes bytes as Base58.
+     *
+     * @param alphabet the alphabet to encode with
+     * @param src      the raw data
+     * @param off      the offset of the raw data in <tt>src</tt>
+     * @param len      the length of the raw data
+     * @return the encoded data
+     */
+    static byte[] encode(byte[] alphabet, byte[] src, int off, int len) {
+        final int end = off + len;
+        int zeros = 0;
+        while (off + zeros < end && src[off + zeros] == 0) {
+            zeros++;
+        }
+        final int start = off + zeros;
+        final int size = end - start;
+        byte[] digits;
+        if (size > RECURSIVE_THRESHOLD) {
+            BigInteger v = new BigInteger(1, Arrays.copyOfRange(src, start, end));
+            int level = 0;
+            while (power(level).compareTo(v) <= 0) {
+                level++;
+            }
+            digits = new byte[DIGITS_PER_STEP << level];
+            toDigitsRecursive(v, digits, digits.length, level);
+        } else {
+            // log(256) / log(58) < 1.37
+            digits = new byte[size * 137 / 100 + 1];
+            toDigits(limbs(src, start, size), digits, digits.length, digits.length);
+        }
+        int leading = 0;
+        while (leading < digits.length && digits[leading] == 0) {
+            leading++;
+        }
+        byte[] encoded = new byte[zeros + digits.length - leading];
+        Arrays.fill(encoded, 0, zeros, alphabet[0]);
+        for (int i = leading, j = zeros; i < digits.length; i++, j++) {
+            encoded[j] = alphabet[digits[i]];
+        }
+        return encoded;
+    }
+
+    /**
+     * Decodes Base58 into a caller supplied buffer, which must have room for
+     * <tt>len</tt> bytes.
+     *
+     * @param table the decode table
+     * @param src   the encoded data
+     * @param off   the offset of the encoded data in <tt>src</tt>
+     * @param len   the length of the encoded data
+     * @param dst   the destination buffer
+     * @param dstOff the offset in the destination buffer to write to
+     * @return the number of bytes written, or <tt>-(i + 1)</tt> where
+     *         <tt>i</tt> is the index of the first malformed byte
+     */
+    static int decode(byte[] table, byte[] src, int off, int len, byte[] dst, int dstOff) {
+        final int end = off + len;
+        int zeros = 0;
+        while (off + zeros < end && table[src[off + zeros] & 0xff] == 0) {
+            zeros++;
+        }
+        final int start = off + zeros;
+        byte[] digits = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            int d = table[src[i] & 0xff];
+            if (d < 0) {
+                return -(i + 1);
+            }
+            digits[i - start] = (byte) d;
+        }
+        byte[] mag = digits.length > RECURSIVE_THRESHOLD ?
+                magnitude(fromDigitsRecursive(digits, 0, digits.length)) :
+                fromDigits(digits, 0, digits.length);
+        Arrays.fill(dst, dstOff, dstOff + zeros, (byte) 0);
+        System.arraycopy(mag, 0, dst, dstOff + zeros, mag.length);
+        return zeros + mag.length;
+    }
+
+    private static class Decoder extends CodecDecoder {
+
+        private final byte[] decodeTable;
+
+        public Decoder(Base58 codec) {
+            super(codec);
+            this.decodeTable = codec.decodeTable;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            return decodeTrimmed(encoded);
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            // every character carries less than eight bits
+            return len;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            return Base58.decode(decodeTable, src, off, len, dst, dstOff);
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (decodeTable[src[i] & 0xff] < 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    private static class Encoder extends CodecEncoder {
+
+        private final byte[] encodeTable;
+
+        public Encoder(Base58 codec) {
+            super(codec);
+            this.encodeTable = codec.encodeTable;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            return Base58.encode(encodeTable, bytes, 0, bytes.length);
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this);
+    }
+}
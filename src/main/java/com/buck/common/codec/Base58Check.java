@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Codec for the Base58Check encoding used by Bitcoin addresses and keys.
+ * <p/>
+ * The data is suffixed with a four byte checksum, being the leading bytes of
+ * the double SHA-256 digest of the data, and encoded as {@link Base58} with
+ * the Bitcoin alphabet. The checksum is computed into the buffer that is
+ * converted, and verified in place in the decoded buffer, so no intermediate
+ * copies are made. Decoding data whose checksum does not match reports the
+ * input as malformed at its first character.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base58Check extends Base58 {
+
+    static private final int CHECKSUM_LENGTH = 4;
+
+    private static final ThreadLocal<MessageDigest> sha256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new CodecMalfunctionError(e);
+            }
+        }
+    };
+
+    public Base58Check() {
+        super("base58check", StandardCodecs.aliases_Base58Check, lookUpBase58Alphabet);
+    }
+
+    /**
+     * Computes the double SHA-256 checksum of a range of bytes.
+     */
+    private static byte[] checksum(byte[] src, int off, int len) {
+        MessageDigest md = sha256.get();
+        md.update(src, off, len);
+        return md.digest(md.digest());
+    }
+
+    private static class Decoder extends CodecDecoder {
+
+        private final byte[] decodeTable;
+
+        public Decoder(Base58Check codec) {
+            super(codec);
+            this.decodeTable = codec.decodeTable;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            return decodeTrimmed(encoded);
+        }
+
+        /**
+         * {@inheritDoc} The destination also receives the checksum, past the
+         * returned length.
+         */
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int n = Base58.decode(decodeTable, src, off, len, dst, dstOff);
+            if (n < 0) {
+                return n;
+            }
+            if (n < CHECKSUM_LENGTH) {
+                return -(off + len + 1);
+            }
+            n -= CHECKSUM_LENGTH;
+            byte[] digest = checksum(dst, dstOff, n);
+            for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+                if (digest[i] != dst[dstOff + n + i]) {
+                    return -(off + 1);
+                }
+            }
+            return n;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    private static class Encoder extends CodecEncoder {
+
+        private final byte[] encodeTable;
+
+        public Encoder(Base58Check codec) {
+            super(codec);
+            this.encodeTable = codec.encodeTable;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            byte[] buffer = Arrays.copyOf(bytes, bytes.length + CHECKSUM_LENGTH);
+            System.arraycopy(checksum(bytes, 0, bytes.length), 0, buffer, bytes.length, CHECKSUM_LENGTH);
+            return Base58.encode(encodeTable, buffer, 0, buffer.length);
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for the Base58 encoding with the Flickr alphabet, which orders the
+ * lowercase letters before the uppercase letters.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base58Flickr extends Base58 {
+
+    /**
+     * The Flickr Base58 alphabet.
+     */
+    private static final byte[] lookUpBase58Alphabet = Base85.alphabet(
+            "123456789abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ");
+
+    public Base58Flickr() {
+        super("base58-flickr", StandardCodecs.aliases_Base58Flickr, lookUpBase58Alphabet);
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.buck.common.codec;
 
+import java.util.Arrays;
+
 /**
  * Codec for RFC 4648 Base64.
  * <p/>
@@ -27,16 +29,18 @@ package com.buck.common.codec;
  */
 public class Base64 extends Codec {
 
-    static private final int BASELENGTH = 128;
+    static private final int BASELENGTH = 256;
     static private final int LOOKUPLENGTH = 64;
-    static private final int TWENTYFOURBITGROUP = 24;
     static private final int EIGHTBIT = 8;
     static private final int SIXTEENBIT = 16;
+    static private final int THREEBYTE = 3;
     static private final int FOURBYTE = 4;
+    static private final int EIGHTBYTE = 8;
+    static private final int WIDE_THRESHOLD = 64;
     static private final int SIGN = -128;
     static private final char PAD = '=';
     static final private byte[] base64Alphabet = new byte[BASELENGTH];
-    static final private byte[] lookUpBase64Alphabet = new byte[LOOKUPLENGTH];
+    static final byte[] lookUpBase64Alphabet = new byte[LOOKUPLENGTH];
 
     static {
 
@@ -82,7 +86,7 @@ public class Base64 extends Codec {
     }
 
     private static boolean isData(byte octet) {
-        return ((0xff & octet) < BASELENGTH && base64Alphabet[(0xff & octet)] != -1);
+        return (base64Alphabet[(0xff & octet)] != -1);
     }
 
     protected static boolean isBase64(byte octet) {
@@ -90,128 +94,262 @@ public class Base64 extends Codec {
     }
 
     /**
-     * remove WhiteSpace from MIME containing encoded Base64 data.
+     * Table used to encode data; maps sextets to this codec's alphabet.
+     */
+    final byte[] encodeTable;
+
+    /**
+     * Table used to decode data; maps octets to sextets, or to -1 if the
+     * octet is not part of this codec's alphabet.
+     */
+    final byte[] decodeTable;
+
+    /**
+     * Whether the encoded data is padded to a multiple of four characters.
+     */
+    private final boolean pad;
+
+    /**
+     * The maximum number of characters per line, a multiple of four, or zero
+     * if the output is not broken into lines.
+     */
+    final int lineLength;
+
+    public Base64() {
+        this("base64", StandardCodecs.aliases_Base64, lookUpBase64Alphabet);
+    }
+
+    /**
+     * Initializes a Base64 codec using an alternative alphabet, such as the
+     * URL and filename safe alphabet.
      *
-     * @param data the byte array of base64 data (with WS)
-     * @return the new length
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param alphabet      the 64 character alphabet
      */
-    private static int removeWhiteSpace(byte[] data) {
-        if (data == null) {
-            return 0;
-        }
+    Base64(String canonicalName, String[] aliases, byte[] alphabet) {
+        this(canonicalName, aliases, alphabet, true, 0);
+    }
 
-        // count characters that's not whitespace
-        int newSize = 0;
-        int len = data.length;
-        for (int i = 0; i < len; i++) {
-            if (!isWhiteSpace(data[i]))
-                data[newSize++] = data[i];
+    /**
+     * Initializes a Base64 codec with the given padding and line breaking.
+     *
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param alphabet      the 64 character alphabet
+     * @param pad           whether encoded data is padded; an unpadded
+     *                      codec rejects padding when decoding
+     * @param lineLength    the maximum number of characters per line, a
+     *                      multiple of four, or zero for a single line;
+     *                      lines are separated by CRLF
+     */
+    Base64(String canonicalName, String[] aliases, byte[] alphabet, boolean pad, int lineLength) {
+        super(canonicalName, aliases);
+        this.pad = pad;
+        this.lineLength = lineLength;
+        this.encodeTable = alphabet;
+        this.decodeTable = new byte[BASELENGTH];
+        Arrays.fill(decodeTable, (byte) -1);
+        for (int i = 0; i < LOOKUPLENGTH; i++) {
+            decodeTable[alphabet[i]] = (byte) i;
         }
-        return newSize;
     }
 
-    public Base64() {
-        super("base64", StandardCodecs.aliases_Base64);
+    @Override
+    public CodecEngine engine() {
+        return Base64Kernel.INSTANCE.engine();
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        if (lineLength == 0) {
+            return new BlockLayout(3, 4, null, " \r\n\t", pad ? PAD : -1);
+        }
+        // whole lines, so that the separator falls between lines
+        return new BlockLayout(lineLength / 4 * 3, lineLength, BlockLayout.CRLF, " \r\n\t", PAD);
     }
 
     private static class Decoder extends CodecDecoder {
-        public Decoder(Codec codec) {
+
+        private final byte[] decodeTable;
+        private final boolean pad;
+
+        public Decoder(Base64 codec) {
             super(codec);
+            this.decodeTable = codec.decodeTable;
+            this.pad = codec.pad;
         }
 
         public byte[] decode(byte[] encoded) {
             if (encoded == null) {
                 return null;
             }
+            return decodeTrimmed(encoded);
+        }
 
-            // remove white spaces
-            int len = removeWhiteSpace(encoded);
-
-            if (len % FOURBYTE != 0) {
-                //should be divisible by four
-                return null;
-            }
-
-            int numberQuadruple = (len / FOURBYTE);
+        @Override
+        public int maxDecodedLength(int len) {
+            return pad ? (len / FOURBYTE) * 3 : (int) (len * 3L / FOURBYTE);
+        }
 
-            if (numberQuadruple == 0) {
-                return new byte[0];
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final byte[] table = decodeTable;
+            final int end = off + len;
+            int dataIndex = off;
+            int encodedIndex = dstOff;
+            int bits = 0;
+            int count = 0;
+            int last = off;
+            while (dataIndex < end) {
+                if (count == 0) {
+                    // fast path over whole quadruples of data
+                    int n = Base64Kernel.INSTANCE.decode(table, src, dataIndex, end, dst, encodedIndex);
+                    dataIndex += n;
+                    encodedIndex += n / FOURBYTE * THREEBYTE;
+                    if (dataIndex == end) {
+                        break;
+                    }
+                }
+                byte octet = src[dataIndex];
+                int b = table[octet & 0xff];
+                if (b >= 0) {
+                    bits = bits << 6 | b;
+                    last = dataIndex;
+                    if (++count == FOURBYTE) {
+                        dst[encodedIndex++] = (byte) (bits >> 16);
+                        dst[encodedIndex++] = (byte) (bits >> 8);
+                        dst[encodedIndex++] = (byte) bits;
+                        bits = 0;
+                        count = 0;
+                    }
+                } else if (pad && isPad(octet) && count >= 2) {
+                    // the remaining characters may only be pads and white space
+                    int pads = FOURBYTE - count;
+                    for (; dataIndex < end; dataIndex++) {
+                        octet = src[dataIndex];
+                        if (isPad(octet) && pads > 0) {
+                            pads--;
+                        } else if (!isWhiteSpace(octet)) {
+                            return -(dataIndex + 1);
+                        }
+                    }
+                    if (pads != 0) {
+                        return -(end + 1);
+                    }
+                    int n = decodeRemainder(bits, count, dst, encodedIndex);
+                    if (n < 0) {
+                        return -(last + 1);
+                    }
+                    return encodedIndex + n - dstOff;
+                } else if (!isWhiteSpace(octet)) {
+                    return -(dataIndex + 1);
+                }
+                dataIndex++;
             }
-
-            byte b1, b2, b3, b4;
-            byte d1, d2, d3, d4;
-
-            int i = 0;
-            int encodedIndex = 0;
-            int dataIndex = 0;
-            byte[] decodedData = new byte[(numberQuadruple) * 3];
-
-            for (; i < numberQuadruple - 1; i++) {
-
-                if (!isData((d1 = encoded[dataIndex++])) ||
-                        !isData((d2 = encoded[dataIndex++])) ||
-                        !isData((d3 = encoded[dataIndex++])) ||
-                        !isData((d4 = encoded[dataIndex++]))) {
-                    return null;//if found "no data" just return null
+            if (count != 0) {
+                // should be divisible by four, unless unpadded
+                if (pad || count == 1) {
+                    return -(end + 1);
                 }
-
-                b1 = base64Alphabet[d1];
-                b2 = base64Alphabet[d2];
-                b3 = base64Alphabet[d3];
-                b4 = base64Alphabet[d4];
-
-                decodedData[encodedIndex++] = (byte) (b1 << 2 | b2 >> 4);
-                decodedData[encodedIndex++] = (byte) (((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf));
-                decodedData[encodedIndex++] = (byte) (b3 << 6 | b4);
+                int n = decodeRemainder(bits, count, dst, encodedIndex);
+                if (n < 0) {
+                    return -(last + 1);
+                }
+                return encodedIndex + n - dstOff;
             }
+            return encodedIndex - dstOff;
+        }
 
-            if (!isData((d1 = encoded[dataIndex++])) ||
-                    !isData((d2 = encoded[dataIndex++]))) {
-                return null;//if found "no data" just return null
+        /**
+         * Decodes the sextets of a final, partial quadruple.
+         *
+         * @return the number of bytes written, or -1 if the unused trailing
+         *         bits are not zero
+         */
+        private static int decodeRemainder(int bits, int count, byte[] dst, int encodedIndex) {
+            if (count == 2) {
+                // Two PAD e.g. 3c[Pad][Pad]; last 4 bits should be zero
+                if ((bits & 0xf) != 0) {
+                    return -1;
+                }
+                dst[encodedIndex] = (byte) (bits >> 4);
+                return 1;
+            } else {
+                // One PAD  e.g. 3cQ[Pad]; last 2 bits should be zero
+                if ((bits & 0x3) != 0) {
+                    return -1;
+                }
+                dst[encodedIndex++] = (byte) (bits >> 10);
+                dst[encodedIndex] = (byte) (bits >> 2);
+                return 2;
             }
+        }
 
-            b1 = base64Alphabet[d1];
-            b2 = base64Alphabet[d2];
-
-            d3 = encoded[dataIndex++];
-            d4 = encoded[dataIndex];
-            if (!isData((d3)) || !isData((d4))) {
-                //Check if they are PAD characters
-
-                //Two PAD e.g. 3c[Pad][Pad]
-                if (isPad(d3) && isPad(d4)) {
-                    // last 4 bits should be zero
-                    if ((b2 & 0xf) != 0) {
-                        return null;
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            final byte[] table = decodeTable;
+            final boolean wide = len >= WIDE_THRESHOLD;
+            final int end = off + len;
+            int dataIndex = off;
+            int count = 0;
+            int last = off;
+            while (dataIndex < end) {
+                // wide path over eight data characters at a time, with a
+                // single branch per block
+                while (wide && dataIndex + EIGHTBYTE <= end &&
+                        (table[src[dataIndex] & 0xff] | table[src[dataIndex + 1] & 0xff] |
+                                table[src[dataIndex + 2] & 0xff] | table[src[dataIndex + 3] & 0xff] |
+                                table[src[dataIndex + 4] & 0xff] | table[src[dataIndex + 5] & 0xff] |
+                                table[src[dataIndex + 6] & 0xff] | table[src[dataIndex + 7] & 0xff]) >= 0) {
+                    dataIndex += EIGHTBYTE;
+                    last = dataIndex - 1;
+                }
+                if (dataIndex == end) {
+                    break;
+                }
+                byte octet = src[dataIndex];
+                if (table[octet & 0xff] >= 0) {
+                    count = (count + 1) & (FOURBYTE - 1);
+                    last = dataIndex;
+                } else if (pad && isPad(octet) && count >= 2) {
+                    // the remaining characters may only be pads and white space
+                    int pads = FOURBYTE - count;
+                    for (; dataIndex < end; dataIndex++) {
+                        octet = src[dataIndex];
+                        if (isPad(octet) && pads > 0) {
+                            pads--;
+                        } else if (!isWhiteSpace(octet)) {
+                            return dataIndex;
+                        }
                     }
-                    byte[] tmp = new byte[i * 3 + 1];
-                    System.arraycopy(decodedData, 0, tmp, 0, i * 3);
-                    tmp[encodedIndex] = (byte) (b1 << 2 | b2 >> 4);
-                    return tmp;
-                } else if (!isPad(d3) && isPad(d4)) {
-                    // >> One PAD  e.g. 3cQ[Pad]
-                    b3 = base64Alphabet[d3];
-                    // last 2 bits should be zero
-                    if ((b3 & 0x3) != 0) {
-                        return null;
+                    if (pads != 0) {
+                        return end;
                     }
-                    byte[] tmp = new byte[i * 3 + 2];
-                    System.arraycopy(decodedData, 0, tmp, 0, i * 3);
-                    tmp[encodedIndex++] = (byte) (b1 << 2 | b2 >> 4);
-                    tmp[encodedIndex] = (byte) (((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf));
-                    return tmp;
-                } else {
-                    return null;//an error  like "3c[Pad]r", "3cdX", "3cXd", "3cXX" where X is non data
+                    // the unused trailing bits should be zero
+                    int mask = count == 2 ? 0xf : 0x3;
+                    return (table[src[last] & 0xff] & mask) != 0 ? last : -1;
+                } else if (!isWhiteSpace(octet)) {
+                    return dataIndex;
                 }
-            } else { //No PAD e.g 3cQl
-                b3 = base64Alphabet[d3];
-                b4 = base64Alphabet[d4];
-                decodedData[encodedIndex++] = (byte) (b1 << 2 | b2 >> 4);
-                decodedData[encodedIndex++] = (byte) (((b2 & 0xf) << 4) | ((b3 >> 2) & 0xf));
-                decodedData[encodedIndex] = (byte) (b3 << 6 | b4);
+                dataIndex++;
             }
+            if (count != 0 && !pad && count != 1) {
+                // the unused trailing bits of unpadded data should be zero
+                int mask = count == 2 ? 0xf : 0x3;
+                return (table[src[last] & 0xff] & mask) != 0 ? last : -1;
+            }
+            return count != 0 ? end : -1;
+        }
 
-            return decodedData;
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return FixedWidth.decode(codec(), decodeTable, 6, 64, src, off, len);
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            return (int) FixedWidth.decode(codec(), decodeTable, 6, 32, src, off, len);
         }
     }
 
@@ -225,46 +363,71 @@ public class Base64 extends Codec {
      * Encodes hex octets into Base64
      */
     private static class Encoder extends CodecEncoder {
-        public Encoder(Codec codec) {
+
+        private final byte[] encodeTable;
+        private final boolean pad;
+        private final int quartetsPerLine;
+
+        public Encoder(Base64 codec) {
             super(codec);
+            this.encodeTable = codec.encodeTable;
+            this.pad = codec.pad;
+            this.quartetsPerLine = codec.lineLength / FOURBYTE;
         }
 
         public byte[] encode(byte[] binary) {
             if (binary == null)
                 return null;
 
-            int lengthDataBits = binary.length * EIGHTBIT;
-            if (lengthDataBits == 0) {
+            if (binary.length == 0) {
                 return EMPTY_STRING;
             }
+            byte encoded[] = new byte[maxEncodedLength(binary.length)];
+            encode(binary, 0, binary.length, encoded, 0);
+            return encoded;
+        }
 
-            int fewerThan24bits = lengthDataBits % TWENTYFOURBITGROUP;
-            int numberTriplets = lengthDataBits / TWENTYFOURBITGROUP;
+        @Override
+        public int maxEncodedLength(int len) {
+            int fewerThan24bits = len % THREEBYTE * EIGHTBIT;
+            int numberTriplets = len / THREEBYTE;
             int numberQuartet = fewerThan24bits != 0 ? numberTriplets + 1 : numberTriplets;
-            byte encoded[] = new byte[numberQuartet * 4];
-
-            byte k, l, b1, b2, b3;
-
-            int encodedIndex = 0;
-            int dataIndex = 0;
+            // a line separator follows every full line except the last
+            int numberSeparators = quartetsPerLine == 0 || numberQuartet == 0 ? 0 : (numberQuartet - 1) / quartetsPerLine;
+            // unpadded, a final group of one or two bytes takes two or three characters
+            int unused = pad || fewerThan24bits == 0 ? 0 : fewerThan24bits == EIGHTBIT ? 2 : 1;
+            return numberQuartet * 4 + numberSeparators * 2 - unused;
+        }
 
-            for (int i = 0; i < numberTriplets; i++) {
-                b1 = binary[dataIndex++];
-                b2 = binary[dataIndex++];
-                b3 = binary[dataIndex++];
+        @Override
+        public int encode(byte[] binary, int off, int len, byte[] encoded, int encodedOff) {
+            int fewerThan24bits = len % THREEBYTE * EIGHTBIT;
+            int numberTriplets = len / THREEBYTE;
 
-                k = (byte) (b1 & 0x03);
-                l = (byte) (b2 & 0x0f);
+            byte k, l, b1, b2;
 
-                byte val1 = ((b1 & SIGN) == 0) ? (byte) (b1 >> 2) : (byte) ((b1) >> 2 ^ 0xc0);
+            int encodedIndex = encodedOff;
+            int dataIndex = off;
+            final int perLine = quartetsPerLine == 0 ? Integer.MAX_VALUE : quartetsPerLine;
 
-                byte val2 = ((b2 & SIGN) == 0) ? (byte) (b2 >> 4) : (byte) ((b2) >> 4 ^ 0xf0);
-                byte val3 = ((b3 & SIGN) == 0) ? (byte) (b3 >> 6) : (byte) ((b3) >> 6 ^ 0xfc);
+            int i = 0;
+            while (true) {
+                // whole triplets of one line, then the line separator
+                int lineEnd = Math.min(numberTriplets, i + perLine);
+                Base64Kernel.INSTANCE.encode(encodeTable, binary, dataIndex, lineEnd - i, encoded, encodedIndex);
+                dataIndex += (lineEnd - i) * THREEBYTE;
+                encodedIndex += (lineEnd - i) * FOURBYTE;
+                i = lineEnd;
+                if (i == numberTriplets) {
+                    break;
+                }
+                encoded[encodedIndex++] = '\r';
+                encoded[encodedIndex++] = '\n';
+            }
 
-                encoded[encodedIndex++] = lookUpBase64Alphabet[val1];
-                encoded[encodedIndex++] = lookUpBase64Alphabet[val2 | (k << 4)];
-                encoded[encodedIndex++] = lookUpBase64Alphabet[(l << 2) | val3];
-                encoded[encodedIndex++] = lookUpBase64Alphabet[b3 & 0x3f];
+            if (fewerThan24bits != 0 && i > 0 && i % perLine == 0) {
+                encoded[encodedIndex++] = '\r';
+                encoded[encodedIndex++] = '\n';
             }
 
             // form integral number of 6-bit groups
@@ -273,10 +436,12 @@ public class Base64 extends Codec {
                 k = (byte) (b1 & 0x03);
 
                 byte val1 = ((b1 & SIGN) == 0) ? (byte) (b1 >> 2) : (byte) ((b1) >> 2 ^ 0xc0);
-                encoded[encodedIndex++] = lookUpBase64Alphabet[val1];
-                encoded[encodedIndex++] = lookUpBase64Alphabet[k << 4];
-                encoded[encodedIndex++] = PAD;
-                encoded[encodedIndex] = PAD;
+                encoded[encodedIndex++] = encodeTable[val1];
+                encoded[encodedIndex++] = encodeTable[k << 4];
+                if (pad) {
+                    encoded[encodedIndex++] = PAD;
+                    encoded[encodedIndex] = PAD;
+                }
             } else if (fewerThan24bits == SIXTEENBIT) {
                 b1 = binary[dataIndex];
                 b2 = binary[dataIndex + 1];
@@ -286,13 +451,25 @@ public class Base64 extends Codec {
                 byte val1 = ((b1 & SIGN) == 0) ? (byte) (b1 >> 2) : (byte) ((b1) >> 2 ^ 0xc0);
                 byte val2 = ((b2 & SIGN) == 0) ? (byte) (b2 >> 4) : (byte) ((b2) >> 4 ^ 0xf0);
 
-                encoded[encodedIndex++] = lookUpBase64Alphabet[val1];
-                encoded[encodedIndex++] = lookUpBase64Alphabet[val2 | (k << 4)];
-                encoded[encodedIndex++] = lookUpBase64Alphabet[l << 2];
-                encoded[encodedIndex] = PAD;
+                encoded[encodedIndex++] = encodeTable[val1];
+                encoded[encodedIndex++] = encodeTable[val2 | (k << 4)];
+                encoded[encodedIndex++] = encodeTable[l << 2];
+                if (pad) {
+                    encoded[encodedIndex] = PAD;
+                }
             }
 
-            return encoded;
+            return maxEncodedLength(len);
+        }
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            return FixedWidth.encode(encodeTable, 6, value, 64, dst, off);
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            return FixedWidth.encode(encodeTable, 6, value, 32, dst, off);
         }
     }
 
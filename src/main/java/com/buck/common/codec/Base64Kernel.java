@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The inner loops of the Base64 codecs, over whole triplets of bytes and
+ * whole quadruples of characters. There is a kernel for each engine, and
+ * every kernel must produce exactly the same output as the scalar one.
+ *
+ * @author Robert J. Buck
+ */
+abstract class Base64Kernel {
+
+    /**
+     * The kernel the codecs run on, picked when this class is initialized.
+     */
+    static final Base64Kernel INSTANCE = forEngine(EngineRegistry.select(engines()));
+
+    /**
+     * Returns the engines there are kernels for on this runtime.
+     *
+     * @return the engines
+     */
+    static Set<CodecEngine> engines() {
+        return EnumSet.of(CodecEngine.SCALAR, CodecEngine.SWAR);
+    }
+
+    /**
+     * Returns a kernel for an engine.
+     *
+     * @param engine one of the engines returned by {@link #engines()}
+     * @return the kernel
+     */
+    static Base64Kernel forEngine(CodecEngine engine) {
+        if (engine == CodecEngine.SWAR) {
+            return new SwarBase64Kernel();
+        }
+        return new ScalarBase64Kernel();
+    }
+
+    /**
+     * Returns the engine this kernel runs on.
+     *
+     * @return the engine
+     */
+    abstract CodecEngine engine();
+
+    /**
+     * Encodes whole triplets of bytes as quadruples of characters.
+     *
+     * @param table    the 64 character alphabet
+     * @param src      the data
+     * @param off      the offset of the data in <tt>src</tt>
+     * @param triplets the number of triplets to encode
+     * @param dst      the destination, with room for <tt>triplets * 4</tt>
+     *                 bytes
+     * @param dstOff   the offset in the destination to write to
+     */
+    abstract void encode(byte[] table, byte[] src, int off, int triplets, byte[] dst, int dstOff);
+
+    /**
+     * Decodes whole quadruples of characters, up to the first quadruple
+     * holding a character outside the alphabet, such as white space or a
+     * pad, or the last characters short of a quadruple.
+     *
+     * @param table  the decode table, mapping octets to sextets or to -1
+     * @param src    the encoded data
+     * @param off    the offset of the encoded data in <tt>src</tt>
+     * @param end    the end of the encoded data in <tt>src</tt>
+     * @param dst    the destination
+     * @param dstOff the offset in the destination to write to
+     * @return the number of characters decoded, a multiple of four
+     */
+    abstract int decode(byte[] table, byte[] src, int off, int end, byte[] dst, int dstOff);
+}
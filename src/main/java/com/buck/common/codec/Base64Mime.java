@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for the RFC 2045 MIME Base64 content transfer encoding.
+ * <p/>
+ * The encoding is that of {@link Base64}, with the output broken into lines
+ * of at most 76 characters separated by CRLF. The line breaks are written by
+ * the encode loop itself into an array sized exactly up front, so no second
+ * copy of the output is made. No line break follows the final line. The
+ * decoder skips line breaks and other white space, as the Base64 decoder
+ * does.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base64Mime extends Base64 {
+
+    /**
+     * The maximum line length according to Section 6.8 of RFC 2045.
+     */
+    static private final int LINE_LENGTH = 76;
+
+    public Base64Mime() {
+        super("base64-mime", StandardCodecs.aliases_Base64Mime, lookUpBase64Alphabet, true, LINE_LENGTH);
+    }
+}
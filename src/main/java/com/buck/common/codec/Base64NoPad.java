@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for RFC 4648 Base64 without padding.
+ * <p/>
+ * Section 3.2 of RFC 4648 permits specifications to omit the trailing
+ * <tt>'='</tt> characters when the data length is known implicitly. The
+ * encoder sizes its output exactly rather than trimming a padded result, and
+ * the decoder accepts a final group of two or three characters but rejects
+ * padding.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base64NoPad extends Base64 {
+
+    public Base64NoPad() {
+        super("base64-nopad", StandardCodecs.aliases_Base64NoPad, Base64.lookUpBase64Alphabet, false, 0);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for RFC 4648 Base64 URL Safe without padding, the form used by JSON
+ * Web Tokens and most other token formats.
+ * <p/>
+ * The encoding is that of {@link Base64NoPad} with the URL and filename safe
+ * alphabet of {@link Base64URL}.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base64URLNoPad extends Base64 {
+
+    public Base64URLNoPad() {
+        super("base64url-nopad", StandardCodecs.aliases_Base64URLNoPad, Base64URL.lookUpBase64Alphabet, false, 0);
+    }
+}
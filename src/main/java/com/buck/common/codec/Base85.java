@@ -0,0 +1,290 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.Arrays;
+
+/**
+ * Codec for the RFC 1924 Base85 encoding.
+ * <p/>
+ * Each group of four bytes is encoded as five characters, the big endian
+ * 32-bit value written as base 85 digits, most significant digit first. A
+ * trailing group of <tt>n</tt> bytes, <tt>n &lt; 4</tt>, is encoded as the
+ * first <tt>n + 1</tt> characters of the group padded with zero bytes. The
+ * output is about 7% smaller than Base64.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Base85 extends Codec {
+
+    static private final int BASELENGTH = 256;
+    static private final int LOOKUPLENGTH = 85;
+    static private final int FOURBYTE = 4;
+    static private final int FIVEBYTE = 5;
+
+    /**
+     * The largest value of a group, being 2<sup>32</sup> - 1.
+     */
+    static private final long MAX_GROUP = 0xFFFFFFFFL;
+
+    /**
+     * The alphabet according to Section 4 of RFC 1924.
+     */
+    static private final byte[] lookUpBase85Alphabet = alphabet(
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz!#$%&()*+-;<=>?@^_`{|}~");
+
+    static byte[] alphabet(String chars) {
+        byte[] alphabet = new byte[chars.length()];
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabet[i] = (byte) chars.charAt(i);
+        }
+        return alphabet;
+    }
+
+    /**
+     * Divides a value less than 2<sup>32</sup> by 85, multiplying by the
+     * reciprocal rather than dividing.
+     *
+     * @param x the dividend
+     * @return the quotient
+     */
+    static long div85(long x) {
+        return (x * 0xC0C0C0C1L) >>> 38;
+    }
+
+    /**
+     * Encodes a group as base 85 digits, most significant digit first.
+     *
+     * @param alphabet the alphabet to encode with
+     * @param group    the group, taken as an unsigned 32-bit value
+     * @param dst      the destination buffer
+     * @param off      the offset in the destination buffer to write to
+     * @param count    the number of leading digits to write, at most five
+     */
+    static void encodeGroup(byte[] alphabet, int group, byte[] dst, int off, int count) {
+        long v = group & MAX_GROUP;
+        long q1 = div85(v);
+        long q2 = div85(q1);
+        long q3 = div85(q2);
+        long q4 = div85(q3);
+        dst[off] = alphabet[(int) q4];
+        dst[off + 1] = alphabet[(int) (q3 - q4 * 85)];
+        if (count > 2) {
+            dst[off + 2] = alphabet[(int) (q2 - q3 * 85)];
+        }
+        if (count > 3) {
+            dst[off + 3] = alphabet[(int) (q1 - q2 * 85)];
+        }
+        if (count > 4) {
+            dst[off + 4] = alphabet[(int) (v - q1 * 85)];
+        }
+    }
+
+    /**
+     * Table used to encode data; maps base 85 digits to this codec's alphabet.
+     */
+    private final byte[] encodeTable;
+
+    /**
+     * Table used to decode data; maps octets to base 85 digits, or to -1 if the
+     * octet is not part of this codec's alphabet.
+     */
+    private final byte[] decodeTable;
+
+    public Base85() {
+        this("base85", StandardCodecs.aliases_Base85, lookUpBase85Alphabet);
+    }
+
+    /**
+     * Initializes a Base85 codec using an alternative alphabet.
+     *
+     * @param canonicalName the canonical name of the codec
+     * @param aliases       the aliases of the codec
+     * @param alphabet      the 85 character alphabet
+     */
+    Base85(String canonicalName, String[] aliases, byte[] alphabet) {
+        super(canonicalName, aliases);
+        this.encodeTable = alphabet;
+        this.decodeTable = new byte[BASELENGTH];
+        Arrays.fill(decodeTable, (byte) -1);
+        for (int i = 0; i < LOOKUPLENGTH; i++) {
+            decodeTable[alphabet[i]] = (byte) i;
+        }
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        return new BlockLayout(FOURBYTE, FIVEBYTE, null, "", -1);
+    }
+
+    private static class Decoder extends CodecDecoder {
+
+        private final byte[] decodeTable;
+
+        public Decoder(Base85 codec) {
+            super(codec);
+            this.decodeTable = codec.decodeTable;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            return decodeTrimmed(encoded);
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            int rem = len % FIVEBYTE;
+            return (len / FIVEBYTE) * FOURBYTE + (rem == 0 ? 0 : rem - 1);
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            return decode0(src, off, len, dst, dstOff);
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            int n = decode0(src, off, len, null, 0);
+            return n < 0 ? -n - 1 : -1;
+        }
+
+        /**
+         * Decodes into the destination, or only checks the input if the
+         * destination is <tt>null</tt>.
+         */
+        private int decode0(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final byte[] table = decodeTable;
+            final int end = off + len;
+            int dataIndex = off;
+            int decodedIndex = dstOff;
+            for (; dataIndex + FIVEBYTE <= end; dataIndex += FIVEBYTE) {
+                int d0 = table[src[dataIndex] & 0xff];
+                int d1 = table[src[dataIndex + 1] & 0xff];
+                int d2 = table[src[dataIndex + 2] & 0xff];
+                int d3 = table[src[dataIndex + 3] & 0xff];
+                int d4 = table[src[dataIndex + 4] & 0xff];
+                if ((d0 | d1 | d2 | d3 | d4) < 0) {
+                    int i = dataIndex;
+                    while (table[src[i] & 0xff] >= 0) {
+                        i++;
+                    }
+                    return -(i + 1);
+                }
+                long v = (((d0 * 85L + d1) * 85 + d2) * 85 + d3) * 85 + d4;
+                if (v > MAX_GROUP) {
+                    return -(dataIndex + 1);
+                }
+                if (dst != null) {
+                    dst[decodedIndex] = (byte) (v >>> 24);
+                    dst[decodedIndex + 1] = (byte) (v >>> 16);
+                    dst[decodedIndex + 2] = (byte) (v >>> 8);
+                    dst[decodedIndex + 3] = (byte) v;
+                }
+                decodedIndex += FOURBYTE;
+            }
+            int rem = end - dataIndex;
+            if (rem > 0) {
+                // a trailing partial group, padded with the highest digit
+                long v = 0;
+                for (int k = 0; k < FIVEBYTE; k++) {
+                    int d = 84;
+                    if (k < rem) {
+                        d = table[src[dataIndex + k] & 0xff];
+                        if (d < 0) {
+                            return -(dataIndex + k + 1);
+                        }
+                    }
+                    v = v * 85 + d;
+                }
+                if (rem == 1) {
+                    return -(end + 1);
+                }
+                if (v > MAX_GROUP) {
+                    return -(dataIndex + 1);
+                }
+                for (int k = 0; k < rem - 1; k++) {
+                    if (dst != null) {
+                        dst[decodedIndex] = (byte) (v >>> (24 - 8 * k));
+                    }
+                    decodedIndex++;
+                }
+            }
+            return decodedIndex - dstOff;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    private static class Encoder extends CodecEncoder {
+
+        private final byte[] encodeTable;
+
+        public Encoder(Base85 codec) {
+            super(codec);
+            this.encodeTable = codec.encodeTable;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            byte[] encoded = new byte[maxEncodedLength(bytes.length)];
+            encode(bytes, 0, bytes.length, encoded, 0);
+            return encoded;
+        }
+
+        @Override
+        public int maxEncodedLength(int len) {
+            final int rem = len % FOURBYTE;
+            return (len / FOURBYTE) * FIVEBYTE + (rem == 0 ? 0 : rem + 1);
+        }
+
+        @Override
+        public int encode(byte[] bytes, int off, int len, byte[] encoded, int encodedOff) {
+            final int end = off + len;
+            final int rem = len % FOURBYTE;
+            int dataIndex = off;
+            int encodedIndex = encodedOff;
+            for (; dataIndex + FOURBYTE <= end; dataIndex += FOURBYTE) {
+                int group = (bytes[dataIndex] << 24) | ((bytes[dataIndex + 1] & 0xff) << 16) |
+                        ((bytes[dataIndex + 2] & 0xff) << 8) | (bytes[dataIndex + 3] & 0xff);
+                encodeGroup(encodeTable, group, encoded, encodedIndex, FIVEBYTE);
+                encodedIndex += FIVEBYTE;
+            }
+            if (rem > 0) {
+                int group = 0;
+                for (int k = 0; k < rem; k++) {
+                    group |= (bytes[dataIndex + k] & 0xff) << (24 - 8 * k);
+                }
+                encodeGroup(encodeTable, group, encoded, encodedIndex, rem + 1);
+                encodedIndex += rem + 1;
+            }
+            return encodedIndex - encodedOff;
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Big endian loads and stores of several bytes, for the SWAR kernels. These
+ * assemble the values a byte at a time; the multi-release jar replaces this
+ * class on Java 11 and later with one that makes a single memory access.
+ *
+ * @author Robert J. Buck
+ */
+final class BigEndian {
+
+    private BigEndian() {
+    }
+
+    static long getLong(byte[] b, int off) {
+        return (long) getInt(b, off) << 32 | (getInt(b, off + 4) & 0xffffffffL);
+    }
+
+    static int getInt(byte[] b, int off) {
+        return b[off] << 24 | (b[off + 1] & 0xff) << 16 | (b[off + 2] & 0xff) << 8 | (b[off + 3] & 0xff);
+    }
+
+    static void putLong(byte[] b, int off, long value) {
+        putInt(b, off, (int) (value >>> 32));
+        putInt(b, off + 4, (int) value);
+    }
+
+    static void putInt(byte[] b, int off, int value) {
+        b[off] = (byte) (value >>> 24);
+        b[off + 1] = (byte) (value >>> 16);
+        b[off + 2] = (byte) (value >>> 8);
+        b[off + 3] = (byte) value;
+    }
+
+    static void putShort(byte[] b, int off, short value) {
+        b[off] = (byte) (value >>> 8);
+        b[off + 1] = (byte) value;
+    }
+}
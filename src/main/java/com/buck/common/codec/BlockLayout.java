@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Describes how a codec's encoding splits into independent blocks, so that
+ * data can be encoded and decoded a block at a time through fixed size
+ * buffers. Encoding consecutive whole blocks of raw data and concatenating the
+ * results, with the separator between them, gives the same output as encoding
+ * all the data at once; likewise for decoding whole blocks of encoded data.
+ *
+ * @author Robert J. Buck
+ */
+final class BlockLayout {
+
+    static final byte[] CRLF = {'\r', '\n'};
+
+    /**
+     * The number of raw bytes in a block.
+     */
+    final int rawSize;
+
+    /**
+     * The number of encoded data characters in a block, not counting
+     * separators or other characters that the decoder skips.
+     */
+    final int encodedSize;
+
+    /**
+     * The bytes written between consecutive encoded blocks, or <tt>null</tt>.
+     */
+    final byte[] separator;
+
+    /**
+     * The pad character that ends the encoded data, or -1 if the encoding is
+     * not padded.
+     */
+    final int pad;
+
+    /**
+     * The octets that the decoder skips between data characters.
+     */
+    private final boolean[] ignorable = new boolean[256];
+
+    /**
+     * Describes a block layout.
+     *
+     * @param rawSize     the number of raw bytes in a block
+     * @param encodedSize the number of encoded data characters in a block
+     * @param separator   the bytes written between encoded blocks, or
+     *                    <tt>null</tt>
+     * @param ignorable   the octets the decoder skips
+     * @param pad         the pad character, or -1
+     */
+    BlockLayout(int rawSize, int encodedSize, byte[] separator, String ignorable, int pad) {
+        this.rawSize = rawSize;
+        this.encodedSize = encodedSize;
+        this.separator = separator;
+        this.pad = pad;
+        for (int i = 0; i < ignorable.length(); i++) {
+            this.ignorable[ignorable.charAt(i)] = true;
+        }
+    }
+
+    /**
+     * Tells whether the decoder skips an octet between data characters.
+     *
+     * @param octet the octet
+     * @return <tt>true</tt> if the octet carries no data
+     */
+    boolean isIgnorable(byte octet) {
+        return ignorable[octet & 0xff];
+    }
+
+    /**
+     * Returns the length of the longest prefix of the encoded data that holds
+     * a whole number of blocks, so that it can be decoded on its own.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded data in <tt>src</tt>
+     * @param len the length of the encoded data
+     * @return the length of the prefix
+     */
+    int wholeBlocks(byte[] src, int off, int len) {
+        int prefix = 0;
+        int count = 0;
+        for (int i = 0; i < len; i++) {
+            if (!ignorable[src[off + i] & 0xff] && ++count == encodedSize) {
+                count = 0;
+            }
+            if (count == 0) {
+                prefix = i + 1;
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Returns the length of the shortest prefix of the encoded data that holds
+     * the given number of data characters, or the whole length if the data
+     * holds fewer.
+     *
+     * @param src   the encoded data
+     * @param off   the offset of the encoded data in <tt>src</tt>
+     * @param len   the length of the encoded data
+     * @param count the number of data characters
+     * @return the length of the prefix
+     */
+    int span(byte[] src, int off, int len, int count) {
+        for (int i = 0; i < len; i++) {
+            if (!ignorable[src[off + i] & 0xff] && --count == 0) {
+                return i + 1;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Tells whether the last data character of the encoded data is the pad
+     * character, meaning that no more data may follow.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded data in <tt>src</tt>
+     * @param len the length of the encoded data
+     * @return <tt>true</tt> if the data ends with padding
+     */
+    boolean endsWithPad(byte[] src, int off, int len) {
+        if (pad < 0) {
+            return false;
+        }
+        for (int i = off + len - 1; i >= off; i--) {
+            if (!ignorable[src[i] & 0xff]) {
+                return src[i] == pad;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A codec decorator that memoizes the encodings and decodings of small,
+ * frequently repeated inputs, such as tenant identifiers and URL path
+ * segments.
+ * <p/>
+ * Entries are keyed on the content and length of the input, and held in a
+ * fixed number of stripes, each guarded by its own lock and bounded by its
+ * share of the maximum number of entries. When a stripe is full, an entry is
+ * evicted by the CLOCK algorithm: a hand sweeps the stripe's entries,
+ * clearing the reference bit of those used since its last pass and evicting
+ * the first that was not. Inputs longer than the maximum cacheable length
+ * bypass the cache, as does malformed input, which is never cached.
+ * <p/>
+ * The encoders and decoders of this codec return copies of the cached
+ * arrays, so callers may modify them freely. Callers that do not need to can
+ * avoid the copy through the {@link #encodeView} and {@link #decodeView}
+ * methods, which return read-only views of the cached arrays.
+ *
+ * @author Robert J. Buck
+ * @see Codec#cached(int)
+ */
+public final class CachedCodec extends Codec {
+
+    /**
+     * The maximum length of a cacheable input, unless given otherwise.
+     */
+    public static final int DEFAULT_MAX_INPUT_LENGTH = 256;
+
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * Stripes smaller than this give CLOCK too little history to work with.
+     */
+    private static final int MIN_STRIPE_ENTRIES = 8;
+
+    private final Codec codec;
+    private final int maxEntries;
+    private final int maxInputLength;
+    private final Stripe[] encoded;
+    private final Stripe[] decoded;
+
+    /**
+     * Coders of the underlying codec for the view methods, which are called
+     * on this codec rather than on a coder of its own; one of each per thread.
+     */
+    private final ThreadLocal<CodecEncoder> viewEncoder = new ThreadLocal<CodecEncoder>() {
+        @Override
+        protected CodecEncoder initialValue() {
+            return codec.newEncoder();
+        }
+    };
+    private final ThreadLocal<CodecDecoder> viewDecoder = new ThreadLocal<CodecDecoder>() {
+        @Override
+        protected CodecDecoder initialValue() {
+            return codec.newDecoder();
+        }
+    };
+
+    CachedCodec(Codec codec, int maxEntries, int maxInputLength) {
+        super(codec.name(), codec.aliases().toArray(new String[codec.aliases().size()]));
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (maxInputLength < 0) {
+            throw new IllegalArgumentException("maxInputLength must not be negative: " + maxInputLength);
+        }
+        this.codec = codec;
+        this.maxEntries = maxEntries;
+        this.maxInputLength = maxInputLength;
+        this.encoded = stripes(maxEntries);
+        this.decoded = stripes(maxEntries);
+    }
+
+    private static Stripe[] stripes(int maxEntries) {
+        int count = 1;
+        while (count < MAX_STRIPES && count * 2 * MIN_STRIPE_ENTRIES <= maxEntries) {
+            count *= 2;
+        }
+        Stripe[] stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            // spread the remainder over the first stripes
+            stripes[i] = new Stripe(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+        return stripes;
+    }
+
+    /**
+     * Returns the codec whose results are cached.
+     *
+     * @return the underlying codec
+     */
+    public Codec codec() {
+        return codec;
+    }
+
+    /**
+     * Returns the maximum number of entries cached in each direction.
+     *
+     * @return the maximum number of entries
+     */
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the maximum length of an input that is cached.
+     *
+     * @return the maximum cacheable input length
+     */
+    public int maxInputLength() {
+        return maxInputLength;
+    }
+
+    /**
+     * Returns the number of encodings and decodings answered from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long hitCount() {
+        return sum(encoded, true) + sum(decoded, true);
+    }
+
+    /**
+     * Returns the number of cacheable encodings and decodings that were not
+     * found in the cache. Inputs too long to cache are not counted.
+     *
+     * @return the number of cache misses
+     */
+    public long missCount() {
+        return sum(encoded, false) + sum(decoded, false);
+    }
+
+    private static long sum(Stripe[] stripes, boolean hits) {
+        long sum = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                sum += hits ? stripe.hits : stripe.misses;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Encodes raw data, returning a read-only view of the cached encoding
+     * rather than a copy.
+     *
+     * @param bytes the raw data
+     * @return a read-only view of the encoded data
+     */
+    public ByteBuffer encodeView(byte[] bytes) {
+        return ByteBuffer.wrap(encodeShared(viewEncoder.get(), bytes)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Decodes encoded data, returning a read-only view of the cached decoding
+     * rather than a copy.
+     *
+     * @param encoded the encoded data
+     * @return a read-only view of the decoded data, or <tt>null</tt> if the
+     *         input is malformed
+     */
+    public ByteBuffer decodeView(byte[] encoded) {
+        byte[] decoded = decodeShared(viewDecoder.get(), encoded);
+        return decoded == null ? null : ByteBuffer.wrap(decoded).asReadOnlyBuffer();
+    }
+
+    private byte[] encodeShared(CodecEncoder encoder, byte[] bytes) {
+        if (bytes.length > maxInputLength) {
+            return encoder.encode(bytes);
+        }
+        Key probe = new Key(bytes);
+        Stripe stripe = stripe(encoded, probe);
+        byte[] value = stripe.get(probe);
+        if (value == null) {
+            value = encoder.encode(bytes);
+            stripe.put(new Key(bytes.clone(), probe.hash), value);
+        }
+        return value;
+    }
+
+    private byte[] decodeShared(CodecDecoder decoder, byte[] encoded) {
+        if (encoded.length > maxInputLength) {
+            return decoder.decode(encoded);
+        }
+        Key probe = new Key(encoded);
+        Stripe stripe = stripe(decoded, probe);
+        byte[] value = stripe.get(probe);
+        if (value == null) {
+            value = decoder.decode(encoded);
+            if (value != null) {
+                stripe.put(new Key(encoded.clone(), probe.hash), value);
+            }
+        }
+        return value;
+    }
+
+    private static Stripe stripe(Stripe[] stripes, Key key) {
+        int h = key.hash;
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    /**
+     * An input, compared by content.
+     */
+    private static final class Key {
+        final byte[] bytes;
+        final int hash;
+
+        Key(byte[] bytes) {
+            this(bytes, 31 * Arrays.hashCode(bytes) + bytes.length);
+        }
+
+        Key(byte[] bytes, int hash) {
+            this.bytes = bytes;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && bytes.length == other.bytes.length && Arrays.equals(bytes, other.bytes);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final byte[] value;
+        boolean referenced;
+
+        Entry(Key key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A bounded portion of the cache, evicting by CLOCK.
+     */
+    private static final class Stripe {
+        private final Map<Key, Entry> index;
+        private final Entry[] ring;
+        private int count;
+        private int hand;
+        long hits;
+        long misses;
+
+        Stripe(int capacity) {
+            this.index = new HashMap<Key, Entry>(capacity * 4 / 3 + 1);
+            this.ring = new Entry[capacity];
+        }
+
+        synchronized byte[] get(Key key) {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            entry.referenced = true;
+            return entry.value;
+        }
+
+        synchronized void put(Key key, byte[] value) {
+            if (index.containsKey(key)) {
+                // another thread cached it first
+                return;
+            }
+            Entry entry = new Entry(key, value);
+            if (count < ring.length) {
+                ring[count++] = entry;
+            } else {
+                while (ring[hand].referenced) {
+                    ring[hand].referenced = false;
+                    hand = (hand + 1) % ring.length;
+                }
+                index.remove(ring[hand].key);
+                ring[hand] = entry;
+                hand = (hand + 1) % ring.length;
+            }
+            index.put(key, entry);
+        }
+    }
+
+    @Override
+    public CodecEngine engine() {
+        return codec.engine();
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        return codec.blockLayout();
+    }
+
+    private static class Decoder extends CodecDecoder {
+        private final CodecDecoder decoder;
+
+        public Decoder(CachedCodec codec, CodecDecoder decoder) {
+            super(codec);
+            this.decoder = decoder;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            byte[] decoded = ((CachedCodec) codec()).decodeShared(decoder, encoded);
+            return decoded == null ? null : decoded.clone();
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return decoder.maxDecodedLength(len);
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            return decoder.decode(src, off, len, dst, dstOff);
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            return decoder.validate(src, off, len);
+        }
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return decoder.decodeLong(src, off, len);
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            return decoder.decodeInt(src, off, len);
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this, codec.newDecoder());
+    }
+
+    private static class Encoder extends CodecEncoder {
+        private final CodecEncoder encoder;
+
+        public Encoder(CachedCodec codec, CodecEncoder encoder) {
+            super(codec);
+            this.encoder = encoder;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            return ((CachedCodec) codec()).encodeShared(encoder, bytes).clone();
+        }
+
+        @Override
+        public String encodeToString(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            // the string is a copy already
+            byte[] encoded = ((CachedCodec) codec()).encodeShared(encoder, bytes);
+            return latin1(encoded, 0, encoded.length);
+        }
+
+        @Override
+        public StringBuilder encode(byte[] bytes, StringBuilder dst) {
+            if (bytes == null) {
+                return null;
+            }
+            byte[] encoded = ((CachedCodec) codec()).encodeShared(encoder, bytes);
+            dst.ensureCapacity(dst.length() + encoded.length);
+            for (byte b : encoded) {
+                dst.append((char) (b & 0xff));
+            }
+            return dst;
+        }
+
+        @Override
+        public int maxEncodedLength(int len) {
+            return encoder.maxEncodedLength(len);
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            return encoder.encode(src, off, len, dst, dstOff);
+        }
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            return encoder.encodeLong(value, dst, off);
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            return encoder.encodeInt(value, dst, off);
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this, codec.newEncoder());
+    }
+}
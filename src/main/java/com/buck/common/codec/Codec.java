@@ -18,11 +18,11 @@ package com.buck.common.codec;
 
 import com.buck.common.codec.spi.CodecProvider;
 import com.buck.commons.i18n.ResourceBundle;
-import sun.misc.ASCIICaseInsensitiveComparator;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * A named mapping between encoded sequences of bytes and raw binary data. This
@@ -53,10 +53,14 @@ import java.util.*;
  * (<tt>'&#92;u002e'</tt>,&nbsp;<small>FULL STOP</small>),
  * <p/>
  * <li> The colon character <tt>':'</tt>
- * (<tt>'&#92;u003a'</tt>,&nbsp;<small>COLON</small>), and
+ * (<tt>'&#92;u003a'</tt>,&nbsp;<small>COLON</small>),
  * <p/>
  * <li> The underscore character <tt>'_'</tt>
- * (<tt>'&#92;u005f'</tt>,&nbsp;<small>LOW&nbsp;LINE</small>).
+ * (<tt>'&#92;u005f'</tt>,&nbsp;<small>LOW&nbsp;LINE</small>), and
+ * <p/>
+ * <li> The plus sign <tt>'+'</tt>
+ * (<tt>'&#92;u002b'</tt>,&nbsp;<small>PLUS&nbsp;SIGN</small>), which joins the
+ * stages of a {@link CodecPipeline}.
  * <p/>
  * </ul>
  * <p/>
@@ -69,6 +73,10 @@ import java.util.*;
  * <p/>
  * <blockquote><table width="80%" summary="Description of standard codecs">
  * <tr><th><p align="left">Codec</p></th><th><p align="left">Description</p></th></tr>
+ * <tr><td valign=top><tt>Ascii85</tt></td>
+ * <td>The Adobe encoding used by PostScript and PDF, this codec, referred to as
+ * "ascii85", encodes four bytes as five characters, and a group of four zero bytes
+ * as "z". It is about 7% more compact than base64.</td></tr>
  * <tr><td valign=top><tt>Base16</tt></td>
  * <td>Defined in <a href="http://ietf.org/rfc/rfc4648.txt"><i>RFC&nbsp;4648</i></a>,
  * this codec, referred to as "base16" or "hex", is the standard case-insensitive hex
@@ -79,28 +87,59 @@ import java.util.*;
  * this codec, referred to as "base32", uses an alphabet that may be handled by humans;
  * where the characters "0" and "O" are easily confused, as are "1", "l", and "I",
  * the base32 alphabet omits 0 (zero) and 1 (one).</td></tr>
+ * <tr><td valign=top><tt>Base32 Crockford</tt></td>
+ * <td>Douglas Crockford's encoding, this codec, referred to as "base32-crockford",
+ * uses an alphabet without "I", "L", "O" and "U" and decodes leniently, ignoring
+ * case and hyphens. The "base32-crockford-check" variant appends a check
+ * symbol.</td></tr>
  * <tr><td valign=top><tt>Base32 Extended Hex Alphabet</tt></td>
  * <td>Defined in <a href="http://ietf.org/rfc/rfc4648.txt"><i>RFC&nbsp;4648</i></a>,
  * this codec, referred to as "base32hex", uses an alphabet that causes confusion by
  * humans due to its use of 0 (zero) and 1 (one). However, one property with this
  * alphabet, which the base64 and base32 alphabets lack, is that encoded data
  * maintains its sort order when the encoded data is compared bit-wise.</td></tr>
+ * <tr><td valign=top><tt>Base58</tt></td>
+ * <td>The Bitcoin encoding, this codec, referred to as "base58", writes the data as
+ * one large number in base 58, using an alphabet without the easily confused
+ * characters "0", "O", "I" and "l". Leading zero bytes are encoded as "1".</td></tr>
+ * <tr><td valign=top><tt>Base58 Flickr</tt></td>
+ * <td>This codec, referred to as "base58-flickr", is identical to base58, except
+ * that the lowercase letters sort before the uppercase letters.</td></tr>
+ * <tr><td valign=top><tt>Base58Check</tt></td>
+ * <td>This codec, referred to as "base58check", is base58 with a four byte double
+ * SHA-256 checksum appended to the data, as used for Bitcoin addresses.</td></tr>
  * <tr><td valign=top><tt>Base64</tt></td>
  * <td>Defined in <a href="http://ietf.org/rfc/rfc4648.txt"><i>RFC&nbsp;4648</i></a>,
  * this codec, referred to as "base64", the encoding is designed to represent
  * arbitrary sequences of octets in a form that allows the use of both upper- and
  * lowercase letters but that need not be human readable.</td></tr>
+ * <tr><td valign=top><tt>Base64 MIME</tt></td>
+ * <td>Defined in <a href="http://ietf.org/rfc/rfc2045.txt"><i>RFC&nbsp;2045</i></a>,
+ * this codec, referred to as "base64-mime", is identical to base64, except that
+ * the output is broken into lines of at most 76 characters separated by
+ * CRLF.</td></tr>
  * <tr><td valign=top><tt>Base64 URL</tt></td>
  * <td>Defined in <a href="http://ietf.org/rfc/rfc4648.txt"><i>RFC&nbsp;4648</i></a>,
  * this codec, referred to as "base64url", is identical to base64, except that it uses
  * an alphabet that is safe for use in URL and filenames.</td></tr>
+ * <tr><td valign=top><tt>Unpadded Base32 and Base64</tt></td>
+ * <td>Permitted by Section 3.2 of <a href="http://ietf.org/rfc/rfc4648.txt"><i>RFC&nbsp;4648</i></a>,
+ * the codecs referred to as "base32-nopad", "base32hex-nopad", "base64-nopad" and
+ * "base64url-nopad" are identical to their padded counterparts, except that the
+ * encoder writes no padding and the decoder rejects it.</td></tr>
+ * <tr><td valign=top><tt>Base85</tt></td>
+ * <td>Defined in <a href="http://ietf.org/rfc/rfc1924.txt"><i>RFC&nbsp;1924</i></a>,
+ * this codec, referred to as "base85", encodes four bytes as five characters from an
+ * alphabet of 85 printable characters.</td></tr>
  * <tr><td valign=top><tt>Percent Encoded</tt></td>
  * <td>Defined in <a href="http://ietf.org/rfc/rfc3986.txt"><i>RFC&nbsp;3986</i></a>,
  * this codec, referred to as "percent-encoded", is similar to URL Encoded, except
  * that it uses an alphabet that is safe for use in URI, according to RFC 3986.
  * Percent-encoding may only be applied to octets prior to producing a URI from its
  * component parts. When encoding URI, percent encoding is preferable over URL
- * encoded schemes.</td></tr>
+ * encoded schemes. Profiles such as "pct-encoded:path" and
+ * "pct-encoded:query-param" leave unencoded the delimiters allowed in each URI
+ * component.</td></tr>
  * <tr><td valign=top><tt>Quoted Printable</tt></td>
  * <td>Defined in <a href="http://ietf.org/rfc/rfc2045.txt"><i>RFC&nbsp;2045</i></a>,
  * this codec, referred to as "quoted-printable", is intended to represent data that
@@ -112,6 +151,10 @@ import java.util.*;
  * <td>Defined in <a href="http://www.w3.org/MarkUp/html-spec/html-spec_8.html">
  * <i>HTML 2.0 Forms</i></a>, this codec, referred to as "x-www-form-urlencoded", is
  * used primarily for HTML form submission.</td></tr>
+ * <tr><td valign=top><tt>Z85</tt></td>
+ * <td>Defined in <a href="http://rfc.zeromq.org/spec:32"><i>ZeroMQ RFC&nbsp;32</i></a>,
+ * this codec, referred to as "z85", is identical to base85, except that its alphabet
+ * is safe to embed in source code, XML and JSON strings.</td></tr>
  * </table></blockquote>
  *
  * @author Robert J. Buck
@@ -123,13 +166,37 @@ public abstract class Codec implements Comparable<Codec> {
      */
     private static final CodecProvider standardProvider = new StandardCodecs();
 
+    /**
+     * Pipelines of standard codecs, named by their stages joined with '+'.
+     */
+    private static final CodecProvider compositeProvider = new CompositeCodecProvider();
+
     /**
      * Cache of the most-recently-returned codec, along with the name that was
      * used to find it.
      */
     private static volatile Object[] cache = null;
 
+    /**
+     * Whether codecs looked up by name are instrumented; when not, lookups
+     * return the providers' codecs as-is.
+     */
+    private static final boolean metered = Boolean.getBoolean(CodecMetrics.ENABLE_PROPERTY);
+
+    /**
+     * Whether the encoders and decoders of codecs looked up by name emit
+     * flight recorder events.
+     */
+    private static final boolean recorded = CodecEvents.events.isAvailable() &&
+            Boolean.getBoolean(CodecEvents.ENABLE_PROPERTY);
+
     private static Codec cache(String codecName, Codec codec) {
+        if (recorded) {
+            codec = new RecordedCodec(codec);
+        }
+        if (metered) {
+            codec = CodecMetrics.instrument(codec);
+        }
         cache = new Object[]{codecName, codec};
         return codec;
     }
@@ -149,8 +216,18 @@ public abstract class Codec implements Comparable<Codec> {
             return AccessController.doPrivileged(new PrivilegedAction<Codec>() {
                 public Codec run() {
                     ServiceLoader<CodecProvider> sl = ServiceLoader.load(com.buck.common.codec.spi.CodecProvider.class);
-                    for (CodecProvider cp : sl) {
-                        Codec codec = cp.codecForName(codecName);
+                    Iterator<CodecProvider> i = sl.iterator();
+                    while (i.hasNext()) {
+                        Object event = CodecEvents.events.beginProviderLoad();
+                        String providerName = null;
+                        Codec codec = null;
+                        try {
+                            CodecProvider cp = i.next();
+                            providerName = cp.getClass().getName();
+                            codec = cp.codecForName(codecName);
+                        } finally {
+                            CodecEvents.events.endProviderLoad(event, providerName, codecName, codec != null);
+                        }
                         if (codec != null) {
                             return codec;
                         }
@@ -187,6 +264,7 @@ public abstract class Codec implements Comparable<Codec> {
             if (c == ':') continue;
             if (c == '_') continue;
             if (c == '.') continue;
+            if (c == '+') continue;
             Object[] arguments = {s};
             String message = ResourceBundle.formatResourceBundleMessage(Codec.class,
                     "CODEC_ILLEGAL_CODEC_NAME", arguments);
@@ -205,11 +283,15 @@ public abstract class Codec implements Comparable<Codec> {
         if ((ca != null) && ca[0].equals(codecName)) {
             return (Codec) ca[1];
         }
+        Object event = CodecEvents.events.beginLookup();
         Codec codec = standardProvider.codecForName(codecName);
-        if (codec != null) {
-            return cache(codecName, codec);
+        if (codec == null) {
+            codec = compositeProvider.codecForName(codecName);
+        }
+        if (codec == null) {
+            codec = lookupViaProviders(codecName);
         }
-        codec = lookupViaProviders(codecName);
+        CodecEvents.events.endLookup(event, codecName, codec != null);
         if (codec != null) {
             return cache(codecName, codec);
         }
@@ -253,6 +335,18 @@ public abstract class Codec implements Comparable<Codec> {
         return (lookup(codecName) != null);
     }
 
+    /**
+     * Returns a transcoder that converts data encoded by one codec to the
+     * encoding of another, without decoding all of it first.
+     *
+     * @param from The codec the data is encoded with
+     * @param to   The codec to encode the data with
+     * @return A new transcoder
+     */
+    public static Transcoder transcoder(Codec from, Codec to) {
+        return new Transcoder(from, to);
+    }
+
     private final String name;
     private final String[] aliases;
     private Set<String> aliasSet;
@@ -383,7 +477,7 @@ public abstract class Codec implements Comparable<Codec> {
     public static SortedMap<String, Codec> availableCodecs() {
         return AccessController.doPrivileged(new PrivilegedAction<SortedMap<String, Codec>>() {
             public SortedMap<String, Codec> run() {
-                TreeMap<String, Codec> m = new TreeMap<String, Codec>(ASCIICaseInsensitiveComparator.CASE_INSENSITIVE_ORDER);
+                TreeMap<String, Codec> m = new TreeMap<String, Codec>(String.CASE_INSENSITIVE_ORDER);
                 put(standardProvider.codecs(), m);
                 ServiceLoader<CodecProvider> sl = ServiceLoader.load(com.buck.common.codec.spi.CodecProvider.class);
                 for (CodecProvider cp : sl) {
@@ -407,4 +501,65 @@ public abstract class Codec implements Comparable<Codec> {
      * @return A new encoder for this codec
      */
     public abstract CodecEncoder newEncoder();
+
+    /**
+     * Returns a view of this codec that caches the results of encoding and
+     * decoding inputs of up to {@link CachedCodec#DEFAULT_MAX_INPUT_LENGTH}
+     * bytes, for workloads that repeat the same few inputs.
+     *
+     * @param maxEntries The maximum number of entries cached in each direction
+     * @return A caching view of this codec
+     * @throws IllegalArgumentException If <tt>maxEntries</tt> is not positive
+     */
+    public CachedCodec cached(int maxEntries) {
+        return new CachedCodec(this, maxEntries, CachedCodec.DEFAULT_MAX_INPUT_LENGTH);
+    }
+
+    /**
+     * Returns a view of this codec that caches the results of encoding and
+     * decoding inputs of up to the given length.
+     *
+     * @param maxEntries     The maximum number of entries cached in each
+     *                       direction
+     * @param maxInputLength The maximum length of a cacheable input
+     * @return A caching view of this codec
+     * @throws IllegalArgumentException If <tt>maxEntries</tt> is not positive,
+     *                                  or <tt>maxInputLength</tt> is negative
+     */
+    public CachedCodec cached(int maxEntries, int maxInputLength) {
+        return new CachedCodec(this, maxEntries, maxInputLength);
+    }
+
+    /**
+     * Returns an executor that encodes and decodes many small records with
+     * this codec in parallel, packing the results into a single array.
+     *
+     * @param executor The executor to run the batches on
+     * @return A new batch executor
+     */
+    public CodecBatchExecutor batchExecutor(ExecutorService executor) {
+        return new CodecBatchExecutor(this, executor);
+    }
+
+    /**
+     * Returns the engine this codec's inner loops run on, for diagnostics.
+     * Codecs with a single implementation run on the scalar engine.
+     *
+     * @return The engine
+     * @see CodecEngine
+     */
+    public CodecEngine engine() {
+        return CodecEngine.SCALAR;
+    }
+
+    /**
+     * Describes how this codec's encoding splits into independent blocks, for
+     * pipelines and transcoders that work through fixed size buffers.
+     *
+     * @return the block layout, or <tt>null</tt> if the data must be encoded
+     *         and decoded as a whole
+     */
+    BlockLayout blockLayout() {
+        return null;
+    }
 }
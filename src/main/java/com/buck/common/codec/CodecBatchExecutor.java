@@ -0,0 +1,310 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Encodes or decodes many small records, such as one token per row of a batch
+ * job, in parallel.
+ * <p/>
+ * Records are grouped into batches of about {@link #BATCH_SIZE} bytes, small
+ * enough that a batch's input and output stay in a core's cache, and each
+ * batch is one task on the executor: a pool of virtual threads, a
+ * work-stealing pool, or any other. A task encodes its records back to back
+ * into one buffer, and the results are packed into a single array with an
+ * offsets array, so that no object is made per record. Encoders and decoders
+ * are kept between tasks, so there are no more of them than there are tasks
+ * running at once. Inputs of a single batch are processed by the calling
+ * thread.
+ * <p/>
+ * Instances of this class are safe for use by multiple concurrent threads.
+ *
+ * @author Robert J. Buck
+ * @see Codec#batchExecutor(ExecutorService)
+ */
+public final class CodecBatchExecutor {
+
+    /**
+     * The approximate number of input bytes in each batch.
+     */
+    static final int BATCH_SIZE = 32 * 1024;
+
+    private final Codec codec;
+    private final ExecutorService executor;
+    private final boolean blocks;
+    private final Queue<CodecEncoder> encoders = new ConcurrentLinkedQueue<CodecEncoder>();
+    private final Queue<CodecDecoder> decoders = new ConcurrentLinkedQueue<CodecDecoder>();
+
+    CodecBatchExecutor(Codec codec, ExecutorService executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.codec = codec;
+        this.executor = executor;
+        // block codecs bound their output exactly; others are sized per record
+        this.blocks = codec.blockLayout() != null;
+    }
+
+    /**
+     * Returns the codec that the records are encoded or decoded with.
+     *
+     * @return the codec
+     */
+    public Codec codec() {
+        return codec;
+    }
+
+    /**
+     * Encodes records in parallel.
+     *
+     * @param records the records to encode
+     * @return the encoded records, in the order given
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              batches to complete
+     */
+    public PackedRecords encode(Iterable<byte[]> records) throws InterruptedException {
+        return encode(records.iterator());
+    }
+
+    /**
+     * Encodes records in parallel, as they are read from an iterator, such as
+     * that of a stream.
+     *
+     * @param records the records to encode
+     * @return the encoded records, in the order given
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              batches to complete
+     */
+    public PackedRecords encode(Iterator<byte[]> records) throws InterruptedException {
+        return run(records, true);
+    }
+
+    /**
+     * Decodes records in parallel.
+     *
+     * @param records the records to decode
+     * @return the decoded records, in the order given
+     * @throws InterruptedException    if interrupted while waiting for the
+     *                                 batches to complete
+     * @throws MalformedInputException if a record is malformed; the error
+     *                                 offset is an index in that record
+     */
+    public PackedRecords decode(Iterable<byte[]> records) throws InterruptedException {
+        return decode(records.iterator());
+    }
+
+    /**
+     * Decodes records in parallel, as they are read from an iterator, such as
+     * that of a stream.
+     *
+     * @param records the records to decode
+     * @return the decoded records, in the order given
+     * @throws InterruptedException    if interrupted while waiting for the
+     *                                 batches to complete
+     * @throws MalformedInputException if a record is malformed; the error
+     *                                 offset is an index in that record
+     */
+    public PackedRecords decode(Iterator<byte[]> records) throws InterruptedException {
+        return run(records, false);
+    }
+
+    private PackedRecords run(Iterator<byte[]> records, final boolean encode) throws InterruptedException {
+        List<Batch> batches = new ArrayList<Batch>();
+        List<Future<Batch>> results = new ArrayList<Future<Batch>>();
+        int index = 0;
+        try {
+            while (records.hasNext()) {
+                final List<byte[]> inputs = new ArrayList<byte[]>();
+                int size = 0;
+                while (size < BATCH_SIZE && records.hasNext()) {
+                    byte[] record = records.next();
+                    if (record == null) {
+                        throw new NullPointerException("record " + (index + inputs.size()));
+                    }
+                    inputs.add(record);
+                    size += record.length;
+                }
+                final int first = index;
+                index += inputs.size();
+                if (results.isEmpty() && !records.hasNext()) {
+                    batches.add(encode ? encode(inputs, size) : decode(inputs, size, first));
+                    break;
+                }
+                final int total = size;
+                results.add(executor.submit(new Callable<Batch>() {
+                    public Batch call() {
+                        return encode ? encode(inputs, total) : decode(inputs, total, first);
+                    }
+                }));
+            }
+            for (Future<Batch> result : results) {
+                batches.add(result.get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CodecMalfunctionError(e);
+        } finally {
+            for (Future<Batch> result : results) {
+                result.cancel(true);
+            }
+        }
+        return pack(batches, index);
+    }
+
+    private static PackedRecords pack(List<Batch> batches, int count) {
+        long total = 0;
+        for (Batch batch : batches) {
+            total += batch.size;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Packed records exceed the maximum array size");
+        }
+        byte[] data = new byte[(int) total];
+        int[] offsets = new int[count + 1];
+        int pos = 0;
+        int i = 0;
+        for (Batch batch : batches) {
+            System.arraycopy(batch.data, 0, data, pos, batch.size);
+            for (int j = 0; j < batch.count; j++) {
+                offsets[i++] = pos + batch.offsets[j];
+            }
+            pos += batch.size;
+        }
+        offsets[i] = pos;
+        return new PackedRecords(data, offsets);
+    }
+
+    private Batch encode(List<byte[]> inputs, int size) {
+        CodecEncoder encoder = encoders.poll();
+        if (encoder == null) {
+            encoder = codec.newEncoder();
+        }
+        try {
+            if (blocks) {
+                // encoded straight into the batch's buffer, without copying the records
+                Batch batch = new Batch(inputs.size(), encoder.maxEncodedLength(size));
+                for (byte[] record : inputs) {
+                    batch.ensure(encoder.maxEncodedLength(record.length));
+                    batch.add(encoder.encode(record, 0, record.length, batch.data, batch.size));
+                }
+                return batch;
+            }
+            Batch batch = new Batch(inputs.size(), size);
+            for (byte[] record : inputs) {
+                batch.add(encoder.encode(record));
+            }
+            return batch;
+        } finally {
+            encoders.offer(encoder);
+        }
+    }
+
+    private Batch decode(List<byte[]> inputs, int size, int first) {
+        CodecDecoder decoder = decoders.poll();
+        if (decoder == null) {
+            decoder = codec.newDecoder();
+        }
+        try {
+            if (blocks) {
+                Batch batch = new Batch(inputs.size(), decoder.maxDecodedLength(size));
+                int index = first;
+                for (byte[] record : inputs) {
+                    batch.ensure(decoder.maxDecodedLength(record.length));
+                    int n = decoder.decode(record, 0, record.length, batch.data, batch.size);
+                    if (n < 0) {
+                        throw malformed(index, -n - 1);
+                    }
+                    batch.add(n);
+                    index++;
+                }
+                return batch;
+            }
+            Batch batch = new Batch(inputs.size(), size);
+            int index = first;
+            for (byte[] record : inputs) {
+                byte[] decoded;
+                try {
+                    decoded = decoder.decode(record);
+                } catch (MalformedInputException e) {
+                    throw malformed(index, Math.max(0, e.getErrorOffset()));
+                }
+                if (decoded == null) {
+                    throw malformed(index, 0);
+                }
+                batch.add(decoded);
+                index++;
+            }
+            return batch;
+        } finally {
+            decoders.offer(decoder);
+        }
+    }
+
+    private MalformedInputException malformed(int index, int offset) {
+        return MalformedInputException.stackless("CODEC_BATCH_MALFORMED_RECORD",
+                new Object[]{codec.name(), index, offset}, offset);
+    }
+
+    /**
+     * Records back to back, with their offsets.
+     */
+    private static final class Batch {
+        final int[] offsets;
+        byte[] data;
+        int size;
+        int count;
+
+        Batch(int records, int capacity) {
+            this.offsets = new int[records + 1];
+            this.data = new byte[capacity];
+        }
+
+        void ensure(int room) {
+            if (data.length - size < room) {
+                byte[] grown = new byte[Math.max(data.length * 2, size + room)];
+                System.arraycopy(data, 0, grown, 0, size);
+                data = grown;
+            }
+        }
+
+        void add(int length) {
+            size += length;
+            offsets[++count] = size;
+        }
+
+        void add(byte[] record) {
+            ensure(record.length);
+            System.arraycopy(record, 0, data, size, record.length);
+            add(record.length);
+        }
+    }
+}
@@ -16,6 +16,10 @@
 
 package com.buck.common.codec;
 
+import com.buck.common.codec.spi.ScratchBuffers;
+
+import java.util.Arrays;
+
 /**
  * An engine that can transform a sequence of bytes in a specific encoding into
  * a sequence of bytes.
@@ -25,6 +29,8 @@ package com.buck.common.codec;
 public abstract class CodecDecoder {
 
     private final Codec codec;
+    private BlockLayout layout;
+    private boolean layoutKnown;
 
     /**
      * Initializes a new decoder.
@@ -45,10 +51,346 @@ public abstract class CodecDecoder {
     }
 
     /**
-     * Decodes encoded data using the codec.
+     * Decodes encoded data using the codec. Depending on the codec, malformed
+     * input either yields <tt>null</tt> or a {@link MalformedInputException};
+     * use {@link #tryDecode(byte[])} for uniform handling of malformed input.
      *
      * @param encoded the encoded data
      * @return the decoded byte array
      */
     public abstract byte[] decode(byte[] encoded);
+
+    /**
+     * Decodes encoded characters using the codec. The characters are read
+     * directly, each mapping to the octet with the same value; no charset is
+     * consulted.
+     *
+     * @param encoded the encoded characters
+     * @return the decoded byte array
+     * @throws MalformedInputException if a character lies outside the range
+     *                                 of an octet, or as {@link
+     *                                 #decode(byte[])} does for malformed input
+     */
+    public byte[] decodeString(CharSequence encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        byte[] src = new byte[encoded.length()];
+        int i = latin1(encoded, src);
+        if (i >= 0) {
+            throw MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                    new Object[]{codec.name(), i}, i);
+        }
+        return decode(src);
+    }
+
+    /**
+     * Returns the maximum number of bytes that decoding the given number of
+     * encoded bytes may produce. The default assumes decoding never expands
+     * the data; codecs for which that does not hold must override this
+     * method. Decoders whose output has no useful bound, such as pipelines
+     * that decompress, return {@link Integer#MAX_VALUE}; use {@link
+     * #tryDecode(byte[], int, int)} rather than sizing a buffer for them.
+     *
+     * @param len the number of encoded bytes
+     * @return the maximum decoded length
+     */
+    public int maxDecodedLength(int len) {
+        return len;
+    }
+
+    /**
+     * Decodes encoded data into a caller supplied buffer without throwing on
+     * malformed input. The destination must have room for at least {@link
+     * #maxDecodedLength(int) maxDecodedLength(len)} bytes.
+     * <p/>
+     * The default implementation delegates to {@link #decode(byte[])}; the
+     * standard codecs override it with allocation free implementations.
+     *
+     * @param src    the encoded data
+     * @param off    the offset of the encoded data in <tt>src</tt>
+     * @param len    the length of the encoded data
+     * @param dst    the destination buffer
+     * @param dstOff the offset in the destination buffer to write to
+     * @return the number of bytes written, or if the input is malformed,
+     *         <tt>-(i + 1)</tt> where <tt>i</tt> is the index in <tt>src</tt>
+     *         of the first malformed byte, or of the end of the input if it
+     *         ended in the middle of an encoded group
+     */
+    public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        byte[] encoded = new byte[len];
+        System.arraycopy(src, off, encoded, 0, len);
+        byte[] decoded;
+        try {
+            decoded = decode(encoded);
+        } catch (MalformedInputException e) {
+            int offset = e.getErrorOffset();
+            return -(off + (offset < 0 ? 0 : offset) + 1);
+        }
+        if (decoded == null) {
+            return -(off + 1);
+        }
+        System.arraycopy(decoded, 0, dst, dstOff, decoded.length);
+        return decoded.length;
+    }
+
+    /**
+     * Decodes many encoded records packed into one array, writing the decoded
+     * records back to back from the start of another, without throwing on
+     * malformed input. Record <tt>i</tt> is the bytes of <tt>data</tt> from
+     * <tt>offsets[i]</tt> up to <tt>offsets[i + 1]</tt>; the offsets of the
+     * decoded records are stored in the same way in <tt>outOffsets</tt>. The
+     * destination must have room for the sum of {@link #maxDecodedLength(int)
+     * maxDecodedLength} of the record lengths.
+     * <p/>
+     * For codecs that split into independent blocks, a run of records of
+     * equal length, each a whole number of blocks, is decoded by a single
+     * call over the whole run; runs that turn out to hold padding or skipped
+     * characters are decoded again record by record.
+     *
+     * @param data       the packed encoded records
+     * @param offsets    the offsets of the records, <tt>count + 1</tt> of them
+     * @param count      the number of records
+     * @param out        the destination buffer
+     * @param outOffsets receives the offsets of the decoded records,
+     *                   <tt>count + 1</tt> of them
+     * @return the number of bytes written, or <tt>-(k + 1)</tt> if record
+     *         <tt>k</tt> is the first malformed record, in which case
+     *         <tt>outOffsets[k + 1]</tt> receives the index in that record of
+     *         the first malformed byte, or the record's length if it ended in
+     *         the middle of an encoded group
+     */
+    public int decodeBatch(byte[] data, int[] offsets, int count, byte[] out, int[] outOffsets) {
+        BlockLayout layout = batchLayout();
+        int pos = 0;
+        outOffsets[0] = 0;
+        for (int i = 0; i < count; ) {
+            int len = offsets[i + 1] - offsets[i];
+            int run = 1;
+            if (layout != null && len > 0 && len % layout.encodedSize == 0) {
+                while (i + run < count && offsets[i + run + 1] - offsets[i + run] == len) {
+                    run++;
+                }
+            }
+            if (run > 1) {
+                // every record of the run decodes to whole blocks only if
+                // the run holds nothing but data characters
+                int each = len / layout.encodedSize * layout.rawSize;
+                int n = decode(data, offsets[i], run * len, out, pos);
+                if (n == run * each) {
+                    for (int k = 1; k <= run; k++) {
+                        outOffsets[i + k] = pos + each * k;
+                    }
+                    pos += n;
+                    i += run;
+                    continue;
+                }
+            }
+            for (int end = i + run; i < end; i++) {
+                int n = decode(data, offsets[i], offsets[i + 1] - offsets[i], out, pos);
+                if (n < 0) {
+                    outOffsets[i + 1] = -n - 1 - offsets[i];
+                    return -(i + 1);
+                }
+                pos += n;
+                outOffsets[i + 1] = pos;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the layout of the codec if it splits into independent blocks,
+     * so that records may be decoded together.
+     */
+    private BlockLayout batchLayout() {
+        if (!layoutKnown) {
+            layout = codec.blockLayout();
+            layoutKnown = true;
+        }
+        return layout;
+    }
+
+    /**
+     * Checks whether encoded data is well formed, without decoding it. The
+     * result agrees with the error offset that decoding the same data would
+     * report.
+     * <p/>
+     * The default implementation decodes into a scratch buffer; the standard
+     * codecs override it with allocation free scans of their decode tables.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded data in <tt>src</tt>
+     * @param len the length of the encoded data
+     * @return the index in <tt>src</tt> of the first malformed byte, or of the
+     *         end of the input if it ended in the middle of an encoded group,
+     *         or -1 if the data is well formed
+     */
+    public int validate(byte[] src, int off, int len) {
+        int n = decode(src, off, len, new byte[maxDecodedLength(len)], 0);
+        return n < 0 ? -n - 1 : -1;
+    }
+
+    /**
+     * Tells whether encoded data is well formed.
+     *
+     * @param encoded the encoded data
+     * @return <tt>true</tt> if, and only if, the data can be decoded
+     */
+    public boolean isValid(byte[] encoded) {
+        return validate(encoded, 0, encoded.length) < 0;
+    }
+
+    /**
+     * Decodes encoded data, reporting malformed input through the result
+     * rather than by throwing or returning <tt>null</tt>.
+     *
+     * @param encoded the encoded data
+     * @return the result of decoding
+     */
+    public DecodeResult tryDecode(byte[] encoded) {
+        return tryDecode(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Decodes encoded characters, reporting malformed input through the result
+     * rather than by throwing or returning <tt>null</tt>. A character outside
+     * the range of an octet is reported as malformed.
+     *
+     * @param encoded the encoded characters
+     * @return the result of decoding
+     */
+    public DecodeResult tryDecodeString(CharSequence encoded) {
+        byte[] src = new byte[encoded.length()];
+        int i = latin1(encoded, src);
+        if (i >= 0) {
+            return DecodeResult.malformed(i);
+        }
+        return tryDecode(src, 0, src.length);
+    }
+
+    /**
+     * Decodes a range of encoded data, reporting malformed input through the
+     * result rather than by throwing or returning <tt>null</tt>. The error
+     * offset of a malformed result is an index in <tt>src</tt>.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded data in <tt>src</tt>
+     * @param len the length of the encoded data
+     * @return the result of decoding
+     */
+    public DecodeResult tryDecode(byte[] src, int off, int len) {
+        byte[] dst = new byte[maxDecodedLength(len)];
+        int n = decode(src, off, len, dst, 0);
+        if (n < 0) {
+            return DecodeResult.malformed(-n - 1);
+        }
+        return DecodeResult.decoded(dst, n);
+    }
+
+    /**
+     * Decodes a 64-bit value encoded by {@link CodecEncoder#encodeLong(long,
+     * byte[], int)}.
+     * <p/>
+     * The default implementation decodes into a temporary byte array; the
+     * standard codecs override it to decode straight into the value.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded value in <tt>src</tt>
+     * @param len the length of the encoded value
+     * @return the value
+     * @throws MalformedInputException if the input is malformed or does not
+     *                                 decode to exactly eight bytes; the error
+     *                                 offset is an index in <tt>src</tt>
+     */
+    public long decodeLong(byte[] src, int off, int len) {
+        byte[] bytes = decodeExactly(src, off, len, 8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (bytes[i] & 0xff);
+        }
+        ScratchBuffers.release(bytes);
+        return value;
+    }
+
+    /**
+     * Decodes a 32-bit value encoded by {@link CodecEncoder#encodeInt(int,
+     * byte[], int)}. See {@link #decodeLong(byte[], int, int)}.
+     *
+     * @param src the encoded data
+     * @param off the offset of the encoded value in <tt>src</tt>
+     * @param len the length of the encoded value
+     * @return the value
+     * @throws MalformedInputException if the input is malformed or does not
+     *                                 decode to exactly four bytes; the error
+     *                                 offset is an index in <tt>src</tt>
+     */
+    public int decodeInt(byte[] src, int off, int len) {
+        byte[] bytes = decodeExactly(src, off, len, 4);
+        int value = (bytes[0] << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+        ScratchBuffers.release(bytes);
+        return value;
+    }
+
+    /**
+     * Decodes into a scratch buffer that the caller releases.
+     */
+    private byte[] decodeExactly(byte[] src, int off, int len, int size) {
+        byte[] dst = ScratchBuffers.acquire(Math.max(maxDecodedLength(len), size));
+        int n = decode(src, off, len, dst, 0);
+        if (n < 0 || n != size) {
+            ScratchBuffers.release(dst);
+            int i = n < 0 ? -n - 1 : off;
+            throw MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                    new Object[]{codec.name(), i}, i);
+        }
+        return dst;
+    }
+
+    /**
+     * Decodes all of the encoded data through a pooled scratch buffer sized
+     * for the worst case, so that only the exactly sized result is allocated.
+     *
+     * @param encoded the encoded data
+     * @return the decoded data, or <tt>null</tt> if the input is malformed
+     */
+    final byte[] decodeTrimmed(byte[] encoded) {
+        int max = maxDecodedLength(encoded.length);
+        if (!ScratchBuffers.isPooled(max)) {
+            // too large to pool; trim only if decoding came up short
+            byte[] decoded = new byte[max];
+            int n = decode(encoded, 0, encoded.length, decoded, 0);
+            if (n < 0) {
+                return null;
+            }
+            return n == max ? decoded : Arrays.copyOf(decoded, n);
+        }
+        byte[] scratch = ScratchBuffers.acquire(max);
+        try {
+            int n = decode(encoded, 0, encoded.length, scratch, 0);
+            return n < 0 ? null : Arrays.copyOf(scratch, n);
+        } finally {
+            ScratchBuffers.release(scratch);
+        }
+    }
+
+    /**
+     * Copies characters into a byte array, one octet per character.
+     *
+     * @param chars the characters
+     * @param dst   the destination, at least as long as <tt>chars</tt>
+     * @return the index of the first character outside the range of an octet,
+     *         or -1 if all characters were copied
+     */
+    static int latin1(CharSequence chars, byte[] dst) {
+        final int len = chars.length();
+        for (int i = 0; i < len; i++) {
+            char c = chars.charAt(i);
+            if (c > 0xff) {
+                return i;
+            }
+            dst[i] = (byte) c;
+        }
+        return -1;
+    }
 }
@@ -16,6 +16,14 @@
 
 package com.buck.common.codec;
 
+import com.buck.common.codec.spi.ScratchBuffers;
+
+import java.io.IOException;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
 /**
  * An engine that can transform raw data, represented as a sequence of bytes,
  * to a specific encoding, into a sequence of bytes.
@@ -25,6 +33,8 @@ package com.buck.common.codec;
 public abstract class CodecEncoder {
 
     private final Codec codec;
+    private BlockLayout layout;
+    private boolean layoutKnown;
 
     /**
      * Initializes a new encoder.
@@ -51,4 +61,303 @@ public abstract class CodecEncoder {
      * @return the encoded byte array
      */
     public abstract byte[] encode(byte[] bytes);
+
+    /**
+     * Encodes raw data using the codec, returning the encoded data as a
+     * string. Since encoded data consists of octets, each encoded byte maps to
+     * the character with the same value; no charset is consulted.
+     *
+     * @param bytes the raw data
+     * @return the encoded string
+     */
+    public String encodeToString(byte[] bytes) {
+        byte[] encoded = encode(bytes);
+        return encoded == null ? null : latin1(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Encodes raw data using the codec, appending the encoded characters to a
+     * string builder.
+     *
+     * @param bytes the raw data
+     * @param dst   the string builder to append to
+     * @return the string builder, or <tt>null</tt> if <tt>bytes</tt> is
+     *         <tt>null</tt>
+     */
+    public StringBuilder encode(byte[] bytes, StringBuilder dst) {
+        byte[] encoded = encode(bytes);
+        if (encoded == null) {
+            return null;
+        }
+        dst.ensureCapacity(dst.length() + encoded.length);
+        for (byte b : encoded) {
+            dst.append((char) (b & 0xff));
+        }
+        return dst;
+    }
+
+    /**
+     * Encodes raw data using the codec, appending the encoded characters to an
+     * appendable.
+     *
+     * @param bytes the raw data
+     * @param dst   the appendable to append to
+     * @return the appendable, or <tt>null</tt> if <tt>bytes</tt> is
+     *         <tt>null</tt>
+     * @throws IOException if an I/O error occurs
+     */
+    public Appendable encode(byte[] bytes, Appendable dst) throws IOException {
+        if (dst instanceof StringBuilder) {
+            return encode(bytes, (StringBuilder) dst);
+        }
+        String encoded = encodeToString(bytes);
+        return encoded == null ? null : dst.append(encoded);
+    }
+
+    /**
+     * Returns the maximum number of bytes that encoding the given number of
+     * bytes may produce. The standard block codecs return the exact length.
+     * <p/>
+     * The default implementation encodes that many <tt>0xff</tt> bytes, which
+     * no codec encodes more compactly than other data; codecs override it
+     * with a formula.
+     *
+     * @param len the number of bytes to encode
+     * @return the maximum encoded length
+     */
+    public int maxEncodedLength(int len) {
+        byte[] bytes = new byte[len];
+        Arrays.fill(bytes, (byte) 0xff);
+        return encode(bytes).length;
+    }
+
+    /**
+     * Encodes a range of bytes into a caller supplied buffer. The destination
+     * must have room for at least {@link #maxEncodedLength(int)
+     * maxEncodedLength(len)} bytes.
+     * <p/>
+     * The default implementation copies the range and delegates to {@link
+     * #encode(byte[])}; the standard block codecs override it to encode
+     * without allocating.
+     *
+     * @param src    the data to encode
+     * @param off    the offset of the data in <tt>src</tt>
+     * @param len    the length of the data
+     * @param dst    the destination buffer
+     * @param dstOff the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        byte[] encoded = encode(Arrays.copyOfRange(src, off, off + len));
+        System.arraycopy(encoded, 0, dst, dstOff, encoded.length);
+        return encoded.length;
+    }
+
+    /**
+     * Encodes many records packed into one array, writing the encoded records
+     * back to back from the start of another. Record <tt>i</tt> is the bytes
+     * of <tt>data</tt> from <tt>offsets[i]</tt> up to <tt>offsets[i + 1]</tt>;
+     * the offsets of the encoded records are stored in the same way in
+     * <tt>outOffsets</tt>. The destination must have room for the sum of
+     * {@link #maxEncodedLength(int) maxEncodedLength} of the record lengths.
+     * <p/>
+     * For codecs that split into independent blocks, a run of records of
+     * equal length, each a whole number of blocks, is encoded by a single
+     * call over the whole run, so that the inner loops of the codec's engine
+     * work across the records rather than starting afresh on each one.
+     *
+     * @param data       the packed records
+     * @param offsets    the offsets of the records, <tt>count + 1</tt> of them
+     * @param count      the number of records
+     * @param out        the destination buffer
+     * @param outOffsets receives the offsets of the encoded records,
+     *                   <tt>count + 1</tt> of them
+     * @return the number of bytes written
+     */
+    public int encodeBatch(byte[] data, int[] offsets, int count, byte[] out, int[] outOffsets) {
+        BlockLayout layout = batchLayout();
+        int pos = 0;
+        outOffsets[0] = 0;
+        for (int i = 0; i < count; ) {
+            int len = offsets[i + 1] - offsets[i];
+            int run = 1;
+            if (layout != null && len > 0 && len % layout.rawSize == 0) {
+                while (i + run < count && offsets[i + run + 1] - offsets[i + run] == len) {
+                    run++;
+                }
+            }
+            int n = encode(data, offsets[i], run * len, out, pos);
+            for (int k = 1; k <= run; k++) {
+                outOffsets[i + k] = pos + n / run * k;
+            }
+            pos += n;
+            i += run;
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the layout of the codec if whole blocks encode independently
+     * and without separators, so that records may be encoded together.
+     */
+    private BlockLayout batchLayout() {
+        if (!layoutKnown) {
+            BlockLayout layout = codec.blockLayout();
+            this.layout = layout != null && layout.separator == null ? layout : null;
+            layoutKnown = true;
+        }
+        return layout;
+    }
+
+    /**
+     * Encodes a 64-bit value as its eight big endian bytes, without padding,
+     * into a caller supplied buffer. Codecs with symbols of a whole number of
+     * bits produce fixed width output, and those with alphabets in ascending
+     * order, such as base16 and base32hex, preserve the unsigned order of the
+     * values in the encoded form.
+     * <p/>
+     * The default implementation encodes a temporary byte array; the standard
+     * codecs override it to work entirely from the value.
+     *
+     * @param value the value
+     * @param dst   the destination buffer
+     * @param off   the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public int encodeLong(long value, byte[] dst, int off) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return encodeUnpadded(bytes, dst, off);
+    }
+
+    /**
+     * Encodes a 32-bit value as its four big endian bytes, without padding,
+     * into a caller supplied buffer. See {@link #encodeLong(long, byte[], int)}.
+     *
+     * @param value the value
+     * @param dst   the destination buffer
+     * @param off   the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public int encodeInt(int value, byte[] dst, int off) {
+        byte[] bytes = {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        return encodeUnpadded(bytes, dst, off);
+    }
+
+    private int encodeUnpadded(byte[] bytes, byte[] dst, int off) {
+        byte[] encoded = encode(bytes);
+        int n = encoded.length;
+        while (n > 0 && encoded[n - 1] == '=') {
+            n--;
+        }
+        System.arraycopy(encoded, 0, dst, off, n);
+        return n;
+    }
+
+    /**
+     * Completes a message digest and encodes it into a caller supplied buffer,
+     * which must have room for {@link #maxEncodedLength(int)
+     * maxEncodedLength} of the digest length bytes. The digest is reset, as by
+     * {@link MessageDigest#digest()}.
+     * <p/>
+     * The digest is written to the end of the destination range and encoded
+     * in place, so no intermediate arrays are allocated. Encoders whose
+     * {@link #encode(byte[], int, int, byte[], int) range encode} writes ahead
+     * of the input it has read must override this method.
+     *
+     * @param digest the message digest to complete
+     * @param dst    the destination buffer
+     * @param off    the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public int encodeDigest(MessageDigest digest, byte[] dst, int off) {
+        int len = digest.getDigestLength();
+        if (len == 0) {
+            // the provider does not know the length in advance
+            byte[] bytes = digest.digest();
+            return encode(bytes, 0, bytes.length, dst, off);
+        }
+        int start = off + maxEncodedLength(len) - len;
+        try {
+            digest.digest(dst, start, len);
+        } catch (DigestException e) {
+            throw new CodecMalfunctionError(e);
+        }
+        return encode(dst, start, len, dst, off);
+    }
+
+    /**
+     * Completes a message digest and appends its encoding to a string
+     * builder, encoding through a per-thread scratch buffer. The digest is
+     * reset.
+     *
+     * @param digest the message digest to complete
+     * @param dst    the string builder to append to
+     * @return the string builder
+     */
+    public StringBuilder encodeDigest(MessageDigest digest, StringBuilder dst) {
+        int len = digest.getDigestLength();
+        if (len == 0) {
+            return encode(digest.digest(), dst);
+        }
+        byte[] encoded = ScratchBuffers.acquire(maxEncodedLength(len));
+        int n = encodeDigest(digest, encoded, 0);
+        dst.ensureCapacity(dst.length() + n);
+        for (int i = 0; i < n; i++) {
+            dst.append((char) (encoded[i] & 0xff));
+        }
+        ScratchBuffers.release(encoded);
+        return dst;
+    }
+
+    /**
+     * Encodes the value of a checksum, such as {@link java.util.zip.CRC32} or
+     * {@link java.util.zip.Adler32}, into a caller supplied buffer. The JDK
+     * checksums are 32 bits wide, so the low 32 bits of the value are encoded
+     * as by {@link #encodeInt(int, byte[], int)}.
+     *
+     * @param checksum the checksum
+     * @param dst      the destination buffer
+     * @param off      the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    public int encodeChecksum(Checksum checksum, byte[] dst, int off) {
+        return encodeInt((int) checksum.getValue(), dst, off);
+    }
+
+    /**
+     * Appends the encoded value of a checksum to a string builder. See
+     * {@link #encodeChecksum(Checksum, byte[], int)}.
+     *
+     * @param checksum the checksum
+     * @param dst      the string builder to append to
+     * @return the string builder
+     */
+    public StringBuilder encodeChecksum(Checksum checksum, StringBuilder dst) {
+        byte[] encoded = new byte[maxEncodedLength(4)];
+        int n = encodeChecksum(checksum, encoded, 0);
+        for (int i = 0; i < n; i++) {
+            dst.append((char) (encoded[i] & 0xff));
+        }
+        return dst;
+    }
+
+    /**
+     * Creates a string from encoded bytes with a single copy. The deprecated
+     * constructor maps each byte to the character with the same value without
+     * a charset lookup, and produces a compact Latin-1 string on runtimes that
+     * support them.
+     *
+     * @param encoded the encoded bytes
+     * @param off     the offset of the first byte
+     * @param len     the number of bytes
+     * @return the string
+     */
+    @SuppressWarnings("deprecation")
+    static String latin1(byte[] encoded, int off, int len) {
+        return new String(encoded, 0, off, len);
+    }
 }
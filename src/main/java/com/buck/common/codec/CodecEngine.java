@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * The implementations that a codec may run its inner loops on. Each codec
+ * picks the fastest engine available to it when its class is initialized,
+ * and reports it through {@link Codec#engine()}.
+ * <p/>
+ * The choice may be overridden by setting the
+ * <tt>com.buck.codec.engine</tt> system property to <tt>scalar</tt>,
+ * <tt>swar</tt> or <tt>vector</tt>. A codec lacking the requested engine
+ * uses the one it would have picked anyway.
+ *
+ * @author Robert J. Buck
+ */
+public enum CodecEngine {
+
+    /**
+     * One byte at a time, through lookup tables. Available to every codec on
+     * every runtime.
+     */
+    SCALAR,
+
+    /**
+     * Several bytes at a time in a 64-bit register, by arithmetic rather than
+     * lookup tables where the alphabet allows. Picked on Java 11 and later,
+     * where the multi-release jar loads and stores the registers with single
+     * memory accesses.
+     */
+    SWAR,
+
+    /**
+     * Through the incubating Vector API, at the platform's preferred vector
+     * width. Available on Java 21 and later when the
+     * <tt>jdk.incubator.vector</tt> module is added, and picked on hosts with
+     * vectors of at least 256 bits.
+     */
+    VECTOR;
+
+    /**
+     * The system property that overrides the engine codecs pick.
+     */
+    public static final String ENGINE_PROPERTY = "com.buck.codec.engine";
+}
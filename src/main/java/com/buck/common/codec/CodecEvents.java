@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Emits diagnostic events for codec operations. Each operation obtains a
+ * token when it begins and passes it back when it ends.
+ * <p/>
+ * On Java 11 and later, which provide the JDK Flight Recorder, the events are
+ * recorded as <tt>codec.Encode</tt>, <tt>codec.Decode</tt>,
+ * <tt>codec.Lookup</tt> and <tt>codec.ProviderLoad</tt>; otherwise the
+ * implementation does nothing. The recording implementation is part of the
+ * Java 11 layer of the multi-release jar and is loaded reflectively, so the
+ * base classes do not depend on the flight recorder.
+ *
+ * @author Robert J. Buck
+ */
+abstract class CodecEvents {
+
+    /**
+     * The system property that, when <tt>true</tt>, decorates codecs returned
+     * by {@link Codec#forName(String)} so that their encoders and decoders
+     * emit events. Lookup events are emitted regardless.
+     */
+    static final String ENABLE_PROPERTY = "com.buck.codec.events";
+
+    /**
+     * The system property holding the duration, in microseconds, from which
+     * encode and decode operations are recorded.
+     */
+    static final String THRESHOLD_PROPERTY = "com.buck.codec.events.threshold";
+
+    /**
+     * The system property holding the input size, in bytes, from which encode
+     * and decode operations are recorded regardless of their duration.
+     */
+    static final String SIZE_PROPERTY = "com.buck.codec.events.size";
+
+    /**
+     * The events implementation for this runtime.
+     */
+    static final CodecEvents events = load();
+
+    private static CodecEvents load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class<?> c = Class.forName("com.buck.common.codec.FlightRecorderCodecEvents");
+            return (CodecEvents) c.newInstance();
+        } catch (Exception e) {
+            return new NoCodecEvents();
+        } catch (LinkageError e) {
+            return new NoCodecEvents();
+        }
+    }
+
+    /**
+     * Tells whether events are recorded on this runtime.
+     *
+     * @return <tt>true</tt> if, and only if, the flight recorder is available
+     */
+    abstract boolean isAvailable();
+
+    abstract Object beginEncode();
+
+    abstract void endEncode(Object token, String codecName, long inputSize, long outputSize);
+
+    abstract Object beginDecode();
+
+    abstract void endDecode(Object token, String codecName, long inputSize, long outputSize, boolean malformed);
+
+    abstract Object beginLookup();
+
+    abstract void endLookup(Object token, String codecName, boolean found);
+
+    abstract Object beginProviderLoad();
+
+    abstract void endProviderLoad(Object token, String providerName, String codecName, boolean found);
+
+    /**
+     * The events implementation for runtimes without the flight recorder.
+     */
+    private static class NoCodecEvents extends CodecEvents {
+        boolean isAvailable() {
+            return false;
+        }
+
+        Object beginEncode() {
+            return null;
+        }
+
+        void endEncode(Object token, String codecName, long inputSize, long outputSize) {
+        }
+
+        Object beginDecode() {
+            return null;
+        }
+
+        void endDecode(Object token, String codecName, long inputSize, long outputSize, boolean malformed) {
+        }
+
+        Object beginLookup() {
+            return null;
+        }
+
+        void endLookup(Object token, String codecName, boolean found) {
+        }
+
+        Object beginProviderLoad() {
+            return null;
+        }
+
+        void endProviderLoad(Object token, String providerName, String codecName, boolean found) {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that decodes the data read from an underlying stream using
+ * a codec.
+ * <p/>
+ * Codecs with a {@link BlockLayout} are decoded a buffer of whole blocks at a
+ * time, so memory use does not depend on the amount of data; characters the
+ * decoder skips, such as line breaks, may fall anywhere. Other codecs read all
+ * of the encoded data before decoding it.
+ * <p/>
+ * Malformed input is reported by a {@link MalformedInputException} whose error
+ * offset is the position in the underlying stream.
+ *
+ * @author Robert J. Buck
+ */
+final class CodecInputStream extends FilterInputStream {
+
+    private final CodecDecoder decoder;
+    private final BlockLayout layout;
+    private byte[] input;
+    private int inputCount;
+    private byte[] output;
+    private int pos;
+    private int limit;
+    private long consumed;
+    private boolean eof;
+    private boolean padded;
+
+    CodecInputStream(InputStream in, Codec codec) {
+        super(in);
+        this.decoder = codec.newDecoder();
+        this.layout = codec.blockLayout();
+        if (layout != null) {
+            this.input = new byte[Math.max(1, CodecOutputStream.BUFFER_SIZE / layout.encodedSize) * layout.encodedSize];
+            this.output = new byte[decoder.maxDecodedLength(input.length)];
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return output[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(output, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && (pos < limit || fill())) {
+            int k = (int) Math.min(n - skipped, limit - pos);
+            pos += k;
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return limit - pos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Decodes the next buffer of data.
+     *
+     * @return <tt>false</tt> at the end of the data
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        if (layout == null) {
+            return fillWhole();
+        }
+        while (true) {
+            while (!eof && inputCount < input.length) {
+                int r = in.read(input, inputCount, input.length - inputCount);
+                if (r < 0) {
+                    eof = true;
+                } else {
+                    inputCount += r;
+                }
+            }
+            int cut = eof ? inputCount : layout.wholeBlocks(input, 0, inputCount);
+            if (cut == 0) {
+                if (inputCount == 0) {
+                    return false;
+                }
+                // a single group interrupted by more skipped characters than
+                // the buffer holds; let the decoder report it
+                cut = inputCount;
+            }
+            if (padded) {
+                // padding ends the data; only skipped characters may follow
+                for (int i = 0; i < cut; i++) {
+                    if (!layout.isIgnorable(input[i])) {
+                        throw malformed(consumed + i);
+                    }
+                }
+            }
+            int n = decoder.decode(input, 0, cut, output, 0);
+            if (n < 0) {
+                throw malformed(consumed - n - 1);
+            }
+            padded |= layout.endsWithPad(input, 0, cut);
+            consumed += cut;
+            inputCount -= cut;
+            System.arraycopy(input, cut, input, 0, inputCount);
+            if (n > 0) {
+                limit = n;
+                return true;
+            }
+        }
+    }
+
+    private boolean fillWhole() throws IOException {
+        if (eof) {
+            return false;
+        }
+        eof = true;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[CodecOutputStream.BUFFER_SIZE];
+        int r;
+        while ((r = in.read(chunk)) >= 0) {
+            bytes.write(chunk, 0, r);
+        }
+        byte[] src = bytes.toByteArray();
+        DecodeResult result = decoder.tryDecode(src, 0, src.length);
+        if (result.isMalformed()) {
+            throw malformed(result.errorOffset());
+        }
+        output = result.buffer();
+        limit = result.length();
+        return limit > 0;
+    }
+
+    private MalformedInputException malformed(long offset) {
+        int i = (int) Math.min(offset, Integer.MAX_VALUE);
+        return MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                new Object[]{decoder.codec().name(), offset}, i);
+    }
+}
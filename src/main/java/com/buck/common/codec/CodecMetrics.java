@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Throughput, error and latency metrics for a codec.
+ * <p/>
+ * Metrics are only kept for instrumented codecs. Setting the system property
+ * <tt>com.buck.codec.metrics</tt> to <tt>true</tt> instruments every codec
+ * returned by {@link Codec#forName(String)}; otherwise codecs may be
+ * instrumented one at a time with {@link #instrument(Codec)}. Codecs that are
+ * not instrumented carry no overhead at all.
+ * <p/>
+ * Metrics are kept per canonical codec name and are shared by all encoders
+ * and decoders of that codec. They may be pulled with {@link
+ * #forCodec(String)} and {@link #all()}, and are also registered with the
+ * platform MBean server, see {@link CodecMetricsMXBean}.
+ *
+ * @author Robert J. Buck
+ */
+public final class CodecMetrics implements CodecMetricsMXBean {
+
+    /**
+     * The system property that instruments all codecs looked up by name.
+     */
+    public static final String ENABLE_PROPERTY = "com.buck.codec.metrics";
+
+    private static final ConcurrentMap<String, CodecMetrics> registry =
+            new ConcurrentHashMap<String, CodecMetrics>();
+
+    private final String codecName;
+
+    private final StripedCounter encodeCount = new StripedCounter();
+    private final StripedCounter encodeInputBytes = new StripedCounter();
+    private final StripedCounter encodeOutputBytes = new StripedCounter();
+    private final StripedCounter encodeNanos = new StripedCounter();
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+
+    private final StripedCounter decodeCount = new StripedCounter();
+    private final StripedCounter decodeInputBytes = new StripedCounter();
+    private final StripedCounter decodeOutputBytes = new StripedCounter();
+    private final StripedCounter decodeNanos = new StripedCounter();
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+
+    private final StripedCounter malformedCount = new StripedCounter();
+
+    private CodecMetrics(String codecName) {
+        this.codecName = codecName;
+    }
+
+    /**
+     * Returns a codec that records metrics for all of its encoders and
+     * decoders. The returned codec is equal to the given codec.
+     *
+     * @param codec the codec to instrument
+     * @return the instrumented codec
+     */
+    public static Codec instrument(Codec codec) {
+        if (codec instanceof MeteredCodec) {
+            return codec;
+        }
+        return new MeteredCodec(codec, metricsFor(codec.name()));
+    }
+
+    /**
+     * Returns the metrics of the named codec.
+     *
+     * @param codecName the canonical name of the codec
+     * @return the metrics, or <tt>null</tt> if the codec has never been
+     *         instrumented
+     */
+    public static CodecMetrics forCodec(String codecName) {
+        return registry.get(codecName);
+    }
+
+    /**
+     * Returns the metrics of all instrumented codecs.
+     *
+     * @return a map from canonical codec names to metrics
+     */
+    public static SortedMap<String, CodecMetrics> all() {
+        return new TreeMap<String, CodecMetrics>(registry);
+    }
+
+    private static CodecMetrics metricsFor(String codecName) {
+        CodecMetrics metrics = registry.get(codecName);
+        if (metrics == null) {
+            CodecMetrics created = new CodecMetrics(codecName);
+            metrics = registry.putIfAbsent(codecName, created);
+            if (metrics == null) {
+                metrics = created;
+                register(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    private static void register(CodecMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName("com.buck.codec:type=CodecMetrics,name=" +
+                    ObjectName.quote(metrics.codecName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        } catch (JMException e) {
+            // metrics remain available through the pull API
+        } catch (SecurityException e) {
+            // metrics remain available through the pull API
+        }
+    }
+
+    void recordEncode(int inputBytes, int outputBytes, long nanos) {
+        encodeCount.increment();
+        encodeInputBytes.add(inputBytes);
+        encodeOutputBytes.add(outputBytes);
+        encodeNanos.add(nanos);
+        encodeLatency.record(nanos);
+    }
+
+    void recordDecode(int inputBytes, int outputBytes, long nanos) {
+        decodeCount.increment();
+        decodeInputBytes.add(inputBytes);
+        decodeOutputBytes.add(outputBytes);
+        decodeNanos.add(nanos);
+        decodeLatency.record(nanos);
+    }
+
+    void recordMalformed(int inputBytes, long nanos) {
+        recordDecode(inputBytes, 0, nanos);
+        malformedCount.increment();
+    }
+
+    public String getCodecName() {
+        return codecName;
+    }
+
+    public long getEncodeCount() {
+        return encodeCount.sum();
+    }
+
+    public long getEncodeInputBytes() {
+        return encodeInputBytes.sum();
+    }
+
+    public long getEncodeOutputBytes() {
+        return encodeOutputBytes.sum();
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos.sum();
+    }
+
+    public long[] getEncodeLatencyHistogram() {
+        return encodeLatency.counts();
+    }
+
+    public long getDecodeCount() {
+        return decodeCount.sum();
+    }
+
+    public long getDecodeInputBytes() {
+        return decodeInputBytes.sum();
+    }
+
+    public long getDecodeOutputBytes() {
+        return decodeOutputBytes.sum();
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    public long[] getDecodeLatencyHistogram() {
+        return decodeLatency.counts();
+    }
+
+    public long getMalformedCount() {
+        return malformedCount.sum();
+    }
+
+    public void reset() {
+        encodeCount.reset();
+        encodeInputBytes.reset();
+        encodeOutputBytes.reset();
+        encodeNanos.reset();
+        encodeLatency.reset();
+        decodeCount.reset();
+        decodeInputBytes.reset();
+        decodeOutputBytes.reset();
+        decodeNanos.reset();
+        decodeLatency.reset();
+        malformedCount.reset();
+    }
+}
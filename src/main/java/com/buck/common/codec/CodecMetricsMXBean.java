@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * The management interface of the metrics kept for a codec. Instances are
+ * registered with the platform MBean server under the object name
+ * <tt>com.buck.codec:type=CodecMetrics,name=<i>codec</i></tt>.
+ *
+ * @author Robert J. Buck
+ */
+public interface CodecMetricsMXBean {
+
+    /**
+     * Returns the canonical name of the codec.
+     *
+     * @return the codec name
+     */
+    String getCodecName();
+
+    /**
+     * Returns the number of encode calls.
+     *
+     * @return the encode count
+     */
+    long getEncodeCount();
+
+    /**
+     * Returns the number of raw bytes passed to the encoder.
+     *
+     * @return the encoder input byte count
+     */
+    long getEncodeInputBytes();
+
+    /**
+     * Returns the number of encoded bytes produced by the encoder.
+     *
+     * @return the encoder output byte count
+     */
+    long getEncodeOutputBytes();
+
+    /**
+     * Returns the total time spent encoding.
+     *
+     * @return the encode time in nanoseconds
+     */
+    long getEncodeNanos();
+
+    /**
+     * Returns the encode latency histogram. Element <tt>i</tt> counts calls
+     * that took from <tt>2<sup>i</sup></tt> up to but excluding
+     * <tt>2<sup>i+1</sup></tt> nanoseconds.
+     *
+     * @return the encode latency histogram
+     */
+    long[] getEncodeLatencyHistogram();
+
+    /**
+     * Returns the number of decode calls.
+     *
+     * @return the decode count
+     */
+    long getDecodeCount();
+
+    /**
+     * Returns the number of encoded bytes passed to the decoder.
+     *
+     * @return the decoder input byte count
+     */
+    long getDecodeInputBytes();
+
+    /**
+     * Returns the number of raw bytes produced by the decoder.
+     *
+     * @return the decoder output byte count
+     */
+    long getDecodeOutputBytes();
+
+    /**
+     * Returns the total time spent decoding.
+     *
+     * @return the decode time in nanoseconds
+     */
+    long getDecodeNanos();
+
+    /**
+     * Returns the decode latency histogram, bucketed as for {@link
+     * #getEncodeLatencyHistogram()}.
+     *
+     * @return the decode latency histogram
+     */
+    long[] getDecodeLatencyHistogram();
+
+    /**
+     * Returns the number of decode calls that were given malformed input.
+     *
+     * @return the malformed input count
+     */
+    long getMalformedCount();
+
+    /**
+     * Resets all counters and histograms to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that encodes the data written to it using a codec.
+ * <p/>
+ * Codecs with a {@link BlockLayout} are encoded a buffer of whole blocks at a
+ * time, so memory use does not depend on the amount of data. Other codecs,
+ * such as base58 whose output depends on all of the input, collect the data
+ * and encode it when the stream is closed. The final encoded bytes are only
+ * written on {@link #close()}.
+ *
+ * @author Robert J. Buck
+ */
+final class CodecOutputStream extends FilterOutputStream {
+
+    /**
+     * The approximate size of the raw data buffer.
+     */
+    static final int BUFFER_SIZE = 4096;
+
+    private final CodecEncoder encoder;
+    private final byte[] separator;
+    private final byte[] buffer;
+    private final byte[] encoded;
+    private final ByteArrayOutputStream whole;
+    private int count;
+    private boolean started;
+    private boolean closed;
+
+    CodecOutputStream(OutputStream out, Codec codec) {
+        super(out);
+        this.encoder = codec.newEncoder();
+        BlockLayout layout = codec.blockLayout();
+        if (layout != null) {
+            this.buffer = new byte[Math.max(1, BUFFER_SIZE / layout.rawSize) * layout.rawSize];
+            this.encoded = new byte[encoder.maxEncodedLength(buffer.length)];
+            this.separator = layout.separator;
+            this.whole = null;
+        } else {
+            this.buffer = null;
+            this.encoded = null;
+            this.separator = null;
+            this.whole = new ByteArrayOutputStream();
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (buffer == null) {
+            whole.write(b, off, len);
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buffer.length) {
+                writeBlocks(count);
+                count = 0;
+            }
+        }
+    }
+
+    private void writeBlocks(int len) throws IOException {
+        if (started && separator != null) {
+            out.write(separator);
+        }
+        out.write(encoded, 0, encoder.encode(buffer, 0, len, encoded, 0));
+        started = true;
+    }
+
+    /**
+     * Encodes any buffered data and flushes the underlying stream, without
+     * closing it. No more data may be written afterwards.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void finish() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buffer == null) {
+            out.write(encoder.encode(whole.toByteArray()));
+        } else if (count > 0) {
+            writeBlocks(count);
+        }
+        out.flush();
+    }
+
+    /**
+     * Encodes any buffered data, then closes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A codec composed of a sequence of stages, such as compression followed by a
+ * text encoding. Encoding runs the stages in order and decoding runs them in
+ * reverse, so a pipeline of deflate and base64 encodes as
+ * <tt>base64(deflate(data))</tt>.
+ * <p/>
+ * The stages are chained as streams, and data flows between them through
+ * fixed size buffers; no stage materializes its whole output for the next.
+ * Codecs whose encoding splits into independent blocks, which includes the
+ * base16, base32, base64 and base85 families, are streamed a buffer of whole
+ * blocks at a time. Other codecs, such as base58, need all of their input at
+ * once and are buffered whole.
+ * <p/>
+ * A pipeline is named by its stage names joined with <tt>'+'</tt>, and
+ * pipelines of standard codecs and the stages below may be looked up by such
+ * names, as in <tt>Codec.forName("deflate+base64")</tt>:
+ * <ul>
+ * <li><tt>deflate</tt>, zlib format compression;</li>
+ * <li><tt>gzip</tt>, gzip format compression;</li>
+ * <li>any {@link MessageDigest} algorithm, such as <tt>sha-256</tt>, which
+ * encodes data as its digest and cannot decode.</li>
+ * </ul>
+ *
+ * @author Robert J. Buck
+ */
+public final class CodecPipeline extends Codec {
+
+    /**
+     * A step of a pipeline.
+     */
+    public static abstract class Stage {
+
+        private final String name;
+
+        /**
+         * Initializes a new stage.
+         *
+         * @param name the name of the stage, as used in pipeline names
+         */
+        protected Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of this stage.
+         *
+         * @return the name of this stage
+         */
+        public final String name() {
+            return name;
+        }
+
+        /**
+         * Wraps a stream so that data written to the result is encoded by this
+         * stage before being written to the stream. Closing the result
+         * finishes the encoding and closes the stream.
+         *
+         * @param out the stream to receive the encoded data
+         * @return a stream to write the raw data to
+         * @throws IOException if an I/O error occurs
+         */
+        public abstract OutputStream encoding(OutputStream out) throws IOException;
+
+        /**
+         * Wraps a stream so that data read from the result is the stream's
+         * data decoded by this stage.
+         *
+         * @param in the stream of encoded data
+         * @return a stream to read the raw data from
+         * @throws IOException                   if an I/O error occurs
+         * @throws UnsupportedOperationException if this stage cannot decode
+         */
+        public abstract InputStream decoding(InputStream in) throws IOException;
+
+        /**
+         * Returns a stage that encodes and decodes with a codec.
+         *
+         * @param codec the codec
+         * @return the stage
+         */
+        public static Stage of(final Codec codec) {
+            return new Stage(codec.name()) {
+                public OutputStream encoding(OutputStream out) {
+                    return new CodecOutputStream(out, codec);
+                }
+
+                public InputStream decoding(InputStream in) {
+                    return new CodecInputStream(in, codec);
+                }
+            };
+        }
+
+        /**
+         * Returns a stage that compresses in the zlib format.
+         *
+         * @return the stage
+         */
+        public static Stage deflate() {
+            return new Stage("deflate") {
+                public OutputStream encoding(OutputStream out) {
+                    return new DeflaterOutputStream(out);
+                }
+
+                public InputStream decoding(InputStream in) {
+                    return new InflaterInputStream(in);
+                }
+            };
+        }
+
+        /**
+         * Returns a stage that compresses in the gzip format.
+         *
+         * @return the stage
+         */
+        public static Stage gzip() {
+            return new Stage("gzip") {
+                public OutputStream encoding(OutputStream out) throws IOException {
+                    return new GZIPOutputStream(out);
+                }
+
+                public InputStream decoding(InputStream in) throws IOException {
+                    return new GZIPInputStream(in);
+                }
+            };
+        }
+
+        /**
+         * Returns a stage that encodes data as its message digest. The stage
+         * cannot decode.
+         *
+         * @param algorithm the name of the digest algorithm
+         * @return the stage
+         * @throws NoSuchAlgorithmException if the algorithm is not available
+         */
+        public static Stage digest(final String algorithm) throws NoSuchAlgorithmException {
+            // fail now rather than when the pipeline is first used
+            MessageDigest.getInstance(algorithm);
+            return new Stage(algorithm.toLowerCase()) {
+                public OutputStream encoding(OutputStream out) throws IOException {
+                    try {
+                        return new DigestingOutputStream(out, MessageDigest.getInstance(algorithm));
+                    } catch (NoSuchAlgorithmException e) {
+                        throw new CodecMalfunctionError(e);
+                    }
+                }
+
+                public InputStream decoding(InputStream in) {
+                    throw new UnsupportedOperationException(algorithm + " digests cannot be decoded");
+                }
+            };
+        }
+    }
+
+    /**
+     * Writes the digest of the data written to it when it is closed.
+     */
+    private static final class DigestingOutputStream extends FilterOutputStream {
+        private final MessageDigest digest;
+
+        DigestingOutputStream(OutputStream out, MessageDigest digest) {
+            super(out);
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(int b) {
+            digest.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.write(digest.digest());
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private final Stage[] stages;
+
+    /**
+     * Creates a pipeline of the given stages, named after them.
+     *
+     * @param stages the stages, in encoding order
+     */
+    public CodecPipeline(Stage... stages) {
+        super(name(stages), null);
+        this.stages = stages.clone();
+    }
+
+    private static String name(Stage[] stages) {
+        if (stages.length == 0) {
+            throw new IllegalArgumentException("a pipeline needs at least one stage");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : stages) {
+            if (sb.length() > 0) {
+                sb.append('+');
+            }
+            sb.append(stage.name());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Wraps a stream so that data written to the result is encoded by every
+     * stage of this pipeline. Closing the result finishes the encoding and
+     * closes the stream.
+     *
+     * @param out the stream to receive the encoded data
+     * @return a stream to write the raw data to
+     * @throws IOException if an I/O error occurs
+     */
+    public OutputStream encoding(OutputStream out) throws IOException {
+        for (int i = stages.length - 1; i >= 0; i--) {
+            out = stages[i].encoding(out);
+        }
+        return out;
+    }
+
+    /**
+     * Wraps a stream so that data read from the result is the stream's data
+     * decoded by every stage of this pipeline.
+     *
+     * @param in the stream of encoded data
+     * @return a stream to read the raw data from
+     * @throws IOException if an I/O error occurs
+     */
+    public InputStream decoding(InputStream in) throws IOException {
+        for (int i = stages.length - 1; i >= 0; i--) {
+            in = stages[i].decoding(in);
+        }
+        return in;
+    }
+
+    /**
+     * Encodes all the data of a stream to another stream. Neither stream is
+     * closed.
+     *
+     * @param in  the raw data
+     * @param out the stream to receive the encoded data
+     * @throws IOException if an I/O error occurs
+     */
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        OutputStream encoding = encoding(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        });
+        try {
+            copy(in, encoding);
+        } finally {
+            encoding.close();
+        }
+    }
+
+    /**
+     * Decodes all the data of a stream to another stream. Neither stream is
+     * closed.
+     *
+     * @param in  the encoded data
+     * @param out the stream to receive the raw data
+     * @throws IOException             if an I/O error occurs
+     * @throws MalformedInputException if a codec stage rejects its input
+     */
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        copy(decoding(in), out);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[CodecOutputStream.BUFFER_SIZE];
+        int r;
+        while ((r = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, r);
+        }
+    }
+
+    /**
+     * Receives decoded data into a caller supplied range of an array, counting
+     * but discarding whatever does not fit.
+     */
+    private static final class BoundedSink extends OutputStream {
+        private final byte[] buffer;
+        private final int offset;
+        private final int capacity;
+        private long count;
+
+        BoundedSink(byte[] buffer, int offset, int capacity) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void write(int b) {
+            if (count < capacity) {
+                buffer[offset + (int) count] = (byte) b;
+            }
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (count < capacity) {
+                int n = (int) Math.min(len, capacity - count);
+                System.arraycopy(b, off, buffer, offset + (int) count, n);
+            }
+            count += len;
+        }
+    }
+
+    private static class Decoder extends CodecDecoder {
+        public Decoder(CodecPipeline codec) {
+            super(codec);
+        }
+
+        /**
+         * Runs the stages over a range of encoded data.
+         *
+         * @return the index in <tt>src</tt> of the malformed input, or -1 if
+         *         the data decoded
+         */
+        private int decodeTo(byte[] src, int off, int len, OutputStream sink) {
+            try {
+                ((CodecPipeline) codec()).decode(new ByteArrayInputStream(src, off, len), sink);
+            } catch (MalformedInputException e) {
+                return off + Math.max(0, e.getErrorOffset());
+            } catch (IOException e) {
+                // corrupt compressed data
+                return off;
+            }
+            return -1;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            return decodeTo(encoded, 0, encoded.length, decoded) < 0 ? decoded.toByteArray() : null;
+        }
+
+        /**
+         * Returns {@link Integer#MAX_VALUE}, since decompression has no useful
+         * bound. Use {@link #tryDecode(byte[], int, int)} to decode without
+         * sizing a buffer in advance.
+         */
+        @Override
+        public int maxDecodedLength(int len) {
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Decodes into a caller supplied buffer. The decoded data is checked
+         * against the room left in <tt>dst</tt> rather than against {@link
+         * #maxDecodedLength(int)}.
+         *
+         * @throws ArrayIndexOutOfBoundsException if the decoded data does not
+         *                                        fit in <tt>dst</tt>
+         */
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            BoundedSink sink = new BoundedSink(dst, dstOff, dst.length - dstOff);
+            int i = decodeTo(src, off, len, sink);
+            if (i >= 0) {
+                return -(i + 1);
+            }
+            if (sink.count > sink.capacity) {
+                throw new ArrayIndexOutOfBoundsException("decoded " + sink.count + " bytes into room for "
+                        + sink.capacity);
+            }
+            return (int) sink.count;
+        }
+
+        @Override
+        public DecodeResult tryDecode(byte[] src, int off, int len) {
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            int i = decodeTo(src, off, len, decoded);
+            if (i >= 0) {
+                return DecodeResult.malformed(i);
+            }
+            return DecodeResult.decoded(decoded.toByteArray(), decoded.size());
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            return decodeTo(src, off, len, new BoundedSink(null, 0, 0));
+        }
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return BigEndian.getLong(decodeExactly(src, off, len, 8), 0);
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            return BigEndian.getInt(decodeExactly(src, off, len, 4), 0);
+        }
+
+        private byte[] decodeExactly(byte[] src, int off, int len, int size) {
+            byte[] bytes = new byte[size];
+            BoundedSink sink = new BoundedSink(bytes, 0, size);
+            int i = decodeTo(src, off, len, sink);
+            if (i >= 0 || sink.count != size) {
+                i = i >= 0 ? i : off;
+                throw MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                        new Object[]{codec().name(), i}, i);
+            }
+            return bytes;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    private static class Encoder extends CodecEncoder {
+        public Encoder(CodecPipeline codec) {
+            super(codec);
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try {
+                ((CodecPipeline) codec()).encode(new ByteArrayInputStream(bytes), encoded);
+            } catch (IOException e) {
+                throw new CodecMalfunctionError(e);
+            }
+            return encoded.toByteArray();
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import com.buck.common.codec.spi.CodecProvider;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Resolves composite names such as <tt>deflate+base64</tt> to a
+ * {@link CodecPipeline} of the named stages. Each stage is a compression
+ * format, a codec, or a message digest algorithm.
+ * <p/>
+ * Composite names are unbounded, so this provider does not enumerate its
+ * codecs.
+ *
+ * @author Robert J. Buck
+ */
+class CompositeCodecProvider extends CodecProvider {
+
+    public Iterator<Codec> codecs() {
+        return Collections.<Codec>emptyList().iterator();
+    }
+
+    public Codec codecForName(String codecName) {
+        if (codecName.indexOf('+') < 0) {
+            return null;
+        }
+        String[] names = codecName.split("\\+", -1);
+        CodecPipeline.Stage[] stages = new CodecPipeline.Stage[names.length];
+        for (int i = 0; i < names.length; i++) {
+            stages[i] = stageForName(names[i]);
+            if (stages[i] == null) {
+                return null;
+            }
+        }
+        return new CodecPipeline(stages);
+    }
+
+    private static CodecPipeline.Stage stageForName(String name) {
+        if (name.length() == 0) {
+            return null;
+        }
+        if (name.equalsIgnoreCase("deflate")) {
+            return CodecPipeline.Stage.deflate();
+        }
+        if (name.equalsIgnoreCase("gzip")) {
+            return CodecPipeline.Stage.gzip();
+        }
+        if (Codec.isSupported(name)) {
+            return CodecPipeline.Stage.of(Codec.forName(name));
+        }
+        try {
+            return CodecPipeline.Stage.digest(name);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
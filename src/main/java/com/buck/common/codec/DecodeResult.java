@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of decoding a sequence of bytes with {@link
+ * com.buck.common.codec.CodecDecoder#tryDecode(byte[]) tryDecode}. Unlike the
+ * throwing API, malformed input is reported through the result, along with the
+ * offset of the first malformed byte.
+ *
+ * @author Robert J. Buck
+ */
+public final class DecodeResult {
+
+    /**
+     * The status of a decode operation.
+     */
+    public enum Status {
+        /**
+         * The input was decoded successfully.
+         */
+        OK,
+        /**
+         * The input is not legal for the codec.
+         */
+        MALFORMED
+    }
+
+    private final Status status;
+    private final int errorOffset;
+    private final byte[] buffer;
+    private final int length;
+
+    private DecodeResult(Status status, int errorOffset, byte[] buffer, int length) {
+        this.status = status;
+        this.errorOffset = errorOffset;
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Returns a result for successfully decoded data.
+     *
+     * @param buffer the buffer holding the decoded data, starting at offset
+     *               zero
+     * @param length the number of bytes decoded into the buffer
+     * @return a successful result
+     */
+    public static DecodeResult decoded(byte[] buffer, int length) {
+        return new DecodeResult(Status.OK, -1, buffer, length);
+    }
+
+    /**
+     * Returns a result for malformed input.
+     *
+     * @param errorOffset the offset of the first malformed byte
+     * @return a malformed result
+     */
+    public static DecodeResult malformed(int errorOffset) {
+        return new DecodeResult(Status.MALFORMED, errorOffset, null, 0);
+    }
+
+    /**
+     * Returns the status of the decode operation.
+     *
+     * @return the status
+     */
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * Tells whether the input was malformed.
+     *
+     * @return <tt>true</tt> if, and only if, the input was malformed
+     */
+    public boolean isMalformed() {
+        return status == Status.MALFORMED;
+    }
+
+    /**
+     * Returns the offset of the first malformed byte. If the input ended in
+     * the middle of an encoded group the offset is the end of the input.
+     *
+     * @return the error offset, or -1 if the input was decoded successfully
+     */
+    public int errorOffset() {
+        return errorOffset;
+    }
+
+    /**
+     * Returns the number of bytes produced.
+     *
+     * @return the decoded length, or zero if the input was malformed
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the buffer holding the decoded data in its first {@link
+     * #length()} bytes, without trimming it.
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the decoded data.
+     *
+     * @return an array holding exactly the decoded bytes, or <tt>null</tt> if
+     *         the input was malformed
+     */
+    public byte[] bytes() {
+        if (buffer == null || buffer.length == length) {
+            return buffer;
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+}
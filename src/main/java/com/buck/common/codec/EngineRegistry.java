@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Picks the engine a codec runs on, from those it has implementations for.
+ *
+ * @author Robert J. Buck
+ */
+final class EngineRegistry {
+
+    /**
+     * The narrowest vectors on which the vector engine is picked; on narrower
+     * ones the shuffles between byte and short lanes cost what the vectors
+     * save.
+     */
+    static final int MIN_VECTOR_BITS = 256;
+
+    private static final int javaVersion = javaVersion();
+
+    private EngineRegistry() {
+    }
+
+    /**
+     * Returns the major version of the running Java platform.
+     */
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version", "1.6");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 6;
+        }
+    }
+
+    /**
+     * Picks an engine, honouring the engine requested by the system property.
+     *
+     * @param available the engines the codec has implementations for
+     * @return the engine
+     */
+    static CodecEngine select(Set<CodecEngine> available) {
+        return select(System.getProperty(CodecEngine.ENGINE_PROPERTY), available);
+    }
+
+    /**
+     * Picks an engine. The requested engine is used if available; otherwise
+     * the vector engine is picked on hosts with wide vectors and more than one
+     * processor, since its loops only pay off once compiled and compilation
+     * would compete with the application for a single processor, the SWAR
+     * engine on Java 11 and later, and the scalar engine otherwise.
+     *
+     * @param requested the name of the requested engine, or <tt>null</tt>
+     * @param available the engines the codec has implementations for
+     * @return the engine
+     */
+    static CodecEngine select(String requested, Set<CodecEngine> available) {
+        if (requested != null) {
+            try {
+                CodecEngine engine = CodecEngine.valueOf(requested.trim().toUpperCase(Locale.ENGLISH));
+                if (available.contains(engine)) {
+                    return engine;
+                }
+            } catch (IllegalArgumentException e) {
+                // not an engine; pick as if none were requested
+            }
+        }
+        if (available.contains(CodecEngine.VECTOR) &&
+                VectorSupport.preferredBitSize() >= MIN_VECTOR_BITS &&
+                Runtime.getRuntime().availableProcessors() > 1) {
+            return CodecEngine.VECTOR;
+        }
+        if (available.contains(CodecEngine.SWAR) && javaVersion >= 11) {
+            return CodecEngine.SWAR;
+        }
+        return CodecEngine.SCALAR;
+    }
+}
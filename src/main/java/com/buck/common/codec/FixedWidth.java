@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Fixed width encodings of 32-bit and 64-bit values for codecs whose symbols
+ * each carry a whole number of bits. A value is written as the encoding of its
+ * big endian bytes without padding, so for an alphabet in ascending order the
+ * encoded values sort as the unsigned values do. The value is kept in a
+ * register throughout; no temporary arrays are used.
+ *
+ * @author Robert J. Buck
+ */
+final class FixedWidth {
+
+    private FixedWidth() {
+    }
+
+    /**
+     * Returns the number of symbols that encode a value.
+     *
+     * @param bitsPerSymbol the number of bits each symbol carries
+     * @param width         the width of the value in bits, 32 or 64
+     * @return the number of symbols
+     */
+    static int length(int bitsPerSymbol, int width) {
+        return (width + bitsPerSymbol - 1) / bitsPerSymbol;
+    }
+
+    /**
+     * Encodes the low <tt>width</tt> bits of a value, most significant bits
+     * first, padding the final symbol with zero bits.
+     *
+     * @param alphabet      the alphabet to encode with
+     * @param bitsPerSymbol the number of bits each symbol carries
+     * @param value         the value
+     * @param width         the width of the value in bits, 32 or 64
+     * @param dst           the destination buffer
+     * @param off           the offset in the destination buffer to write to
+     * @return the number of bytes written
+     */
+    static int encode(byte[] alphabet, int bitsPerSymbol, long value, int width, byte[] dst, int off) {
+        final int n = length(bitsPerSymbol, width);
+        final int mask = (1 << bitsPerSymbol) - 1;
+        final long bits = value << (64 - width);
+        for (int i = 0; i < n; i++) {
+            int shift = 64 - bitsPerSymbol * (i + 1);
+            long symbol = shift >= 0 ? bits >>> shift : bits << -shift;
+            dst[off + i] = alphabet[(int) symbol & mask];
+        }
+        return n;
+    }
+
+    /**
+     * Decodes a value encoded by {@link #encode}. The input must be exactly as
+     * long as the encoding, and the padding bits of its final symbol must be
+     * zero.
+     *
+     * @param codec         the codec, for error reporting
+     * @param table         the decode table, mapping octets to symbol values
+     *                      or to a negative value
+     * @param bitsPerSymbol the number of bits each symbol carries
+     * @param width         the width of the value in bits, 32 or 64
+     * @param src           the encoded data
+     * @param off           the offset of the encoded value in <tt>src</tt>
+     * @param len           the length of the encoded value
+     * @return the value, in the low <tt>width</tt> bits
+     * @throws MalformedInputException if the input is malformed; the error
+     *                                 offset is an index in <tt>src</tt>
+     */
+    static long decode(Codec codec, byte[] table, int bitsPerSymbol, int width, byte[] src, int off, int len) {
+        final int n = length(bitsPerSymbol, width);
+        if (len != n) {
+            throw malformed(codec, off + Math.min(len, n));
+        }
+        long value = 0;
+        for (int i = 0; i < n - 1; i++) {
+            int d = table[src[off + i] & 0xff];
+            if (d < 0) {
+                throw malformed(codec, off + i);
+            }
+            value = value << bitsPerSymbol | d;
+        }
+        // the final symbol carries the remaining bits followed by zero bits
+        int bits = width - bitsPerSymbol * (n - 1);
+        int pad = bitsPerSymbol - bits;
+        int d = table[src[off + n - 1] & 0xff];
+        if (d < 0 || (d & ((1 << pad) - 1)) != 0) {
+            throw malformed(codec, off + n - 1);
+        }
+        return value << bits | d >>> pad;
+    }
+
+    static MalformedInputException malformed(Codec codec, int offset) {
+        return MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                new Object[]{codec.name(), offset}, offset);
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.Arrays;
+
+/**
+ * Splits an <tt>application/x-www-form-urlencoded</tt> body into its fields
+ * in a single scan, without decoding or copying them.
+ * <p/>
+ * Each field is described by {@link #FIELD_SIZE} ints in the array returned
+ * by {@link #fields()}: the offset and length of its key, the offset and
+ * length of its value, and flags telling whether the key or the value holds
+ * escapes or <tt>'+'</tt> and so needs decoding. Offsets index the array
+ * returned by {@link #data()}. A field without <tt>'='</tt> has an empty
+ * value, and empty fields, as between <tt>"&amp;&amp;"</tt>, are skipped.
+ * Fields are decoded only when asked for, so a handler that reads a few
+ * fields of a large form pays for those alone, and escapes are checked then.
+ * <p/>
+ * A body may be parsed whole, in place, or fed in chunks as it arrives, in
+ * which case the chunks are gathered into a buffer of the parser's own and
+ * each field is available as soon as the <tt>'&amp;'</tt> that ends it has
+ * been read. Since the fields index that buffer, it holds the whole body, and
+ * feeding a body takes memory equal to its size:
+ * <pre>
+ *     FormParser form = new FormParser();
+ *     while ((n = in.read(chunk)) &gt;= 0) {
+ *         form.update(chunk, 0, n);
+ *     }
+ *     int count = form.finish();
+ *     for (int i = 0; i &lt; count; i++) {
+ *         if (form.keyEquals(i, "token")) {
+ *             byte[] token = form.value(i);
+ *         }
+ *     }
+ * </pre>
+ * Instances of this class are not safe for use by multiple concurrent
+ * threads; a parser may be reused after {@link #reset()}.
+ *
+ * @author Robert J. Buck
+ * @see URLEncoded
+ */
+public final class FormParser {
+
+    /**
+     * The number of ints describing each field.
+     */
+    public static final int FIELD_SIZE = 5;
+
+    /**
+     * The index, within a field's ints, of the offset of its key.
+     */
+    public static final int KEY_OFFSET = 0;
+
+    /**
+     * The index, within a field's ints, of the length of its key.
+     */
+    public static final int KEY_LENGTH = 1;
+
+    /**
+     * The index, within a field's ints, of the offset of its value.
+     */
+    public static final int VALUE_OFFSET = 2;
+
+    /**
+     * The index, within a field's ints, of the length of its value.
+     */
+    public static final int VALUE_LENGTH = 3;
+
+    /**
+     * The index, within a field's ints, of its flags.
+     */
+    public static final int FLAGS = 4;
+
+    /**
+     * The flag set when a key needs decoding.
+     */
+    public static final int KEY_ENCODED = 1;
+
+    /**
+     * The flag set when a value needs decoding.
+     */
+    public static final int VALUE_ENCODED = 2;
+
+    private static final int INITIAL_FIELDS = 16;
+
+    private final CodecDecoder decoder = Codec.forName("x-www-form-urlencoded").newDecoder();
+
+    private byte[] data;
+    private int size;
+    private boolean owned;
+    private int[] fields = new int[INITIAL_FIELDS * FIELD_SIZE];
+    private int count;
+
+    // the field being scanned
+    private int start;
+    private int equals = -1;
+    private int flags;
+
+    /**
+     * Parses a whole body in place; the offsets of the fields index
+     * <tt>src</tt>, which must not be modified while the fields are in use.
+     *
+     * @param src the body
+     * @param off the offset of the body in <tt>src</tt>
+     * @param len the length of the body
+     * @return the number of fields
+     */
+    public int parse(byte[] src, int off, int len) {
+        owned = false;
+        reset();
+        data = src;
+        start = off;
+        size = off + len;
+        scan(off, size);
+        return finish();
+    }
+
+    /**
+     * Feeds the next chunk of a body. The chunk is copied, and may be reused
+     * as soon as this method returns.
+     *
+     * @param chunk the chunk
+     * @param off   the offset of the chunk's data
+     * @param len   the length of the chunk's data
+     * @return the number of complete fields so far
+     */
+    public int update(byte[] chunk, int off, int len) {
+        if (!owned) {
+            reset();
+            data = new byte[Math.max(CodecOutputStream.BUFFER_SIZE, len)];
+            owned = true;
+        }
+        if (data.length - size < len) {
+            byte[] grown = new byte[Math.max(data.length * 2, size + len)];
+            System.arraycopy(data, 0, grown, 0, size);
+            data = grown;
+        }
+        System.arraycopy(chunk, off, data, size, len);
+        size += len;
+        scan(size - len, size);
+        return count;
+    }
+
+    /**
+     * Ends the body, completing its last field. Call {@link #reset()} before
+     * feeding the next body.
+     *
+     * @return the number of fields
+     */
+    public int finish() {
+        if (data != null) {
+            add(size);
+            start = size;
+        }
+        return count;
+    }
+
+    /**
+     * Forgets the body and its fields, keeping the buffers for reuse. A chunk
+     * buffer that grew past its initial size is dropped, so that one large
+     * body does not hold its memory for every later one.
+     */
+    public void reset() {
+        if (!owned || data.length > CodecOutputStream.BUFFER_SIZE) {
+            data = null;
+            owned = false;
+        }
+        size = 0;
+        count = 0;
+        start = 0;
+        equals = -1;
+        flags = 0;
+    }
+
+    private void scan(int from, int to) {
+        final byte[] b = data;
+        int eq = equals;
+        int f = flags;
+        for (int i = from; i < to; i++) {
+            byte c = b[i];
+            if (c == '&') {
+                equals = eq;
+                flags = f;
+                add(i);
+                start = i + 1;
+                eq = -1;
+                f = 0;
+            } else if (c == '=') {
+                if (eq < 0) {
+                    eq = i;
+                }
+            } else if (c == '%' || c == '+') {
+                f |= eq < 0 ? KEY_ENCODED : VALUE_ENCODED;
+            }
+        }
+        equals = eq;
+        flags = f;
+    }
+
+    private void add(int end) {
+        if (end == start) {
+            return;
+        }
+        if (fields.length - count * FIELD_SIZE < FIELD_SIZE) {
+            int[] grown = new int[fields.length * 2];
+            System.arraycopy(fields, 0, grown, 0, count * FIELD_SIZE);
+            fields = grown;
+        }
+        int i = count++ * FIELD_SIZE;
+        int keyEnd = equals < 0 ? end : equals;
+        int valueOffset = equals < 0 ? end : equals + 1;
+        fields[i + KEY_OFFSET] = start;
+        fields[i + KEY_LENGTH] = keyEnd - start;
+        fields[i + VALUE_OFFSET] = valueOffset;
+        fields[i + VALUE_LENGTH] = end - valueOffset;
+        fields[i + FLAGS] = flags;
+    }
+
+    /**
+     * Returns the array the field offsets index: the body given to {@link
+     * #parse(byte[], int, int)}, or the parser's buffer of the chunks fed to
+     * {@link #update(byte[], int, int)}.
+     *
+     * @return the body
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * Returns the number of complete fields.
+     *
+     * @return the field count
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the fields, {@link #FIELD_SIZE} ints for each. The array is
+     * reused, and may be longer than the fields need.
+     *
+     * @return the fields
+     */
+    public int[] fields() {
+        return fields;
+    }
+
+    /**
+     * Tells whether the key of a field, once decoded, equals a name. Keys
+     * that need no decoding are compared in place.
+     *
+     * @param field the index of the field
+     * @param name  the name, of characters no greater than <tt>'&#92;u00ff'</tt>
+     * @return <tt>true</tt> if, and only if, the key equals the name
+     * @throws MalformedInputException if the key holds a malformed escape
+     */
+    public boolean keyEquals(int field, CharSequence name) {
+        int i = field * FIELD_SIZE;
+        byte[] key;
+        int off;
+        int len;
+        if ((fields[i + FLAGS] & KEY_ENCODED) == 0) {
+            key = data;
+            off = fields[i + KEY_OFFSET];
+            len = fields[i + KEY_LENGTH];
+        } else {
+            key = key(field);
+            off = 0;
+            len = key.length;
+        }
+        if (len != name.length()) {
+            return false;
+        }
+        for (int j = 0; j < len; j++) {
+            if ((key[off + j] & 0xff) != name.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the key of a field.
+     *
+     * @param field the index of the field
+     * @return the key
+     * @throws MalformedInputException if the key holds a malformed escape;
+     *                                 the error offset indexes {@link #data()}
+     */
+    public byte[] key(int field) {
+        int i = field * FIELD_SIZE;
+        return decode(fields[i + KEY_OFFSET], fields[i + KEY_LENGTH], fields[i + FLAGS] & KEY_ENCODED);
+    }
+
+    /**
+     * Decodes the value of a field.
+     *
+     * @param field the index of the field
+     * @return the value
+     * @throws MalformedInputException if the value holds a malformed escape;
+     *                                 the error offset indexes {@link #data()}
+     */
+    public byte[] value(int field) {
+        int i = field * FIELD_SIZE;
+        return decode(fields[i + VALUE_OFFSET], fields[i + VALUE_LENGTH], fields[i + FLAGS] & VALUE_ENCODED);
+    }
+
+    /**
+     * Decodes the value of a field into a caller supplied buffer, which must
+     * have room for the value's encoded length.
+     *
+     * @param field  the index of the field
+     * @param dst    the destination buffer
+     * @param dstOff the offset in the destination buffer to write to
+     * @return the number of bytes written, or if the value is malformed,
+     *         <tt>-(i + 1)</tt> where <tt>i</tt> is the index in {@link
+     *         #data()} of the malformed escape
+     */
+    public int decodeValue(int field, byte[] dst, int dstOff) {
+        int i = field * FIELD_SIZE;
+        int off = fields[i + VALUE_OFFSET];
+        int len = fields[i + VALUE_LENGTH];
+        if ((fields[i + FLAGS] & VALUE_ENCODED) == 0) {
+            System.arraycopy(data, off, dst, dstOff, len);
+            return len;
+        }
+        return decoder.decode(data, off, len, dst, dstOff);
+    }
+
+    private byte[] decode(int off, int len, int encoded) {
+        byte[] decoded = new byte[len];
+        if (encoded == 0) {
+            System.arraycopy(data, off, decoded, 0, len);
+            return decoded;
+        }
+        int n = decoder.decode(data, off, len, decoded, 0);
+        if (n < 0) {
+            int i = -n - 1;
+            throw MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                    new Object[]{decoder.codec().name(), i}, i);
+        }
+        return n == len ? decoded : Arrays.copyOf(decoded, n);
+    }
+}
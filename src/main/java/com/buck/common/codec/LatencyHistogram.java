@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with power of two buckets. Bucket
+ * <tt>i</tt> counts latencies in the range <tt>[2<sup>i</sup>,
+ * 2<sup>i+1</sup>)</tt>, with bucket zero also counting latencies of zero.
+ * Like {@link StripedCounter}, updates are spread over per thread stripes.
+ *
+ * @author Robert J. Buck
+ */
+class LatencyHistogram {
+
+    /**
+     * The number of buckets.
+     */
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray cells = new AtomicLongArray(StripedCounter.STRIPES * BUCKETS);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        int bucket = nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+        cells.incrementAndGet(StripedCounter.stripe() * BUCKETS + bucket);
+    }
+
+    /**
+     * Returns the bucket counts.
+     *
+     * @return an array of {@link #BUCKETS} counts
+     */
+    long[] counts() {
+        long[] counts = new long[BUCKETS];
+        for (int s = 0; s < StripedCounter.STRIPES; s++) {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] += cells.get(s * BUCKETS + b);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Resets all buckets to zero.
+     */
+    void reset() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, 0);
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.buck.common.codec;
 
+import com.buck.commons.i18n.ResourceBundle;
+
 /**
  * Checked exception thrown when an input byte sequence is not legal for the
  * given codec.
@@ -29,6 +31,21 @@ public class MalformedInputException extends IllegalArgumentException {
      */
     private static final long serialVersionUID = 8262875747491194909L;
 
+    /**
+     * The offset of the first malformed byte, or -1 if unknown.
+     */
+    private final int errorOffset;
+
+    /**
+     * The resource key of a lazily formatted detail message, or <tt>null</tt>.
+     */
+    private final String key;
+
+    /**
+     * The arguments of a lazily formatted detail message.
+     */
+    private final Object[] arguments;
+
     /**
      * Constructs a new exception with the specified detail message.  The cause
      * is not initialized, and may subsequently be initialized by a call to
@@ -39,6 +56,9 @@ public class MalformedInputException extends IllegalArgumentException {
      */
     public MalformedInputException(String message) {
         super(message);
+        this.errorOffset = -1;
+        this.key = null;
+        this.arguments = null;
     }
 
     /**
@@ -56,5 +76,75 @@ public class MalformedInputException extends IllegalArgumentException {
      */
     public MalformedInputException(String message, Throwable cause) {
         super(message, cause);
+        this.errorOffset = -1;
+        this.key = null;
+        this.arguments = null;
+    }
+
+    /**
+     * Constructs a new exception for input that is malformed at the given
+     * offset. The detail message is only formatted when it is first
+     * requested.
+     *
+     * @param codecName   the name of the codec that rejected the input
+     * @param errorOffset the offset of the first malformed byte
+     */
+    public MalformedInputException(String codecName, int errorOffset) {
+        this("CODEC_DECODER_MALFORMED_INPUT_AT", new Object[]{codecName, errorOffset}, errorOffset);
+    }
+
+    private MalformedInputException(String key, Object[] arguments, int errorOffset) {
+        super((String) null);
+        this.errorOffset = errorOffset;
+        this.key = key;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Creates an exception without a stack trace, whose detail message is
+     * formatted from the given resource only when first requested. The
+     * standard codecs use these since malformed input is an expected outcome
+     * of decoding untrusted data, and filling in a stack trace costs far more
+     * than the decode itself.
+     *
+     * @param key         the resource key of the detail message
+     * @param arguments   the arguments of the detail message
+     * @param errorOffset the offset of the first malformed byte
+     * @return a new stackless exception
+     */
+    static MalformedInputException stackless(String key, Object[] arguments, int errorOffset) {
+        return new Stackless(key, arguments, errorOffset);
+    }
+
+    /**
+     * Returns the offset of the first malformed byte in the input.
+     *
+     * @return the offset, or -1 if it is not known
+     */
+    public int getErrorOffset() {
+        return errorOffset;
+    }
+
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        if (message == null && key != null) {
+            message = ResourceBundle.formatResourceBundleMessage(MalformedInputException.class, key, arguments);
+        }
+        return message;
+    }
+
+    private static final class Stackless extends MalformedInputException {
+
+        private static final long serialVersionUID = -3100917218564382236L;
+
+        private Stackless(String key, Object[] arguments, int errorOffset) {
+            super(key, arguments, errorOffset);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * A codec decorator that records the calls made to its encoders and decoders
+ * in a {@link CodecMetrics}.
+ *
+ * @author Robert J. Buck
+ */
+class MeteredCodec extends Codec {
+
+    private final Codec codec;
+    private final CodecMetrics metrics;
+
+    MeteredCodec(Codec codec, CodecMetrics metrics) {
+        super(codec.name(), codec.aliases().toArray(new String[codec.aliases().size()]));
+        this.codec = codec;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CodecEngine engine() {
+        return codec.engine();
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        return codec.blockLayout();
+    }
+
+    private static class Decoder extends CodecDecoder {
+        private final CodecDecoder decoder;
+        private final CodecMetrics metrics;
+
+        public Decoder(Codec codec, CodecDecoder decoder, CodecMetrics metrics) {
+            super(codec);
+            this.decoder = decoder;
+            this.metrics = metrics;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            long start = System.nanoTime();
+            byte[] decoded;
+            try {
+                decoded = decoder.decode(encoded);
+            } catch (MalformedInputException e) {
+                metrics.recordMalformed(encoded.length, System.nanoTime() - start);
+                throw e;
+            }
+            if (decoded == null) {
+                metrics.recordMalformed(encoded.length, System.nanoTime() - start);
+            } else {
+                metrics.recordDecode(encoded.length, decoded.length, System.nanoTime() - start);
+            }
+            return decoded;
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return decoder.maxDecodedLength(len);
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            long start = System.nanoTime();
+            int n = decoder.decode(src, off, len, dst, dstOff);
+            if (n < 0) {
+                metrics.recordMalformed(len, System.nanoTime() - start);
+            } else {
+                metrics.recordDecode(len, n, System.nanoTime() - start);
+            }
+            return n;
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            return decoder.validate(src, off, len);
+        }
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            long start = System.nanoTime();
+            long value;
+            try {
+                value = decoder.decodeLong(src, off, len);
+            } catch (MalformedInputException e) {
+                metrics.recordMalformed(len, System.nanoTime() - start);
+                throw e;
+            }
+            metrics.recordDecode(len, 8, System.nanoTime() - start);
+            return value;
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            long start = System.nanoTime();
+            int value;
+            try {
+                value = decoder.decodeInt(src, off, len);
+            } catch (MalformedInputException e) {
+                metrics.recordMalformed(len, System.nanoTime() - start);
+                throw e;
+            }
+            metrics.recordDecode(len, 4, System.nanoTime() - start);
+            return value;
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this, codec.newDecoder(), metrics);
+    }
+
+    private static class Encoder extends CodecEncoder {
+        private final CodecEncoder encoder;
+        private final CodecMetrics metrics;
+
+        public Encoder(Codec codec, CodecEncoder encoder, CodecMetrics metrics) {
+            super(codec);
+            this.encoder = encoder;
+            this.metrics = metrics;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            long start = System.nanoTime();
+            byte[] encoded = encoder.encode(bytes);
+            metrics.recordEncode(bytes.length, encoded.length, System.nanoTime() - start);
+            return encoded;
+        }
+
+        @Override
+        public StringBuilder encode(byte[] bytes, StringBuilder dst) {
+            if (bytes == null) {
+                return null;
+            }
+            long start = System.nanoTime();
+            int length = dst.length();
+            encoder.encode(bytes, dst);
+            metrics.recordEncode(bytes.length, dst.length() - length, System.nanoTime() - start);
+            return dst;
+        }
+
+        @Override
+        public int maxEncodedLength(int len) {
+            return encoder.maxEncodedLength(len);
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            long start = System.nanoTime();
+            int n = encoder.encode(src, off, len, dst, dstOff);
+            metrics.recordEncode(len, n, System.nanoTime() - start);
+            return n;
+        }
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            long start = System.nanoTime();
+            int n = encoder.encodeLong(value, dst, off);
+            metrics.recordEncode(8, n, System.nanoTime() - start);
+            return n;
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            long start = System.nanoTime();
+            int n = encoder.encodeInt(value, dst, off);
+            metrics.recordEncode(4, n, System.nanoTime() - start);
+            return n;
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this, codec.newEncoder(), metrics);
+    }
+}
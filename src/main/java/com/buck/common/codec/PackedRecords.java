@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.Arrays;
+
+/**
+ * Variable length records packed end to end into one array, as produced by
+ * {@link CodecBatchExecutor}. Record <tt>i</tt> occupies the bytes of {@link
+ * #data()} from <tt>offsets()[i]</tt> up to <tt>offsets()[i + 1]</tt>.
+ * <p/>
+ * The arrays are shared, not copied, so that large batches can be handed on
+ * without doubling their footprint; callers must not modify them.
+ *
+ * @author Robert J. Buck
+ */
+public final class PackedRecords {
+
+    private final byte[] data;
+    private final int[] offsets;
+
+    PackedRecords(byte[] data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the record count
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the array holding the records.
+     *
+     * @return the packed data
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * Returns the offsets of the records in {@link #data()}, one more than
+     * there are records; the last is the end of the last record.
+     *
+     * @return the offsets
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the offset of a record in {@link #data()}.
+     *
+     * @param index the index of the record
+     * @return the offset
+     */
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the length of a record.
+     *
+     * @param index the index of the record
+     * @return the length
+     */
+    public int length(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns a copy of a record.
+     *
+     * @param index the index of the record
+     * @return the record
+     */
+    public byte[] get(int index) {
+        return Arrays.copyOfRange(data, offsets[index], offsets[index + 1]);
+    }
+}
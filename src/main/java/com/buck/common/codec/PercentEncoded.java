@@ -16,13 +16,30 @@
 
 package com.buck.common.codec;
 
-import com.buck.commons.i18n.ResourceBundle;
-
-import java.io.ByteArrayOutputStream;
 
 /**
  * Codec for the percent-encoded encoding scheme. <p/> See the RFC-3986
  * specification for more details. </p>
+ * <p/>
+ * The "pct-encoded" codec leaves only the unreserved characters as they are.
+ * Its profiles, named "pct-encoded:" followed by a URI component, also leave
+ * the delimiters that RFC 3986 allows in that component, so that each
+ * component of a URI is encoded in one pass:
+ * <p/>
+ * <table summary="Characters left unencoded by each profile">
+ * <tr><th align="left">Profile</th><th align="left">Characters besides the unreserved ones</th></tr>
+ * <tr><td><tt>pct-encoded:path</tt></td><td><tt>! $ &amp; ' ( ) * + , ; = : @ /</tt></td></tr>
+ * <tr><td><tt>pct-encoded:path-segment</tt></td><td><tt>! $ &amp; ' ( ) * + , ; = : @</tt></td></tr>
+ * <tr><td><tt>pct-encoded:query</tt></td><td><tt>! $ &amp; ' ( ) * + , ; = : @ / ?</tt></td></tr>
+ * <tr><td><tt>pct-encoded:query-param</tt></td><td><tt>! $ ' ( ) * , ; : @ / ?</tt></td></tr>
+ * <tr><td><tt>pct-encoded:fragment</tt></td><td><tt>! $ &amp; ' ( ) * + , ; = : @ / ?</tt></td></tr>
+ * <tr><td><tt>pct-encoded:userinfo</tt></td><td><tt>! $ &amp; ' ( ) * + , ; = :</tt></td></tr>
+ * <tr><td><tt>pct-encoded:host</tt></td><td><tt>! $ &amp; ' ( ) * + , ; =</tt></td></tr>
+ * </table>
+ * <p/>
+ * A query parameter, a key or value of an HTML form style query, also
+ * encodes <tt>'&amp;'</tt>, <tt>'='</tt> and <tt>'+'</tt>, which delimit and
+ * encode spaces in such queries. All profiles decode alike.
  *
  * @author Robert J. Buck
  */
@@ -32,13 +49,20 @@ public class PercentEncoded extends Codec {
 
     private static final byte ESCAPE_CHAR = '%';
 
-    private static final int BASELENGTH = 128;
+    private static final int BASELENGTH = 256;
     private static final byte[] decoderAlphabet = new byte[BASELENGTH];
     private static final int LOOKUPLENGTH = 16;
     private static final byte[] encoderAlphabet = new byte[LOOKUPLENGTH];
     private static final int UNRESERVED_LENGTH = 256;
     private static final byte[] isUnreserved = new byte[UNRESERVED_LENGTH];
 
+    /**
+     * The sub-delimiters of RFC 3986.
+     */
+    static final String SUB_DELIMS = "!$&'()*+,;=";
+
+    private final byte[] isSafe;
+
     static {
         // decoder alphabet
         for (int i = 0; i < BASELENGTH; ++i) {
@@ -51,7 +75,7 @@ public class PercentEncoded extends Codec {
             decoderAlphabet[i] = (byte) (i - 'A' + 10);
         }
         for (int i = 'a'; i <= 'f'; i++) {
-            decoderAlphabet[i] = (byte) (i - 'A' + 10);
+            decoderAlphabet[i] = (byte) (i - 'a' + 10);
         }
 
         // encoder alphabet
@@ -85,7 +109,36 @@ public class PercentEncoded extends Codec {
     }
 
     public PercentEncoded() {
-        super("pct-encoded", StandardCodecs.aliases_PercentEncoded);
+        this("pct-encoded", StandardCodecs.aliases_PercentEncoded, isUnreserved);
+    }
+
+    /**
+     * Initializes a profile of the codec.
+     *
+     * @param canonicalName the name of the codec
+     * @param aliases       the aliases of the codec
+     * @param isSafe        the characters left unencoded, a 256-entry table
+     *                      holding 1 for each such character
+     */
+    PercentEncoded(String canonicalName, String[] aliases, byte[] isSafe) {
+        super(canonicalName, aliases);
+        this.isSafe = isSafe;
+    }
+
+    /**
+     * Builds the table of characters left unencoded by a profile: the
+     * unreserved characters and the given ones.
+     *
+     * @param delimiters the characters to leave unencoded besides the
+     *                   unreserved ones
+     * @return the 256-entry table
+     */
+    static byte[] safe(String delimiters) {
+        byte[] table = isUnreserved.clone();
+        for (int i = 0; i < delimiters.length(); i++) {
+            table[delimiters.charAt(i)] = 1;
+        }
+        return table;
     }
 
     private static class Decoder extends CodecDecoder {
@@ -97,32 +150,59 @@ public class PercentEncoded extends Codec {
             if (encoded == null) {
                 return null;
             }
+            byte[] decoded = decodeTrimmed(encoded);
+            if (decoded == null) {
+                throw malformed(encoded, validate(encoded, 0, encoded.length));
+            }
+            return decoded;
+        }
 
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream(encoded.length);
-            for (int i = 0; i < encoded.length; i++) {
-                int b = encoded[i];
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final int end = off + len;
+            int j = dstOff;
+            for (int i = off; i < end; i++) {
+                byte b = src[i];
                 if (b == ESCAPE_CHAR) {
-                    try {
-                        int u = decoderAlphabet[encoded[++i]];
-                        int l = decoderAlphabet[encoded[++i]];
-                        if (u == -1 || l == -1) {
-                            Object[] arguments = {"percent-encoded"};
-                            String message = ResourceBundle.formatResourceBundleMessage(PercentEncoded.class,
-                                    "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                            throw new MalformedInputException(message);
-                        }
-                        buffer.write((char) ((u << 4) + l));
-                    } catch (ArrayIndexOutOfBoundsException e) {
-                        Object[] arguments = {ESCAPE_CHAR};
-                        String message = ResourceBundle.formatResourceBundleMessage(PercentEncoded.class,
-                                "CODEC_DECODER_INCOMPLETE_ESCAPE", arguments);
-                        throw new MalformedInputException(message, e);
+                    if (i + 2 >= end) {
+                        return -(i + 1);
                     }
+                    int u = decoderAlphabet[src[i + 1] & 0xff];
+                    int l = decoderAlphabet[src[i + 2] & 0xff];
+                    if ((u | l) < 0) {
+                        return -(i + 1);
+                    }
+                    dst[j++] = (byte) ((u << 4) + l);
+                    i += 2;
                 } else {
-                    buffer.write(b);
+                    dst[j++] = b;
+                }
+            }
+            return j - dstOff;
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            // only escapes may be malformed, everything else decodes as-is
+            final int end = off + len;
+            for (int i = off; i < end; i++) {
+                if (src[i] == ESCAPE_CHAR) {
+                    if (i + 2 >= end || (decoderAlphabet[src[i + 1] & 0xff] | decoderAlphabet[src[i + 2] & 0xff]) < 0) {
+                        return i;
+                    }
+                    i += 2;
                 }
             }
-            return buffer.toByteArray();
+            return -1;
+        }
+
+        private MalformedInputException malformed(byte[] encoded, int offset) {
+            if (offset + 2 >= encoded.length) {
+                Object[] arguments = {ESCAPE_CHAR};
+                return MalformedInputException.stackless("CODEC_DECODER_INCOMPLETE_ESCAPE", arguments, offset);
+            }
+            Object[] arguments = {"percent-encoded", offset};
+            return MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT", arguments, offset);
         }
     }
 
@@ -131,8 +211,12 @@ public class PercentEncoded extends Codec {
     }
 
     private static class Encoder extends CodecEncoder {
-        public Encoder(Codec codec) {
+
+        private final byte[] isSafe;
+
+        public Encoder(PercentEncoded codec) {
             super(codec);
+            this.isSafe = codec.isSafe;
         }
 
         public byte[] encode(byte[] bytes) {
@@ -146,7 +230,7 @@ public class PercentEncoded extends Codec {
                 if (b < 0) {
                     b = 256 + b;
                 }
-                if (isUnreserved[b] == 0) {
+                if (isSafe[b] == 0) {
                     size += 2;
                 }
             }
@@ -156,7 +240,7 @@ public class PercentEncoded extends Codec {
                 if (b < 0) {
                     b = 256 + b;
                 }
-                if (isUnreserved[b] != 0) {
+                if (isSafe[b] != 0) {
                     buffer[j] = (byte) b;
                 } else {
                     buffer[j++] = (byte) '%';
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for percent-encoding a registered host name of a URI, leaving the
+ * delimiters that RFC 3986 allows there unencoded. IP literals may not be
+ * percent-encoded, and are not meant for this codec.
+ *
+ * @author Robert J. Buck
+ * @see PercentEncoded
+ */
+public class PercentEncodedHost extends PercentEncoded {
+
+    private static final byte[] isSafe = safe(SUB_DELIMS);
+
+    public PercentEncodedHost() {
+        super("pct-encoded:host", StandardCodecs.aliases_PercentEncodedHost, isSafe);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for percent-encoding a single segment of the path of a URI, leaving
+ * the delimiters that RFC 3986 allows there unencoded. A <tt>'/'</tt> within
+ * the segment is encoded, so that it is not read as a separator.
+ *
+ * @author Robert J. Buck
+ * @see PercentEncoded
+ */
+public class PercentEncodedPathSegment extends PercentEncoded {
+
+    private static final byte[] isSafe = safe(SUB_DELIMS + ":@");
+
+    public PercentEncodedPathSegment() {
+        super("pct-encoded:path-segment", StandardCodecs.aliases_PercentEncodedPathSegment, isSafe);
+    }
+}
@@ -16,9 +16,9 @@
 
 package com.buck.common.codec;
 
-import com.buck.commons.i18n.ResourceBundle;
+import com.buck.common.codec.spi.ScratchBuffers;
 
-import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.BitSet;
 
 /**
@@ -89,63 +89,83 @@ public class QuotedPrintable extends Codec {
             if (encoded == null) {
                 return null;
             }
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            for (int i = 0; i < encoded.length; i++) {
-                int b = encoded[i];
+            byte[] decoded = decodeTrimmed(encoded);
+            if (decoded == null) {
+                int i = validate(encoded, 0, encoded.length);
+                Object[] arguments = {"quoted-printable", i};
+                throw MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT", arguments, i);
+            }
+            return decoded;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final int end = off + len;
+            int j = dstOff;
+            for (int i = off; i < end; i++) {
+                int b = src[i] & 0xff;
                 if (PRINTABLE_CHARS.get(b) || CRLF_CHARS.get(b)) {
-                    buffer.write(b);
-                } else {
-                    if (b == ESCAPE_CHAR) {
-                        if ((++i) < encoded.length) {
-                            byte b1 = encoded[i];
-                            if (HEX_CHARS.get(b1)) {
-                                int u = Character.digit((char) b1, 16);
-                                if ((++i) < encoded.length) {
-                                    byte b2 = encoded[i];
-                                    if (HEX_CHARS.get(b2)) {
-                                        int l = Character.digit((char) encoded[i], 16);
-                                        buffer.write((char) ((u << 4) + l));
-                                    } else {
-                                        Object[] arguments = {"quoted-printable"};
-                                        String message = ResourceBundle.formatResourceBundleMessage(QuotedPrintable.class,
-                                                "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                                        throw new MalformedInputException(message);
-                                    }
-                                } else {
-                                    Object[] arguments = {"quoted-printable"};
-                                    String message = ResourceBundle.formatResourceBundleMessage(QuotedPrintable.class,
-                                            "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                                    throw new MalformedInputException(message);
-                                }
-                            } else {
-                                // remove mta extra whitespace
-                                while (b1 != CR) {
-                                    if (b1 != SPACE && b1 != TAB) {
-                                        Object[] arguments = {"quoted-printable"};
-                                        String message = ResourceBundle.formatResourceBundleMessage(QuotedPrintable.class,
-                                                "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                                        throw new MalformedInputException(message);
-                                    }
-                                    b1 = encoded[++i]; // eats the CR and WS
-                                }
-                                b1 = encoded[++i]; // eats the LF
-                                assert b1 == LF;
-                            }
-                        } else {
-                            Object[] arguments = {"quoted-printable"};
-                            String message = ResourceBundle.formatResourceBundleMessage(QuotedPrintable.class,
-                                    "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                            throw new MalformedInputException(message);
+                    dst[j++] = (byte) b;
+                } else if (b == ESCAPE_CHAR) {
+                    if (i + 1 >= end) {
+                        return -(i + 1);
+                    }
+                    byte b1 = src[i + 1];
+                    if (HEX_CHARS.get(b1 & 0xff)) {
+                        if (i + 2 >= end || !HEX_CHARS.get(src[i + 2] & 0xff)) {
+                            return -(i + 1);
                         }
+                        int u = Character.digit((char) b1, 16);
+                        int l = Character.digit((char) src[i + 2], 16);
+                        dst[j++] = (byte) ((u << 4) + l);
+                        i += 2;
                     } else {
-                        Object[] arguments = {"quoted-printable"};
-                        String message = ResourceBundle.formatResourceBundleMessage(QuotedPrintable.class,
-                                "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                        throw new MalformedInputException(message);
+                        // soft line break; remove mta extra whitespace
+                        int k = i + 1;
+                        while (k < end && (src[k] == SPACE || src[k] == TAB)) {
+                            k++;
+                        }
+                        if (k + 1 >= end || src[k] != CR || src[k + 1] != LF) {
+                            return -(i + 1);
+                        }
+                        i = k + 1; // eats the CR and LF
+                    }
+                } else {
+                    return -(i + 1);
+                }
+            }
+            return j - dstOff;
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            final int end = off + len;
+            for (int i = off; i < end; i++) {
+                int b = src[i] & 0xff;
+                if (PRINTABLE_CHARS.get(b) || CRLF_CHARS.get(b)) {
+                    continue;
+                }
+                if (b != ESCAPE_CHAR || i + 1 >= end) {
+                    return i;
+                }
+                if (HEX_CHARS.get(src[i + 1] & 0xff)) {
+                    if (i + 2 >= end || !HEX_CHARS.get(src[i + 2] & 0xff)) {
+                        return i;
+                    }
+                    i += 2;
+                } else {
+                    // soft line break; allows mta extra whitespace
+                    int k = i + 1;
+                    while (k < end && (src[k] == SPACE || src[k] == TAB)) {
+                        k++;
                     }
+                    if (k + 1 >= end || src[k] != CR || src[k + 1] != LF) {
+                        return i;
+                    }
+                    i = k + 1;
                 }
             }
-            return buffer.toByteArray();
+            return -1;
         }
     }
 
@@ -158,61 +178,71 @@ public class QuotedPrintable extends Codec {
             super(codec);
         }
 
-        private void encodeQuotedPrintable(int b, ByteArrayOutputStream buffer) {
-            buffer.write(ESCAPE_CHAR);
-            char hex1 = Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16));
-            char hex2 = Character.toUpperCase(Character.forDigit(b & 0xF, 16));
-            buffer.write(hex1);
-            buffer.write(hex2);
+        private static int encodeQuotedPrintable(int b, byte[] buffer, int pos) {
+            buffer[pos++] = ESCAPE_CHAR;
+            buffer[pos++] = (byte) Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16));
+            buffer[pos++] = (byte) Character.toUpperCase(Character.forDigit(b & 0xF, 16));
+            return pos;
         }
 
-        private void emitCRLF(ByteArrayOutputStream buffer) {
-            buffer.write('\r');
-            buffer.write('\n');
+        private static int emitCRLF(byte[] buffer, int pos) {
+            buffer[pos++] = '\r';
+            buffer[pos++] = '\n';
+            return pos;
+        }
+
+        private static int emitSoftLineBreak(byte[] buffer, int pos) {
+            buffer[pos++] = ESCAPE_CHAR;
+            return emitCRLF(buffer, pos);
         }
 
         public byte[] encode(byte[] bytes) {
             if (bytes == null) {
                 return null;
             }
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-
-            final byte[] SOFT_LINE_BREAK = {'=', '\r', '\n'};
-
-            int count = 0;
-            boolean inCRLF = false;
-            for (int i = 0; i < bytes.length; i++) {
-                int b = bytes[i];
-                if (b < 0) {
-                    b = 256 + b;
-                }
-                if (b == '\r') {
-                    inCRLF = true;
-                    emitCRLF(buffer);
-                } else {
-                    if (b == '\n') {
-                        if (!inCRLF) {
-                            emitCRLF(buffer);
-                        }
-                    } else if (PRINTABLE_CHARS.get(b)) {
-                        // subtract one for the soft line break
-                        if ((++count) > BYTES_PER_LINE - 1) {
-                            buffer.write(SOFT_LINE_BREAK, 0, SOFT_LINE_BREAK.length);
-                            count = 1;
-                        }
-                        buffer.write(b);
+            // at most three bytes per input byte, plus a soft line break
+            // for every full line of escapes
+            int max = 3 * bytes.length + 3 * (3 * bytes.length / (BYTES_PER_LINE - 1) + 1);
+            byte[] buffer = ScratchBuffers.acquire(max);
+            try {
+                int pos = 0;
+                int count = 0;
+                boolean inCRLF = false;
+                for (int i = 0; i < bytes.length; i++) {
+                    int b = bytes[i];
+                    if (b < 0) {
+                        b = 256 + b;
+                    }
+                    if (b == '\r') {
+                        inCRLF = true;
+                        pos = emitCRLF(buffer, pos);
                     } else {
-                        // subtract one for the soft line break
-                        if ((count += 3) > BYTES_PER_LINE - 1) {
-                            buffer.write(SOFT_LINE_BREAK, 0, SOFT_LINE_BREAK.length);
-                            count = 3;
+                        if (b == '\n') {
+                            if (!inCRLF) {
+                                pos = emitCRLF(buffer, pos);
+                            }
+                        } else if (PRINTABLE_CHARS.get(b)) {
+                            // subtract one for the soft line break
+                            if ((++count) > BYTES_PER_LINE - 1) {
+                                pos = emitSoftLineBreak(buffer, pos);
+                                count = 1;
+                            }
+                            buffer[pos++] = (byte) b;
+                        } else {
+                            // subtract one for the soft line break
+                            if ((count += 3) > BYTES_PER_LINE - 1) {
+                                pos = emitSoftLineBreak(buffer, pos);
+                                count = 3;
+                            }
+                            pos = encodeQuotedPrintable(b, buffer, pos);
                         }
-                        encodeQuotedPrintable(b, buffer);
+                        inCRLF = false;
                     }
-                    inCRLF = false;
                 }
+                return Arrays.copyOf(buffer, pos);
+            } finally {
+                ScratchBuffers.release(buffer);
             }
-            return buffer.toByteArray();
         }
     }
 
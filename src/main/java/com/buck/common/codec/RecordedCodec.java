@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * A codec decorator whose encoders and decoders emit {@link CodecEvents}.
+ *
+ * @author Robert J. Buck
+ */
+class RecordedCodec extends Codec {
+
+    private final Codec codec;
+
+    RecordedCodec(Codec codec) {
+        super(codec.name(), codec.aliases().toArray(new String[codec.aliases().size()]));
+        this.codec = codec;
+    }
+
+    @Override
+    public CodecEngine engine() {
+        return codec.engine();
+    }
+
+    @Override
+    BlockLayout blockLayout() {
+        return codec.blockLayout();
+    }
+
+    private static class Decoder extends CodecDecoder {
+        private final CodecDecoder decoder;
+
+        public Decoder(Codec codec, CodecDecoder decoder) {
+            super(codec);
+            this.decoder = decoder;
+        }
+
+        public byte[] decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            Object event = CodecEvents.events.beginDecode();
+            byte[] decoded;
+            try {
+                decoded = decoder.decode(encoded);
+            } catch (MalformedInputException e) {
+                CodecEvents.events.endDecode(event, codec().name(), encoded.length, 0, true);
+                throw e;
+            }
+            CodecEvents.events.endDecode(event, codec().name(), encoded.length,
+                    decoded == null ? 0 : decoded.length, decoded == null);
+            return decoded;
+        }
+
+        @Override
+        public int maxDecodedLength(int len) {
+            return decoder.maxDecodedLength(len);
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            Object event = CodecEvents.events.beginDecode();
+            int n = decoder.decode(src, off, len, dst, dstOff);
+            CodecEvents.events.endDecode(event, codec().name(), len, n < 0 ? 0 : n, n < 0);
+            return n;
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            return decoder.validate(src, off, len);
+        }
+
+        // integer forms are far below any useful event threshold
+
+        @Override
+        public long decodeLong(byte[] src, int off, int len) {
+            return decoder.decodeLong(src, off, len);
+        }
+
+        @Override
+        public int decodeInt(byte[] src, int off, int len) {
+            return decoder.decodeInt(src, off, len);
+        }
+    }
+
+    public CodecDecoder newDecoder() {
+        return new Decoder(this, codec.newDecoder());
+    }
+
+    private static class Encoder extends CodecEncoder {
+        private final CodecEncoder encoder;
+
+        public Encoder(Codec codec, CodecEncoder encoder) {
+            super(codec);
+            this.encoder = encoder;
+        }
+
+        public byte[] encode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            Object event = CodecEvents.events.beginEncode();
+            byte[] encoded = encoder.encode(bytes);
+            CodecEvents.events.endEncode(event, codec().name(), bytes.length, encoded.length);
+            return encoded;
+        }
+
+        @Override
+        public StringBuilder encode(byte[] bytes, StringBuilder dst) {
+            if (bytes == null) {
+                return null;
+            }
+            Object event = CodecEvents.events.beginEncode();
+            int length = dst.length();
+            encoder.encode(bytes, dst);
+            CodecEvents.events.endEncode(event, codec().name(), bytes.length, dst.length() - length);
+            return dst;
+        }
+
+        @Override
+        public int maxEncodedLength(int len) {
+            return encoder.maxEncodedLength(len);
+        }
+
+        @Override
+        public int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            Object event = CodecEvents.events.beginEncode();
+            int n = encoder.encode(src, off, len, dst, dstOff);
+            CodecEvents.events.endEncode(event, codec().name(), len, n);
+            return n;
+        }
+
+        // integer forms are far below any useful event threshold
+
+        @Override
+        public int encodeLong(long value, byte[] dst, int off) {
+            return encoder.encodeLong(value, dst, off);
+        }
+
+        @Override
+        public int encodeInt(int value, byte[] dst, int off) {
+            return encoder.encodeInt(value, dst, off);
+        }
+    }
+
+    public CodecEncoder newEncoder() {
+        return new Encoder(this, codec.newEncoder());
+    }
+}
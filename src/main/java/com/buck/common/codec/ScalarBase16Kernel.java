@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * The scalar Base16 kernel, a byte at a time through the codec's tables.
+ *
+ * @author Robert J. Buck
+ */
+final class ScalarBase16Kernel extends Base16Kernel {
+
+    @Override
+    CodecEngine engine() {
+        return CodecEngine.SCALAR;
+    }
+
+    @Override
+    void encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        encodeBytes(src, off, off + len, dst, dstOff);
+    }
+
+    @Override
+    int decode(byte[] src, int off, int end, byte[] dst, int dstOff) {
+        return decodePairs(src, off, end, dst, dstOff);
+    }
+
+    /**
+     * Encodes bytes a byte at a time; also used by the other kernels for
+     * what is left over after their wider steps.
+     */
+    static void encodeBytes(byte[] src, int off, int end, byte[] dst, int dstOff) {
+        final byte[] alphabet = Base16.base16Alphabet;
+        for (int baIdx = off; baIdx < end; baIdx++) {
+            dst[dstOff++] = alphabet[((src[baIdx] >> 4) & 0x0F)];
+            dst[dstOff++] = alphabet[((src[baIdx]) & 0x0F)];
+        }
+    }
+
+    /**
+     * Decodes pairs of characters a pair at a time; also used by the other
+     * kernels for what is left over after their wider steps.
+     */
+    static int decodePairs(byte[] src, int off, int end, byte[] dst, int dstOff) {
+        final byte[] table = Base16.base16DecodeTable;
+        int caIdx = off;
+        for (; caIdx + 1 < end; caIdx += 2) {
+            int c0 = table[src[caIdx] & 0xff];
+            int c1 = table[src[caIdx + 1] & 0xff];
+            if ((c0 | c1) < 0) {
+                break;
+            }
+            dst[dstOff++] = (byte) ((c0 << 4) | c1);
+        }
+        return caIdx - off;
+    }
+}
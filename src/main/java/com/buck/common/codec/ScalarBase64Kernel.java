@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * The scalar Base64 kernel, a byte at a time through the codec's tables.
+ *
+ * @author Robert J. Buck
+ */
+final class ScalarBase64Kernel extends Base64Kernel {
+
+    @Override
+    CodecEngine engine() {
+        return CodecEngine.SCALAR;
+    }
+
+    @Override
+    void encode(byte[] table, byte[] src, int off, int triplets, byte[] dst, int dstOff) {
+        encodeTriplets(table, src, off, triplets, dst, dstOff);
+    }
+
+    @Override
+    int decode(byte[] table, byte[] src, int off, int end, byte[] dst, int dstOff) {
+        return decodeQuadruples(table, src, off, end, dst, dstOff);
+    }
+
+    /**
+     * Encodes triplets a triplet at a time; also used by the other kernels
+     * for what is left over after their wider steps.
+     */
+    static void encodeTriplets(byte[] table, byte[] src, int off, int triplets, byte[] dst, int dstOff) {
+        for (int i = 0; i < triplets; i++) {
+            int bits = (src[off] & 0xff) << 16 | (src[off + 1] & 0xff) << 8 | (src[off + 2] & 0xff);
+            dst[dstOff] = table[bits >>> 18];
+            dst[dstOff + 1] = table[(bits >>> 12) & 0x3f];
+            dst[dstOff + 2] = table[(bits >>> 6) & 0x3f];
+            dst[dstOff + 3] = table[bits & 0x3f];
+            off += 3;
+            dstOff += 4;
+        }
+    }
+
+    /**
+     * Decodes quadruples a quadruple at a time; also used by the other
+     * kernels for what is left over after their wider steps.
+     */
+    static int decodeQuadruples(byte[] table, byte[] src, int off, int end, byte[] dst, int dstOff) {
+        int dataIndex = off;
+        while (dataIndex + 4 <= end) {
+            int b1 = table[src[dataIndex] & 0xff];
+            int b2 = table[src[dataIndex + 1] & 0xff];
+            int b3 = table[src[dataIndex + 2] & 0xff];
+            int b4 = table[src[dataIndex + 3] & 0xff];
+            if ((b1 | b2 | b3 | b4) < 0) {
+                break;
+            }
+            int quantum = b1 << 18 | b2 << 12 | b3 << 6 | b4;
+            dst[dstOff++] = (byte) (quantum >> 16);
+            dst[dstOff++] = (byte) (quantum >> 8);
+            dst[dstOff++] = (byte) quantum;
+            dataIndex += 4;
+        }
+        return dataIndex - off;
+    }
+}
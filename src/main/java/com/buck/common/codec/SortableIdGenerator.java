@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generates time-ordered 128-bit identifiers encoded as Base32 Hex keys.
+ * <p/>
+ * Each identifier is laid out, most significant bit first, as a 48-bit
+ * millisecond timestamp, a 16-bit monotonic sequence, a 6-bit stripe number
+ * and 58 bits of randomness. Since the Base32 Hex alphabet preserves sort
+ * order, keys generated later sort after keys generated earlier, which keeps
+ * inserts into B-tree indexes local. Keys produced by one thread are strictly
+ * increasing; keys produced by different threads within the same millisecond
+ * are unique but not ordered among each other.
+ * <p/>
+ * Threads are spread over a set of striped sequence counters, so generating
+ * keys is lock-free and does not contend on a single counter. When a sequence
+ * overflows within a millisecond it carries into the timestamp, so keys
+ * remain monotonic at any rate.
+ * <p/>
+ * The keys are identical to those produced by {@link UUIDCoder} over a
+ * {@link Base32Hex} codec, and may be decoded with it.
+ *
+ * @author Robert J. Buck
+ */
+public class SortableIdGenerator {
+
+    /**
+     * The length of an encoded key.
+     */
+    public static final int ENCODED_LENGTH = 26;
+
+    private static final int SEQUENCE_BITS = 16;
+    private static final int STRIPE_BITS = 6;
+    private static final int ENTROPY_BITS = 64 - STRIPE_BITS;
+    private static final long TIMESTAMP_MASK = (1L << (64 - SEQUENCE_BITS)) - 1;
+    private static final int MAX_STRIPES = 1 << STRIPE_BITS;
+
+    /**
+     * Spacing between stripes, in longs, so that each counter sits on its own
+     * cache line.
+     */
+    private static final int PADDING = 8;
+
+    private static final UUIDCoder coder = new UUIDCoder(new Base32Hex());
+
+    private static final SecureRandom seeder = new SecureRandom();
+
+    private static final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random(seeder.nextLong());
+        }
+    };
+
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * Constructs a generator with one stripe per available processor.
+     */
+    public SortableIdGenerator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a generator sized for the given number of concurrently
+     * generating threads.
+     *
+     * @param concurrency the expected number of concurrent threads; rounded up
+     *                    to a power of two, and capped at 64
+     */
+    public SortableIdGenerator(int concurrency) {
+        int stripes = 1;
+        while (stripes < concurrency && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        this.sequences = new AtomicLongArray(stripes * PADDING);
+        this.mask = stripes - 1;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> (64 - STRIPE_BITS)) & mask;
+    }
+
+    private long nextSequence(int stripe) {
+        final int idx = stripe * PADDING;
+        final long floor = (System.currentTimeMillis() & TIMESTAMP_MASK) << SEQUENCE_BITS;
+        for (; ; ) {
+            long current = sequences.get(idx);
+            long next = current < floor ? floor : current + 1;
+            if (sequences.compareAndSet(idx, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Generates the next key into the given buffer. No objects are allocated.
+     *
+     * @param dst the destination buffer
+     * @param off the offset in the destination buffer to write to
+     * @return the number of bytes written, always {@link #ENCODED_LENGTH}
+     */
+    public int next(byte[] dst, int off) {
+        int stripe = stripe();
+        long msb = nextSequence(stripe);
+        long lsb = ((long) stripe << ENTROPY_BITS) | (random.get().nextLong() >>> STRIPE_BITS);
+        return Base32Hex.encode128(msb, lsb, dst, off);
+    }
+
+    /**
+     * Generates the next key.
+     *
+     * @return a new encoded key
+     */
+    public byte[] next() {
+        byte[] key = new byte[ENCODED_LENGTH];
+        next(key, 0);
+        return key;
+    }
+
+    /**
+     * Decodes a key into its 128-bit value.
+     *
+     * @param key an encoded key
+     * @return the key as a UUID, or <tt>null</tt> if the key is malformed
+     */
+    public static UUID decode(byte[] key) {
+        return coder.decode(key);
+    }
+
+    /**
+     * Returns the millisecond timestamp of a decoded key.
+     *
+     * @param id a decoded key
+     * @return the time the key was generated, in milliseconds since the epoch
+     */
+    public static long timestamp(UUID id) {
+        return id.getMostSignificantBits() >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * Returns the sequence number of a decoded key within its timestamp.
+     *
+     * @param id a decoded key
+     * @return the sequence number
+     */
+    public static int sequence(UUID id) {
+        return (int) (id.getMostSignificantBits() & ((1L << SEQUENCE_BITS) - 1));
+    }
+
+    /**
+     * Returns the entropy of a decoded key, being the stripe number and the
+     * random bits.
+     *
+     * @param id a decoded key
+     * @return the least significant 64 bits of the key
+     */
+    public static long entropy(UUID id) {
+        return id.getLeastSignificantBits();
+    }
+}
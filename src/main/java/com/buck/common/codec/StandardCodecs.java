@@ -28,17 +28,43 @@ class StandardCodecs extends FastCodecProvider {
     static final String[] aliases_Base32 = new String[]{
     };
 
+    static final String[] aliases_Base32NoPad = new String[]{
+    };
+
     static final String[] aliases_Base32Hex = new String[]{
     };
 
+    static final String[] aliases_Base32HexNoPad = new String[]{
+    };
+
+    static final String[] aliases_Base32Crockford = new String[]{
+            "crockford32",
+            "crockford-base32",
+    };
+
+    static final String[] aliases_Base32CrockfordCheck = new String[]{
+            "crockford32-check",
+    };
+
     static final String[] aliases_Base64 = new String[]{
             "base64Binary",
     };
 
+    static final String[] aliases_Base64NoPad = new String[]{
+    };
+
+    static final String[] aliases_Base64Mime = new String[]{
+            "mime-base64",
+    };
+
     static final String[] aliases_Base64URL = new String[]{
             "base64URLSafe",
     };
 
+    static final String[] aliases_Base64URLNoPad = new String[]{
+            "base64URLSafe-nopad",
+    };
+
     static final String[] aliases_QuotedPrintable = new String[]{
     };
 
@@ -46,17 +72,60 @@ class StandardCodecs extends FastCodecProvider {
             "percent-encoded",
     };
 
+    static final String[] aliases_PercentEncodedPath = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedPathSegment = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedQuery = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedQueryParam = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedFragment = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedUserInfo = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedHost = new String[]{
+    };
+
     static final String[] aliases_URLEncoded = new String[]{
             "www-form-urlencoded",
     };
 
+    static final String[] aliases_Ascii85 = new String[]{
+    };
+
+    static final String[] aliases_Base85 = new String[]{
+            "rfc1924",
+    };
+
+    static final String[] aliases_Z85 = new String[]{
+    };
+
+    static final String[] aliases_Base58 = new String[]{
+            "base58btc",
+            "base58-bitcoin",
+    };
+
+    static final String[] aliases_Base58Flickr = new String[]{
+            "base58flickr",
+    };
+
+    static final String[] aliases_Base58Check = new String[]{
+    };
+
     private static final class Aliases
             extends sun.util.PreHashedMap<String> {
 
-        private static final int ROWS = 4;
-        private static final int SIZE = 6;
-        private static final int SHIFT = 0;
-        private static final int MASK = 0x3;
+        private static final int ROWS = 8;
+        private static final int SIZE = 15;
+        private static final int SHIFT = 6;
+        private static final int MASK = 0x7;
 
         private Aliases() {
             super(ROWS, SIZE, SHIFT, MASK);
@@ -64,11 +133,20 @@ class StandardCodecs extends FastCodecProvider {
 
         protected void init(Object[] ht) {
             ht[0] = new Object[]{"base64binary", "base64",
+                    new Object[]{"crockford32-check", "base32-crockford-check"}};
+            ht[2] = new Object[]{"base58btc", "base58",
+                    new Object[]{"base64urlsafe-nopad", "base64url-nopad",
+                            new Object[]{"crockford32", "base32-crockford"}}};
+            ht[3] = new Object[]{"crockford-base32", "base32-crockford",
                     new Object[]{"hexbinary", "base16"}};
-            ht[1] = new Object[]{"base64urlsafe", "base64url"};
-            ht[2] = new Object[]{"www-form-urlencoded", "x-www-form-urlencoded",
-                    new Object[]{"percent-encoded", "pct-encoded"}};
-            ht[3] = new Object[]{"hex", "base16"};
+            ht[4] = new Object[]{"www-form-urlencoded", "x-www-form-urlencoded",
+                    new Object[]{"mime-base64", "base64-mime",
+                            new Object[]{"hex", "base16"}}};
+            ht[5] = new Object[]{"base64urlsafe", "base64url"};
+            ht[6] = new Object[]{"base58-bitcoin", "base58",
+                    new Object[]{"rfc1924", "base85",
+                            new Object[]{"percent-encoded", "pct-encoded"}}};
+            ht[7] = new Object[]{"base58flickr", "base58-flickr"};
         }
 
     }
@@ -76,24 +154,44 @@ class StandardCodecs extends FastCodecProvider {
     private static final class Classes
             extends sun.util.PreHashedMap<String> {
 
-        private static final int ROWS = 4;
-        private static final int SIZE = 8;
-        private static final int SHIFT = 0;
-        private static final int MASK = 0x3;
+        private static final int ROWS = 16;
+        private static final int SIZE = 28;
+        private static final int SHIFT = 6;
+        private static final int MASK = 0xf;
 
         private Classes() {
             super(ROWS, SIZE, SHIFT, MASK);
         }
 
         protected void init(Object[] ht) {
-            ht[0] = new Object[]{"base64url", "Base64URL",
-                    new Object[]{"base32", "Base32"}};
-            ht[1] = new Object[]{"x-www-form-urlencoded", "URLEncoded"};
-            ht[2] = new Object[]{"pct-encoded", "PercentEncoded",
-                    new Object[]{"quoted-printable", "QuotedPrintable",
-                            new Object[]{"base16", "Base16"}}};
-            ht[3] = new Object[]{"base64", "Base64",
-                    new Object[]{"base32hex", "Base32Hex"}};
+            ht[0] = new Object[]{"pct-encoded", "PercentEncoded",
+                    new Object[]{"base32hex", "Base32Hex",
+                            new Object[]{"base32-nopad", "Base32NoPad"}}};
+            ht[1] = new Object[]{"base58check", "Base58Check",
+                    new Object[]{"x-www-form-urlencoded", "URLEncoded",
+                            new Object[]{"pct-encoded:path", "PercentEncodedPath"}}};
+            ht[2] = new Object[]{"base58-flickr", "Base58Flickr",
+                    new Object[]{"base16", "Base16"}};
+            ht[3] = new Object[]{"z85", "Z85",
+                    new Object[]{"base64url-nopad", "Base64URLNoPad",
+                            new Object[]{"base32", "Base32"}}};
+            ht[4] = new Object[]{"base58", "Base58",
+                    new Object[]{"base64-nopad", "Base64NoPad"}};
+            ht[5] = new Object[]{"base64", "Base64"};
+            ht[6] = new Object[]{"base85", "Base85"};
+            ht[7] = new Object[]{"pct-encoded:path-segment", "PercentEncodedPathSegment",
+                    new Object[]{"base64url", "Base64URL",
+                            new Object[]{"base64-mime", "Base64Mime"}}};
+            ht[8] = new Object[]{"ascii85", "Ascii85",
+                    new Object[]{"pct-encoded:host", "PercentEncodedHost"}};
+            ht[9] = new Object[]{"base32-crockford", "Base32Crockford"};
+            ht[10] = new Object[]{"pct-encoded:fragment", "PercentEncodedFragment"};
+            ht[11] = new Object[]{"base32-crockford-check", "Base32CrockfordCheck"};
+            ht[12] = new Object[]{"base32hex-nopad", "Base32HexNoPad"};
+            ht[13] = new Object[]{"pct-encoded:userinfo", "PercentEncodedUserInfo",
+                    new Object[]{"pct-encoded:query", "PercentEncodedQuery",
+                            new Object[]{"quoted-printable", "QuotedPrintable"}}};
+            ht[15] = new Object[]{"pct-encoded:query-param", "PercentEncodedQueryParam"};
         }
 
     }
@@ -101,24 +199,44 @@ class StandardCodecs extends FastCodecProvider {
     private static final class Cache
             extends sun.util.PreHashedMap<Codec> {
 
-        private static final int ROWS = 4;
-        private static final int SIZE = 8;
-        private static final int SHIFT = 0;
-        private static final int MASK = 0x3;
+        private static final int ROWS = 16;
+        private static final int SIZE = 28;
+        private static final int SHIFT = 6;
+        private static final int MASK = 0xf;
 
         private Cache() {
             super(ROWS, SIZE, SHIFT, MASK);
         }
 
         protected void init(Object[] ht) {
-            ht[0] = new Object[]{"base64url", null,
-                    new Object[]{"base32", null}};
-            ht[1] = new Object[]{"x-www-form-urlencoded", null};
-            ht[2] = new Object[]{"pct-encoded", null,
-                    new Object[]{"quoted-printable", null,
-                            new Object[]{"base16", null}}};
-            ht[3] = new Object[]{"base64", null,
-                    new Object[]{"base32hex", null}};
+            ht[0] = new Object[]{"pct-encoded", null,
+                    new Object[]{"base32hex", null,
+                            new Object[]{"base32-nopad", null}}};
+            ht[1] = new Object[]{"base58check", null,
+                    new Object[]{"x-www-form-urlencoded", null,
+                            new Object[]{"pct-encoded:path", null}}};
+            ht[2] = new Object[]{"base58-flickr", null,
+                    new Object[]{"base16", null}};
+            ht[3] = new Object[]{"z85", null,
+                    new Object[]{"base64url-nopad", null,
+                            new Object[]{"base32", null}}};
+            ht[4] = new Object[]{"base58", null,
+                    new Object[]{"base64-nopad", null}};
+            ht[5] = new Object[]{"base64", null};
+            ht[6] = new Object[]{"base85", null};
+            ht[7] = new Object[]{"pct-encoded:path-segment", null,
+                    new Object[]{"base64url", null,
+                            new Object[]{"base64-mime", null}}};
+            ht[8] = new Object[]{"ascii85", null,
+                    new Object[]{"pct-encoded:host", null}};
+            ht[9] = new Object[]{"base32-crockford", null};
+            ht[10] = new Object[]{"pct-encoded:fragment", null};
+            ht[11] = new Object[]{"base32-crockford-check", null};
+            ht[12] = new Object[]{"base32hex-nopad", null};
+            ht[13] = new Object[]{"pct-encoded:userinfo", null,
+                    new Object[]{"pct-encoded:query", null,
+                            new Object[]{"quoted-printable", null}}};
+            ht[15] = new Object[]{"pct-encoded:query-param", null};
         }
 
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is updated by many threads and read rarely. Updates are
+ * spread over a set of cells, each on its own cache line, chosen by the
+ * updating thread; reads sum the cells.
+ *
+ * @author Robert J. Buck
+ */
+class StripedCounter {
+
+    /**
+     * The number of cells, a power of two.
+     */
+    static final int STRIPES;
+
+    /**
+     * Spacing between cells, in longs, so that each cell sits on its own
+     * cache line.
+     */
+    private static final int PADDING = 8;
+
+    private static final int MAX_STRIPES = 32;
+
+    static {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * Returns the stripe of the calling thread.
+     *
+     * @return a stripe number less than {@link #STRIPES}
+     */
+    static int stripe() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> 32) & (STRIPES - 1);
+    }
+
+    /**
+     * Adds to the counter.
+     *
+     * @param x the value to add
+     */
+    void add(long x) {
+        cells.addAndGet(stripe() * PADDING, x);
+    }
+
+    /**
+     * Increments the counter.
+     */
+    void increment() {
+        add(1);
+    }
+
+    /**
+     * Returns the current sum. Updates made concurrently with the read may or
+     * may not be included.
+     *
+     * @return the sum of all cells
+     */
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to zero.
+     */
+    void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * The SWAR Base16 kernel, eight characters at a time in a 64-bit register.
+ * Characters are computed from nibbles and nibbles from characters by
+ * arithmetic on all eight bytes at once, with no table lookups.
+ *
+ * @author Robert J. Buck
+ */
+final class SwarBase16Kernel extends Base16Kernel {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long NIBBLES = 0x0f0f0f0f0f0f0f0fL;
+
+    @Override
+    CodecEngine engine() {
+        return CodecEngine.SWAR;
+    }
+
+    @Override
+    void encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        final int end = off + len;
+        int baIdx = off;
+        for (; baIdx + 4 <= end; baIdx += 4, dstOff += 8) {
+            BigEndian.putLong(dst, dstOff, hex(spread(BigEndian.getInt(src, baIdx))));
+        }
+        ScalarBase16Kernel.encodeBytes(src, baIdx, end, dst, dstOff);
+    }
+
+    @Override
+    int decode(byte[] src, int off, int end, byte[] dst, int dstOff) {
+        int caIdx = off;
+        for (; caIdx + 8 <= end; caIdx += 8, dstOff += 4) {
+            long chars = BigEndian.getLong(src, caIdx);
+            if (!isHex(chars)) {
+                break;
+            }
+            BigEndian.putInt(dst, dstOff, pack(chars));
+        }
+        return caIdx - off + ScalarBase16Kernel.decodePairs(src, caIdx, end, dst, dstOff);
+    }
+
+    /**
+     * Spreads the nibbles of a value over the bytes of a long, the most
+     * significant first.
+     */
+    private static long spread(int value) {
+        long x = value & 0xffffffffL;
+        x = (x << 16 | x) & 0x0000ffff0000ffffL;
+        x = (x << 8 | x) & 0x00ff00ff00ff00ffL;
+        return (x << 4 | x) & NIBBLES;
+    }
+
+    /**
+     * Maps each byte, a nibble, to its character in the RFC 4648 alphabet:
+     * '0' plus the nibble, plus seven more to reach 'A' from ten up.
+     */
+    private static long hex(long nibbles) {
+        long letters = ((nibbles + 6 * ONES) >>> 4) & ONES;
+        return nibbles + '0' * ONES + 7 * letters;
+    }
+
+    /**
+     * Tells whether every byte is a hex digit, in either case.
+     */
+    private static boolean isHex(long chars) {
+        if ((chars & HIGH) != 0) {
+            return false;
+        }
+        long digits = atLeast(chars, '0') & ~atLeast(chars, '9' + 1);
+        long lower = chars | 0x20 * ONES;
+        long letters = atLeast(lower, 'a') & ~atLeast(lower, 'f' + 1);
+        return ((digits | letters) & HIGH) == HIGH;
+    }
+
+    /**
+     * Sets the high bit of each byte that is at least the given value, for
+     * bytes below 0x80; the subtraction cannot borrow across bytes.
+     */
+    private static long atLeast(long chars, int value) {
+        return ((chars | HIGH) - value * ONES) & HIGH;
+    }
+
+    /**
+     * Packs eight hex digits, the most significant first, into the four bytes
+     * they encode. Letters of either case have bit six set, and their low
+     * nibble is nine short of their value.
+     */
+    private static int pack(long chars) {
+        long x = (chars & NIBBLES) + 9 * ((chars >>> 6) & ONES);
+        x = (x >>> 4 | x) & 0x00ff00ff00ff00ffL;
+        x = (x >>> 8 | x) & 0x0000ffff0000ffffL;
+        return (int) (x >>> 16 | x);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * The SWAR Base64 kernel, two triplets at a time in a 64-bit register. The
+ * alphabets of the Base64 codecs vary, so sextets still map to characters
+ * through the tables, but each register is loaded and stored whole.
+ *
+ * @author Robert J. Buck
+ */
+final class SwarBase64Kernel extends Base64Kernel {
+
+    @Override
+    CodecEngine engine() {
+        return CodecEngine.SWAR;
+    }
+
+    @Override
+    void encode(byte[] table, byte[] src, int off, int triplets, byte[] dst, int dstOff) {
+        // the load reads two bytes past the pair of triplets, so a third
+        // triplet must follow
+        for (; triplets >= 3; triplets -= 2) {
+            long bits = BigEndian.getLong(src, off);
+            long chars = 0;
+            for (int shift = 58; shift >= 16; shift -= 6) {
+                chars = chars << 8 | table[(int) (bits >>> shift) & 0x3f];
+            }
+            BigEndian.putLong(dst, dstOff, chars);
+            off += 6;
+            dstOff += 8;
+        }
+        ScalarBase64Kernel.encodeTriplets(table, src, off, triplets, dst, dstOff);
+    }
+
+    @Override
+    int decode(byte[] table, byte[] src, int off, int end, byte[] dst, int dstOff) {
+        int dataIndex = off;
+        for (; dataIndex + 8 <= end; dataIndex += 8, dstOff += 6) {
+            long chars = BigEndian.getLong(src, dataIndex);
+            long bits = 0;
+            int invalid = 0;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                int sextet = table[(int) (chars >>> shift) & 0xff];
+                invalid |= sextet;
+                bits = bits << 6 | (sextet & 0x3f);
+            }
+            if (invalid < 0) {
+                break;
+            }
+            BigEndian.putInt(dst, dstOff, (int) (bits >>> 16));
+            BigEndian.putShort(dst, dstOff + 4, (short) bits);
+        }
+        return dataIndex - off + ScalarBase64Kernel.decodeQuadruples(table, src, dataIndex, end, dst, dstOff);
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Converts data from one encoding to another without decoding all of it to
+ * binary first, as when migrating stored keys from base64 to base32hex.
+ * <p/>
+ * When both codecs split into independent blocks, the data is converted a
+ * group of blocks at a time through a small scratch buffer whose size is a
+ * multiple of the least common multiple of the two block sizes, so that each
+ * group decodes and encodes on its own; base64 and base32, for instance,
+ * meet every 15 bytes. Other codecs are converted through a whole binary
+ * copy of the data.
+ * <p/>
+ * Instances of this class are not safe for use by multiple concurrent
+ * threads; the parallel mode uses its own buffers for each task.
+ *
+ * @author Robert J. Buck
+ * @see Codec#transcoder(Codec, Codec)
+ */
+public final class Transcoder {
+
+    /**
+     * The approximate size of the scratch buffer.
+     */
+    private static final int SCRATCH_SIZE = 1024;
+
+    /**
+     * The minimum amount of encoded data given to each parallel task.
+     */
+    static final int SEGMENT_SIZE = 64 * 1024;
+
+    private final Codec from;
+    private final Codec to;
+    private final CodecDecoder decoder;
+    private final CodecEncoder encoder;
+    private final BlockLayout fromLayout;
+    private final byte[] separator;
+    private final int blockSize;
+    private final int chunkSize;
+    private final byte[] scratch;
+
+    Transcoder(Codec from, Codec to) {
+        this.from = from;
+        this.to = to;
+        this.decoder = from.newDecoder();
+        this.encoder = to.newEncoder();
+        BlockLayout toLayout = to.blockLayout();
+        if (from.blockLayout() != null && toLayout != null) {
+            this.fromLayout = from.blockLayout();
+            this.separator = toLayout.separator;
+            this.blockSize = lcm(fromLayout.rawSize, toLayout.rawSize);
+            this.chunkSize = Math.max(1, SCRATCH_SIZE / blockSize) * blockSize;
+            this.scratch = new byte[chunkSize];
+        } else {
+            this.fromLayout = null;
+            this.separator = null;
+            this.blockSize = 0;
+            this.chunkSize = 0;
+            this.scratch = null;
+        }
+    }
+
+    private static int lcm(int a, int b) {
+        int x = a;
+        int y = b;
+        while (y != 0) {
+            int t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    /**
+     * Returns the codec that the data is decoded from.
+     *
+     * @return the source codec
+     */
+    public Codec from() {
+        return from;
+    }
+
+    /**
+     * Returns the codec that the data is encoded to.
+     *
+     * @return the target codec
+     */
+    public Codec to() {
+        return to;
+    }
+
+    /**
+     * Returns the number of raw bytes converted as a unit, the least common
+     * multiple of the block sizes of the two codecs, or 0 if either codec
+     * must be converted as a whole.
+     *
+     * @return the block size
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes that transcoding the given number
+     * of encoded bytes may produce.
+     *
+     * @param len the number of encoded bytes
+     * @return the maximum transcoded length
+     */
+    public int maxTranscodedLength(int len) {
+        int max = decoder.maxDecodedLength(len);
+        // decoders without a useful bound, such as pipelines that decompress
+        return max == Integer.MAX_VALUE ? max : encoder.maxEncodedLength(max);
+    }
+
+    /**
+     * Transcodes encoded data.
+     *
+     * @param encoded the data in the source encoding
+     * @return the data in the target encoding, or <tt>null</tt> if the input
+     *         is <tt>null</tt> or malformed
+     */
+    public byte[] transcode(byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (fromLayout == null) {
+            // sized from the decoded data, since the source may not bound it
+            DecodeResult raw = decoder.tryDecode(encoded, 0, encoded.length);
+            if (raw.isMalformed()) {
+                return null;
+            }
+            byte[] transcoded = new byte[encoder.maxEncodedLength(raw.length())];
+            int n = encoder.encode(raw.buffer(), 0, raw.length(), transcoded, 0);
+            return n == transcoded.length ? transcoded : Arrays.copyOf(transcoded, n);
+        }
+        byte[] transcoded = new byte[maxTranscodedLength(encoded.length)];
+        int n = transcode(encoded, 0, encoded.length, transcoded, 0);
+        if (n < 0) {
+            return null;
+        }
+        return n == transcoded.length ? transcoded : Arrays.copyOf(transcoded, n);
+    }
+
+    /**
+     * Transcodes encoded data into a caller supplied buffer without throwing
+     * on malformed input. The destination must have room for at least {@link
+     * #maxTranscodedLength(int) maxTranscodedLength(len)} bytes.
+     *
+     * @param src    the data in the source encoding
+     * @param off    the offset of the data in <tt>src</tt>
+     * @param len    the length of the data
+     * @param dst    the destination buffer
+     * @param dstOff the offset in the destination buffer to write to
+     * @return the number of bytes written, or if the input is malformed,
+     *         <tt>-(i + 1)</tt> where <tt>i</tt> is the index in <tt>src</tt>
+     *         of the first malformed byte
+     */
+    public int transcode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        if (fromLayout == null) {
+            DecodeResult raw = decoder.tryDecode(src, off, len);
+            if (raw.isMalformed()) {
+                return -(raw.errorOffset() + 1);
+            }
+            return encoder.encode(raw.buffer(), 0, raw.length(), dst, dstOff);
+        }
+        return transcode(src, off, len, dst, dstOff, decoder, encoder, scratch);
+    }
+
+    private int transcode(byte[] src, int off, int len, byte[] dst, int dstOff,
+                          CodecDecoder decoder, CodecEncoder encoder, byte[] raw) {
+        final int chunkChars = chunkSize / fromLayout.rawSize * fromLayout.encodedSize;
+        final int end = off + len;
+        int pos = off;
+        int written = 0;
+        boolean padded = false;
+        while (pos < end) {
+            int span = fromLayout.span(src, pos, end - pos, chunkChars);
+            if (padded) {
+                // padding ends the data; only skipped characters may follow
+                for (int i = pos; i < pos + span; i++) {
+                    if (!fromLayout.isIgnorable(src[i])) {
+                        return -(i + 1);
+                    }
+                }
+            }
+            int n = decoder.decode(src, pos, span, raw, 0);
+            if (n < 0) {
+                return n;
+            }
+            if (n > 0) {
+                if (written > 0 && separator != null) {
+                    System.arraycopy(separator, 0, dst, dstOff + written, separator.length);
+                    written += separator.length;
+                }
+                written += encoder.encode(raw, 0, n, dst, dstOff + written);
+            }
+            padded |= fromLayout.endsWithPad(src, pos, span);
+            pos += span;
+        }
+        return written;
+    }
+
+    /**
+     * Transcodes all the data of a stream to another stream, a buffer at a
+     * time. Neither stream is closed.
+     *
+     * @param in  the data in the source encoding
+     * @param out the stream to receive the data in the target encoding
+     * @throws IOException             if an I/O error occurs
+     * @throws MalformedInputException if the input is malformed; the error
+     *                                 offset is the position in the stream
+     */
+    public void transcode(InputStream in, OutputStream out) throws IOException {
+        InputStream decoding = new CodecInputStream(in, from);
+        CodecOutputStream encoding = new CodecOutputStream(out, to);
+        byte[] buffer = new byte[CodecOutputStream.BUFFER_SIZE];
+        int r;
+        while ((r = decoding.read(buffer)) >= 0) {
+            encoding.write(buffer, 0, r);
+        }
+        encoding.finish();
+    }
+
+    /**
+     * Transcodes encoded data into a caller supplied buffer, splitting large
+     * inputs into segments of whole blocks that are converted concurrently.
+     * Inputs that are small, or whose codecs must be converted as a whole,
+     * are converted by the calling thread. The result is the same as that of
+     * {@link #transcode(byte[], int, int, byte[], int)}.
+     *
+     * @param src      the data in the source encoding
+     * @param off      the offset of the data in <tt>src</tt>
+     * @param len      the length of the data
+     * @param dst      the destination buffer
+     * @param dstOff   the offset in the destination buffer to write to
+     * @param executor the executor to run the segments on
+     * @return the number of bytes written, or if the input is malformed,
+     *         <tt>-(i + 1)</tt> where <tt>i</tt> is the index in <tt>src</tt>
+     *         of the first malformed byte
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              segments to complete
+     */
+    public int transcode(final byte[] src, int off, int len, final byte[] dst, int dstOff,
+                         ExecutorService executor) throws InterruptedException {
+        if (fromLayout == null || len < 2 * SEGMENT_SIZE) {
+            return transcode(src, off, len, dst, dstOff);
+        }
+        // segments hold whole chunks of data characters, and all but the
+        // last decode to exactly their number of chunks times the chunk size
+        final int chunkChars = chunkSize / fromLayout.rawSize * fromLayout.encodedSize;
+        final int segmentChars = Math.max(1, SEGMENT_SIZE / chunkChars) * chunkChars;
+        final int segmentRaw = segmentChars / fromLayout.encodedSize * fromLayout.rawSize;
+        final int segmentEncoded = encoder.maxEncodedLength(segmentRaw);
+        final int separatorLength = separator == null ? 0 : separator.length;
+        final int end = off + len;
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        List<Integer> ends = new ArrayList<Integer>();
+        int pos = off;
+        int out = dstOff;
+        while (pos < end) {
+            int span = fromLayout.span(src, pos, end - pos, segmentChars);
+            if (!hasData(src, pos + span, end - pos - span)) {
+                // only skipped characters follow; keep them with this segment
+                span = end - pos;
+            }
+            final int segmentOff = pos;
+            final int segmentLen = span;
+            final int segmentDst = out;
+            results.add(executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    return transcode(src, segmentOff, segmentLen, dst, segmentDst,
+                            from.newDecoder(), to.newEncoder(), new byte[chunkSize]);
+                }
+            }));
+            pos += span;
+            ends.add(pos);
+            out += separatorLength + segmentEncoded;
+        }
+        int written = 0;
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                int n = results.get(i).get();
+                if (n < 0) {
+                    return n;
+                }
+                boolean last = i == results.size() - 1;
+                if (!last && n != segmentEncoded) {
+                    // the segment ended with padding, yet data follows
+                    int next = ends.get(i);
+                    return -(next + fromLayout.span(src, next, end - next, 1));
+                }
+                if (i > 0 && n > 0 && separator != null) {
+                    System.arraycopy(separator, 0, dst, dstOff + written, separatorLength);
+                    written += separatorLength;
+                }
+                written += n;
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CodecMalfunctionError(e);
+        } finally {
+            for (Future<Integer> result : results) {
+                result.cancel(true);
+            }
+        }
+        return written;
+    }
+
+    private boolean hasData(byte[] src, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            if (!fromLayout.isIgnorable(src[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -16,9 +16,7 @@
 
 package com.buck.common.codec;
 
-import com.buck.commons.i18n.ResourceBundle;
-
-import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.BitSet;
 
 /**
@@ -41,9 +39,32 @@ public class URLEncoded extends Codec {
      */
     private static final BitSet WWW_FORM_URL = new BitSet(256);
 
+    /**
+     * Table used to decode hex digits of escape sequences; maps octets to
+     * their value, or to -1 if the octet is not a hex digit.
+     */
+    private static final byte[] HEX_DIGITS = new byte[256];
+
+    private static final byte[] HEX_UPPER = {
+            '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
     // Static initializer for www_form_url
 
     static {
+        Arrays.fill(HEX_DIGITS, (byte) -1);
+        for (int i = '0'; i <= '9'; i++) {
+            HEX_DIGITS[i] = (byte) (i - '0');
+        }
+        for (int i = 'A'; i <= 'F'; i++) {
+            HEX_DIGITS[i] = (byte) (i - 'A' + 10);
+        }
+        for (int i = 'a'; i <= 'f'; i++) {
+            HEX_DIGITS[i] = (byte) (i - 'a' + 10);
+        }
+
+
         // alpha characters
         for (int i = 'a'; i <= 'z'; i++) {
             WWW_FORM_URL.set(i);
@@ -77,33 +98,61 @@ public class URLEncoded extends Codec {
             if (encoded == null) {
                 return null;
             }
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            for (int i = 0; i < encoded.length; i++) {
-                int b = encoded[i];
+            byte[] decoded = decodeTrimmed(encoded);
+            if (decoded == null) {
+                throw malformed(encoded, validate(encoded, 0, encoded.length));
+            }
+            return decoded;
+        }
+
+        @Override
+        public int decode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            final int end = off + len;
+            int j = dstOff;
+            for (int i = off; i < end; i++) {
+                byte b = src[i];
                 if (b == '+') {
-                    buffer.write(' ');
+                    dst[j++] = ' ';
                 } else if (b == ESCAPE_CHAR) {
-                    try {
-                        int u = Character.digit((char) encoded[++i], 16);
-                        int l = Character.digit((char) encoded[++i], 16);
-                        if (u == -1 || l == -1) {
-                            Object[] arguments = {"www-form-urlencoded"};
-                            String message = ResourceBundle.formatResourceBundleMessage(PercentEncoded.class,
-                                    "CODEC_DECODER_MALFORMED_INPUT", arguments);
-                            throw new MalformedInputException(message);
-                        }
-                        buffer.write((char) ((u << 4) + l));
-                    } catch (ArrayIndexOutOfBoundsException e) {
-                        Object[] arguments = {ESCAPE_CHAR};
-                        String message = ResourceBundle.formatResourceBundleMessage(PercentEncoded.class,
-                                "CODEC_DECODER_INCOMPLETE_ESCAPE", arguments);
-                        throw new MalformedInputException(message, e);
+                    if (i + 2 >= end) {
+                        return -(i + 1);
+                    }
+                    int u = HEX_DIGITS[src[i + 1] & 0xff];
+                    int l = HEX_DIGITS[src[i + 2] & 0xff];
+                    if ((u | l) < 0) {
+                        return -(i + 1);
                     }
+                    dst[j++] = (byte) ((u << 4) + l);
+                    i += 2;
                 } else {
-                    buffer.write(b);
+                    dst[j++] = b;
+                }
+            }
+            return j - dstOff;
+        }
+
+        @Override
+        public int validate(byte[] src, int off, int len) {
+            // only escapes may be malformed, everything else decodes as-is
+            final int end = off + len;
+            for (int i = off; i < end; i++) {
+                if (src[i] == ESCAPE_CHAR) {
+                    if (i + 2 >= end || (HEX_DIGITS[src[i + 1] & 0xff] | HEX_DIGITS[src[i + 2] & 0xff]) < 0) {
+                        return i;
+                    }
+                    i += 2;
                 }
             }
-            return buffer.toByteArray();
+            return -1;
+        }
+
+        private MalformedInputException malformed(byte[] encoded, int offset) {
+            if (offset + 2 >= encoded.length) {
+                Object[] arguments = {ESCAPE_CHAR};
+                return MalformedInputException.stackless("CODEC_DECODER_INCOMPLETE_ESCAPE", arguments, offset);
+            }
+            Object[] arguments = {"www-form-urlencoded", offset};
+            return MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT", arguments, offset);
         }
     }
 
@@ -121,29 +170,29 @@ public class URLEncoded extends Codec {
                 return null;
             }
 
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-
+            // size the result exactly, rather than growing a buffer
+            int size = bytes.length;
             for (byte bv : bytes) {
-                int b = bv;
-                if (b < 0) {
-                    b = 256 + b;
+                if (!WWW_FORM_URL.get(bv & 0xff)) {
+                    size += 2;
                 }
+            }
+            byte[] buffer = new byte[size];
+            int j = 0;
+            for (byte bv : bytes) {
+                int b = bv & 0xff;
                 if (WWW_FORM_URL.get(b)) {
                     if (b == ' ') {
                         b = '+';
                     }
-                    buffer.write(b);
+                    buffer[j++] = (byte) b;
                 } else {
-                    buffer.write('%');
-                    char hex1 = Character.toUpperCase(
-                            Character.forDigit((b >> 4) & 0xF, 16));
-                    char hex2 = Character.toUpperCase(
-                            Character.forDigit(b & 0xF, 16));
-                    buffer.write(hex1);
-                    buffer.write(hex2);
+                    buffer[j++] = '%';
+                    buffer[j++] = HEX_UPPER[(b >> 4) & 0xF];
+                    buffer[j++] = HEX_UPPER[b & 0xF];
                 }
             }
-            return buffer.toByteArray();
+            return buffer;
         }
     }
 
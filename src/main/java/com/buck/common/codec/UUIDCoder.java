@@ -31,6 +31,27 @@ public class UUIDCoder {
      */
     private final Codec codec;
 
+    /**
+     * The unpadded counterpart of the base codec, such as "base64url-nopad"
+     * for "base64url", or the base codec itself if it writes no padding or
+     * has no such counterpart.
+     */
+    private final Codec unpadded;
+
+    /**
+     * The length of an encoded UUID without padding. Codecs such as base58
+     * encode UUIDs to varying lengths, and this is then the length of the
+     * nil UUID.
+     */
+    private final int length;
+
+    /**
+     * The length of an encoded UUID as written by the unpadded codec; longer
+     * than {@link #length} only for padded codecs without an unpadded
+     * counterpart, whose padding {@link #decode(byte[])} restores.
+     */
+    private final int paddedLength;
+
     /**
      * Constructs a codec to encode UUID object.
      *
@@ -38,32 +59,109 @@ public class UUIDCoder {
      */
     public UUIDCoder(Codec codec) {
         this.codec = codec;
+        this.unpadded = unpadded(codec);
+        byte[] coded = unpadded.newEncoder().encode(new byte[16]);
+        int n = coded.length;
+        while (n > 0 && coded[n - 1] == '=') {
+            n--;
+        }
+        this.length = n;
+        this.paddedLength = coded.length;
+    }
+
+    private static Codec unpadded(Codec codec) {
+        BlockLayout layout = codec.blockLayout();
+        if (layout != null && layout.pad >= 0) {
+            String name = codec.name() + "-nopad";
+            if (Codec.isSupported(name)) {
+                return Codec.forName(name);
+            }
+        }
+        return codec;
     }
 
     /**
-     * Encodes a UUID using the specified codec.
+     * Encodes a UUID using the specified codec. Padded codecs encode through
+     * their unpadded counterparts, which size the output exactly.
      *
      * @param uuid the UUID to encode
      * @return an encoded UUID
      */
     public byte[] encode(UUID uuid) {
+        byte[] coded = encodeUnpadded(uuid);
+        if (length < paddedLength) {
+            // a padded codec without an unpadded counterpart
+            byte[] result = new byte[length];
+            System.arraycopy(coded, 0, result, 0, length);
+            return result;
+        }
+        return coded;
+    }
+
+    /**
+     * Encodes a UUID using the specified codec, returning the encoded UUID as
+     * a string.
+     *
+     * @param uuid the UUID to encode
+     * @return an encoded UUID
+     */
+    public String encodeToString(UUID uuid) {
+        byte[] coded = encodeUnpadded(uuid);
+        return CodecEncoder.latin1(coded, 0, coded.length - (paddedLength - length));
+    }
+
+    private byte[] encodeUnpadded(UUID uuid) {
         byte[] bArray = new byte[16];
         ByteBuffer bBuffer = ByteBuffer.wrap(bArray);
         LongBuffer lBuffer = bBuffer.asLongBuffer();
         lBuffer.put(0, uuid.getMostSignificantBits());
         lBuffer.put(1, uuid.getLeastSignificantBits());
-        byte[] coded = codec.newEncoder().encode(bArray);
-        int idx;
-        for (idx = 0; idx < coded.length; idx++) {
-            if (coded[idx] == '=') {
-                break;
+        return unpadded.newEncoder().encode(bArray);
+    }
+
+    /**
+     * Decodes a UUID previously encoded using the specified codec. Unpadded
+     * input is decoded by the unpadded counterpart of the codec, and padded
+     * input by the codec itself.
+     *
+     * @param encoded an encoded UUID, with or without padding
+     * @return the decoded UUID, or <tt>null</tt> if the decoder rejected the
+     *         input
+     */
+    public UUID decode(byte[] encoded) {
+        byte[] bArray;
+        if (encoded.length == length && unpadded != codec) {
+            bArray = unpadded.newDecoder().decode(encoded);
+        } else if (length < paddedLength && encoded.length < paddedLength) {
+            // a padded codec without an unpadded counterpart
+            byte[] padded = new byte[paddedLength];
+            System.arraycopy(encoded, 0, padded, 0, encoded.length);
+            for (int i = encoded.length; i < paddedLength; i++) {
+                padded[i] = '=';
             }
+            bArray = codec.newDecoder().decode(padded);
+        } else {
+            bArray = codec.newDecoder().decode(encoded);
         }
-        byte[] result = coded;
-        if (idx < coded.length) {
-            result = new byte[idx];
-            System.arraycopy(coded, 0, result, 0, idx);
+        if (bArray == null || bArray.length != 16) {
+            return null;
+        }
+        LongBuffer lBuffer = ByteBuffer.wrap(bArray).asLongBuffer();
+        return new UUID(lBuffer.get(0), lBuffer.get(1));
+    }
+
+    /**
+     * Decodes a UUID previously encoded using the specified codec, from its
+     * string form.
+     *
+     * @param encoded an encoded UUID, with or without padding
+     * @return the decoded UUID, or <tt>null</tt> if the input is malformed
+     */
+    public UUID decodeString(CharSequence encoded) {
+        byte[] bytes = new byte[encoded.length()];
+        if (CodecDecoder.latin1(encoded, bytes) >= 0) {
+            return null;
         }
-        return result;
+        return decode(bytes);
     }
 }
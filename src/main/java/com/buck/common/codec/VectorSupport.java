@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Access to the vector engine, which needs the Vector API of Java 21. On
+ * earlier runtimes no vector kernels exist; the multi-release jar replaces
+ * this class on Java 21 and later.
+ *
+ * @author Robert J. Buck
+ */
+final class VectorSupport {
+
+    private VectorSupport() {
+    }
+
+    /**
+     * Returns the platform's preferred vector width.
+     *
+     * @return the width in bits, or zero if the Vector API is unavailable
+     */
+    static int preferredBitSize() {
+        return 0;
+    }
+
+    /**
+     * Returns a vector kernel for the Base16 codec.
+     *
+     * @return the kernel, or <tt>null</tt> if the Vector API is unavailable
+     */
+    static Base16Kernel base16Kernel() {
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+/**
+ * Codec for the ZeroMQ Z85 encoding, as specified by ZeroMQ RFC 32.
+ * <p/>
+ * Z85 encodes groups of four bytes exactly as {@link Base85} does, but with an
+ * alphabet that is safe to embed in source code, XML and JSON strings. The
+ * specification only defines data whose length is a multiple of four bytes;
+ * other lengths are encoded with a trailing partial group as Base85 does, and
+ * such output is not understood by strict Z85 implementations.
+ * <p/>
+ * This implementation does not encode/decode streaming data. You need the data
+ * that you will encode/decode already on a byte array.
+ *
+ * @author Robert J. Buck
+ */
+public class Z85 extends Base85 {
+
+    /**
+     * The Z85 alphabet.
+     */
+    private static final byte[] lookUpZ85Alphabet = alphabet(
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ.-:+=^!/*?&<>()[]{}@%$#");
+
+    public Z85() {
+        super("z85", StandardCodecs.aliases_Z85, lookUpZ85Alphabet);
+    }
+}
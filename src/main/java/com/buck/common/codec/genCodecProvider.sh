@@ -10,6 +10,10 @@
 SPEC=$1; shift
 DST=$1; shift
 
+# Optional: the source directory of the Java 11 layer, where sun.util is not
+# accessible. The class written there builds the same maps as hash maps.
+DST11=$1
+
 eval `$NAWK <$SPEC '
   /^[ \t]*package / { printf "PKG=%s\n", $2; }
   /^[ \t]*class / { printf "CLASS=%s\n", $2; }
@@ -23,27 +27,38 @@ echo '-->' $OUT
 
 # Header
 #
-cat <<__END__ >$OUT
-/**
- * @(#)$CLASS.java	$ID $DATE
+cat <<__END__ >$TMPDIR/header
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
  */
 
 // -- This file was mechanically generated: Do not edit! -- //
 
 package $PKG;
 
-import com.buck.common.codec.*;
-
+__END__
 
-public class $CLASS extends FastCodecProvider
-{
+cat <<__END__ >$TMPDIR/class
+class $CLASS extends FastCodecProvider {
 
 __END__
 
 
 # Alias tables
 #
-$NAWK <$SPEC >>$OUT '
+$NAWK <$SPEC >$TMPDIR/tables '
   BEGIN { n = 1; m = 1; }
 
   /^[ \t]*codec / {
@@ -54,13 +69,13 @@ $NAWK <$SPEC >>$OUT '
     classMap[lcsn] = cln;
     if (n > 2)
       printf "    };\n\n";
-    printf "    static final String[] aliases_%s = new String[] {\n", cln;
+    printf "    static final String[] aliases_%s = new String[]{\n", cln;
   }
 
   /^[ \t]*alias / {
     acsns[m++] = tolower($2);
     aliasMap[tolower($2)] = lcsn;
-    printf "        \"%s\",\n", $2;
+    printf "            \"%s\",\n", $2;
   }
 
   END {
@@ -68,6 +83,8 @@ $NAWK <$SPEC >>$OUT '
   }
 '
 
+cat $TMPDIR/header $TMPDIR/class $TMPDIR/tables >$OUT
+
 
 # Prehashed alias and class maps
 #
@@ -97,9 +114,60 @@ $JAVA -cp $TMPDIR Hasher -i -e Cache -t Codec <$TMPDIR/classes >>$OUT
 
 # Constructor
 #
-cat <<__END__ >>$OUT
+cat <<__END__ >$TMPDIR/constructor
     public $CLASS() {
         super("$PKG", new Aliases(), new Classes(), new Cache());
     }
 }
 __END__
+
+cat $TMPDIR/constructor >>$OUT
+
+
+# Hash map variant for Java 11 and later
+#
+if [ -n "$DST11" ]; then
+
+OUT=$DST11/$CLASS.java
+echo '-->' $OUT
+
+cat $TMPDIR/header >$OUT
+cat <<__END__ >>$OUT
+import java.util.HashMap;
+
+/**
+ * The codec provider for Java 11 and later, where the pre-hashed maps are not
+ * accessible. Generated from the same table as the base class.
+ */
+__END__
+cat $TMPDIR/class $TMPDIR/tables >>$OUT
+
+hashMap() {
+  cat <<__END__ >>$OUT
+    private static final class $1
+            extends HashMap<String, $2> {
+
+        private $1() {
+            super($((`wc -l <$3` * 2)));
+__END__
+  $NAWK <$3 >>$OUT -v empty=$4 '
+    { printf "            put(%s, %s);\n", $1, empty ? "null" : $2; }
+  '
+  cat <<__END__ >>$OUT
+        }
+
+    }
+
+__END__
+}
+
+$NAWK <$TMPDIR/aliases >$TMPDIR/aliases.q '{ printf "\"%s\" %s\n", $1, $2; }'
+$NAWK <$TMPDIR/classes >$TMPDIR/classes.q '{ printf "\"%s\" %s\n", $1, $2; }'
+
+hashMap Aliases String $TMPDIR/aliases.q 0
+hashMap Classes String $TMPDIR/classes.q 0
+hashMap Cache Codec $TMPDIR/classes.q 1
+
+cat $TMPDIR/constructor >>$OUT
+
+fi
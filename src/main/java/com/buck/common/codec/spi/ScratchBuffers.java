@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec.spi;
+
+/**
+ * A per-thread pool of scratch buffers, for codecs whose output size is not
+ * known until they have done the work. A codec acquires a buffer large
+ * enough for the worst case, works in it, copies out the exactly sized
+ * result, and releases the buffer for the next call on the same thread.
+ * <p/>
+ * Buffers come in power of two size classes, and each thread keeps at most
+ * one buffer of each class, so a thread holds at most about twice the
+ * largest pooled size. Requests larger than that are simply allocated. The
+ * pool takes no locks, so it neither contends nor pins virtual threads.
+ * <p/>
+ * On Java 21 and later, requests made on a virtual thread are not pooled but
+ * allocated at the requested length. Virtual threads are typically numerous
+ * and short lived, so a pool of their own would rarely be reused, and would
+ * only add to the garbage each one leaves.
+ * <p/>
+ * The largest pooled size is set by the <tt>com.buck.codec.scratch.max</tt>
+ * system property, 65536 bytes by default; the pool is disabled by setting
+ * <tt>com.buck.codec.scratch</tt> to <tt>false</tt>, in which case every
+ * request is allocated.
+ * <p/>
+ * A released buffer must not be used again by the code that released it,
+ * and buffers must never be handed to callers, since the next acquisition on
+ * the thread returns the same array.
+ *
+ * @author Robert J. Buck
+ */
+public final class ScratchBuffers {
+
+    /**
+     * The system property that disables the pool when set to <tt>false</tt>.
+     */
+    public static final String ENABLE_PROPERTY = "com.buck.codec.scratch";
+
+    /**
+     * The system property giving the size of the largest pooled buffer.
+     */
+    public static final String MAX_SIZE_PROPERTY = "com.buck.codec.scratch.max";
+
+    private static final int MIN_SHIFT = 6;
+
+    private static final boolean enabled =
+            !"false".equalsIgnoreCase(System.getProperty(ENABLE_PROPERTY));
+
+    private static final int maxShift = shift(Integer.getInteger(MAX_SIZE_PROPERTY, 65536));
+
+    private static final ThreadLocal<byte[][]> pool = new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+            return new byte[maxShift - MIN_SHIFT + 1][];
+        }
+    };
+
+    private ScratchBuffers() {
+    }
+
+    /**
+     * Returns the shift of the smallest size class holding the given length.
+     */
+    private static int shift(int length) {
+        if (length <= 1 << MIN_SHIFT) {
+            return MIN_SHIFT;
+        }
+        return Math.min(30, 32 - Integer.numberOfLeadingZeros(length - 1));
+    }
+
+    /**
+     * Returns a buffer of at least the given length. Its contents are
+     * undefined, and it may be longer than requested.
+     *
+     * @param minLength the minimum length of the buffer
+     * @return a buffer to be returned by {@link #release(byte[])}
+     */
+    public static byte[] acquire(int minLength) {
+        int shift = shift(minLength);
+        if (!enabled || shift > maxShift || VirtualThreads.isCurrent()) {
+            return new byte[minLength];
+        }
+        byte[][] slots = pool.get();
+        byte[] buffer = slots[shift - MIN_SHIFT];
+        if (buffer == null) {
+            return new byte[1 << shift];
+        }
+        slots[shift - MIN_SHIFT] = null;
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the calling thread's pool. Buffers that are not of
+     * a pooled size, or whose size class is already pooled, are dropped.
+     *
+     * @param buffer a buffer obtained from {@link #acquire(int)}, or
+     *               <tt>null</tt>
+     */
+    public static void release(byte[] buffer) {
+        if (!enabled || buffer == null || VirtualThreads.isCurrent()) {
+            return;
+        }
+        int length = buffer.length;
+        if (length < 1 << MIN_SHIFT || (length & (length - 1)) != 0) {
+            return;
+        }
+        int shift = shift(length);
+        if (shift > maxShift) {
+            return;
+        }
+        byte[][] slots = pool.get();
+        if (slots[shift - MIN_SHIFT] == null) {
+            slots[shift - MIN_SHIFT] = buffer;
+        }
+    }
+
+    /**
+     * Tells whether a request for the given length is served from the pool,
+     * rather than allocated. Callers may hand out buffers that are not
+     * pooled, as long as they do not release them.
+     *
+     * @param minLength the minimum length of the buffer
+     * @return <tt>true</tt> if the request is pooled
+     */
+    public static boolean isPooled(int minLength) {
+        return enabled && shift(minLength) <= maxShift && !VirtualThreads.isCurrent();
+    }
+
+    /**
+     * Tells whether the pool is enabled.
+     *
+     * @return <tt>false</tt> if every request is allocated
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Big endian loads and stores of several bytes, for Java 11 and later, each
+ * a single memory access through a byte array view.
+ *
+ * @author Robert J. Buck
+ */
+final class BigEndian {
+
+    private static final VarHandle SHORT =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final VarHandle INT =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final VarHandle LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private BigEndian() {
+    }
+
+    static long getLong(byte[] b, int off) {
+        return (long) LONG.get(b, off);
+    }
+
+    static int getInt(byte[] b, int off) {
+        return (int) INT.get(b, off);
+    }
+
+    static void putLong(byte[] b, int off, long value) {
+        LONG.set(b, off, value);
+    }
+
+    static void putInt(byte[] b, int off, int value) {
+        INT.set(b, off, value);
+    }
+
+    static void putShort(byte[] b, int off, short value) {
+        SHORT.set(b, off, value);
+    }
+}
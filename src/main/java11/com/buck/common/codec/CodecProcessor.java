@@ -0,0 +1,497 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A reactive stream stage that encodes or decodes a stream of byte buffers
+ * using a codec, such as an HTTP body arriving in chunks.
+ * <p/>
+ * The codec's state is kept across chunks, so encoded groups may be split
+ * anywhere between them. Codecs that split into independent blocks are
+ * processed a buffer of whole blocks at a time, so memory use does not depend
+ * on the amount of data: each output buffer is made only when the subscriber
+ * has demand for it, and only one input chunk is requested at a time. Codecs
+ * that need all of their input at once, such as base58, collect the stream
+ * and emit a single buffer when it completes.
+ * <p/>
+ * Output buffers are heap buffers taken from a small pool. A subscriber that
+ * is done with a buffer may hand it back with {@link #release(ByteBuffer)};
+ * buffers that are not released are left to the garbage collector. Input
+ * buffers are read, not retained, once they are consumed.
+ * <p/>
+ * Malformed input is reported to the subscriber by a {@link
+ * MalformedInputException} whose error offset is the position in the stream,
+ * and cancels the upstream subscription. The processor serves a single
+ * subscriber.
+ * <p/>
+ * This class is part of the Java 11 layer of the multi-release jar.
+ *
+ * @author Robert J. Buck
+ */
+public final class CodecProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    /**
+     * The number of released output buffers kept for reuse.
+     */
+    static final int POOL_SIZE = 8;
+
+    private final Coder coder;
+    private final Queue<ByteBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final AtomicReference<Flow.Subscriber<? super ByteBuffer>> downstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final Queue<ByteBuffer> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean upstreamDone;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+
+    // touched only while draining
+    private ByteBuffer current;
+    private ByteBuffer pending;
+    private boolean requested;
+    private boolean finished;
+    private boolean done;
+
+    private CodecProcessor(Coder coder) {
+        this.coder = coder;
+    }
+
+    /**
+     * Returns a processor that encodes a stream using a codec.
+     *
+     * @param codec the codec
+     * @return the processor
+     */
+    public static CodecProcessor encoding(Codec codec) {
+        BlockLayout layout = codec.blockLayout();
+        CodecEncoder encoder = codec.newEncoder();
+        return new CodecProcessor(layout != null ? new BlockEncoder(encoder, layout) : new WholeEncoder(encoder));
+    }
+
+    /**
+     * Returns a processor that decodes a stream using a codec.
+     *
+     * @param codec the codec
+     * @return the processor
+     */
+    public static CodecProcessor decoding(Codec codec) {
+        BlockLayout layout = codec.blockLayout();
+        CodecDecoder decoder = codec.newDecoder();
+        return new CodecProcessor(layout != null ? new BlockDecoder(decoder, layout) : new WholeDecoder(decoder));
+    }
+
+    /**
+     * Hands an output buffer back for reuse. The subscriber must not touch
+     * the buffer afterwards, nor release it twice. Buffers that did not come
+     * from the pool are ignored.
+     *
+     * @param buffer an output buffer of this processor
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == coder.capacity && buffer.hasArray() && !buffer.isReadOnly()) {
+            pool.offer(buffer);
+        }
+    }
+
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(coder.capacity);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    // Flow.Subscriber, facing upstream
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        if (cancelled) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        inputs.offer(Objects.requireNonNull(item));
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = Objects.requireNonNull(throwable);
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    // Flow.Publisher, facing downstream
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The processor serves a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {
+                if (n <= 0) {
+                    failure = new IllegalArgumentException("Non-positive request: " + n);
+                } else {
+                    long r;
+                    do {
+                        r = demand.get();
+                    } while (r != Long.MAX_VALUE && !demand.compareAndSet(r, r + n < 0 ? Long.MAX_VALUE : r + n));
+                }
+                drain();
+            }
+
+            public void cancel() {
+                cancelled = true;
+                Flow.Subscription s = upstream.get();
+                if (s != null) {
+                    s.cancel();
+                }
+            }
+        });
+        drain();
+    }
+
+    /**
+     * Runs the processor on one thread at a time, whichever signalled last.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            step();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void step() {
+        Flow.Subscriber<? super ByteBuffer> subscriber = downstream.get();
+        Flow.Subscription subscription = upstream.get();
+        if (done || subscriber == null || subscription == null) {
+            return;
+        }
+        while (!cancelled) {
+            Throwable t = failure;
+            if (t != null) {
+                fail(subscriber, subscription, t);
+                return;
+            }
+            if (pending == null) {
+                if (current == null || !current.hasRemaining()) {
+                    current = inputs.poll();
+                    if (current != null) {
+                        requested = false;
+                    }
+                }
+                try {
+                    if (current != null) {
+                        pending = coder.process(current, this);
+                        continue;
+                    }
+                    if (!upstreamDone) {
+                        if (!requested) {
+                            requested = true;
+                            subscription.request(1);
+                        }
+                        return;
+                    }
+                    if (!finished) {
+                        finished = true;
+                        pending = coder.finish(this);
+                    }
+                } catch (MalformedInputException e) {
+                    fail(subscriber, subscription, e);
+                    return;
+                }
+                if (pending == null) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+            }
+            long r = demand.get();
+            if (r == 0) {
+                return;
+            }
+            if (r != Long.MAX_VALUE) {
+                demand.decrementAndGet();
+            }
+            ByteBuffer out = pending;
+            pending = null;
+            subscriber.onNext(out);
+        }
+    }
+
+    private void fail(Flow.Subscriber<? super ByteBuffer> subscriber, Flow.Subscription subscription, Throwable t) {
+        done = true;
+        if (!upstreamDone) {
+            subscription.cancel();
+        }
+        subscriber.onError(t);
+    }
+
+    /**
+     * The codec's state across chunks.
+     */
+    private abstract static class Coder {
+
+        /**
+         * The capacity of the pooled output buffers.
+         */
+        final int capacity;
+
+        Coder(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Consumes input until an output buffer is ready or the input is
+         * exhausted.
+         *
+         * @return the output buffer, or <tt>null</tt> if none is ready
+         */
+        abstract ByteBuffer process(ByteBuffer in, CodecProcessor processor);
+
+        /**
+         * Processes what is left at the end of the stream.
+         *
+         * @return the last output buffer, or <tt>null</tt> if there is none
+         */
+        abstract ByteBuffer finish(CodecProcessor processor);
+    }
+
+    private static final class BlockEncoder extends Coder {
+        private final CodecEncoder encoder;
+        private final byte[] separator;
+        private final byte[] buffer;
+        private int count;
+        private boolean started;
+
+        BlockEncoder(CodecEncoder encoder, BlockLayout layout) {
+            this(encoder, layout, Math.max(1, CodecOutputStream.BUFFER_SIZE / layout.rawSize) * layout.rawSize);
+        }
+
+        private BlockEncoder(CodecEncoder encoder, BlockLayout layout, int size) {
+            super(encoder.maxEncodedLength(size) + (layout.separator == null ? 0 : layout.separator.length));
+            this.encoder = encoder;
+            this.separator = layout.separator;
+            this.buffer = new byte[size];
+        }
+
+        @Override
+        ByteBuffer process(ByteBuffer in, CodecProcessor processor) {
+            int n = Math.min(in.remaining(), buffer.length - count);
+            in.get(buffer, count, n);
+            count += n;
+            if (count < buffer.length) {
+                return null;
+            }
+            count = 0;
+            return encodeBlocks(buffer.length, processor);
+        }
+
+        @Override
+        ByteBuffer finish(CodecProcessor processor) {
+            return count > 0 ? encodeBlocks(count, processor) : null;
+        }
+
+        private ByteBuffer encodeBlocks(int len, CodecProcessor processor) {
+            ByteBuffer out = processor.acquire();
+            byte[] dst = out.array();
+            int pos = 0;
+            if (started && separator != null) {
+                System.arraycopy(separator, 0, dst, 0, separator.length);
+                pos = separator.length;
+            }
+            started = true;
+            out.limit(pos + encoder.encode(buffer, 0, len, dst, pos));
+            return out;
+        }
+    }
+
+    private static final class BlockDecoder extends Coder {
+        private final CodecDecoder decoder;
+        private final BlockLayout layout;
+        private final byte[] input;
+        private int inputCount;
+        private long consumed;
+        private boolean padded;
+
+        BlockDecoder(CodecDecoder decoder, BlockLayout layout) {
+            this(decoder, layout, Math.max(1, CodecOutputStream.BUFFER_SIZE / layout.encodedSize) * layout.encodedSize);
+        }
+
+        private BlockDecoder(CodecDecoder decoder, BlockLayout layout, int size) {
+            super(decoder.maxDecodedLength(size));
+            this.decoder = decoder;
+            this.layout = layout;
+            this.input = new byte[size];
+        }
+
+        @Override
+        ByteBuffer process(ByteBuffer in, CodecProcessor processor) {
+            int n = Math.min(in.remaining(), input.length - inputCount);
+            in.get(input, inputCount, n);
+            inputCount += n;
+            if (inputCount < input.length) {
+                return null;
+            }
+            int cut = layout.wholeBlocks(input, 0, inputCount);
+            if (cut == 0) {
+                // a single group interrupted by more skipped characters than
+                // the buffer holds; let the decoder report it
+                cut = inputCount;
+            }
+            return decodeBlocks(cut, processor);
+        }
+
+        @Override
+        ByteBuffer finish(CodecProcessor processor) {
+            return inputCount > 0 ? decodeBlocks(inputCount, processor) : null;
+        }
+
+        private ByteBuffer decodeBlocks(int cut, CodecProcessor processor) {
+            if (padded) {
+                // padding ends the data; only skipped characters may follow
+                for (int i = 0; i < cut; i++) {
+                    if (!layout.isIgnorable(input[i])) {
+                        throw malformed(decoder, consumed + i);
+                    }
+                }
+            }
+            ByteBuffer out = processor.acquire();
+            int n = decoder.decode(input, 0, cut, out.array(), 0);
+            if (n < 0) {
+                processor.release(out);
+                throw malformed(decoder, consumed - n - 1);
+            }
+            padded |= layout.endsWithPad(input, 0, cut);
+            consumed += cut;
+            inputCount -= cut;
+            System.arraycopy(input, cut, input, 0, inputCount);
+            if (n == 0) {
+                processor.release(out);
+                return null;
+            }
+            out.limit(n);
+            return out;
+        }
+    }
+
+    private static final class WholeEncoder extends Coder {
+        private final CodecEncoder encoder;
+        private final ByteArrayOutputStream whole = new ByteArrayOutputStream();
+
+        WholeEncoder(CodecEncoder encoder) {
+            super(0);
+            this.encoder = encoder;
+        }
+
+        @Override
+        ByteBuffer process(ByteBuffer in, CodecProcessor processor) {
+            collect(in, whole);
+            return null;
+        }
+
+        @Override
+        ByteBuffer finish(CodecProcessor processor) {
+            byte[] encoded = encoder.encode(whole.toByteArray());
+            return encoded.length > 0 ? ByteBuffer.wrap(encoded) : null;
+        }
+    }
+
+    private static final class WholeDecoder extends Coder {
+        private final CodecDecoder decoder;
+        private final ByteArrayOutputStream whole = new ByteArrayOutputStream();
+
+        WholeDecoder(CodecDecoder decoder) {
+            super(0);
+            this.decoder = decoder;
+        }
+
+        @Override
+        ByteBuffer process(ByteBuffer in, CodecProcessor processor) {
+            collect(in, whole);
+            return null;
+        }
+
+        @Override
+        ByteBuffer finish(CodecProcessor processor) {
+            byte[] src = whole.toByteArray();
+            DecodeResult result = decoder.tryDecode(src, 0, src.length);
+            if (result.isMalformed()) {
+                throw malformed(decoder, result.errorOffset());
+            }
+            return result.length() > 0 ? ByteBuffer.wrap(result.buffer(), 0, result.length()) : null;
+        }
+    }
+
+    private static void collect(ByteBuffer in, ByteArrayOutputStream whole) {
+        if (in.hasArray()) {
+            whole.write(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+        } else {
+            byte[] chunk = new byte[in.remaining()];
+            in.get(chunk);
+            whole.write(chunk, 0, chunk.length);
+        }
+    }
+
+    private static MalformedInputException malformed(CodecDecoder decoder, long offset) {
+        int i = (int) Math.min(offset, Integer.MAX_VALUE);
+        return MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT",
+                new Object[]{decoder.codec().name(), offset}, i);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records codec events with the JDK Flight Recorder. This class is only
+ * loaded once {@link CodecEvents} has found the flight recorder.
+ * <p/>
+ * Lookup and provider events are always recorded when enabled in the
+ * recording settings. Encode and decode events are recorded only when they
+ * are slow or large, being when they take at least the duration given by the
+ * system property <tt>com.buck.codec.events.threshold</tt> (microseconds,
+ * default 20), or when their input is at least the size given by
+ * <tt>com.buck.codec.events.size</tt> (bytes, default 65536).
+ *
+ * @author Robert J. Buck
+ */
+class FlightRecorderCodecEvents extends CodecEvents {
+
+    private static final long thresholdNanos = Long.getLong(THRESHOLD_PROPERTY, 20L) * 1000L;
+    private static final long largeSize = Long.getLong(SIZE_PROPERTY, 65536L);
+
+    @Name("codec.Encode")
+    @Label("Codec Encode")
+    @Category("Codecs")
+    @Description("Encoding that was slow or had a large input")
+    @StackTrace(false)
+    static class EncodeEvent extends Event {
+        @Label("Codec")
+        String codec;
+
+        @Label("Input Size")
+        @DataAmount
+        long inputSize;
+
+        @Label("Output Size")
+        @DataAmount
+        long outputSize;
+
+        transient long start;
+    }
+
+    @Name("codec.Decode")
+    @Label("Codec Decode")
+    @Category("Codecs")
+    @Description("Decoding that was slow or had a large input")
+    @StackTrace(false)
+    static class DecodeEvent extends Event {
+        @Label("Codec")
+        String codec;
+
+        @Label("Input Size")
+        @DataAmount
+        long inputSize;
+
+        @Label("Output Size")
+        @DataAmount
+        long outputSize;
+
+        @Label("Malformed")
+        boolean malformed;
+
+        transient long start;
+    }
+
+    @Name("codec.Lookup")
+    @Label("Codec Lookup")
+    @Category("Codecs")
+    @Description("Lookup of a codec by name")
+    static class LookupEvent extends Event {
+        @Label("Codec")
+        String codec;
+
+        @Label("Found")
+        boolean found;
+    }
+
+    @Name("codec.ProviderLoad")
+    @Label("Codec Provider Load")
+    @Category("Codecs")
+    @Description("Lookup of a codec through a service loaded codec provider")
+    static class ProviderLoadEvent extends Event {
+        @Label("Provider")
+        String provider;
+
+        @Label("Codec")
+        String codec;
+
+        @Label("Found")
+        boolean found;
+    }
+
+    private static boolean isSlowOrLarge(long start, long inputSize) {
+        return inputSize >= largeSize || System.nanoTime() - start >= thresholdNanos;
+    }
+
+    boolean isAvailable() {
+        return true;
+    }
+
+    Object beginEncode() {
+        EncodeEvent event = new EncodeEvent();
+        event.start = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    void endEncode(Object token, String codecName, long inputSize, long outputSize) {
+        EncodeEvent event = (EncodeEvent) token;
+        event.end();
+        if (event.shouldCommit() && isSlowOrLarge(event.start, inputSize)) {
+            event.codec = codecName;
+            event.inputSize = inputSize;
+            event.outputSize = outputSize;
+            event.commit();
+        }
+    }
+
+    Object beginDecode() {
+        DecodeEvent event = new DecodeEvent();
+        event.start = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    void endDecode(Object token, String codecName, long inputSize, long outputSize, boolean malformed) {
+        DecodeEvent event = (DecodeEvent) token;
+        event.end();
+        if (event.shouldCommit() && isSlowOrLarge(event.start, inputSize)) {
+            event.codec = codecName;
+            event.inputSize = inputSize;
+            event.outputSize = outputSize;
+            event.malformed = malformed;
+            event.commit();
+        }
+    }
+
+    Object beginLookup() {
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        return event;
+    }
+
+    void endLookup(Object token, String codecName, boolean found) {
+        LookupEvent event = (LookupEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.codec = codecName;
+            event.found = found;
+            event.commit();
+        }
+    }
+
+    Object beginProviderLoad() {
+        ProviderLoadEvent event = new ProviderLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    void endProviderLoad(Object token, String providerName, String codecName, boolean found) {
+        ProviderLoadEvent event = (ProviderLoadEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.provider = providerName;
+            event.codec = codecName;
+            event.found = found;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// -- This file was mechanically generated: Do not edit! -- //
+
+package com.buck.common.codec;
+
+import java.util.HashMap;
+
+/**
+ * The codec provider for Java 11 and later, where the pre-hashed maps are not
+ * accessible. Generated from the same table as the base class.
+ */
+class StandardCodecs extends FastCodecProvider {
+
+    static final String[] aliases_Base16 = new String[]{
+            "hex",
+            "hexBinary",
+    };
+
+    static final String[] aliases_Base32 = new String[]{
+    };
+
+    static final String[] aliases_Base32NoPad = new String[]{
+    };
+
+    static final String[] aliases_Base32Hex = new String[]{
+    };
+
+    static final String[] aliases_Base32HexNoPad = new String[]{
+    };
+
+    static final String[] aliases_Base32Crockford = new String[]{
+            "crockford32",
+            "crockford-base32",
+    };
+
+    static final String[] aliases_Base32CrockfordCheck = new String[]{
+            "crockford32-check",
+    };
+
+    static final String[] aliases_Base64 = new String[]{
+            "base64Binary",
+    };
+
+    static final String[] aliases_Base64NoPad = new String[]{
+    };
+
+    static final String[] aliases_Base64Mime = new String[]{
+            "mime-base64",
+    };
+
+    static final String[] aliases_Base64URL = new String[]{
+            "base64URLSafe",
+    };
+
+    static final String[] aliases_Base64URLNoPad = new String[]{
+            "base64URLSafe-nopad",
+    };
+
+    static final String[] aliases_QuotedPrintable = new String[]{
+    };
+
+    static final String[] aliases_PercentEncoded = new String[]{
+            "percent-encoded",
+    };
+
+    static final String[] aliases_PercentEncodedPath = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedPathSegment = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedQuery = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedQueryParam = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedFragment = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedUserInfo = new String[]{
+    };
+
+    static final String[] aliases_PercentEncodedHost = new String[]{
+    };
+
+    static final String[] aliases_URLEncoded = new String[]{
+            "www-form-urlencoded",
+    };
+
+    static final String[] aliases_Ascii85 = new String[]{
+    };
+
+    static final String[] aliases_Base85 = new String[]{
+            "rfc1924",
+    };
+
+    static final String[] aliases_Z85 = new String[]{
+    };
+
+    static final String[] aliases_Base58 = new String[]{
+            "base58btc",
+            "base58-bitcoin",
+    };
+
+    static final String[] aliases_Base58Flickr = new String[]{
+            "base58flickr",
+    };
+
+    static final String[] aliases_Base58Check = new String[]{
+    };
+
+    private static final class Aliases
+            extends HashMap<String, String> {
+
+        private Aliases() {
+            super(30);
+            put("hex", "base16");
+            put("hexbinary", "base16");
+            put("crockford32", "base32-crockford");
+            put("crockford-base32", "base32-crockford");
+            put("crockford32-check", "base32-crockford-check");
+            put("base64binary", "base64");
+            put("mime-base64", "base64-mime");
+            put("base64urlsafe", "base64url");
+            put("base64urlsafe-nopad", "base64url-nopad");
+            put("percent-encoded", "pct-encoded");
+            put("www-form-urlencoded", "x-www-form-urlencoded");
+            put("rfc1924", "base85");
+            put("base58btc", "base58");
+            put("base58-bitcoin", "base58");
+            put("base58flickr", "base58-flickr");
+        }
+
+    }
+
+    private static final class Classes
+            extends HashMap<String, String> {
+
+        private Classes() {
+            super(56);
+            put("base16", "Base16");
+            put("base32", "Base32");
+            put("base32-nopad", "Base32NoPad");
+            put("base32hex", "Base32Hex");
+            put("base32hex-nopad", "Base32HexNoPad");
+            put("base32-crockford", "Base32Crockford");
+            put("base32-crockford-check", "Base32CrockfordCheck");
+            put("base64", "Base64");
+            put("base64-nopad", "Base64NoPad");
+            put("base64-mime", "Base64Mime");
+            put("base64url", "Base64URL");
+            put("base64url-nopad", "Base64URLNoPad");
+            put("quoted-printable", "QuotedPrintable");
+            put("pct-encoded", "PercentEncoded");
+            put("pct-encoded:path", "PercentEncodedPath");
+            put("pct-encoded:path-segment", "PercentEncodedPathSegment");
+            put("pct-encoded:query", "PercentEncodedQuery");
+            put("pct-encoded:query-param", "PercentEncodedQueryParam");
+            put("pct-encoded:fragment", "PercentEncodedFragment");
+            put("pct-encoded:userinfo", "PercentEncodedUserInfo");
+            put("pct-encoded:host", "PercentEncodedHost");
+            put("x-www-form-urlencoded", "URLEncoded");
+            put("ascii85", "Ascii85");
+            put("base85", "Base85");
+            put("z85", "Z85");
+            put("base58", "Base58");
+            put("base58-flickr", "Base58Flickr");
+            put("base58check", "Base58Check");
+        }
+
+    }
+
+    private static final class Cache
+            extends HashMap<String, Codec> {
+
+        private Cache() {
+            super(56);
+            put("base16", null);
+            put("base32", null);
+            put("base32-nopad", null);
+            put("base32hex", null);
+            put("base32hex-nopad", null);
+            put("base32-crockford", null);
+            put("base32-crockford-check", null);
+            put("base64", null);
+            put("base64-nopad", null);
+            put("base64-mime", null);
+            put("base64url", null);
+            put("base64url-nopad", null);
+            put("quoted-printable", null);
+            put("pct-encoded", null);
+            put("pct-encoded:path", null);
+            put("pct-encoded:path-segment", null);
+            put("pct-encoded:query", null);
+            put("pct-encoded:query-param", null);
+            put("pct-encoded:fragment", null);
+            put("pct-encoded:userinfo", null);
+            put("pct-encoded:host", null);
+            put("x-www-form-urlencoded", null);
+            put("ascii85", null);
+            put("base85", null);
+            put("z85", null);
+            put("base58", null);
+            put("base58-flickr", null);
+            put("base58check", null);
+        }
+
+    }
+
+    public StandardCodecs() {
+        super("com.buck.common.codec", new Aliases(), new Classes(), new Cache());
+    }
+}
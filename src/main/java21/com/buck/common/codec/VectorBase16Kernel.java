@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteOrder;
+
+/**
+ * The vector Base16 kernel, at the platform's preferred vector width.
+ * Characters are computed from nibbles and nibbles from characters by lane
+ * wise arithmetic and comparisons, and pairs of characters are joined to and
+ * split from bytes through short lanes.
+ *
+ * @author Robert J. Buck
+ */
+final class VectorBase16Kernel extends Base16Kernel {
+
+    /**
+     * The narrowest vectors supported; the bytes are half as wide.
+     */
+    static final int MIN_BITS = 128;
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * Species for the characters, and for the bytes they encode.
+     */
+    private final VectorSpecies<Byte> chars;
+    private final VectorSpecies<Byte> bytes;
+    private final VectorSpecies<Short> pairs;
+
+    VectorBase16Kernel(int bitSize) {
+        this.chars = VectorSpecies.of(byte.class, VectorShape.forBitSize(bitSize));
+        this.bytes = VectorSpecies.of(byte.class, VectorShape.forBitSize(bitSize / 2));
+        this.pairs = VectorSpecies.of(short.class, VectorShape.forBitSize(bitSize));
+    }
+
+    @Override
+    CodecEngine engine() {
+        return CodecEngine.VECTOR;
+    }
+
+    @Override
+    void encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        final int end = off + len;
+        final int step = bytes.length();
+        int baIdx = off;
+        for (; baIdx + step <= end; baIdx += step, dstOff += step * 2) {
+            ByteVector v = ByteVector.fromArray(bytes, src, baIdx);
+            ShortVector hi = (ShortVector) hex(v.lanewise(VectorOperators.LSHR, 4))
+                    .convertShape(VectorOperators.B2S, pairs, 0);
+            ShortVector lo = (ShortVector) hex(v.and((byte) 0x0F))
+                    .convertShape(VectorOperators.B2S, pairs, 0);
+            // the high nibble's character comes first in memory
+            ShortVector joined = LITTLE_ENDIAN
+                    ? lo.lanewise(VectorOperators.LSHL, 8).or(hi)
+                    : hi.lanewise(VectorOperators.LSHL, 8).or(lo);
+            joined.reinterpretAsBytes().intoArray(dst, dstOff);
+        }
+        ScalarBase16Kernel.encodeBytes(src, baIdx, end, dst, dstOff);
+    }
+
+    @Override
+    int decode(byte[] src, int off, int end, byte[] dst, int dstOff) {
+        final int step = chars.length();
+        int caIdx = off;
+        for (; caIdx + step <= end; caIdx += step, dstOff += step / 2) {
+            ByteVector c = ByteVector.fromArray(chars, src, caIdx);
+            // characters from 0x80 up are negative lanes, and match neither
+            VectorMask<Byte> digits = c.compare(VectorOperators.GE, (byte) '0')
+                    .and(c.compare(VectorOperators.LE, (byte) '9'));
+            ByteVector lower = c.or((byte) 0x20);
+            VectorMask<Byte> letters = lower.compare(VectorOperators.GE, (byte) 'a')
+                    .and(lower.compare(VectorOperators.LE, (byte) 'f'));
+            if (!digits.or(letters).allTrue()) {
+                break;
+            }
+            ShortVector nibbles = c.and((byte) 0x0F).add((byte) 9, letters).reinterpretAsShorts();
+            // the first character of each pair holds the high nibble
+            ShortVector joined = LITTLE_ENDIAN
+                    ? nibbles.lanewise(VectorOperators.LSHL, 4).or(nibbles.lanewise(VectorOperators.LSHR, 8))
+                    : nibbles.lanewise(VectorOperators.LSHR, 4).or(nibbles);
+            ((ByteVector) joined.convertShape(VectorOperators.S2B, bytes, 0)).intoArray(dst, dstOff);
+        }
+        return caIdx - off + ScalarBase16Kernel.decodePairs(src, caIdx, end, dst, dstOff);
+    }
+
+    /**
+     * Maps each lane, a nibble, to its character in the RFC 4648 alphabet.
+     */
+    private static ByteVector hex(ByteVector nibbles) {
+        return nibbles.add((byte) '0').add((byte) 7, nibbles.compare(VectorOperators.GT, (byte) 9));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import jdk.incubator.vector.ByteVector;
+
+/**
+ * Access to the vector engine, for Java 21 and later. The Vector API is
+ * incubating, so it is only available when the <tt>jdk.incubator.vector</tt>
+ * module is added to the runtime, with <tt>--add-modules</tt>.
+ *
+ * @author Robert J. Buck
+ */
+final class VectorSupport {
+
+    private static final int preferredBitSize = probe();
+
+    private VectorSupport() {
+    }
+
+    private static int probe() {
+        try {
+            return ByteVector.SPECIES_PREFERRED.vectorBitSize();
+        } catch (LinkageError e) {
+            // the incubator module is not in the boot layer
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the platform's preferred vector width.
+     *
+     * @return the width in bits, or zero if the Vector API is unavailable
+     */
+    static int preferredBitSize() {
+        return preferredBitSize;
+    }
+
+    /**
+     * Returns a vector kernel for the Base16 codec.
+     *
+     * @return the kernel, or <tt>null</tt> if the Vector API is unavailable
+     */
+    static Base16Kernel base16Kernel() {
+        return preferredBitSize >= VectorBase16Kernel.MIN_BITS ? new VectorBase16Kernel(preferredBitSize) : null;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec.spi;
+
+/**
+ * Tells virtual threads apart, for Java 21 and later.
+ *
+ * @author Robert J. Buck
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Tells whether the calling thread is a virtual thread.
+     *
+     * @return <tt>true</tt> if, and only if, the calling thread is virtual
+     */
+    static boolean isCurrent() {
+        return Thread.currentThread().isVirtual();
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import com.buck.common.codec.spi.ScratchBuffers;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes data held in memory segments, such as off-heap arenas,
+ * including segments larger than 2 GB.
+ * <p/>
+ * The base64 codecs without line breaks run their block loops directly over
+ * the segments, reading and writing <tt>long</tt>s; six bytes become eight
+ * characters per step. Other codecs that split into independent blocks are
+ * streamed a buffer of whole blocks at a time through a pooled scratch
+ * buffer, so no allocation depends on the size of the data. Codecs that
+ * need all of their input at once, such as base58, are limited to segments
+ * that fit in a byte array.
+ * <p/>
+ * This class is part of the Java 22 layer of the multi-release jar.
+ *
+ * @author Robert J. Buck
+ */
+public final class SegmentCodecs {
+
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfShort SHORT =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private SegmentCodecs() {
+    }
+
+    private static int chunkSize(int blockSize) {
+        return Math.max(1, CodecOutputStream.BUFFER_SIZE / blockSize) * blockSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes that encoding the given number of
+     * bytes may produce.
+     *
+     * @param codec the codec
+     * @param len   the number of bytes to encode
+     * @return the maximum encoded length
+     */
+    public static long maxEncodedLength(Codec codec, long len) {
+        CodecEncoder encoder = codec.newEncoder();
+        BlockLayout layout = codec.blockLayout();
+        if (layout == null) {
+            return encoder.maxEncodedLength(checkedLength(len));
+        }
+        int chunk = chunkSize(layout.rawSize);
+        long chunks = len / chunk;
+        int rem = (int) (len % chunk);
+        long pieces = chunks + (rem > 0 ? 1 : 0);
+        int separator = layout.separator == null ? 0 : layout.separator.length;
+        return chunks * encoder.maxEncodedLength(chunk) + (rem > 0 ? encoder.maxEncodedLength(rem) : 0)
+                + Math.max(0, pieces - 1) * separator;
+    }
+
+    /**
+     * Returns the maximum number of bytes that decoding the given number of
+     * encoded bytes may produce.
+     *
+     * @param codec the codec
+     * @param len   the number of encoded bytes
+     * @return the maximum decoded length
+     */
+    public static long maxDecodedLength(Codec codec, long len) {
+        CodecDecoder decoder = codec.newDecoder();
+        BlockLayout layout = codec.blockLayout();
+        if (layout == null) {
+            return decoder.maxDecodedLength(checkedLength(len));
+        }
+        int chunk = chunkSize(layout.encodedSize);
+        return len / chunk * decoder.maxDecodedLength(chunk) + decoder.maxDecodedLength((int) (len % chunk));
+    }
+
+    /**
+     * Encodes the contents of a segment into another. The destination must
+     * have room for {@link #maxEncodedLength(Codec, long)} bytes.
+     *
+     * @param codec the codec
+     * @param src   the data to encode
+     * @param dst   the segment to write the encoded data to, from its start
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if the codec needs all of its input at
+     *                                  once and the data does not fit in a
+     *                                  byte array
+     */
+    public static long encode(Codec codec, MemorySegment src, MemorySegment dst) {
+        CodecEncoder encoder = codec.newEncoder();
+        BlockLayout layout = codec.blockLayout();
+        if (layout == null) {
+            checkedLength(src.byteSize());
+            byte[] encoded = encoder.encode(src.toArray(ValueLayout.JAVA_BYTE));
+            MemorySegment.copy(encoded, 0, dst, ValueLayout.JAVA_BYTE, 0, encoded.length);
+            return encoded.length;
+        }
+        long off = 0;
+        long written = 0;
+        if (codec instanceof Base64 && ((Base64) codec).lineLength == 0) {
+            final byte[] table = ((Base64) codec).encodeTable;
+            final long end = src.byteSize() - Long.BYTES;
+            // six bytes at a time, reading eight so as to read whole longs
+            for (; off <= end; off += 6, written += 8) {
+                long bits = src.get(LONG, off);
+                long chars = 0;
+                for (int shift = 58; shift >= 16; shift -= 6) {
+                    chars = chars << 8 | (table[(int) (bits >>> shift) & 0x3f] & 0xff);
+                }
+                dst.set(LONG, written, chars);
+            }
+        }
+        int chunk = chunkSize(layout.rawSize);
+        byte[] raw = ScratchBuffers.acquire(chunk);
+        byte[] encoded = ScratchBuffers.acquire(encoder.maxEncodedLength(chunk));
+        try {
+            boolean first = written == 0;
+            while (off < src.byteSize()) {
+                int n = (int) Math.min(chunk, src.byteSize() - off);
+                MemorySegment.copy(src, ValueLayout.JAVA_BYTE, off, raw, 0, n);
+                if (!first && layout.separator != null) {
+                    MemorySegment.copy(layout.separator, 0, dst, ValueLayout.JAVA_BYTE, written,
+                            layout.separator.length);
+                    written += layout.separator.length;
+                }
+                int e = encoder.encode(raw, 0, n, encoded, 0);
+                MemorySegment.copy(encoded, 0, dst, ValueLayout.JAVA_BYTE, written, e);
+                written += e;
+                off += n;
+                first = false;
+            }
+        } finally {
+            ScratchBuffers.release(encoded);
+            ScratchBuffers.release(raw);
+        }
+        return written;
+    }
+
+    /**
+     * Decodes the contents of a segment into another, without throwing on
+     * malformed input. The destination must have room for {@link
+     * #maxDecodedLength(Codec, long)} bytes.
+     *
+     * @param codec the codec
+     * @param src   the encoded data
+     * @param dst   the segment to write the decoded data to, from its start
+     * @return the number of bytes written, or if the input is malformed,
+     *         <tt>-(i + 1)</tt> where <tt>i</tt> is the offset in <tt>src</tt>
+     *         of the first malformed byte
+     * @throws IllegalArgumentException if the codec needs all of its input at
+     *                                  once and the data does not fit in a
+     *                                  byte array
+     */
+    public static long decode(Codec codec, MemorySegment src, MemorySegment dst) {
+        CodecDecoder decoder = codec.newDecoder();
+        BlockLayout layout = codec.blockLayout();
+        if (layout == null) {
+            checkedLength(src.byteSize());
+            byte[] encoded = src.toArray(ValueLayout.JAVA_BYTE);
+            DecodeResult result = decoder.tryDecode(encoded, 0, encoded.length);
+            if (result.isMalformed()) {
+                return -(result.errorOffset() + 1);
+            }
+            MemorySegment.copy(result.buffer(), 0, dst, ValueLayout.JAVA_BYTE, 0, result.length());
+            return result.length();
+        }
+        long off = 0;
+        long written = 0;
+        if (codec instanceof Base64 && ((Base64) codec).lineLength == 0) {
+            final byte[] table = ((Base64) codec).decodeTable;
+            final long end = src.byteSize() - Long.BYTES;
+            // eight characters at a time, until padding, white space or
+            // anything else the block loop below must look at
+            fast:
+            for (; off <= end; off += 8, written += 6) {
+                long chars = src.get(LONG, off);
+                long bits = 0;
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    int d = table[(int) (chars >>> shift) & 0xff];
+                    if (d < 0) {
+                        break fast;
+                    }
+                    bits = bits << 6 | d;
+                }
+                // six bytes, without touching the destination beyond them
+                dst.set(INT, written, (int) (bits >>> 16));
+                dst.set(SHORT, written + 4, (short) bits);
+            }
+        }
+        int chunk = chunkSize(layout.encodedSize);
+        byte[] input = ScratchBuffers.acquire(chunk);
+        byte[] output = ScratchBuffers.acquire(decoder.maxDecodedLength(chunk));
+        try {
+            boolean padded = false;
+            while (off < src.byteSize()) {
+                int len = (int) Math.min(chunk, src.byteSize() - off);
+                MemorySegment.copy(src, ValueLayout.JAVA_BYTE, off, input, 0, len);
+                int cut = off + len == src.byteSize() ? len : layout.wholeBlocks(input, 0, len);
+                if (cut == 0) {
+                    // a group interrupted by more skipped characters than the
+                    // buffer holds; let the decoder report it
+                    cut = len;
+                }
+                if (padded) {
+                    // padding ends the data; only skipped characters may follow
+                    for (int i = 0; i < cut; i++) {
+                        if (!layout.isIgnorable(input[i])) {
+                            return -(off + i + 1);
+                        }
+                    }
+                }
+                int n = decoder.decode(input, 0, cut, output, 0);
+                if (n < 0) {
+                    return -(off - n);
+                }
+                MemorySegment.copy(output, 0, dst, ValueLayout.JAVA_BYTE, written, n);
+                written += n;
+                padded |= layout.endsWithPad(input, 0, cut);
+                off += cut;
+            }
+        } finally {
+            ScratchBuffers.release(output);
+            ScratchBuffers.release(input);
+        }
+        return written;
+    }
+
+    private static int checkedLength(long len) {
+        if (len > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too large for a codec without a block layout: " + len);
+        }
+        return (int) len;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/**
+ * Tests for the Ascii85 encoding.
+ *
+ * @author Robert J. Buck
+ */
+public class Ascii85TestCase {
+    private void runTestVector(String encoded, byte[] expected) throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("ascii85");
+        Assert.assertArrayEquals(expected, codec.newDecoder().decode(encoded.getBytes("US-ASCII")));
+        Assert.assertEquals(encoded, codec.newEncoder().encodeToString(expected));
+    }
+
+    private void runSymmetricTestVector(byte[] bytes) {
+        Codec codec = Codec.forName("ascii85");
+        byte[] encoded = codec.newEncoder().encode(bytes);
+        Assert.assertArrayEquals(bytes, codec.newDecoder().decode(encoded));
+        Assert.assertEquals(-1, codec.newDecoder().validate(encoded, 0, encoded.length));
+    }
+
+    @Test
+    public void testExistence() {
+        Assert.assertTrue(Codec.isSupported("ascii85"));
+        Assert.assertTrue(Codec.forName("ascii85").aliases().isEmpty());
+    }
+
+    @Test
+    public void testBasic() throws UnsupportedEncodingException {
+        {
+            String[][] testVector = {
+                    {"", ""},
+                    {"Ac", "f"},
+                    {"Ao@", "fo"},
+                    {"AoDS", "foo"},
+                    {"AoDTs", "foob"},
+                    {"AoDTs@/", "fooba"},
+                    {"AoDTs@<)", "foobar"},
+                    {"9jqo^BlbD-BleB1DJ+*+F(f,q", "Man is distinguished"}
+            };
+            for (String[] aTestVector : testVector) {
+                runTestVector(aTestVector[0], aTestVector[1].getBytes("US-ASCII"));
+            }
+        }
+        {
+            // groups of zero bytes are compressed
+            runTestVector("zzGQ", new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 'x'});
+            runTestVector("!!", new byte[]{0});
+        }
+        {
+            Random rnd = new Random();
+            for (int i = 0; i < 2000; i++) {
+                byte[] bytes = new byte[i % 1031];
+                rnd.nextBytes(bytes);
+                if (bytes.length > 8) {
+                    bytes[4] = bytes[5] = bytes[6] = bytes[7] = 0;
+                }
+                runSymmetricTestVector(bytes);
+            }
+        }
+    }
+
+    @Test
+    public void testDelimiters() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("ascii85").newDecoder();
+        Assert.assertEquals("Man ", new String(dec.decode("<~9jqo^~>".getBytes("US-ASCII")), "US-ASCII"));
+        Assert.assertEquals("Man is ", new String(dec.decode("<~9jqo^\r\n Bl\tbD~>\n".getBytes("US-ASCII")), "US-ASCII"));
+        Assert.assertEquals("foob", new String(dec.decode("AoDTs~>".getBytes("US-ASCII")), "US-ASCII"));
+    }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("ascii85").newDecoder();
+        Assert.assertEquals(5, dec.tryDecode("9jqo^v".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(2, dec.tryDecode("9jzqo^".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(0, dec.tryDecode("s8W-\"".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(6, dec.tryDecode("9jqo^B".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(5, dec.tryDecode("9jqo^~".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(7, dec.tryDecode("9jqo^~>x".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(7, dec.validate("9jqo^~>x".getBytes("US-ASCII"), 0, 8));
+        Assert.assertEquals(-1, dec.validate("<~9jqo^z~>".getBytes("US-ASCII"), 0, 10));
+    }
+}
@@ -21,8 +21,12 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.Set;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 
 /**
  * Tests for Base16 encodings.
@@ -115,4 +119,142 @@ public class Base16TestCase {
             }
         }
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base16");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("666f6F".getBytes("US-ASCII"));
+            Assert.assertEquals("foo", new String(result.bytes(), "US-ASCII"));
+        }
+        {
+            Assert.assertEquals(2, dec.tryDecode("66G6".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(3, dec.tryDecode("666G".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(3, dec.tryDecode("666".getBytes("US-ASCII")).errorOffset());
+            Assert.assertNull(dec.decode("666".getBytes("US-ASCII")));
+        }
+    }
+
+
+    @Test
+    public void testValidate() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base16");
+        CodecDecoder dec = codec.newDecoder();
+        CodecEncoder enc = codec.newEncoder();
+        {
+            Assert.assertTrue(dec.isValid("666F6f".getBytes("US-ASCII")));
+            Assert.assertEquals(2, dec.validate("66G6".getBytes("US-ASCII"), 0, 4));
+            Assert.assertEquals(3, dec.validate("666".getBytes("US-ASCII"), 0, 3));
+        }
+        {
+            // validation agrees with decoding, on both the short and wide paths
+            Random random = new Random(28);
+            for (int i = 0; i < 2000; i++) {
+                byte[] encoded = enc.encode(randomBytes(random, random.nextInt(160)));
+                if (encoded.length > 0 && random.nextBoolean()) {
+                    encoded[random.nextInt(encoded.length)] = (byte) random.nextInt(256);
+                }
+                Assert.assertEquals(dec.tryDecode(encoded).errorOffset(),
+                        dec.validate(encoded, 0, encoded.length));
+            }
+        }
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testStrings() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base16");
+        byte[] raw = {(byte) 0xca, (byte) 0xfe, 0x01};
+        Assert.assertEquals("CAFE01", codec.newEncoder().encodeToString(raw));
+        Assert.assertEquals("0xCAFE01", codec.newEncoder().encode(raw, new StringBuilder("0x")).toString());
+        Assert.assertNull(codec.newEncoder().encode(null, new StringBuilder()));
+        Assert.assertArrayEquals(raw, codec.newDecoder().decodeString("cafe01"));
+        Assert.assertNull(codec.newDecoder().decodeString("cafe0"));
+        Assert.assertNull(codec.newDecoder().decodeString("cafg01"));
+        try {
+            codec.newDecoder().decodeString("caf\u20ac01");
+            Assert.fail("expected MalformedInputException");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(3, e.getErrorOffset());
+        }
+        Assert.assertEquals(3, codec.newDecoder().tryDecodeString("caf\u20ac01").errorOffset());
+    }
+
+    @Test
+    public void testIntegers() {
+        CodecEncoder enc = Codec.forName("base16").newEncoder();
+        CodecDecoder dec = Codec.forName("base16").newDecoder();
+        byte[] buf = new byte[18];
+        Assert.assertEquals(16, enc.encodeLong(0x0123456789abcdefL, buf, 1));
+        Assert.assertEquals("0123456789ABCDEF", new String(buf, 1, 16));
+        Assert.assertEquals(0x0123456789abcdefL, dec.decodeLong(buf, 1, 16));
+        Assert.assertEquals(0x0123456789abcdefL, dec.decodeLong("0123456789abcdef".getBytes(), 0, 16));
+        Assert.assertEquals(8, enc.encodeInt(0xcafebabe, buf, 0));
+        Assert.assertEquals("CAFEBABE", new String(buf, 0, 8));
+        Assert.assertEquals(0xcafebabe, dec.decodeInt(buf, 0, 8));
+        try {
+            dec.decodeLong("0123456789ABCDEG".getBytes(), 0, 16);
+            Assert.fail("'G' should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(15, e.getErrorOffset());
+        }
+        try {
+            dec.decodeInt("CAFEBA".getBytes(), 0, 6);
+            Assert.fail("a short value should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(6, e.getErrorOffset());
+        }
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes("US-ASCII");
+        for (String algorithm : new String[]{"MD5", "SHA-256", "SHA-512"}) {
+            MessageDigest digest = MessageDigest.getInstance(algorithm);
+            String expected = Codec.forName("base16").newEncoder().encodeToString(digest.digest(data));
+
+            digest.update(data);
+            byte[] dst = new byte[expected.length() + 4];
+            int n = Base16.encodeDigest(digest, dst, 2);
+            Assert.assertEquals(expected, new String(dst, 2, n, "US-ASCII"));
+
+            digest.update(data);
+            Assert.assertEquals("#" + expected, Base16.encodeDigest(digest, new StringBuilder("#")).toString());
+
+            // the generic form encodes in place for every block codec
+            for (String name : new String[]{"base16", "base32", "base64-mime", "base64url-nopad", "base85"}) {
+                CodecEncoder encoder = Codec.forName(name).newEncoder();
+                byte[] encoded = encoder.encode(digest.digest(data));
+                digest.update(data);
+                byte[] buffer = new byte[encoded.length + 1];
+                Assert.assertEquals(name, encoded.length, encoder.encodeDigest(digest, buffer, 1));
+                Assert.assertArrayEquals(name, encoded, Arrays.copyOfRange(buffer, 1, buffer.length));
+                digest.update(data);
+                Assert.assertEquals(name, new String(encoded, "US-ASCII"),
+                        encoder.encodeDigest(digest, new StringBuilder()).toString());
+            }
+        }
+    }
+
+    @Test
+    public void testChecksum() throws Exception {
+        CRC32 crc = new CRC32();
+        crc.update("123456789".getBytes("US-ASCII"));
+        byte[] dst = new byte[8];
+        Assert.assertEquals(8, Base16.encodeChecksum(crc, dst, 0));
+        Assert.assertEquals("CBF43926", new String(dst, "US-ASCII"));
+        Assert.assertEquals("CBF43926", Base16.encodeChecksum(crc, new StringBuilder()).toString());
+        Assert.assertEquals("CBF43926", Codec.forName("base16").newEncoder()
+                .encodeChecksum(crc, new StringBuilder()).toString());
+
+        Adler32 adler = new Adler32();
+        adler.update("Wikipedia".getBytes("US-ASCII"));
+        Assert.assertEquals("11E60398", Base16.encodeChecksum(adler, new StringBuilder()).toString());
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Tests for the Crockford Base32 encoding.
+ *
+ * @author Robert J. Buck
+ */
+public class Base32CrockfordTestCase {
+
+    private static final String[][] VECTORS = {
+            {"", "", "0"},
+            {"f", "CR", "CR1"},
+            {"fo", "CSQG", "CSQGS"},
+            {"foo", "CSQPY", "CSQPYQ"},
+            {"foob", "CSQPYRG", "CSQPYRGV"},
+            {"fooba", "CSQPYRK1", "CSQPYRK1U"},
+            {"foobar", "CSQPYRK1E8", "CSQPYRK1E8R"},
+            {"Hello, World!", "91JPRV3F5GG5EVVJDHJ22", "91JPRV3F5GG5EVVJDHJ22Y"},
+    };
+
+    @Test
+    public void testExistence() {
+        Assert.assertTrue(Codec.isSupported("base32-crockford"));
+        Assert.assertEquals(Codec.forName("base32-crockford"), Codec.forName("crockford32"));
+        Assert.assertEquals(Codec.forName("base32-crockford-check"), Codec.forName("crockford32-check"));
+    }
+
+    @Test
+    public void testBasic() throws UnsupportedEncodingException {
+        CodecEncoder enc = Codec.forName("base32-crockford").newEncoder();
+        CodecDecoder dec = Codec.forName("base32-crockford").newDecoder();
+        CodecEncoder checkEnc = Codec.forName("base32-crockford-check").newEncoder();
+        CodecDecoder checkDec = Codec.forName("base32-crockford-check").newDecoder();
+        for (String[] vector : VECTORS) {
+            byte[] raw = vector[0].getBytes("US-ASCII");
+            Assert.assertEquals(vector[1], enc.encodeToString(raw));
+            Assert.assertEquals(vector[2], checkEnc.encodeToString(raw));
+            Assert.assertArrayEquals(raw, dec.decodeString(vector[1]));
+            Assert.assertArrayEquals(raw, dec.decodeString(vector[1].toLowerCase()));
+            Assert.assertArrayEquals(raw, checkDec.decodeString(vector[2]));
+        }
+        Random rnd = new Random();
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[i % 41];
+            rnd.nextBytes(bytes);
+            Assert.assertArrayEquals(bytes, dec.decode(enc.encode(bytes)));
+            Assert.assertArrayEquals(bytes, checkDec.decode(checkEnc.encode(bytes)));
+        }
+    }
+
+    @Test
+    public void testLenient() {
+        CodecDecoder dec = Codec.forName("base32-crockford").newDecoder();
+        byte[] expected = dec.decodeString("CSQPYRK1E8");
+        Assert.assertArrayEquals(expected, dec.decodeString("csqp-yrk1-e8"));
+        Assert.assertArrayEquals(expected, dec.decodeString("CSQPYRKIE8"));
+        Assert.assertArrayEquals(expected, dec.decodeString("CSQPYRKlE8"));
+        Assert.assertArrayEquals(dec.decodeString("00"), dec.decodeString("oO"));
+        CodecDecoder checkDec = Codec.forName("base32-crockford-check").newDecoder();
+        Assert.assertArrayEquals(expected, checkDec.decodeString("CSQPY-RK1E8-r"));
+    }
+
+    @Test
+    public void testTryDecode() {
+        CodecDecoder dec = Codec.forName("base32-crockford").newDecoder();
+        Assert.assertEquals(4, dec.tryDecodeString("CSQPURK1").errorOffset());
+        Assert.assertEquals(3, dec.tryDecodeString("CSQ").errorOffset());
+        // the unused trailing bits should be zero
+        Assert.assertEquals(1, dec.tryDecodeString("CS").errorOffset());
+        Assert.assertEquals(1, dec.validate("CS".getBytes(), 0, 2));
+        Assert.assertEquals(-1, dec.validate("CSQG".getBytes(), 0, 4));
+
+        CodecDecoder checkDec = Codec.forName("base32-crockford-check").newDecoder();
+        Assert.assertEquals(0, checkDec.tryDecodeString("CSQPYRK1E8S").errorOffset());
+        Assert.assertEquals(10, checkDec.tryDecodeString("CSQPYRK1E8#").errorOffset());
+        Assert.assertEquals(0, checkDec.tryDecodeString("").errorOffset());
+        Assert.assertFalse(checkDec.isValid("CSQPYRK1E8".getBytes()));
+    }
+
+    @Test
+    public void testLong() {
+        Assert.assertEquals("0000000000000", Base32Crockford.encodeLong(0));
+        Assert.assertEquals("128GGYHYYK08N", Base32Crockford.encodeLong(1234567890123456789L));
+        Assert.assertEquals("FZZZZZZZZZZZZ", Base32Crockford.encodeLong(-1));
+        Assert.assertEquals(1234567890123456789L, Base32Crockford.decodeLong("128GGYHYYK08N"));
+        Assert.assertEquals(1234567890123456789L, Base32Crockford.decodeLong("128g-gyhy-yko8n"));
+        Assert.assertEquals(-1L, Base32Crockford.decodeLong("FZZZZZZZZZZZZ"));
+        Assert.assertEquals(42L, Base32Crockford.decodeLong("1A"));
+        byte[] buf = new byte[15];
+        Assert.assertEquals(13, Base32Crockford.encodeLong(42, buf, 2));
+        Assert.assertEquals(42L, Base32Crockford.decodeLong(buf, 2, 13));
+        CodecEncoder enc = Codec.forName("base32-crockford").newEncoder();
+        CodecDecoder dec = Codec.forName("base32-crockford").newDecoder();
+        Assert.assertEquals(7, enc.encodeInt(-1, buf, 0));
+        Assert.assertEquals("3ZZZZZZ", new String(buf, 0, 7));
+        Assert.assertEquals(-1, dec.decodeInt(buf, 0, 7));
+        Assert.assertEquals(13, enc.encodeLong(1234567890123456789L, buf, 0));
+        Assert.assertEquals(1234567890123456789L, dec.decodeLong(buf, 0, 13));
+
+        Random rnd = new Random();
+        String previous = null;
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rnd.nextLong() >>> 1;
+        }
+        Arrays.sort(values);
+        for (long value : values) {
+            String encoded = Base32Crockford.encodeLong(value);
+            Assert.assertEquals(value, Base32Crockford.decodeLong(encoded));
+            Assert.assertTrue(previous == null || previous.compareTo(encoded) <= 0);
+            previous = encoded;
+        }
+    }
+
+    @Test
+    public void testLongMalformed() {
+        try {
+            Base32Crockford.decodeLong("GZZZZZZZZZZZZ");
+            Assert.fail("overflow should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(0, e.getErrorOffset());
+        }
+        try {
+            Base32Crockford.decodeLong("12U4");
+            Assert.fail("'U' should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(2, e.getErrorOffset());
+        }
+        try {
+            Base32Crockford.decodeLong("--");
+            Assert.fail("empty input should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(2, e.getErrorOffset());
+        }
+    }
+
+    @Test
+    public void testUUID() {
+        UUID uuid = new UUID(0x0123456789abcdefL, 0xfedcba9876543210L);
+        Assert.assertEquals("014D2PF2DBSQQZXQ5TK1V58CGG", Base32Crockford.encodeUUID(uuid));
+        Assert.assertEquals(uuid, Base32Crockford.decodeUUID("014D2PF2DBSQQZXQ5TK1V58CGG"));
+        // a ULID
+        UUID ulid = Base32Crockford.decodeUUID("01ARZ3NDEKTSV4RRFFQ69G5FAV");
+        Assert.assertEquals(new UUID(0x01563e3ab5d3d676L, 0x4c61efb99302bd5bL), ulid);
+        Assert.assertEquals("01ARZ3NDEKTSV4RRFFQ69G5FAV", Base32Crockford.encodeUUID(ulid));
+        try {
+            Base32Crockford.decodeUUID("81ARZ3NDEKTSV4RRFFQ69G5FAV");
+            Assert.fail("overflow should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(0, e.getErrorOffset());
+        }
+    }
+}
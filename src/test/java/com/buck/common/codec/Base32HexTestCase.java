@@ -19,6 +19,9 @@ package com.buck.common.codec;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -57,4 +60,48 @@ public class Base32HexTestCase {
             byte[] arrd = dec.decode(null);
         }
     }
+
+    @Test
+    public void testIntegers() {
+        CodecEncoder enc = Codec.forName("base32Hex").newEncoder();
+        CodecDecoder dec = Codec.forName("base32Hex").newDecoder();
+        Random rnd = new Random();
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rnd.nextLong();
+        }
+        values[0] = 0;
+        values[1] = -1;
+        byte[] buf = new byte[13];
+        for (long value : values) {
+            // identical to encoding the big endian bytes without padding
+            byte[] bytes = ByteBuffer.allocate(8).putLong(value).array();
+            Assert.assertEquals(13, enc.encodeLong(value, buf, 0));
+            Assert.assertEquals(enc.encodeToString(bytes).replace("=", ""), new String(buf));
+            Assert.assertEquals(value, dec.decodeLong(buf, 0, 13));
+        }
+        // the encoded form sorts as the unsigned values do
+        long[] unsigned = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            unsigned[i] = values[i] ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(unsigned);
+        String previous = null;
+        for (long flipped : unsigned) {
+            enc.encodeLong(flipped ^ Long.MIN_VALUE, buf, 0);
+            String encoded = new String(buf);
+            Assert.assertTrue(previous == null || previous.compareTo(encoded) <= 0);
+            previous = encoded;
+        }
+        byte[] ibuf = new byte[7];
+        Assert.assertEquals(7, enc.encodeInt(0xcafebabe, ibuf, 0));
+        Assert.assertEquals(0xcafebabe, dec.decodeInt(ibuf, 0, 7));
+        try {
+            // the padding bits of the final symbol should be zero
+            dec.decodeLong("0000000000001".getBytes(), 0, 13);
+            Assert.fail("non-zero padding bits should be rejected");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(12, e.getErrorOffset());
+        }
+    }
 }
@@ -141,4 +141,87 @@ public class Base32TestCase {
         lBuffer.put(0, l);
         return bArray;
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base32");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("MZXW6===".getBytes("US-ASCII"));
+            Assert.assertEquals(DecodeResult.Status.OK, result.status());
+            Assert.assertEquals("foo", new String(result.bytes(), "US-ASCII"));
+        }
+        {
+            Assert.assertEquals(3, dec.tryDecode("MZ=Q====".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(2, dec.tryDecode("MZ1W6===".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(7, dec.tryDecode("MZXW6==".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(1, dec.tryDecode("MZ======".getBytes("US-ASCII")).errorOffset());
+            Assert.assertNull(dec.decode("MZ=Q====".getBytes("US-ASCII")));
+        }
+        {
+            Codec hex = Codec.forName("base32Hex");
+            Assert.assertEquals("base32Hex", hex.name());
+            Assert.assertFalse(hex.equals(codec));
+            DecodeResult result = hex.newDecoder().tryDecode("CPNMU===".getBytes("US-ASCII"));
+            Assert.assertEquals("foo", new String(result.bytes(), "US-ASCII"));
+            Assert.assertEquals(2, hex.newDecoder().tryDecode("CPWMU===".getBytes("US-ASCII")).errorOffset());
+        }
+    }
+
+
+    @Test
+    public void testValidate() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base32");
+        CodecDecoder dec = codec.newDecoder();
+        CodecEncoder enc = codec.newEncoder();
+        {
+            Assert.assertTrue(dec.isValid("MZXW6YQ=".getBytes("US-ASCII")));
+            Assert.assertEquals(8, dec.validate("MZXW6YQ=!".getBytes("US-ASCII"), 0, 9));
+            Assert.assertEquals(1, dec.validate("M1XW6YQ=".getBytes("US-ASCII"), 0, 8));
+            Assert.assertEquals(3, dec.validate("MZX".getBytes("US-ASCII"), 0, 3));
+        }
+        {
+            // validation agrees with decoding, on both the short and wide paths
+            Random random = new Random(28);
+            for (int i = 0; i < 2000; i++) {
+                byte[] encoded = enc.encode(randomBytes(random, random.nextInt(160)));
+                if (encoded.length > 0 && random.nextBoolean()) {
+                    encoded[random.nextInt(encoded.length)] = (byte) random.nextInt(256);
+                }
+                Assert.assertEquals(dec.tryDecode(encoded).errorOffset(),
+                        dec.validate(encoded, 0, encoded.length));
+            }
+        }
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testNoPad() {
+        String[][] pairs = {{"base32", "base32-nopad"}, {"base32Hex", "base32hex-nopad"}};
+        Random rnd = new Random();
+        for (String[] pair : pairs) {
+            CodecEncoder padded = Codec.forName(pair[0]).newEncoder();
+            CodecEncoder enc = Codec.forName(pair[1]).newEncoder();
+            CodecDecoder dec = Codec.forName(pair[1]).newDecoder();
+            for (int i = 0; i < 200; i++) {
+                byte[] bytes = new byte[i % 23];
+                rnd.nextBytes(bytes);
+                byte[] encoded = enc.encode(bytes);
+                Assert.assertEquals(padded.encodeToString(bytes).replace("=", ""), new String(encoded));
+                Assert.assertArrayEquals(bytes, dec.decode(encoded));
+                Assert.assertTrue(dec.isValid(encoded));
+            }
+        }
+        CodecDecoder dec = Codec.forName("base32-nopad").newDecoder();
+        Assert.assertEquals("foob", new String(dec.decodeString("MZXW6YQ")));
+        Assert.assertEquals(7, dec.tryDecodeString("MZXW6YQ=").errorOffset());
+        Assert.assertEquals(3, dec.tryDecodeString("MZX").errorOffset());
+        Assert.assertEquals(1, dec.tryDecodeString("MZ").errorOffset());
+        Assert.assertEquals(1, dec.validate("MZ".getBytes(), 0, 2));
+    }
 }
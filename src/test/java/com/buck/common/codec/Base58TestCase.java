@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Tests for the Base58 and Base58Check encodings.
+ *
+ * @author Robert J. Buck
+ */
+public class Base58TestCase {
+    private static final String ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+
+    /**
+     * A plain quadratic reference conversion.
+     */
+    private static String reference(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        BigInteger v = new BigInteger(1, bytes);
+        BigInteger radix = BigInteger.valueOf(58);
+        while (v.signum() > 0) {
+            BigInteger[] qr = v.divideAndRemainder(radix);
+            sb.append(ALPHABET.charAt(qr[1].intValue()));
+            v = qr[0];
+        }
+        for (int i = 0; i < bytes.length && bytes[i] == 0; i++) {
+            sb.append('1');
+        }
+        return sb.reverse().toString();
+    }
+
+    @Test
+    public void testExistence() {
+        Assert.assertTrue(Codec.isSupported("base58"));
+        Assert.assertEquals(Codec.forName("base58"), Codec.forName("base58btc"));
+        Assert.assertEquals(Codec.forName("base58"), Codec.forName("base58-bitcoin"));
+        Assert.assertEquals(Codec.forName("base58-flickr"), Codec.forName("base58flickr"));
+        Assert.assertTrue(Codec.isSupported("base58check"));
+    }
+
+    @Test
+    public void testBasic() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("base58");
+        {
+            Assert.assertEquals("", codec.newEncoder().encodeToString(new byte[0]));
+            Assert.assertEquals("2NEpo7TZRRrLZSi2U", codec.newEncoder().encodeToString("Hello World!".getBytes("US-ASCII")));
+            Assert.assertEquals("112", codec.newEncoder().encodeToString(new byte[]{0, 0, 1}));
+            Assert.assertEquals("111", codec.newEncoder().encodeToString(new byte[3]));
+            Assert.assertEquals("Hello World!", new String(codec.newDecoder().decodeString("2NEpo7TZRRrLZSi2U"), "US-ASCII"));
+            Assert.assertArrayEquals(new byte[]{0, 0, 1}, codec.newDecoder().decodeString("112"));
+        }
+        {
+            Codec flickr = Codec.forName("base58-flickr");
+            Assert.assertEquals("2nePN7syqqRkyrH2t", flickr.newEncoder().encodeToString("Hello World!".getBytes("US-ASCII")));
+            Assert.assertEquals("Hello World!", new String(flickr.newDecoder().decodeString("2nePN7syqqRkyrH2t"), "US-ASCII"));
+        }
+        {
+            // sizes on both sides of the divide-and-conquer threshold
+            Random rnd = new Random(33);
+            int[] sizes = {1, 2, 3, 4, 5, 31, 383, 384, 385, 1000, 4096, 10000};
+            for (int size : sizes) {
+                byte[] bytes = new byte[size];
+                rnd.nextBytes(bytes);
+                bytes[0] = 0;
+                String encoded = codec.newEncoder().encodeToString(bytes);
+                Assert.assertEquals(reference(bytes), encoded);
+                Assert.assertArrayEquals(bytes, codec.newDecoder().decodeString(encoded));
+            }
+            for (int i = 0; i < 1000; i++) {
+                byte[] bytes = new byte[i % 97];
+                rnd.nextBytes(bytes);
+                Assert.assertArrayEquals(bytes, codec.newDecoder().decode(codec.newEncoder().encode(bytes)));
+            }
+        }
+    }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("base58").newDecoder();
+        Assert.assertEquals(3, dec.tryDecode("2NE0o7".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(3, dec.validate("2NElo7".getBytes("US-ASCII"), 0, 6));
+        Assert.assertEquals(-1, dec.validate("2NEpo7".getBytes("US-ASCII"), 0, 6));
+    }
+
+    @Test
+    public void testCheck() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("base58check");
+        byte[] address = new BigInteger("f54a5851e9372b87810a8e60cdd2e7cfd80b6e31", 16).toByteArray();
+        byte[] payload = new byte[21];
+        System.arraycopy(address, address.length - 20, payload, 1, 20);
+        Assert.assertEquals("1PMycacnJaSqwwJqjawXBErnLsZ7RkXUAs", codec.newEncoder().encodeToString(payload));
+        Assert.assertArrayEquals(payload, codec.newDecoder().decodeString("1PMycacnJaSqwwJqjawXBErnLsZ7RkXUAs"));
+        Assert.assertEquals("1111111111111111111114oLvT2", codec.newEncoder().encodeToString(new byte[21]));
+
+        CodecDecoder dec = codec.newDecoder();
+        // a corrupted checksum is reported at the first character
+        Assert.assertEquals(0, dec.tryDecodeString("1PMycacnJaSqwwJqjawXBErnLsZ7RkXUAt").errorOffset());
+        Assert.assertEquals(3, dec.tryDecodeString("1PMOcacn").errorOffset());
+        Assert.assertEquals(3, dec.tryDecodeString("2NE").errorOffset());
+        Assert.assertTrue(dec.isValid("1PMycacnJaSqwwJqjawXBErnLsZ7RkXUAs".getBytes("US-ASCII")));
+    }
+}
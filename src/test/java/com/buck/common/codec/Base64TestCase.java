@@ -19,6 +19,8 @@ package com.buck.common.codec;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.LongBuffer;
@@ -129,4 +131,129 @@ public class Base64TestCase {
         lBuffer.put(0, l);
         return bArray;
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base64");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("Zm9vYg==".getBytes("US-ASCII"));
+            Assert.assertEquals(DecodeResult.Status.OK, result.status());
+            Assert.assertEquals(-1, result.errorOffset());
+            Assert.assertEquals(4, result.length());
+            Assert.assertEquals("foob", new String(result.bytes(), "US-ASCII"));
+        }
+        {
+            // white space is skipped without modifying the input
+            byte[] encoded = "Zm9v\r\nYmFy".getBytes("US-ASCII");
+            DecodeResult result = dec.tryDecode(encoded);
+            Assert.assertEquals("foobar", new String(result.bytes(), "US-ASCII"));
+            Assert.assertEquals("Zm9v\r\nYmFy", new String(encoded, "US-ASCII"));
+        }
+        {
+            Assert.assertEquals(4, dec.tryDecode("Zm9v!".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(3, dec.tryDecode("Zg=".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(1, dec.tryDecode("Zh==".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(4, dec.tryDecode("Zg==Zg==".getBytes("US-ASCII")).errorOffset());
+            Assert.assertTrue(dec.tryDecode("Zm9".getBytes("US-ASCII")).isMalformed());
+            Assert.assertNull(dec.tryDecode("Zm9".getBytes("US-ASCII")).bytes());
+        }
+        {
+            byte[] src = "..Zm9vYmE=..".getBytes("US-ASCII");
+            byte[] dst = new byte[8];
+            Assert.assertEquals(5, dec.decode(src, 2, 8, dst, 3));
+            Assert.assertEquals("fooba", new String(dst, 3, 5, "US-ASCII"));
+            Assert.assertEquals(-(10 + 1), dec.decode(src, 2, 10, dst, 0));
+        }
+    }
+
+
+    @Test
+    public void testValidate() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base64");
+        CodecDecoder dec = codec.newDecoder();
+        CodecEncoder enc = codec.newEncoder();
+        {
+            Assert.assertTrue(dec.isValid("Zm9vYg==".getBytes("US-ASCII")));
+            Assert.assertTrue(dec.isValid("Zm9v\r\nYmFy".getBytes("US-ASCII")));
+            Assert.assertEquals(4, dec.validate("Zm9v!".getBytes("US-ASCII"), 0, 5));
+            Assert.assertEquals(3, dec.validate("Zg=".getBytes("US-ASCII"), 0, 3));
+            Assert.assertEquals(1, dec.validate("Zh==".getBytes("US-ASCII"), 0, 4));
+            Assert.assertEquals(4, dec.validate("Zg==Zg==".getBytes("US-ASCII"), 0, 8));
+            Assert.assertEquals(5, dec.validate("..Zm9".getBytes("US-ASCII"), 2, 3));
+        }
+        {
+            // validation agrees with decoding, on both the short and wide paths
+            Random random = new Random(28);
+            for (int i = 0; i < 2000; i++) {
+                byte[] encoded = enc.encode(randomBytes(random, random.nextInt(160)));
+                if (encoded.length > 0 && random.nextBoolean()) {
+                    encoded[random.nextInt(encoded.length)] = (byte) random.nextInt(256);
+                }
+                Assert.assertEquals(dec.tryDecode(encoded).errorOffset(),
+                        dec.validate(encoded, 0, encoded.length));
+            }
+        }
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testStrings() throws IOException {
+        Codec codec = Codec.forName("Base64");
+        CodecEncoder enc = codec.newEncoder();
+        CodecDecoder dec = codec.newDecoder();
+        byte[] raw = "foobar".getBytes("US-ASCII");
+        Assert.assertEquals("Zm9vYmFy", enc.encodeToString(raw));
+        Assert.assertNull(enc.encodeToString(null));
+        Assert.assertNull(enc.encode(null, new StringBuilder()));
+        Assert.assertEquals("key=Zm9vYmFy", enc.encode(raw, new StringBuilder("key=")).toString());
+        StringWriter writer = new StringWriter();
+        enc.encode(raw, (Appendable) writer);
+        Assert.assertEquals("Zm9vYmFy", writer.toString());
+        Assert.assertArrayEquals(raw, dec.decodeString("Zm9vYmFy"));
+        Assert.assertArrayEquals(raw, dec.decodeString(new StringBuilder("Zm9v\r\nYmFy")));
+        Assert.assertEquals(4, dec.tryDecodeString("Zm9v\u00e9mFy").errorOffset());
+        Assert.assertEquals(4, dec.tryDecodeString("Zm9v\u20acmFy").errorOffset());
+        try {
+            dec.decodeString("Zm9v\u20acmFy");
+            Assert.fail("expected MalformedInputException");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(4, e.getErrorOffset());
+        }
+    }
+
+    @Test
+    public void testMime() {
+        Assert.assertTrue(Codec.isSupported("base64-mime"));
+        CodecEncoder plain = Codec.forName("base64").newEncoder();
+        CodecEncoder enc = Codec.forName("base64-mime").newEncoder();
+        CodecDecoder dec = Codec.forName("base64-mime").newDecoder();
+        Random rnd = new Random();
+        // lengths around the 57 bytes that fill one 76 character line
+        int[] sizes = {0, 1, 2, 3, 56, 57, 58, 59, 113, 114, 115, 116, 171, 1000};
+        for (int size : sizes) {
+            byte[] bytes = new byte[size];
+            rnd.nextBytes(bytes);
+            String single = plain.encodeToString(bytes);
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < single.length(); i += 76) {
+                if (i > 0) {
+                    expected.append("\r\n");
+                }
+                expected.append(single, i, Math.min(single.length(), i + 76));
+            }
+            byte[] encoded = enc.encode(bytes);
+            Assert.assertEquals(expected.toString(), new String(encoded));
+            byte[] copy = encoded.clone();
+            Assert.assertArrayEquals(bytes, dec.decode(encoded));
+            // the decoder skips the line breaks without touching its input
+            Assert.assertArrayEquals(copy, encoded);
+            Assert.assertTrue(dec.isValid(encoded));
+        }
+    }
 }
@@ -129,4 +129,65 @@ public class Base64URLTestCase {
         lBuffer.put(0, l);
         return bArray;
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("Base64URL");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("-_-_".getBytes("US-ASCII"));
+            Assert.assertFalse(result.isMalformed());
+            Assert.assertEquals(3, result.length());
+        }
+        {
+            Assert.assertEquals(1, dec.tryDecode("-+-_".getBytes("US-ASCII")).errorOffset());
+            Assert.assertNull(dec.decode("-/-_".getBytes("US-ASCII")));
+        }
+    }
+
+    @Test
+    public void testIntegers() {
+        CodecEncoder enc = Codec.forName("base64url").newEncoder();
+        CodecDecoder dec = Codec.forName("base64url").newDecoder();
+        Random rnd = new Random();
+        byte[] buf = new byte[11];
+        for (int i = 0; i < 1000; i++) {
+            long value = rnd.nextLong();
+            byte[] bytes = ByteBuffer.allocate(8).putLong(value).array();
+            Assert.assertEquals(11, enc.encodeLong(value, buf, 0));
+            Assert.assertEquals(enc.encodeToString(bytes).replace("=", ""), new String(buf));
+            Assert.assertEquals(value, dec.decodeLong(buf, 0, 11));
+            int small = (int) value;
+            Assert.assertEquals(6, enc.encodeInt(small, buf, 0));
+            Assert.assertEquals(small, dec.decodeInt(buf, 0, 6));
+        }
+    }
+
+    @Test
+    public void testNoPad() {
+        String[][] pairs = {{"base64", "base64-nopad"}, {"base64url", "base64url-nopad"}};
+        Random rnd = new Random();
+        for (String[] pair : pairs) {
+            CodecEncoder padded = Codec.forName(pair[0]).newEncoder();
+            CodecEncoder enc = Codec.forName(pair[1]).newEncoder();
+            CodecDecoder dec = Codec.forName(pair[1]).newDecoder();
+            for (int i = 0; i < 200; i++) {
+                byte[] bytes = new byte[i % 23];
+                rnd.nextBytes(bytes);
+                byte[] encoded = enc.encode(bytes);
+                Assert.assertEquals(padded.encodeToString(bytes).replace("=", ""), new String(encoded));
+                Assert.assertArrayEquals(bytes, dec.decode(encoded));
+                Assert.assertTrue(dec.isValid(encoded));
+            }
+        }
+        CodecDecoder dec = Codec.forName("base64url-nopad").newDecoder();
+        // a JSON Web Token header
+        Assert.assertEquals("{\"alg\":\"HS256\",\"typ\":\"JWT\"}",
+                new String(dec.decodeString("eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9")));
+        Assert.assertEquals(2, dec.tryDecodeString("Zg==").errorOffset());
+        Assert.assertEquals(5, dec.tryDecodeString("Zm9vY").errorOffset());
+        Assert.assertEquals(1, dec.tryDecodeString("Zh").errorOffset());
+        Assert.assertEquals(1, dec.validate("Zh".getBytes(), 0, 2));
+        Assert.assertEquals(5, dec.validate("Zm9vY".getBytes(), 0, 5));
+    }
 }
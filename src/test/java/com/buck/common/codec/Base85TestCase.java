@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/**
+ * Tests for the RFC 1924 Base85 and Z85 encodings.
+ *
+ * @author Robert J. Buck
+ */
+public class Base85TestCase {
+    private void runTestVector(String codecName, String encoded, byte[] expected) throws UnsupportedEncodingException {
+        Codec codec = Codec.forName(codecName);
+        Assert.assertArrayEquals(expected, codec.newDecoder().decode(encoded.getBytes("US-ASCII")));
+        Assert.assertEquals(encoded, codec.newEncoder().encodeToString(expected));
+    }
+
+    private void runSymmetricTestVector(String codecName, byte[] bytes) {
+        Codec codec = Codec.forName(codecName);
+        byte[] encoded = codec.newEncoder().encode(bytes);
+        Assert.assertArrayEquals(bytes, codec.newDecoder().decode(encoded));
+        Assert.assertEquals(-1, codec.newDecoder().validate(encoded, 0, encoded.length));
+    }
+
+    @Test
+    public void testExistence() {
+        Assert.assertTrue(Codec.isSupported("base85"));
+        Assert.assertEquals(Codec.forName("base85"), Codec.forName("rfc1924"));
+        Assert.assertTrue(Codec.isSupported("z85"));
+        Assert.assertTrue(Codec.forName("z85").aliases().isEmpty());
+    }
+
+    @Test
+    public void testBasic() throws UnsupportedEncodingException {
+        {
+            String[][] testVector = {
+                    {"", ""},
+                    {"W&", "f"},
+                    {"W^V", "fo"},
+                    {"W^Zo", "foo"},
+                    {"W^Zp|", "foob"},
+                    {"W^Zp|VE", "fooba"},
+                    {"W^Zp|VR8", "foobar"},
+                    {"Xk~0{Zv", "hello"},
+                    {"O<`^zX>%ZCX>)XGZfA9Ab7*B`", "Man is distinguished"}
+            };
+            for (String[] aTestVector : testVector) {
+                runTestVector("base85", aTestVector[0], aTestVector[1].getBytes("US-ASCII"));
+            }
+        }
+        {
+            // the test vector from ZeroMQ RFC 32
+            byte[] bytes = {(byte) 0x86, 0x4F, (byte) 0xD2, 0x6F, (byte) 0xB5, 0x59, (byte) 0xF7, 0x5B};
+            runTestVector("z85", "HelloWorld", bytes);
+        }
+        {
+            Random rnd = new Random();
+            for (int i = 0; i < 2000; i++) {
+                byte[] bytes = new byte[i % 1031];
+                rnd.nextBytes(bytes);
+                runSymmetricTestVector("base85", bytes);
+                runSymmetricTestVector("z85", bytes);
+            }
+        }
+        {
+            byte[] ones = {-1, -1, -1, -1, -1, -1, -1};
+            runSymmetricTestVector("base85", ones);
+        }
+    }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("base85").newDecoder();
+        Assert.assertArrayEquals(new byte[]{-1, -1, -1, -1}, dec.tryDecode("|NsC0".getBytes("US-ASCII")).bytes());
+        // 85^5 - 1 exceeds 32 bits
+        Assert.assertEquals(5, dec.tryDecode("W^Zp||NsC1".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(2, dec.tryDecode("W^\"p|".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(6, dec.tryDecode("W^Zp|V".getBytes("US-ASCII")).errorOffset());
+        Assert.assertEquals(6, dec.validate("W^Zp|V".getBytes("US-ASCII"), 0, 6));
+        Assert.assertEquals(-1, dec.validate("..W^Zp|VR8".getBytes("US-ASCII"), 2, 8));
+        Assert.assertEquals(1, dec.validate("0'".getBytes("US-ASCII"), 0, 2));
+    }
+}
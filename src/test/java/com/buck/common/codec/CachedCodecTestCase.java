@@ -0,0 +1,153 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the memoizing codec decorator.
+ *
+ * @author Robert J. Buck
+ */
+public class CachedCodecTestCase {
+
+    private static byte[] bytes(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        CachedCodec codec = Codec.forName("base64url").cached(100);
+        Assert.assertEquals("base64url", codec.name());
+        CodecEncoder encoder = codec.newEncoder();
+        Assert.assertEquals("dGVuYW50LTE=", encoder.encodeToString(bytes("tenant-1")));
+        Assert.assertEquals("dGVuYW50LTE=", encoder.encodeToString(bytes("tenant-1")));
+        Assert.assertEquals(1, codec.hitCount());
+        Assert.assertEquals(1, codec.missCount());
+
+        CodecDecoder decoder = codec.newDecoder();
+        Assert.assertArrayEquals(bytes("tenant-1"), decoder.decode(bytes("dGVuYW50LTE=")));
+        Assert.assertArrayEquals(bytes("tenant-1"), decoder.decode(bytes("dGVuYW50LTE=")));
+        Assert.assertEquals(2, codec.hitCount());
+        Assert.assertEquals(2, codec.missCount());
+    }
+
+    @Test
+    public void testCopies() {
+        CachedCodec codec = Codec.forName("pct-encoded").cached(10);
+        CodecEncoder encoder = codec.newEncoder();
+        byte[] input = bytes("a b");
+        byte[] first = encoder.encode(input);
+        first[0] = 'X';
+        input[0] = 'Y';
+        Assert.assertEquals("a%20b", new String(encoder.encode(bytes("a b"))));
+        Assert.assertEquals(1, codec.hitCount());
+    }
+
+    @Test
+    public void testViews() {
+        CachedCodec codec = Codec.forName("base16").cached(10);
+        ByteBuffer view = codec.encodeView(bytes("hi"));
+        Assert.assertTrue(view.isReadOnly());
+        Assert.assertEquals(4, view.remaining());
+        try {
+            view.put(0, (byte) 'X');
+            Assert.fail();
+        } catch (ReadOnlyBufferException e) {
+            // expected
+        }
+        Assert.assertEquals('6', codec.encodeView(bytes("hi")).get(0));
+        Assert.assertEquals(1, codec.hitCount());
+        Assert.assertNull(codec.decodeView(bytes("zz")));
+    }
+
+    @Test
+    public void testClockEviction() {
+        CachedCodec codec = Codec.forName("base32").cached(2);
+        CodecEncoder encoder = codec.newEncoder();
+        encoder.encode(bytes("a"));
+        encoder.encode(bytes("b"));
+        // a is referenced, so the hand passes over it and evicts b
+        encoder.encode(bytes("a"));
+        encoder.encode(bytes("c"));
+        Assert.assertEquals(1, codec.hitCount());
+        encoder.encode(bytes("a"));
+        Assert.assertEquals(2, codec.hitCount());
+        encoder.encode(bytes("b"));
+        Assert.assertEquals(2, codec.hitCount());
+        Assert.assertEquals(4, codec.missCount());
+    }
+
+    @Test
+    public void testNotCached() {
+        CachedCodec codec = Codec.forName("base64").cached(10, 4);
+        CodecEncoder encoder = codec.newEncoder();
+        encoder.encode(bytes("longer than four"));
+        encoder.encode(bytes("longer than four"));
+        Assert.assertEquals(0, codec.hitCount());
+        Assert.assertEquals(0, codec.missCount());
+
+        CodecDecoder decoder = codec.newDecoder();
+        Assert.assertNull(decoder.decode(bytes("*")));
+        Assert.assertNull(decoder.decode(bytes("*")));
+        Assert.assertEquals(0, codec.hitCount());
+        Assert.assertEquals(2, codec.missCount());
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        final CachedCodec codec = Codec.forName("base64url").cached(50);
+        final Codec plain = Codec.forName("base64url");
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        CodecEncoder encoder = codec.newEncoder();
+                        CodecEncoder expected = plain.newEncoder();
+                        for (int i = 0; i < 20000; i++) {
+                            byte[] key = bytes("tenant-" + ((i * 7 + seed) % 80));
+                            Assert.assertArrayEquals(expected.encode(key), encoder.encode(key));
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(80000, codec.hitCount() + codec.missCount());
+    }
+}
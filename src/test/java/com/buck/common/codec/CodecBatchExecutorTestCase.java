@@ -0,0 +1,238 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for the batch executor.
+ *
+ * @author Robert J. Buck
+ */
+public class CodecBatchExecutorTestCase {
+
+    private static final String[] BATCHED = {
+            "base16", "base32", "base64", "base64url-nopad", "base64-mime", "base85",
+            "pct-encoded", "quoted-printable", "base58", "deflate+base64"
+    };
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    private static List<byte[]> records(Random random, int count, int maxLength) {
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (int i = 0; i < count; i++) {
+            byte[] record = new byte[random.nextInt(maxLength + 1)];
+            random.nextBytes(record);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static void assertRecords(String message, List<byte[]> expected, PackedRecords actual) {
+        Assert.assertEquals(message, expected.size(), actual.size());
+        Assert.assertEquals(message, actual.data().length, actual.offset(actual.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals(message + " " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws InterruptedException {
+        Random random = new Random(47);
+        for (String name : BATCHED) {
+            Codec codec = Codec.forName(name);
+            CodecBatchExecutor batches = codec.batchExecutor(executor);
+            CodecEncoder encoder = codec.newEncoder();
+            CodecDecoder decoder = codec.newDecoder();
+            for (int count : new int[]{0, 1, 10, 5000}) {
+                List<byte[]> records = records(random, count, name.startsWith("base58") ? 40 : 64);
+                List<byte[]> encoded = new ArrayList<byte[]>();
+                List<byte[]> decoded = new ArrayList<byte[]>();
+                for (byte[] record : records) {
+                    encoded.add(encoder.encode(record));
+                    // quoted-printable does not preserve bare line breaks
+                    decoded.add(decoder.decode(encoded.get(encoded.size() - 1)));
+                }
+                assertRecords(name + " " + count, encoded, batches.encode(records));
+                assertRecords(name + " " + count, decoded, batches.decode(encoded.iterator()));
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedRecord() throws InterruptedException {
+        Codec codec = Codec.forName("base64url-nopad");
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (int i = 0; i < 10000; i++) {
+            records.add("AAAAAAAAAAAAAAAAAAAAAA".getBytes());
+        }
+        records.set(7777, "AAAAA*AAAAAAAAAAAAAAAA".getBytes());
+        try {
+            codec.batchExecutor(executor).decode(records);
+            Assert.fail();
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(5, e.getErrorOffset());
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("7777"));
+        }
+    }
+
+    @Test
+    public void testLargeRecords() throws InterruptedException {
+        Random random = new Random(48);
+        byte[] large = new byte[3 * CodecBatchExecutor.BATCH_SIZE];
+        random.nextBytes(large);
+        List<byte[]> records = Arrays.asList(large, new byte[0], large);
+        Codec codec = Codec.forName("base64");
+        CodecBatchExecutor batches = codec.batchExecutor(executor);
+        List<byte[]> encoded = new ArrayList<byte[]>();
+        for (byte[] record : records) {
+            encoded.add(codec.newEncoder().encode(record));
+        }
+        assertRecords("large", encoded, batches.encode(records));
+        assertRecords("large", records, batches.decode(encoded));
+    }
+
+    /**
+     * Records of a few lengths in runs, so that both the per-record and the
+     * per-run paths of the packed API are taken.
+     */
+    private static List<byte[]> runs(Random random, int count) {
+        List<byte[]> records = new ArrayList<byte[]>();
+        while (records.size() < count) {
+            int length = new int[]{0, 1, 15, 16, 24, 30, 40, 60}[random.nextInt(8)];
+            for (int n = 1 + random.nextInt(20); n > 0; n--) {
+                byte[] record = new byte[length];
+                random.nextBytes(record);
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static int[] pack(List<byte[]> records, byte[] data) {
+        int[] offsets = new int[records.size() + 1];
+        for (int i = 0; i < records.size(); i++) {
+            byte[] record = records.get(i);
+            System.arraycopy(record, 0, data, offsets[i], record.length);
+            offsets[i + 1] = offsets[i] + record.length;
+        }
+        return offsets;
+    }
+
+    private static int total(List<byte[]> records) {
+        int total = 0;
+        for (byte[] record : records) {
+            total += record.length;
+        }
+        return total;
+    }
+
+    @Test
+    public void testPackedBatches() {
+        Random random = new Random(49);
+        for (String name : BATCHED) {
+            Codec codec = Codec.forName(name);
+            CodecEncoder encoder = codec.newEncoder();
+            CodecDecoder decoder = codec.newDecoder();
+            List<byte[]> records = runs(random, name.startsWith("base58") ? 50 : 500);
+            List<byte[]> encoded = new ArrayList<byte[]>();
+            List<byte[]> decoded = new ArrayList<byte[]>();
+            for (byte[] record : records) {
+                encoded.add(encoder.encode(record));
+                decoded.add(decoder.decode(encoded.get(encoded.size() - 1)));
+            }
+            int count = records.size();
+
+            byte[] data = new byte[total(records)];
+            int[] offsets = pack(records, data);
+            byte[] out = new byte[total(encoded)];
+            int[] outOffsets = new int[count + 1];
+            int n = encoder.encodeBatch(data, offsets, count, out, outOffsets);
+            Assert.assertEquals(name, total(encoded), n);
+            assertRecords(name, encoded, new PackedRecords(out, outOffsets));
+
+            data = new byte[n];
+            offsets = pack(encoded, data);
+            out = new byte[total(decoded)];
+            n = decoder.decodeBatch(data, offsets, count, out, outOffsets);
+            Assert.assertEquals(name, total(decoded), n);
+            assertRecords(name, decoded, new PackedRecords(out, outOffsets));
+        }
+    }
+
+    @Test
+    public void testPackedMalformedRecord() {
+        CodecDecoder decoder = Codec.forName("base64").newDecoder();
+        // padding inside a run of equal lengths is decoded record by record
+        List<byte[]> records = Arrays.asList("AA==".getBytes(), "AAA=".getBytes(), "AAAA".getBytes(),
+                "AAAA".getBytes(), "AA*A".getBytes(), "AAAA".getBytes());
+        byte[] data = new byte[total(records)];
+        int[] offsets = pack(records, data);
+        int[] outOffsets = new int[records.size() + 1];
+        Assert.assertEquals(-(4 + 1), decoder.decodeBatch(data, offsets, records.size(), new byte[18], outOffsets));
+        Assert.assertEquals(2, outOffsets[5]);
+
+        // the end of an incomplete record is also the start of the next
+        records = Arrays.asList("AAAA".getBytes(), "AAA".getBytes(), "*AAA".getBytes());
+        data = new byte[total(records)];
+        offsets = pack(records, data);
+        Assert.assertEquals(-(1 + 1), decoder.decodeBatch(data, offsets, records.size(), new byte[9], outOffsets));
+        Assert.assertEquals(3, outOffsets[2]);
+
+        records = Arrays.asList("AA==".getBytes(), "AAA=".getBytes(), "AAAA".getBytes());
+        data = new byte[total(records)];
+        offsets = pack(records, data);
+        Assert.assertEquals(6, decoder.decodeBatch(data, offsets, records.size(), new byte[9], outOffsets));
+        Assert.assertArrayEquals(new int[]{0, 1, 3, 6}, Arrays.copyOf(outOffsets, 4));
+    }
+
+    @Test
+    public void testIncompleteRecord() throws InterruptedException {
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (int i = 0; i < 10; i++) {
+            records.add("AAAA".getBytes());
+        }
+        records.set(4, "AAA".getBytes());
+        try {
+            Codec.forName("base64").batchExecutor(executor).decode(records);
+            Assert.fail();
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(3, e.getErrorOffset());
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("record 4 "));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for engine selection, and for the agreement of every engine's kernels
+ * with the scalar ones.
+ *
+ * @author Robert J. Buck
+ */
+public class CodecEngineTestCase {
+
+    private static final byte[] BAD_CHARACTERS = {
+            '/', ':', '@', 'G', '`', 'g', ' ', '=', (byte) 0x80, (byte) 0xc1, (byte) 0xe6, (byte) 0xff
+    };
+
+    @Test
+    public void testSelect() {
+        Set<CodecEngine> all = EnumSet.allOf(CodecEngine.class);
+        Set<CodecEngine> scalar = EnumSet.of(CodecEngine.SCALAR);
+        Assert.assertEquals(CodecEngine.SCALAR, EngineRegistry.select("scalar", all));
+        Assert.assertEquals(CodecEngine.SWAR, EngineRegistry.select(" SWAR ", all));
+        Assert.assertEquals(CodecEngine.VECTOR, EngineRegistry.select("Vector", all));
+        Assert.assertEquals(CodecEngine.SCALAR, EngineRegistry.select("vector", scalar));
+        Assert.assertEquals(CodecEngine.SCALAR, EngineRegistry.select("avx512", scalar));
+        Assert.assertEquals(CodecEngine.SCALAR, EngineRegistry.select(null, scalar));
+        Assert.assertNotEquals(CodecEngine.VECTOR,
+                EngineRegistry.select(null, EnumSet.of(CodecEngine.SCALAR, CodecEngine.SWAR)));
+    }
+
+    @Test
+    public void testCodecEngine() {
+        Codec base16 = Codec.forName("base16");
+        Assert.assertEquals(Base16Kernel.INSTANCE.engine(), base16.engine());
+        Assert.assertTrue(Base16Kernel.engines().contains(base16.engine()));
+        Assert.assertEquals(base16.engine(), base16.cached(16).engine());
+        Assert.assertEquals(Base64Kernel.INSTANCE.engine(), Codec.forName("base64url").engine());
+        Assert.assertEquals(CodecEngine.SCALAR, Codec.forName("base85").engine());
+    }
+
+    @Test
+    public void testBase16Kernels() {
+        Random random = new Random(16);
+        Base16Kernel scalar = new ScalarBase16Kernel();
+        for (CodecEngine engine : Base16Kernel.engines()) {
+            Base16Kernel kernel = Base16Kernel.forEngine(engine);
+            Assert.assertEquals(engine, kernel.engine());
+            for (int len = 0; len < 160; len++) {
+                byte[] data = new byte[len + 3];
+                random.nextBytes(data);
+                byte[] expected = new byte[len * 2 + 1];
+                byte[] actual = new byte[len * 2 + 1];
+                scalar.encode(data, 3, len, expected, 1);
+                kernel.encode(data, 3, len, actual, 1);
+                Assert.assertArrayEquals(engine + " " + len, expected, actual);
+
+                // mixed case decodes too
+                for (int i = 1; i < expected.length; i += 3) {
+                    expected[i] = (byte) Character.toLowerCase(expected[i]);
+                }
+                assertDecodes(engine, scalar, kernel, expected, 1, expected.length);
+                for (byte bad : BAD_CHARACTERS) {
+                    if (len > 0) {
+                        byte[] corrupt = expected.clone();
+                        corrupt[1 + random.nextInt(len * 2)] = bad;
+                        assertDecodes(engine, scalar, kernel, corrupt, 1, corrupt.length);
+                    }
+                }
+                // an odd number of characters
+                assertDecodes(engine, scalar, kernel, expected, 0, expected.length);
+            }
+        }
+    }
+
+    private static void assertDecodes(CodecEngine engine, Base16Kernel scalar, Base16Kernel kernel,
+                                      byte[] src, int off, int end) {
+        byte[] expected = new byte[src.length];
+        byte[] actual = new byte[src.length];
+        Assert.assertEquals(engine.name(), scalar.decode(src, off, end, expected, 2),
+                kernel.decode(src, off, end, actual, 2));
+        Assert.assertArrayEquals(engine.name(), expected, actual);
+    }
+
+    @Test
+    public void testBase64Kernels() {
+        Random random = new Random(64);
+        Base64Kernel scalar = new ScalarBase64Kernel();
+        for (String name : new String[]{"base64", "base64url"}) {
+            Base64 codec = (Base64) Codec.forName(name);
+            for (CodecEngine engine : Base64Kernel.engines()) {
+                Base64Kernel kernel = Base64Kernel.forEngine(engine);
+                Assert.assertEquals(engine, kernel.engine());
+                for (int triplets = 0; triplets < 60; triplets++) {
+                    byte[] data = new byte[triplets * 3 + 1];
+                    random.nextBytes(data);
+                    byte[] expected = new byte[triplets * 4 + 2];
+                    byte[] actual = new byte[triplets * 4 + 2];
+                    scalar.encode(codec.encodeTable, data, 1, triplets, expected, 2);
+                    kernel.encode(codec.encodeTable, data, 1, triplets, actual, 2);
+                    Assert.assertArrayEquals(name + " " + engine, expected, actual);
+
+                    assertDecodes(codec, engine, scalar, kernel, expected, 2, expected.length);
+                    for (byte bad : BAD_CHARACTERS) {
+                        if (triplets > 0) {
+                            byte[] corrupt = expected.clone();
+                            corrupt[2 + random.nextInt(triplets * 4)] = bad;
+                            assertDecodes(codec, engine, scalar, kernel, corrupt, 2, corrupt.length);
+                        }
+                    }
+                    // a partial quadruple at the end
+                    assertDecodes(codec, engine, scalar, kernel, expected, 0, expected.length);
+                }
+            }
+        }
+    }
+
+    private static void assertDecodes(Base64 codec, CodecEngine engine, Base64Kernel scalar, Base64Kernel kernel,
+                                      byte[] src, int off, int end) {
+        byte[] expected = new byte[src.length];
+        byte[] actual = new byte[src.length];
+        Assert.assertEquals(engine.name(), scalar.decode(codec.decodeTable, src, off, end, expected, 1),
+                kernel.decode(codec.decodeTable, src, off, end, actual, 1));
+        Assert.assertTrue(engine.name(), Arrays.equals(expected, actual));
+    }
+}
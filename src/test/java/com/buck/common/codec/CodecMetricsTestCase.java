@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Tests for codec metrics.
+ *
+ * @author Robert J. Buck
+ */
+public class CodecMetricsTestCase {
+
+    private static long total(long[] histogram) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        Codec codec = CodecMetrics.instrument(Codec.forName("base16"));
+        Assert.assertEquals(Codec.forName("base16"), codec);
+        Assert.assertSame(codec, CodecMetrics.instrument(codec));
+
+        CodecMetrics metrics = CodecMetrics.forCodec("base16");
+        Assert.assertNotNull(metrics);
+        Assert.assertSame(metrics, CodecMetrics.all().get("base16"));
+        metrics.reset();
+
+        CodecEncoder enc = codec.newEncoder();
+        CodecDecoder dec = codec.newDecoder();
+        Assert.assertEquals("CAFE", enc.encodeToString(new byte[]{(byte) 0xca, (byte) 0xfe}));
+        Assert.assertEquals("0xCAFE", enc.encode(new byte[]{(byte) 0xca, (byte) 0xfe}, new StringBuilder("0x")).toString());
+        Assert.assertNull(enc.encodeToString(null));
+        Assert.assertNull(enc.encode(null, new StringBuilder()));
+        Assert.assertEquals(2, dec.decode("cafe".getBytes("US-ASCII")).length);
+        Assert.assertNull(dec.decode("caf".getBytes("US-ASCII")));
+        Assert.assertEquals(0, dec.tryDecode("xyzw".getBytes("US-ASCII")).errorOffset());
+
+        Assert.assertEquals(2, metrics.getEncodeCount());
+        Assert.assertEquals(4, metrics.getEncodeInputBytes());
+        Assert.assertEquals(8, metrics.getEncodeOutputBytes());
+        Assert.assertEquals(2, total(metrics.getEncodeLatencyHistogram()));
+        Assert.assertEquals(3, metrics.getDecodeCount());
+        Assert.assertEquals(11, metrics.getDecodeInputBytes());
+        Assert.assertEquals(2, metrics.getDecodeOutputBytes());
+        Assert.assertEquals(3, total(metrics.getDecodeLatencyHistogram()));
+        Assert.assertEquals(2, metrics.getMalformedCount());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.buck.codec:type=CodecMetrics,name=\"base16\"");
+        Assert.assertEquals(2L, server.getAttribute(name, "MalformedCount"));
+        Assert.assertEquals("base16", server.getAttribute(name, "CodecName"));
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getDecodeCount());
+        Assert.assertEquals(0, total(metrics.getDecodeLatencyHistogram()));
+    }
+
+    @Test
+    public void testMalformedException() throws Exception {
+        Codec codec = CodecMetrics.instrument(Codec.forName("pct-encoded"));
+        CodecMetrics metrics = CodecMetrics.forCodec(codec.name());
+        metrics.reset();
+        try {
+            codec.newDecoder().decode("abc%2".getBytes("US-ASCII"));
+            Assert.fail("expected MalformedInputException");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(3, e.getErrorOffset());
+        }
+        Assert.assertEquals(1, metrics.getDecodeCount());
+        Assert.assertEquals(1, metrics.getMalformedCount());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests for codec pipelines and the codec streams they are built from.
+ *
+ * @author Robert J. Buck
+ */
+public class CodecPipelineTestCase {
+
+    private static final String[] STREAMED = {
+            "base16", "base32", "base32-nopad", "base32hex", "base32-crockford",
+            "base64", "base64-mime", "base64url-nopad", "base85", "base58"
+    };
+
+    private static byte[] random(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Text-like data, so that compression has something to do.
+     */
+    private static byte[] text(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ("the quick brown fox ".charAt(i % 20) + (i / 997) % 3);
+        }
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream in, Random random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1000];
+        int r;
+        while ((r = in.read(chunk, 0, 1 + random.nextInt(chunk.length))) >= 0) {
+            bytes.write(chunk, 0, r);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testStreamsMatchWholeEncoding() throws IOException {
+        Random random = new Random(38);
+        for (String name : STREAMED) {
+            Codec codec = Codec.forName(name);
+            int max = name.equals("base58") ? 300 : 20000;
+            for (int length : new int[]{0, 1, 2, 3, 4, 5, 57, 4095, 4096, 4097, max}) {
+                byte[] data = random(random, Math.min(length, max));
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                OutputStream out = new CodecOutputStream(encoded, codec);
+                for (int off = 0; off < data.length; ) {
+                    int n = Math.min(data.length - off, 1 + random.nextInt(700));
+                    out.write(data, off, n);
+                    off += n;
+                }
+                out.close();
+                byte[] expected = codec.newEncoder().encode(data);
+                Assert.assertArrayEquals(name + " " + length, expected, encoded.toByteArray());
+
+                InputStream in = new CodecInputStream(new ByteArrayInputStream(expected), codec);
+                Assert.assertArrayEquals(name + " " + length, data, readAll(in, random));
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedStream() throws IOException {
+        byte[] encoded = new byte[10000];
+        Arrays.fill(encoded, (byte) 'A');
+        encoded[6001] = '*';
+        InputStream in = new CodecInputStream(new ByteArrayInputStream(encoded), Codec.forName("base64"));
+        try {
+            readAll(in, new Random(1));
+            Assert.fail();
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(6001, e.getErrorOffset());
+        }
+    }
+
+    @Test
+    public void testLookup() {
+        Codec codec = Codec.forName("deflate+base64");
+        Assert.assertEquals("deflate+base64", codec.name());
+        Assert.assertTrue(Codec.isSupported("gzip+base64-mime"));
+        Assert.assertTrue(Codec.isSupported("sha-256+hex"));
+        Assert.assertFalse(Codec.isSupported("deflate+no-such-codec"));
+        Assert.assertFalse(Codec.isSupported("deflate+"));
+    }
+
+    @Test
+    public void testDeflateBase64() {
+        Codec codec = Codec.forName("deflate+base64");
+        byte[] data = text(200000);
+        byte[] encoded = codec.newEncoder().encode(data);
+        Assert.assertTrue(encoded.length < data.length / 10);
+        Assert.assertArrayEquals(data, codec.newDecoder().decode(encoded));
+    }
+
+    @Test
+    public void testDecodeWithoutBound() {
+        Codec codec = Codec.forName("deflate+base64");
+        CodecDecoder dec = codec.newDecoder();
+        byte[] data = text(200000);
+        byte[] encoded = codec.newEncoder().encode(data);
+        byte[] bad = "AAAAAAAA".getBytes();
+
+        Assert.assertTrue(dec.isValid(encoded));
+        Assert.assertFalse(dec.isValid(bad));
+        Assert.assertArrayEquals(data, dec.tryDecode(encoded).bytes());
+        Assert.assertTrue(dec.tryDecode(bad).isMalformed());
+
+        byte[] dst = new byte[data.length + 1];
+        Assert.assertEquals(data.length, dec.decode(encoded, 0, encoded.length, dst, 1));
+        Assert.assertArrayEquals(data, Arrays.copyOfRange(dst, 1, dst.length));
+        try {
+            dec.decode(encoded, 0, encoded.length, new byte[100], 0);
+            Assert.fail("expected ArrayIndexOutOfBoundsException");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // expected
+        }
+
+        byte[] value = codec.newEncoder().encode(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        Assert.assertEquals(0x0102030405060708L, dec.decodeLong(value, 0, value.length));
+        try {
+            dec.decodeInt(value, 0, value.length);
+            Assert.fail("expected MalformedInputException");
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(0, e.getErrorOffset());
+        }
+
+        Transcoder transcoder = Codec.transcoder(codec, Codec.forName("base16"));
+        byte[] hex = Codec.forName("base16").newEncoder().encode(data);
+        Assert.assertArrayEquals(hex, transcoder.transcode(encoded));
+        Assert.assertNull(transcoder.transcode(bad));
+        Assert.assertEquals(Integer.MAX_VALUE, transcoder.maxTranscodedLength(encoded.length));
+    }
+
+    @Test
+    public void testGzipBase64Mime() throws IOException {
+        CodecPipeline pipeline = new CodecPipeline(CodecPipeline.Stage.gzip(),
+                CodecPipeline.Stage.of(Codec.forName("base64-mime")));
+        Assert.assertEquals("gzip+base64-mime", pipeline.name());
+        byte[] data = text(100000);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        pipeline.encode(new ByteArrayInputStream(data), encoded);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        pipeline.decode(new ByteArrayInputStream(encoded.toByteArray()), decoded);
+        Assert.assertArrayEquals(data, decoded.toByteArray());
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        byte[] data = text(10000);
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+        Codec codec = Codec.forName("sha-256+base16");
+        Assert.assertArrayEquals(Codec.forName("base16").newEncoder().encode(digest),
+                codec.newEncoder().encode(data));
+        try {
+            codec.newDecoder().decode(new byte[64]);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        Codec codec = Codec.forName("deflate+base64");
+        Assert.assertNull(codec.newDecoder().decode("not*base64".getBytes()));
+        // well formed base64 that is not deflated data
+        Assert.assertNull(codec.newDecoder().decode("AAAAAAAA".getBytes()));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/**
+ * Tests for the form parser.
+ *
+ * @author Robert J. Buck
+ */
+public class FormParserTestCase {
+
+    private static byte[] ascii(String s) throws UnsupportedEncodingException {
+        return s.getBytes("US-ASCII");
+    }
+
+    private static String string(byte[] bytes) throws UnsupportedEncodingException {
+        return new String(bytes, "ISO-8859-1");
+    }
+
+    @Test
+    public void testParse() throws UnsupportedEncodingException {
+        byte[] body = ascii("xxa=1&b=two+words&&c&d%20e=%41%42&f==g&=h");
+        FormParser form = new FormParser();
+        Assert.assertEquals(6, form.parse(body, 2, body.length - 2));
+        String[][] expected = {{"a", "1"}, {"b", "two words"}, {"c", ""}, {"d e", "AB"}, {"f", "=g"}, {"", "h"}};
+        int[] flags = {0, FormParser.VALUE_ENCODED, 0, FormParser.KEY_ENCODED | FormParser.VALUE_ENCODED, 0, 0};
+        int[] fields = form.fields();
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i][0], string(form.key(i)));
+            Assert.assertEquals(expected[i][1], string(form.value(i)));
+            Assert.assertEquals(flags[i], fields[i * FormParser.FIELD_SIZE + FormParser.FLAGS]);
+            Assert.assertTrue(form.keyEquals(i, expected[i][0]));
+        }
+        Assert.assertSame(body, form.data());
+        Assert.assertEquals(2, fields[FormParser.KEY_OFFSET]);
+        Assert.assertEquals(4, fields[FormParser.VALUE_OFFSET]);
+        Assert.assertEquals(1, fields[FormParser.VALUE_LENGTH]);
+        Assert.assertFalse(form.keyEquals(0, "b"));
+
+        byte[] dst = new byte[16];
+        Assert.assertEquals(9, form.decodeValue(1, dst, 0));
+        Assert.assertEquals("two words", new String(dst, 0, 9, "US-ASCII"));
+    }
+
+    @Test
+    public void testLazyMalformedEscape() throws UnsupportedEncodingException {
+        byte[] body = ascii("a=%zz&b=2");
+        FormParser form = new FormParser();
+        Assert.assertEquals(2, form.parse(body, 0, body.length));
+        Assert.assertEquals("2", string(form.value(1)));
+        try {
+            form.value(0);
+            Assert.fail();
+        } catch (MalformedInputException e) {
+            Assert.assertEquals(2, e.getErrorOffset());
+        }
+        Assert.assertEquals(-(2 + 1), form.decodeValue(0, new byte[8], 0));
+    }
+
+    @Test
+    public void testChunks() throws UnsupportedEncodingException {
+        Random random = new Random(50);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                sb.append('&');
+            }
+            sb.append("key").append(i).append(i % 3 == 0 ? "%2B" : "").append('=');
+            sb.append(i % 2 == 0 ? "v+" : "v").append(random.nextInt());
+        }
+        byte[] body = ascii(sb.toString());
+        FormParser whole = new FormParser();
+        int count = whole.parse(body, 0, body.length);
+        Assert.assertEquals(2000, count);
+
+        FormParser chunked = new FormParser();
+        for (int round = 0; round < 2; round++) {
+            int complete = 0;
+            for (int off = 0; off < body.length; ) {
+                int n = Math.min(body.length - off, 1 + random.nextInt(100));
+                int now = chunked.update(body, off, n);
+                Assert.assertTrue(now >= complete);
+                complete = now;
+                off += n;
+            }
+            Assert.assertEquals(count, chunked.finish());
+            for (int i = 0; i < count; i++) {
+                Assert.assertArrayEquals(whole.key(i), chunked.key(i));
+                Assert.assertArrayEquals(whole.value(i), chunked.value(i));
+            }
+            chunked.reset();
+        }
+        // the large body's buffer is dropped, and a new one made
+        byte[] small = ascii("a=1&b");
+        chunked.update(small, 0, small.length);
+        Assert.assertEquals(2, chunked.finish());
+        Assert.assertArrayEquals(ascii("1"), chunked.value(0));
+    }
+}
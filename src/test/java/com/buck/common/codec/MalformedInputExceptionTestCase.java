@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that malformed input exceptions report their offsets.
+ *
+ * @author Robert J. Buck
+ */
+public class MalformedInputExceptionTestCase {
+    @Test
+    public void testMalformedInputException() {
+        {
+            MalformedInputException e = new MalformedInputException("message");
+            Assert.assertEquals("message", e.getMessage());
+            Assert.assertEquals(-1, e.getErrorOffset());
+            Assert.assertTrue(e.getStackTrace().length > 0);
+        }
+        {
+            MalformedInputException e = new MalformedInputException("base64", 12345);
+            Assert.assertEquals(12345, e.getErrorOffset());
+            Assert.assertTrue(e.getMessage().contains("'base64'"));
+            Assert.assertTrue(e.getMessage().contains("12345"));
+        }
+        {
+            Object[] arguments = {"pct-encoded", 7};
+            MalformedInputException e = MalformedInputException.stackless("CODEC_DECODER_MALFORMED_INPUT_AT", arguments, 7);
+            Assert.assertEquals(7, e.getErrorOffset());
+            Assert.assertEquals(0, e.getStackTrace().length);
+            Assert.assertTrue(e.getMessage().contains("'pct-encoded'"));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Checks every standard codec against digests of its output recorded from
+ * the Java 6 classes. The multi-release profile runs this test against the
+ * packaged jar on each overlay's runtime, so any overlay that differs from
+ * the base classes by a single byte fails here.
+ *
+ * @author Robert J. Buck
+ */
+public class MultiReleaseTestCase {
+
+    private static final String[][] BASELINE = {
+            {"base16", "D9E0D370361459DA75DD908135823516FD208993AF6159722ADD83D186CB9652"},
+            {"base32", "5DE39833AB650EBC5F17A4465651B4600DA5D92E05B8328DA1348AB2006B0595"},
+            {"base32-nopad", "F1BBC0D1FA83B9154317AAB2F4CA63D058DCFF925CEE42B2E1C787AC004A544E"},
+            {"base32hex", "F6A6DE206F4D23FDCBD4EF1B39643807199F76602CA46F686D8FAA3F0209E7CE"},
+            {"base32hex-nopad", "5A1318B0FC5A2C82EA1E702DF2552614FB6B8CD213DF5209C98A3CCDD5BA84B3"},
+            {"base32-crockford", "130CF38AE5FFDA18AC616905F262DAC16CF908F1F89B6CB821650B796DD4512A"},
+            {"base32-crockford-check", "E5F45E9E077C51C2685E4C3BF1F225AF3C11CE52C7E897AF7E33EF1820341CFC"},
+            {"base64", "E4FC729436EFB007F0346A98D2168BB017F063BE9C9590EB10CDE36B4F5D0EF0"},
+            {"base64-nopad", "04B2BA7114F21C1831DFCA928722387587955767F9A1538D5E8F5D9A69D460A8"},
+            {"base64-mime", "259A1CFFFFCB7B835A7D88B6796ED2ADB4B14BBB8CA7F51AB9BD29CB9AD7E4A4"},
+            {"base64url", "55F4EE6882471AC5920EAC5A77317315F31B49E23954BD377FC5B89422FB6941"},
+            {"base64url-nopad", "BCDAD1B3CDCAED930DA2467B7BA6C73DD39786FDB9C6E20D4AC1F1F46F27F180"},
+            {"quoted-printable", "9F679704F12956979A1E5AD942818F924AD86FD45C790E0B2D3A72336D588A76"},
+            {"pct-encoded", "B8BCA5123825769A5D1CFE254A4DED9097A3D8A39A1EB6D7B02AE089BE1556EA"},
+            {"pct-encoded:path", "7407963C6500D128E52AB67EF6F9C2AD750488B208E3E9BCB3413FA61623B64C"},
+            {"pct-encoded:path-segment", "31F84E8E0D88B765CBC42582FCAE5BECE9F6218E5C6D13CF592E5CF8A35AD331"},
+            {"pct-encoded:query", "F583DD5115FB7FF1CCEDFCABB74C20F7B840E5890F1328F4A77393C5873C4EE1"},
+            {"pct-encoded:query-param", "3E5FAB9FD4836EE2D927ABD05E47378443ECE4A839BC9B98347258E558E12A15"},
+            {"pct-encoded:fragment", "F583DD5115FB7FF1CCEDFCABB74C20F7B840E5890F1328F4A77393C5873C4EE1"},
+            {"pct-encoded:userinfo", "86337713DAD8961A32F4AABCF4FB71A37A43DFAE8705B385C1819424B1A01296"},
+            {"pct-encoded:host", "3FF65131D749A48559AC4796D9B8E0BDDE1336401F1E3A4036F7BE520C53372E"},
+            {"x-www-form-urlencoded", "FDF53B9EFAB022FA14E0CFE51E2AEE4FA598FB498A648886CD6BA6CE91920CF9"},
+            {"ascii85", "FD5D85CBA160FA04F4027A826BFA440EC17DA332830305B188BE8BE4C5BA86BB"},
+            {"base85", "19D854EEA7140F8C1C5B7060E303EA34F7895CC0F4F06BB5FECB74564571CDB1"},
+            {"z85", "7B793F5393228323FF277F0C00EE1E539D2F795F06B3CF7D93CC8797E95E3EED"},
+            {"base58", "648FD1CA327204821332E84AA6AC023563D734518B6969A149E089F7D1AD91C0"},
+            {"base58-flickr", "6DFEDCD192D226283F3008C00A0EA78047B0EAD793F728061CC2B39D27FA11EE"},
+            {"base58check", "D9E32FA5CF23DB348864817A950F2CCD84A56AE64725C08EC0D0A4067C764B2F"},
+    };
+
+    private static byte[][] samples() {
+        Random random = new Random(0x5eedL);
+        int[] lengths = new int[136];
+        for (int i = 0; i < 130; i++) {
+            lengths[i] = i;
+        }
+        lengths[130] = 255;
+        lengths[131] = 256;
+        lengths[132] = 1021;
+        lengths[133] = 1024;
+        lengths[134] = 4095;
+        lengths[135] = 4099;
+        byte[][] samples = new byte[lengths.length][];
+        for (int i = 0; i < lengths.length; i++) {
+            samples[i] = new byte[lengths[i]];
+            random.nextBytes(samples[i]);
+        }
+        return samples;
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >> 24));
+        digest.update((byte) (value >> 16));
+        digest.update((byte) (value >> 8));
+        digest.update((byte) value);
+    }
+
+    /**
+     * Digests the encodings of the samples, whole and by range at unaligned
+     * offsets, and the results of decoding and validating them intact and
+     * with a byte corrupted.
+     */
+    private static String digest(Codec codec, byte[][] samples) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        CodecEncoder encoder = codec.newEncoder();
+        CodecDecoder decoder = codec.newDecoder();
+        for (byte[] sample : samples) {
+            byte[] encoded = encoder.encode(sample);
+            digest.update(encoded);
+            // not every codec round trips arbitrary bytes, so digest rather
+            // than compare the decoded data
+            byte[] roundTrip = decoder.decode(encoded);
+            update(digest, roundTrip == null ? -1 : roundTrip.length);
+            if (roundTrip != null) {
+                digest.update(roundTrip);
+            }
+
+            int off = sample.length % 8;
+            byte[] src = new byte[off + sample.length];
+            System.arraycopy(sample, 0, src, off, sample.length);
+            byte[] dst = new byte[off + encoder.maxEncodedLength(sample.length)];
+            int n = encoder.encode(src, off, sample.length, dst, off);
+            update(digest, n);
+            digest.update(dst, off, n);
+
+            byte[] decoded = new byte[off + decoder.maxDecodedLength(n)];
+            update(digest, decoder.decode(dst, off, n, decoded, off));
+            digest.update(decoded);
+
+            if (encoded.length > 0) {
+                byte[] corrupt = encoded.clone();
+                corrupt[corrupt.length * 2 / 3] = (byte) 0x80;
+                update(digest, decoder.validate(corrupt, 0, corrupt.length));
+                DecodeResult result = decoder.tryDecode(corrupt);
+                update(digest, result.isMalformed() ? result.errorOffset() : result.length());
+            }
+        }
+        return new Base16().newEncoder().encodeToString(digest.digest());
+    }
+
+    @Test
+    public void testBaseline() throws NoSuchAlgorithmException {
+        byte[][] samples = samples();
+        StringBuilder mismatches = new StringBuilder();
+        for (String[] baseline : BASELINE) {
+            String actual = digest(Codec.forName(baseline[0]), samples);
+            if (!baseline[1].equals(actual)) {
+                mismatches.append(baseline[0]).append(' ').append(actual).append('\n');
+            }
+        }
+        Assert.assertEquals("", mismatches.toString());
+    }
+
+    @Test
+    public void testEveryCodecHasBaseline() {
+        Iterator<Codec> i = new StandardCodecs().codecs();
+        while (i.hasNext()) {
+            String name = i.next().name().toLowerCase();
+            boolean found = false;
+            for (String[] baseline : BASELINE) {
+                found |= baseline[0].equals(name);
+            }
+            Assert.assertTrue(name, found);
+        }
+    }
+}
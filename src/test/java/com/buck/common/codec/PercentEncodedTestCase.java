@@ -125,4 +125,66 @@ public class PercentEncodedTestCase {
             }
         }
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("pct-encoded");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("a%2fb%2F".getBytes("US-ASCII"));
+            Assert.assertEquals("a/b/", new String(result.bytes(), "US-ASCII"));
+        }
+        {
+            Assert.assertEquals(0, dec.tryDecode("%E@".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(2, dec.tryDecode("ab%2".getBytes("US-ASCII")).errorOffset());
+        }
+        {
+            try {
+                dec.decode("ab%xy".getBytes("US-ASCII"));
+                Assert.fail("malformed input");
+            } catch (MalformedInputException e) {
+                Assert.assertEquals(2, e.getErrorOffset());
+                Assert.assertEquals(0, e.getStackTrace().length);
+            }
+        }
+    }
+
+    @Test
+    public void testValidate() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("pct-encoded").newDecoder();
+        Assert.assertTrue(dec.isValid("a%20b%2f".getBytes("US-ASCII")));
+        Assert.assertEquals(1, dec.validate("a%2gb".getBytes("US-ASCII"), 0, 5));
+        Assert.assertEquals(3, dec.validate("abc%2".getBytes("US-ASCII"), 0, 5));
+        Assert.assertEquals(-1, dec.validate("abc%2".getBytes("US-ASCII"), 0, 3));
+    }
+
+    @Test
+    public void testProfiles() throws UnsupportedEncodingException {
+        String raw = "a/b c?d=e&f+g#h@i:j;k!l~m%n[o]";
+        String[][] tests = {
+                {"pct-encoded", "a%2Fb%20c%3Fd%3De%26f%2Bg%23h%40i%3Aj%3Bk%21l~m%25n%5Bo%5D"},
+                {"pct-encoded:path", "a/b%20c%3Fd=e&f+g%23h@i:j;k!l~m%25n%5Bo%5D"},
+                {"pct-encoded:path-segment", "a%2Fb%20c%3Fd=e&f+g%23h@i:j;k!l~m%25n%5Bo%5D"},
+                {"pct-encoded:query", "a/b%20c?d=e&f+g%23h@i:j;k!l~m%25n%5Bo%5D"},
+                {"pct-encoded:query-param", "a/b%20c?d%3De%26f%2Bg%23h@i:j;k!l~m%25n%5Bo%5D"},
+                {"pct-encoded:fragment", "a/b%20c?d=e&f+g%23h@i:j;k!l~m%25n%5Bo%5D"},
+                {"pct-encoded:userinfo", "a%2Fb%20c%3Fd=e&f+g%23h%40i:j;k!l~m%25n%5Bo%5D"},
+                {"pct-encoded:host", "a%2Fb%20c%3Fd=e&f+g%23h%40i%3Aj;k!l~m%25n%5Bo%5D"},
+        };
+        for (String[] test : tests) {
+            Codec codec = Codec.forName(test[0]);
+            Assert.assertEquals(test[0], codec.name());
+            Assert.assertEquals(test[0], test[1], codec.newEncoder().encodeToString(raw.getBytes("US-ASCII")));
+            Assert.assertEquals(test[0], raw, new String(codec.newDecoder().decodeString(test[1]), "US-ASCII"));
+        }
+        // every octet outside the profile is escaped, so all profiles round trip
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        for (String[] test : tests) {
+            Codec codec = Codec.forName(test[0]);
+            Assert.assertArrayEquals(test[0], all, codec.newDecoder().decode(codec.newEncoder().encode(all)));
+        }
+    }
 }
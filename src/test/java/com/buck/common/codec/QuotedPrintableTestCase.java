@@ -244,4 +244,37 @@ public class QuotedPrintableTestCase {
             Assert.assertEquals(eds, new String(oda, "US-ASCII"));
         }
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("quoted-printable");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("1+1 =3D=\r\n 2".getBytes("US-ASCII"));
+            Assert.assertEquals("1+1 = 2", new String(result.bytes(), "US-ASCII"));
+        }
+        {
+            Assert.assertEquals(3, dec.tryDecode("abc=".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(1, dec.tryDecode("a=3".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(1, dec.tryDecode("a= x\r\n".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(1, dec.tryDecode("a\u0000".getBytes("US-ASCII")).errorOffset());
+        }
+        {
+            try {
+                dec.decode("abc=".getBytes("US-ASCII"));
+                Assert.fail("malformed input");
+            } catch (MalformedInputException e) {
+                Assert.assertEquals(3, e.getErrorOffset());
+            }
+        }
+    }
+
+    @Test
+    public void testValidate() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("quoted-printable").newDecoder();
+        Assert.assertTrue(dec.isValid("a=3Db= \r\nc".getBytes("US-ASCII")));
+        Assert.assertEquals(1, dec.validate("a=3".getBytes("US-ASCII"), 0, 3));
+        Assert.assertEquals(1, dec.validate("a= x".getBytes("US-ASCII"), 0, 4));
+        Assert.assertEquals(1, dec.validate("a\u0001".getBytes("US-ASCII"), 0, 2));
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tests the SortableIdGenerator class.
+ *
+ * @author Robert J. Buck
+ */
+public class SortableIdGeneratorTestCase {
+
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            int c = (a[i] & 0xff) - (b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    @Test
+    public void testMonotonic() {
+        SortableIdGenerator generator = new SortableIdGenerator();
+        byte[] previous = generator.next();
+        for (int i = 0; i < 100000; i++) {
+            byte[] key = generator.next();
+            Assert.assertEquals(SortableIdGenerator.ENCODED_LENGTH, key.length);
+            Assert.assertTrue(compare(previous, key) < 0);
+            previous = key;
+        }
+    }
+
+    @Test
+    public void testDecode() throws UnsupportedEncodingException {
+        SortableIdGenerator generator = new SortableIdGenerator();
+        long before = System.currentTimeMillis();
+        byte[] buffer = new byte[SortableIdGenerator.ENCODED_LENGTH + 4];
+        Assert.assertEquals(SortableIdGenerator.ENCODED_LENGTH, generator.next(buffer, 4));
+        long after = System.currentTimeMillis();
+
+        byte[] key = new byte[SortableIdGenerator.ENCODED_LENGTH];
+        System.arraycopy(buffer, 4, key, 0, key.length);
+        UUID id = SortableIdGenerator.decode(key);
+        Assert.assertNotNull(id);
+        long timestamp = SortableIdGenerator.timestamp(id);
+        Assert.assertTrue(timestamp >= before && timestamp <= after);
+
+        // the direct encoding must match the generic UUID encoding
+        UUIDCoder coder = new UUIDCoder(new Base32Hex());
+        Assert.assertEquals(new String(key, "US-ASCII"), new String(coder.encode(id), "US-ASCII"));
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        final SortableIdGenerator generator = new SortableIdGenerator(4);
+        final Set<String> keys = Collections.synchronizedSet(new HashSet<String>());
+        final int count = 20000;
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    byte[] key = new byte[SortableIdGenerator.ENCODED_LENGTH];
+                    for (int i = 0; i < count; i++) {
+                        generator.next(key, 0);
+                        keys.add(CodecEncoder.latin1(key, 0, key.length));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(threads.length * count, keys.size());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for direct transcoding between codecs.
+ *
+ * @author Robert J. Buck
+ */
+public class TranscoderTestCase {
+
+    private static final String[] CODECS = {
+            "base16", "base32", "base32hex-nopad", "base32-crockford", "base64",
+            "base64-mime", "base64url-nopad", "base85", "base58"
+    };
+
+    private static byte[] random(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testBlockSize() {
+        Codec base64 = Codec.forName("base64");
+        Codec base32 = Codec.forName("base32");
+        Assert.assertEquals(15, Codec.transcoder(base64, base32).blockSize());
+        Assert.assertEquals(15, Codec.transcoder(base32, base64).blockSize());
+        Assert.assertEquals(3, Codec.transcoder(Codec.forName("base16"), base64).blockSize());
+        Assert.assertEquals(57, Codec.transcoder(base64, Codec.forName("base64-mime")).blockSize());
+        Assert.assertEquals(0, Codec.transcoder(Codec.forName("base58"), base64).blockSize());
+    }
+
+    @Test
+    public void testEncodeRange() {
+        Random random = new Random(39);
+        for (String name : new String[]{"base16", "base32", "base64", "base64-mime", "base85", "base58"}) {
+            CodecEncoder encoder = Codec.forName(name).newEncoder();
+            for (int length = 0; length < 200; length += 7) {
+                byte[] data = random(random, length + 10);
+                byte[] expected = encoder.encode(Arrays.copyOfRange(data, 5, 5 + length));
+                byte[] encoded = new byte[encoder.maxEncodedLength(length) + 3];
+                int n = encoder.encode(data, 5, length, encoded, 3);
+                Assert.assertEquals(name, expected.length, n);
+                Assert.assertArrayEquals(name, expected, Arrays.copyOfRange(encoded, 3, 3 + n));
+            }
+        }
+    }
+
+    @Test
+    public void testTranscode() throws IOException {
+        Random random = new Random(39);
+        for (String fromName : CODECS) {
+            for (String toName : CODECS) {
+                Codec from = Codec.forName(fromName);
+                Codec to = Codec.forName(toName);
+                Transcoder transcoder = Codec.transcoder(from, to);
+                for (int length : new int[]{0, 1, 2, 14, 15, 16, 57, 1500, 3001}) {
+                    if (length > 200 && (fromName.equals("base58") || toName.equals("base58"))) {
+                        continue;
+                    }
+                    byte[] data = random(random, length);
+                    byte[] encoded = from.newEncoder().encode(data);
+                    byte[] expected = to.newEncoder().encode(data);
+                    String message = fromName + " to " + toName + " " + length;
+                    Assert.assertArrayEquals(message, expected, transcoder.transcode(encoded));
+
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    transcoder.transcode(new ByteArrayInputStream(encoded), out);
+                    Assert.assertArrayEquals(message, expected, out.toByteArray());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMalformed() {
+        Transcoder transcoder = Codec.transcoder(Codec.forName("base64"), Codec.forName("base32hex"));
+        byte[] encoded = new byte[8000];
+        Arrays.fill(encoded, (byte) 'A');
+        encoded[5001] = '*';
+        Assert.assertEquals(-5002, transcoder.transcode(encoded, 0, encoded.length,
+                new byte[transcoder.maxTranscodedLength(encoded.length)], 0));
+        Assert.assertNull(transcoder.transcode(encoded));
+
+        // no data may follow padding, even in a later block
+        byte[] padded = new byte[8000];
+        Arrays.fill(padded, (byte) 'A');
+        padded[2046] = '=';
+        padded[2047] = '=';
+        Assert.assertEquals(-2049, transcoder.transcode(padded, 0, padded.length,
+                new byte[transcoder.maxTranscodedLength(padded.length)], 0));
+    }
+
+    @Test
+    public void testParallel() throws InterruptedException {
+        Random random = new Random(39);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            String[][] pairs = {{"base64", "base32hex"}, {"base64-mime", "base16"}, {"base32", "base64-mime"}};
+            for (String[] pair : pairs) {
+                Codec from = Codec.forName(pair[0]);
+                Codec to = Codec.forName(pair[1]);
+                Transcoder transcoder = Codec.transcoder(from, to);
+                byte[] data = random(random, 1000001);
+                byte[] encoded = from.newEncoder().encode(data);
+                byte[] expected = to.newEncoder().encode(data);
+                byte[] transcoded = new byte[transcoder.maxTranscodedLength(encoded.length)];
+                int n = transcoder.transcode(encoded, 0, encoded.length, transcoded, 0, executor);
+                Assert.assertEquals(pair[0], expected.length, n);
+                Assert.assertArrayEquals(pair[0], expected, Arrays.copyOf(transcoded, n));
+
+                encoded[encoded.length / 2] = '*';
+                Assert.assertEquals(-(encoded.length / 2 + 1), transcoder.transcode(encoded, 0, encoded.length,
+                        transcoded, 0, executor));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -134,4 +134,26 @@ public class URLEncodedTestCase {
             Assert.assertEquals(ids, new String(eda, "US-ASCII"));
         }
     }
+
+    @Test
+    public void testTryDecode() throws UnsupportedEncodingException {
+        Codec codec = Codec.forName("x-www-form-urlencoded");
+        CodecDecoder dec = codec.newDecoder();
+        {
+            DecodeResult result = dec.tryDecode("two+words%0d%0A".getBytes("US-ASCII"));
+            Assert.assertEquals("two words\r\n", new String(result.bytes(), "US-ASCII"));
+        }
+        {
+            Assert.assertEquals(3, dec.tryDecode("a+b%zz".getBytes("US-ASCII")).errorOffset());
+            Assert.assertEquals(0, dec.tryDecode("%".getBytes("US-ASCII")).errorOffset());
+        }
+    }
+
+    @Test
+    public void testValidate() throws UnsupportedEncodingException {
+        CodecDecoder dec = Codec.forName("www-form-urlencoded").newDecoder();
+        Assert.assertTrue(dec.isValid("a+b%2Fc".getBytes("US-ASCII")));
+        Assert.assertEquals(1, dec.validate("a%zzb".getBytes("US-ASCII"), 0, 5));
+        Assert.assertEquals(3, dec.validate("abc%".getBytes("US-ASCII"), 0, 4));
+    }
 }
@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Random;
 import java.util.UUID;
 
 /**
@@ -36,4 +37,42 @@ public class UUIDCoderTestCase {
         UUIDCoder coder = new UUIDCoder(new Base32Hex());
         Assert.assertEquals(eus, new String(coder.encode(new UUID(msb, lsb)), "US-ASCII"));
     }
+
+    @Test
+    public void testUUIDDecoder() throws UnsupportedEncodingException {
+        {
+            final UUID uuid = new UUID(5226711629596803800L, -6266244777592174095L);
+            UUIDCoder coder = new UUIDCoder(new Base32Hex());
+            Assert.assertEquals(uuid, coder.decode("924G5279GL1DHA89QE9I7U69U4".getBytes("US-ASCII")));
+            Assert.assertEquals(uuid, coder.decode("924G5279GL1DHA89QE9I7U69U4======".getBytes("US-ASCII")));
+        }
+        {
+            Random rnd = new Random(37);
+            Codec[] codecs = {new Base16(), new Base32(), new Base32Hex(), new Base64(), new Base64URL(),
+                    new Base64Mime(), new Base58()};
+            for (Codec codec : codecs) {
+                UUIDCoder coder = new UUIDCoder(codec);
+                for (int i = 0; i < 1000; i++) {
+                    UUID uuid = new UUID(rnd.nextLong(), rnd.nextLong());
+                    Assert.assertEquals(uuid, coder.decode(coder.encode(uuid)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUUIDStrings() {
+        final UUID uuid = new UUID(5226711629596803800L, -6266244777592174095L);
+        UUIDCoder coder = new UUIDCoder(new Base32Hex());
+        Assert.assertEquals("924G5279GL1DHA89QE9I7U69U4", coder.encodeToString(uuid));
+        Assert.assertEquals(uuid, coder.decodeString("924G5279GL1DHA89QE9I7U69U4"));
+        Assert.assertNull(coder.decodeString("924G5279GL1DHA89QE9I7U69U\u20ac"));
+        UUIDCoder base64 = new UUIDCoder(new Base64URL());
+        Assert.assertEquals("SIkCiOmFQtipCdOTI_jJ8Q", base64.encodeToString(uuid));
+        Assert.assertEquals(uuid, base64.decodeString("SIkCiOmFQtipCdOTI_jJ8Q"));
+        Assert.assertEquals(uuid, base64.decodeString("SIkCiOmFQtipCdOTI_jJ8Q=="));
+        UUIDCoder mime = new UUIDCoder(new Base64Mime());
+        Assert.assertEquals("SIkCiOmFQtipCdOTI/jJ8Q", mime.encodeToString(uuid));
+        Assert.assertEquals(uuid, mime.decodeString("SIkCiOmFQtipCdOTI/jJ8Q"));
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec.spi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the per-thread scratch buffer pool.
+ *
+ * @author Robert J. Buck
+ */
+public class ScratchBuffersTestCase {
+
+    @Test
+    public void testReuse() {
+        byte[] buffer = ScratchBuffers.acquire(100);
+        Assert.assertEquals(128, buffer.length);
+        ScratchBuffers.release(buffer);
+        Assert.assertSame(buffer, ScratchBuffers.acquire(65));
+        // while it is held, the same size class is served by a new buffer
+        byte[] other = ScratchBuffers.acquire(128);
+        Assert.assertNotSame(buffer, other);
+        ScratchBuffers.release(other);
+        ScratchBuffers.release(buffer);
+        Assert.assertSame(other, ScratchBuffers.acquire(128));
+    }
+
+    @Test
+    public void testSizeClasses() {
+        Assert.assertEquals(64, ScratchBuffers.acquire(0).length);
+        Assert.assertEquals(64, ScratchBuffers.acquire(64).length);
+        Assert.assertEquals(4096, ScratchBuffers.acquire(4000).length);
+        Assert.assertTrue(ScratchBuffers.isPooled(65536));
+    }
+
+    @Test
+    public void testLargeRequestsAreAllocated() {
+        Assert.assertFalse(ScratchBuffers.isPooled(65537));
+        byte[] buffer = ScratchBuffers.acquire(100000);
+        Assert.assertEquals(100000, buffer.length);
+        ScratchBuffers.release(buffer);
+        Assert.assertNotSame(buffer, ScratchBuffers.acquire(100000));
+    }
+
+    @Test
+    public void testThreadsHaveOwnBuffers() throws InterruptedException {
+        final byte[] buffer = ScratchBuffers.acquire(256);
+        ScratchBuffers.release(buffer);
+        final byte[][] seen = new byte[1][];
+        Thread thread = new Thread() {
+            public void run() {
+                seen[0] = ScratchBuffers.acquire(256);
+            }
+        };
+        thread.start();
+        thread.join();
+        Assert.assertNotSame(buffer, seen[0]);
+    }
+}
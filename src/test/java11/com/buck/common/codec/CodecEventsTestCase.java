@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Tests for flight recorder codec events.
+ *
+ * @author Robert J. Buck
+ */
+public class CodecEventsTestCase {
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name, String codec) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name) && codec.equals(event.getString("codec"))) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        Assume.assumeTrue(CodecEvents.events.isAvailable());
+        File file = File.createTempFile("codec", ".jfr");
+        try {
+            Recording recording = new Recording();
+            recording.enable("codec.Encode");
+            recording.enable("codec.Decode");
+            recording.enable("codec.Lookup");
+            recording.start();
+
+            Codec codec = new RecordedCodec(Codec.forName("base64"));
+            byte[] large = new byte[1 << 17];
+            byte[] encoded = codec.newEncoder().encode(large);
+            codec.newDecoder().decode(encoded);
+            Assert.assertFalse(Codec.isSupported("x-no-such-codec"));
+
+            recording.stop();
+            recording.dump(file.toPath());
+            recording.close();
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+            RecordedEvent encode = find(events, "codec.Encode", "base64");
+            Assert.assertNotNull(encode);
+            Assert.assertEquals(large.length, encode.getLong("inputSize"));
+            Assert.assertEquals(encoded.length, encode.getLong("outputSize"));
+            RecordedEvent decode = find(events, "codec.Decode", "base64");
+            Assert.assertNotNull(decode);
+            Assert.assertEquals(large.length, decode.getLong("outputSize"));
+            Assert.assertFalse(decode.getBoolean("malformed"));
+            RecordedEvent lookup = find(events, "codec.Lookup", "x-no-such-codec");
+            Assert.assertNotNull(lookup);
+            Assert.assertFalse(lookup.getBoolean("found"));
+        } finally {
+            file.delete();
+        }
+    }
+}
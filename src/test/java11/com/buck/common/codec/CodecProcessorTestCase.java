@@ -0,0 +1,238 @@
+/*
+ * Copyright 2010-2013 Robert J. Buck
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.buck.common.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Flow;
+
+/**
+ * Tests for codec processors. These run on the Java 11 layer only.
+ *
+ * @author Robert J. Buck
+ */
+public class CodecProcessorTestCase {
+
+    private static final String[] STREAMED = {
+            "base16", "base32", "base32-nopad", "base32hex", "base32-crockford",
+            "base64", "base64-mime", "base64url-nopad", "base85", "base58",
+            "deflate+base64"
+    };
+
+    /**
+     * Publishes chunks of a byte array, one per request.
+     */
+    private static final class ChunkPublisher implements Flow.Publisher<ByteBuffer> {
+        private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+        private boolean cancelled;
+
+        ChunkPublisher(byte[] data, Random random) {
+            for (int off = 0; off < data.length; ) {
+                int n = Math.min(data.length - off, 1 + random.nextInt(700));
+                chunks.add(ByteBuffer.wrap(data, off, n).slice());
+                off += n;
+            }
+        }
+
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int next;
+
+                public void request(long n) {
+                    for (; n > 0 && !cancelled && next < chunks.size(); n--) {
+                        subscriber.onNext(chunks.get(next++));
+                    }
+                    if (!cancelled && next == chunks.size()) {
+                        next++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Collects the output, requesting a few buffers at a time and releasing
+     * each one after copying it. A manual collector requests only when told.
+     */
+    private static class Collector implements Flow.Subscriber<ByteBuffer> {
+        private final CodecProcessor processor;
+        private final int batch;
+        private final boolean manual;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private Flow.Subscription subscription;
+        private int outstanding;
+        private int received;
+        private boolean complete;
+        private Throwable error;
+
+        Collector(CodecProcessor processor, int batch) {
+            this(processor, batch, false);
+        }
+
+        Collector(CodecProcessor processor, int batch, boolean manual) {
+            this.processor = processor;
+            this.batch = batch;
+            this.manual = manual;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (!manual) {
+                more();
+            }
+        }
+
+        void more() {
+            outstanding += batch;
+            subscription.request(batch);
+        }
+
+        public void onNext(ByteBuffer item) {
+            Assert.assertTrue("demand exceeded", outstanding > 0);
+            outstanding--;
+            received++;
+            byte[] chunk = new byte[item.remaining()];
+            item.get(chunk);
+            bytes.write(chunk, 0, chunk.length);
+            processor.release(item);
+            if (outstanding == 0 && !manual) {
+                more();
+            }
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        public void onComplete() {
+            complete = true;
+        }
+    }
+
+    private static byte[] run(CodecProcessor processor, byte[] data, Random random) {
+        Collector collector = new Collector(processor, 1 + random.nextInt(3));
+        processor.subscribe(collector);
+        new ChunkPublisher(data, random).subscribe(processor);
+        Assert.assertNull(collector.error);
+        Assert.assertTrue(collector.complete);
+        return collector.bytes.toByteArray();
+    }
+
+    @Test
+    public void testProcessorsMatchWholeEncoding() {
+        Random random = new Random(46);
+        for (String name : STREAMED) {
+            Codec codec = Codec.forName(name);
+            int max = name.equals("base58") ? 300 : 20000;
+            for (int length : new int[]{0, 1, 2, 3, 4, 5, 57, 4095, 4096, 4097, max}) {
+                byte[] data = new byte[Math.min(length, max)];
+                random.nextBytes(data);
+                byte[] expected = codec.newEncoder().encode(data);
+                Assert.assertArrayEquals(name + " " + length, expected,
+                        run(CodecProcessor.encoding(codec), data, random));
+                Assert.assertArrayEquals(name + " " + length, data,
+                        run(CodecProcessor.decoding(codec), expected, random));
+            }
+        }
+    }
+
+    @Test
+    public void testDemand() {
+        byte[] data = new byte[20000];
+        new Random(1).nextBytes(data);
+        CodecProcessor processor = CodecProcessor.encoding(Codec.forName("base64"));
+        Collector collector = new Collector(processor, 1, true);
+        processor.subscribe(collector);
+        new ChunkPublisher(data, new Random(2)).subscribe(processor);
+        Assert.assertEquals(0, collector.received);
+        Assert.assertFalse(collector.complete);
+        for (int i = 1; !collector.complete; i++) {
+            collector.more();
+            Assert.assertTrue(collector.received <= i);
+        }
+        Assert.assertArrayEquals(Codec.forName("base64").newEncoder().encode(data), collector.bytes.toByteArray());
+    }
+
+    @Test
+    public void testMalformedStream() {
+        byte[] encoded = new byte[10000];
+        Arrays.fill(encoded, (byte) 'A');
+        encoded[6001] = '*';
+        CodecProcessor processor = CodecProcessor.decoding(Codec.forName("base64"));
+        Collector collector = new Collector(processor, 1);
+        processor.subscribe(collector);
+        ChunkPublisher publisher = new ChunkPublisher(encoded, new Random(3));
+        publisher.subscribe(processor);
+        Assert.assertTrue(collector.error instanceof MalformedInputException);
+        Assert.assertEquals(6001, ((MalformedInputException) collector.error).getErrorOffset());
+        Assert.assertTrue(publisher.cancelled);
+        Assert.assertFalse(collector.complete);
+    }
+
+    @Test
+    public void testSingleSubscriber() {
+        CodecProcessor processor = CodecProcessor.encoding(Codec.forName("base16"));
+        processor.subscribe(new Collector(processor, 1));
+        Collector second = new Collector(processor, 1);
+        processor.subscribe(second);
+        Assert.assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testNonPositiveRequest() {
+        CodecProcessor processor = CodecProcessor.encoding(Codec.forName("base16"));
+        Collector collector = new Collector(processor, 1, true);
+        processor.subscribe(collector);
+        ChunkPublisher publisher = new ChunkPublisher(new byte[100000], new Random(4));
+        publisher.subscribe(processor);
+        collector.subscription.request(0);
+        Assert.assertTrue(collector.error instanceof IllegalArgumentException);
+        Assert.assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void testReleasedBuffersAreReused() {
+        CodecProcessor processor = CodecProcessor.encoding(Codec.forName("base64"));
+        final Set<ByteBuffer> seen = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+        Collector collector = new Collector(processor, 1) {
+            @Override
+            public void onNext(ByteBuffer item) {
+                seen.add(item);
+                super.onNext(item);
+            }
+        };
+        processor.subscribe(collector);
+        new ChunkPublisher(new byte[100000], new Random(5)).subscribe(processor);
+        Assert.assertTrue(collector.complete);
+        Assert.assertEquals(1, seen.size());
+    }
+}